@@ -0,0 +1,163 @@
+-- =====================================================================
+-- Benchmark: UUIDv4 (random) vs UUIDv7 (time-ordered) làm khóa chính BINARY(16)
+--
+-- Mô phỏng bảng `submissions` (khóa chính + các index phụ giống entity Submission),
+-- chèn cùng một lượng dữ liệu tổng hợp với 2 kiểu khóa rồi so sánh:
+--   * thời gian insert (throughput)
+--   * kích thước clustered index / secondary index (số page * page size)
+--
+-- Cách chạy (trên DB benchmark, KHÔNG chạy trên production):
+--   mysql -uroot -p oj_bench < benchmarks/uuid-v7/insert_benchmark.sql
+-- Đổi @rows để tăng/giảm kích thước (mặc định 2 triệu dòng mỗi bảng).
+-- Muốn thấy rõ hiệu ứng buffer pool, cho @rows lớn hơn innodb_buffer_pool_size / ~300 byte.
+-- =====================================================================
+
+SET @rows = 2000000;
+SET @commit_every = 5000;
+
+DROP TABLE IF EXISTS bench_submissions_v4;
+DROP TABLE IF EXISTS bench_submissions_v7;
+
+CREATE TABLE bench_submissions_v4 (
+    id                   BINARY(16)   NOT NULL,
+    user_id              BINARY(16)   NOT NULL,
+    problem_id           BINARY(16)   NOT NULL,
+    contest_id           BINARY(16)   NULL,
+    language_key         VARCHAR(50)  NOT NULL,
+    verdict              VARCHAR(20)  NOT NULL,
+    submission_status    VARCHAR(20)  NOT NULL,
+    score                INT          NULL,
+    execution_time_ms    BIGINT       NULL,
+    execution_memory_mb  BIGINT       NULL,
+    status               VARCHAR(20)  NOT NULL,
+    created_date         DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    KEY idx_submission_problem (problem_id),
+    KEY idx_submission_user (user_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE bench_submissions_v7 LIKE bench_submissions_v4;
+
+-- Nhóm user/problem cố định để 2 bảng có cùng phân bố dữ liệu phụ
+DROP TEMPORARY TABLE IF EXISTS bench_users;
+DROP TEMPORARY TABLE IF EXISTS bench_problems;
+CREATE TEMPORARY TABLE bench_users (n INT PRIMARY KEY, id BINARY(16) NOT NULL);
+CREATE TEMPORARY TABLE bench_problems (n INT PRIMARY KEY, id BINARY(16) NOT NULL);
+
+DELIMITER //
+
+DROP FUNCTION IF EXISTS bench_uuid_v4//
+CREATE FUNCTION bench_uuid_v4() RETURNS BINARY(16) NOT DETERMINISTIC NO SQL
+BEGIN
+    DECLARE b BINARY(16) DEFAULT RANDOM_BYTES(16);
+    -- version = 4, variant = 10xx
+    RETURN CONCAT(SUBSTR(b, 1, 6),
+                  CHAR((ASCII(SUBSTR(b, 7, 1)) & 0x0F) | 0x40),
+                  SUBSTR(b, 8, 1),
+                  CHAR((ASCII(SUBSTR(b, 9, 1)) & 0x3F) | 0x80),
+                  SUBSTR(b, 10));
+END//
+
+DROP FUNCTION IF EXISTS bench_uuid_v7//
+CREATE FUNCTION bench_uuid_v7(seq INT) RETURNS BINARY(16) NOT DETERMINISTIC NO SQL
+BEGIN
+    -- Giống UuidHelper.generateV7(): 48 bit unix ms | ver 7 | 12 bit sequence | variant | random
+    DECLARE ts BIGINT DEFAULT FLOOR(UNIX_TIMESTAMP(NOW(6)) * 1000);
+    DECLARE b BINARY(8) DEFAULT RANDOM_BYTES(8);
+    RETURN CONCAT(UNHEX(LPAD(HEX(ts), 12, '0')),
+                  UNHEX(LPAD(HEX(0x7000 | (seq & 0x0FFF)), 4, '0')),
+                  CHAR((ASCII(SUBSTR(b, 1, 1)) & 0x3F) | 0x80),
+                  SUBSTR(b, 2));
+END//
+
+DROP PROCEDURE IF EXISTS bench_fill_pools//
+CREATE PROCEDURE bench_fill_pools()
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    WHILE i < 20000 DO
+        INSERT INTO bench_users VALUES (i, bench_uuid_v4());
+        IF i < 3000 THEN
+            INSERT INTO bench_problems VALUES (i, bench_uuid_v4());
+        END IF;
+        SET i = i + 1;
+    END WHILE;
+END//
+
+DROP PROCEDURE IF EXISTS bench_insert//
+CREATE PROCEDURE bench_insert(IN use_v7 BOOLEAN, IN total INT, IN commit_every INT)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE uid BINARY(16);
+    DECLARE pid BINARY(16);
+    SET autocommit = 0;
+    WHILE i < total DO
+        SELECT id INTO uid FROM bench_users WHERE n = FLOOR(RAND() * 20000);
+        SELECT id INTO pid FROM bench_problems WHERE n = FLOOR(RAND() * 3000);
+        IF use_v7 THEN
+            INSERT INTO bench_submissions_v7 VALUES (bench_uuid_v7(i), uid, pid, NULL, 'cpp17', 'AC', 'COMPLETED',
+                                                     100, 120, 64, 'ACTIVE', NOW(6));
+        ELSE
+            INSERT INTO bench_submissions_v4 VALUES (bench_uuid_v4(), uid, pid, NULL, 'cpp17', 'AC', 'COMPLETED',
+                                                     100, 120, 64, 'ACTIVE', NOW(6));
+        END IF;
+        SET i = i + 1;
+        IF i % commit_every = 0 THEN
+            COMMIT;
+        END IF;
+    END WHILE;
+    COMMIT;
+    SET autocommit = 1;
+END//
+
+DELIMITER ;
+
+CALL bench_fill_pools();
+
+-- ---------------------------------------------------------------------
+-- 1. Throughput
+-- ---------------------------------------------------------------------
+SET @t0 = NOW(6);
+CALL bench_insert(FALSE, @rows, @commit_every);
+SET @v4_seconds = TIMESTAMPDIFF(MICROSECOND, @t0, NOW(6)) / 1e6;
+
+SET @t0 = NOW(6);
+CALL bench_insert(TRUE, @rows, @commit_every);
+SET @v7_seconds = TIMESTAMPDIFF(MICROSECOND, @t0, NOW(6)) / 1e6;
+
+SELECT 'v4' AS key_type, @rows AS `rows`, ROUND(@v4_seconds, 2) AS seconds, ROUND(@rows / @v4_seconds) AS rows_per_sec
+UNION ALL
+SELECT 'v7', @rows, ROUND(@v7_seconds, 2), ROUND(@rows / @v7_seconds);
+
+-- ---------------------------------------------------------------------
+-- 2. Kích thước index (PRIMARY = clustered index chứa cả dòng dữ liệu)
+-- ---------------------------------------------------------------------
+ANALYZE TABLE bench_submissions_v4, bench_submissions_v7;
+
+SELECT table_name,
+       index_name,
+       ROUND(stat_value * @@innodb_page_size / 1024 / 1024, 1) AS size_mb
+FROM mysql.innodb_index_stats
+WHERE database_name = DATABASE()
+  AND table_name IN ('bench_submissions_v4', 'bench_submissions_v7')
+  AND stat_name = 'size'
+ORDER BY index_name, table_name;
+
+-- Tỉ lệ lấp đầy leaf page của clustered index (v4 thường ~50-70% do page split ngẫu nhiên, v7 ~90%+)
+SELECT table_name,
+       MAX(CASE WHEN stat_name = 'n_leaf_pages' THEN stat_value END) AS leaf_pages,
+       MAX(CASE WHEN stat_name = 'size' THEN stat_value END) AS total_pages
+FROM mysql.innodb_index_stats
+WHERE database_name = DATABASE()
+  AND table_name IN ('bench_submissions_v4', 'bench_submissions_v7')
+  AND index_name = 'PRIMARY'
+GROUP BY table_name;
+
+-- ---------------------------------------------------------------------
+-- Dọn dẹp
+-- ---------------------------------------------------------------------
+DROP PROCEDURE IF EXISTS bench_insert;
+DROP PROCEDURE IF EXISTS bench_fill_pools;
+DROP FUNCTION IF EXISTS bench_uuid_v4;
+DROP FUNCTION IF EXISTS bench_uuid_v7;
+-- Giữ lại 2 bảng bench_* để xem thêm; xóa bằng tay khi xong:
+-- DROP TABLE bench_submissions_v4, bench_submissions_v7;
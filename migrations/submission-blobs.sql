@@ -0,0 +1,34 @@
+-- =====================================================================
+-- Migration: submissions.source_code / error_message -> submission_blobs
+--
+-- Từ phiên bản này, submissions chỉ giữ source_hash / error_hash (SHA-256, 64 ký tự hex);
+-- nội dung nén deflate nằm ở submission_blobs, bài nộp giống hệt nhau dùng chung 1 dòng.
+-- Bảng submission_blobs và 2 cột hash do Hibernate (ddl-auto: update) tự tạo.
+--
+-- Các bước:
+--   1. (Tuỳ chọn, TRƯỚC khi deploy) đổi source_code thành NULL được. Ứng dụng tự làm bước này khi khởi động
+--      (SubmissionBlobBackfill), nhưng với bảng lớn nên chạy tay để không kéo dài thời gian khởi động.
+--   2. Deploy; SubmissionBlobBackfill chuyển dữ liệu cũ sang submission_blobs theo lô khi ứng dụng chạy.
+--      Log "[Submission Blob] Legacy columns are empty" nghĩa là đã chuyển xong.
+--   3. (SAU khi chuyển xong) kiểm tra rồi xoá 2 cột cũ.
+--
+-- Cách chạy:
+--   mysql -uroot -p oj_core < migrations/submission-blobs.sql
+-- Bước 3 để comment sẵn, chỉ bỏ comment khi truy vấn kiểm tra trả về 0.
+-- =====================================================================
+
+-- ----- Bước 1: cho phép NULL (online DDL, không khoá ghi) -----
+ALTER TABLE submissions MODIFY source_code TEXT NULL, ALGORITHM=INPLACE, LOCK=NONE;
+
+-- ----- Kiểm tra tiến độ -----
+SELECT COUNT(*) AS not_migrated FROM submissions WHERE source_hash IS NULL;
+
+SELECT COUNT(*)                                  AS blobs,
+       SUM(raw_size)                             AS raw_bytes,
+       SUM(LENGTH(content))                      AS stored_bytes,
+       ROUND(SUM(LENGTH(content)) / SUM(raw_size), 3) AS ratio
+FROM submission_blobs;
+
+-- ----- Bước 3: xoá cột cũ (chỉ khi not_migrated = 0) -----
+-- ALTER TABLE submissions DROP COLUMN source_code, DROP COLUMN error_message, ALGORITHM=INPLACE, LOCK=NONE;
+-- OPTIMIZE TABLE submissions;
@@ -0,0 +1,98 @@
+package com.kma.ojcore.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kma.ojcore.config.LanguageLoader;
+import com.kma.ojcore.dto.request.submissions.JudgeSdi;
+import com.kma.ojcore.entity.LanguageConfig;
+import com.kma.ojcore.service.judge.JudgeMessageConverter;
+import com.kma.ojcore.service.judge.JudgeWireCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize 1 JudgeSdi: JSON (Jackson2JsonMessageConverter) so với {@link JudgeWireCodec}.
+ * <p>
+ * Chạy: {@code mvn -Pjmh compile exec:exec -Djmh.args="JudgeWireFormat -f 1 -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JudgeWireFormatBenchmark {
+
+    // Kích thước source code (KB)
+    @Param({"1", "8", "64"})
+    int sourceKb;
+
+    // oj.judge.wire.compress-min-bytes: nén từ ngưỡng này trở lên
+    @Param({"1024", "16384"})
+    int compressMinBytes;
+
+    private Jackson2JsonMessageConverter json;
+    private JudgeMessageConverter compact;
+    private JudgeSdi sdi;
+
+    @Setup
+    public void setUp() {
+        LanguageLoader languageLoader = new LanguageLoader(new ObjectMapper());
+        languageLoader.init();
+        json = new Jackson2JsonMessageConverter();
+        compact = new JudgeMessageConverter(json, new JudgeWireCodec(languageLoader, compressMinBytes), true);
+
+        LanguageConfig lang = languageLoader.getConfigByKey("CPP");
+        sdi = JudgeSdi.builder()
+                .submissionId(UUID.randomUUID())
+                .problemId(UUID.randomUUID())
+                .ruleType("ACM")
+                .sourceCode(source(sourceKb << 10))
+                .languageKey(lang.getLanguageKey())
+                .compileCommand(lang.getCompileCommand())
+                .runCommand(lang.getRunCommand())
+                .isCompiled(lang.isCompiled())
+                .sourceName(lang.getSourceName())
+                .exeName(lang.getExeName())
+                .finalTimeLimitMs(1000)
+                .finalMemoryLimitMb(256)
+                .testcaseVersion(3L)
+                .testcaseManifestHash("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+                .build();
+    }
+
+    @Benchmark
+    public Message json() {
+        return json.toMessage(sdi, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message compact() {
+        return compact.toMessage(sdi, new MessageProperties());
+    }
+
+    // Source C++ kiểu bài nộp thật: include, vòng lặp, tên biến ngẫu nhiên, indent bằng space
+    private static String source(int size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 128);
+        sb.append("#include <bits/stdc++.h>\nusing namespace std;\ntypedef long long ll;\n\n");
+        int fn = 0;
+        while (sb.length() < size) {
+            String var = "v" + Integer.toString(random.nextInt(1 << 16), 36);
+            sb.append("ll solve").append(fn++).append("(vector<ll>& a, int n) {\n")
+                    .append("    ll ").append(var).append(" = 0;\n")
+                    .append("    for (int i = 0; i < n; i++) {\n")
+                    .append("        if (a[i] % ").append(2 + random.nextInt(97)).append(" == 0) ")
+                    .append(var).append(" += a[i];\n")
+                    .append("        else ").append(var).append(" = max(").append(var).append(", a[i] - ")
+                    .append(random.nextInt(1000)).append(");\n")
+                    .append("    }\n    return ").append(var).append(";\n}\n\n");
+        }
+        sb.append("int main() {\n    ios::sync_with_stdio(false);\n    cin.tie(nullptr);\n    return 0;\n}\n");
+        return sb.toString();
+    }
+}
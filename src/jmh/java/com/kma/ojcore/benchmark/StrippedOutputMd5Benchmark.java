@@ -0,0 +1,71 @@
+package com.kma.ojcore.benchmark;
+
+import com.kma.ojcore.service.testcase.StrippedOutputMd5;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * strippedOutputMd5 của 1 file output: cách cũ (String + regex + trim) so với {@link StrippedOutputMd5}.
+ * <p>
+ * Chạy: {@code mvn -Pjmh compile exec:exec -Djmh.args="StrippedOutputMd5 -f 1 -prof gc"}
+ * ({@code -prof gc} để xem lượng cấp phát mỗi lần tính).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StrippedOutputMd5Benchmark {
+
+    // Kích thước file output (MB)
+    @Param({"1", "16"})
+    int sizeMb;
+
+    // clean: dòng số cách nhau 1 space, "\n"; dirty: thêm space/tab cuối dòng và "\r\n" như file soạn trên Windows
+    @Param({"clean", "dirty"})
+    String shape;
+
+    private byte[] output;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        boolean dirty = "dirty".equals(shape);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(sizeMb << 20);
+        StringBuilder line = new StringBuilder();
+        while (buffer.size() < sizeMb << 20) {
+            line.setLength(0);
+            int numbers = 1 + random.nextInt(20);
+            for (int i = 0; i < numbers; i++) {
+                if (i > 0) line.append(' ');
+                line.append(random.nextInt(2_000_000_001) - 1_000_000_000);
+            }
+            if (dirty && random.nextInt(3) == 0) {
+                line.append(random.nextBoolean() ? "  " : " \t");
+            }
+            line.append(dirty ? "\r\n" : "\n");
+            buffer.writeBytes(line.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        output = buffer.toByteArray();
+    }
+
+    @Benchmark
+    public String legacyRegex() {
+        String rawOutputStr = new String(output, StandardCharsets.UTF_8);
+        String strippedOutputStr = rawOutputStr.replaceAll("(?m)[ \\t]+$", "").replace("\r\n", "\n").trim();
+        return DigestUtils.md5Hex(strippedOutputStr.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        // Đọc theo buffer 8KB như khi quét entry trong archive
+        return StrippedOutputMd5.of(new ByteArrayInputStream(output));
+    }
+}
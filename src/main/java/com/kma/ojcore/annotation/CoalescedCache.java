@@ -0,0 +1,35 @@
+package com.kma.ojcore.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache kết quả method trên Redis (xử lý bởi {@link com.kma.ojcore.aspect.CoalescedCacheAspect}):
+ * <ul>
+ *   <li>Trong 1 node chỉ 1 thread được tính lại cho mỗi key, các thread khác chờ chung kết quả.</li>
+ *   <li>Giữa các node dùng lock Redis, node không giữ lock chờ node kia ghi cache.</li>
+ *   <li>Quá {@link #softTtl()} vẫn trả giá trị cũ và tính lại ngầm; quá {@link #hardTtl()} thì key hết hạn.</li>
+ * </ul>
+ * Giá trị trả về phải serialize được bằng Jackson (Page được hỗ trợ riêng).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CoalescedCache {
+
+    // Tiền tố key Redis, hỗ trợ ${...} từ application.yml
+    String keyPrefix() default "COALESCED_CACHE:";
+
+    // SpEL trên tham số method, VD: "#contestId + ':' + #pageable.pageNumber". Rỗng = nối toàn bộ tham số
+    String key() default "";
+
+    // Hết hạn mềm: sau mốc này trả giá trị cũ và làm mới ngầm
+    long softTtl() default 5;
+
+    // Hết hạn cứng: TTL thật của key trên Redis
+    long hardTtl() default 60;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
@@ -1,5 +1,9 @@
 package com.kma.ojcore.annotation;
 
+import com.kma.ojcore.enums.RateLimitAlgorithm;
+import com.kma.ojcore.enums.RateLimitKeyType;
+import com.kma.ojcore.exception.ErrorCode;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -13,11 +17,23 @@ public @interface RateLimit {
     // Tiền tố lưu trên Redis, ví dụ: "SUBMIT_CODE:"
     String keyPrefix() default "RATE_LIMIT:";
     
-    // Thời gian timeout
+    // Độ dài cửa sổ (SLIDING_WINDOW) hoặc chu kỳ hồi token (TOKEN_BUCKET)
     int timeout() default 5;
     
     // Đơn vị thời gian
     TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    RateLimitAlgorithm algorithm() default RateLimitAlgorithm.SLIDING_WINDOW;
+
+    // Số request tối đa trong 1 cửa sổ / dung lượng bucket (burst)
+    int capacity() default 1;
+
+    // TOKEN_BUCKET: số token hồi lại sau mỗi timeout
+    int refillTokens() default 1;
+
+    RateLimitKeyType keyType() default RateLimitKeyType.USER;
+
+    ErrorCode errorCode() default ErrorCode.TOO_MANY_REQUESTS;
     
     // Lời nhắn lỗi trả về
     String errorMessage() default "Too many requests. Please try again later.";
@@ -0,0 +1,102 @@
+package com.kma.ojcore.aspect;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kma.ojcore.annotation.CoalescedCache;
+import com.kma.ojcore.service.cache.CachedPage;
+import com.kma.ojcore.service.cache.CoalescingCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Chạy bên ngoài @Transactional: cache hit không cần mở transaction / lấy connection DB
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+@Slf4j
+public class CoalescedCacheAspect {
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final CoalescingCache coalescingCache;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+    private final Map<String, Expression> keyExpressions = new ConcurrentHashMap<>();
+    private final Map<Method, JavaType> cachedTypes = new ConcurrentHashMap<>();
+
+    @Around("@annotation(coalescedCache)")
+    public Object cache(ProceedingJoinPoint joinPoint, CoalescedCache coalescedCache) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+
+        // 1. Phân giải prefix ${...} giống @RateLimit
+        String prefix = coalescedCache.keyPrefix();
+        if (prefix.startsWith("${") && prefix.endsWith("}")) {
+            prefix = environment.resolvePlaceholders(prefix);
+        }
+        String redisKey = prefix + resolveKey(coalescedCache.key(), method, args);
+
+        // 2. Page lưu dưới dạng CachedPage, dựng lại bằng Pageable của lời gọi
+        boolean paged = Page.class.isAssignableFrom(method.getReturnType());
+        JavaType type = cachedTypes.computeIfAbsent(method, this::cachedTypeOf);
+
+        long softTtlMs = coalescedCache.timeUnit().toMillis(coalescedCache.softTtl());
+        long hardTtlMs = coalescedCache.timeUnit().toMillis(coalescedCache.hardTtl());
+
+        // proceed(args) clone lại invocation nên gọi được từ thread làm mới ngầm
+        Object value = coalescingCache.get(redisKey, type, softTtlMs, hardTtlMs, () -> {
+            Object result = joinPoint.proceed(args);
+            return paged && result != null ? CachedPage.from((Page<?>) result) : result;
+        });
+
+        if (paged && value instanceof CachedPage<?> cachedPage) {
+            Pageable pageable = Arrays.stream(args)
+                    .filter(Pageable.class::isInstance)
+                    .map(Pageable.class::cast)
+                    .findFirst()
+                    .orElse(null);
+            return cachedPage.toPage(pageable);
+        }
+        return value;
+    }
+
+    private String resolveKey(String keyExpression, Method method, Object[] args) {
+        if (keyExpression.isEmpty()) {
+            return Arrays.stream(args).map(String::valueOf).collect(Collectors.joining(":"));
+        }
+        Expression expression = keyExpressions.computeIfAbsent(keyExpression, PARSER::parseExpression);
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(null, method, args, PARAMETER_NAMES);
+        return String.valueOf(expression.getValue(context));
+    }
+
+    private JavaType cachedTypeOf(Method method) {
+        JavaType returnType = objectMapper.getTypeFactory().constructType(method.getGenericReturnType());
+        if (Page.class.isAssignableFrom(method.getReturnType())) {
+            return objectMapper.getTypeFactory().constructParametricType(CachedPage.class, returnType.containedTypeOrUnknown(0));
+        }
+        return returnType;
+    }
+}
@@ -1,19 +1,23 @@
 package com.kma.ojcore.aspect;
 
 import com.kma.ojcore.annotation.RateLimit;
+import com.kma.ojcore.enums.RateLimitKeyType;
 import com.kma.ojcore.exception.BusinessException;
-import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.security.UserPrincipal;
+import com.kma.ojcore.service.ratelimit.RateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.core.env.Environment;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @Aspect
 @Component
@@ -21,42 +25,60 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class RateLimitAspect {
 
-    private final RedisTemplate<String, String> redisTemplate;
+    private final RateLimiter rateLimiter;
     private final Environment environment;
 
     @Around("@annotation(rateLimit)")
     public Object enforceRateLimit(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        
-        // Nếu API cho phép nặc danh (không có UserPrincipal), có thể mở rộng chặn theo IP (bằng cách lấy HttpServletRequest).
-        // Tuy nhiên submitCode bắt buộc đăng nhập nên logic này lấy trực tiếp từ Principal.
-        if (auth == null || !auth.isAuthenticated() || auth.getPrincipal().equals("anonymousUser")) {
-             return joinPoint.proceed();
-        }
-
-        UserPrincipal userPrincipal = (UserPrincipal) auth.getPrincipal();
-        String userId = userPrincipal.getId().toString();
-
         // 1. Phân giải biến môi trường nếu gán template ${...} từ application.yml
         String mappedPrefix = rateLimit.keyPrefix();
         if (mappedPrefix.startsWith("${") && mappedPrefix.endsWith("}")) {
             mappedPrefix = environment.resolvePlaceholders(mappedPrefix);
         }
 
-        // Tạo Redis Key. VD: SUBMIT_CODE:123-456-789
-        String redisKey = mappedPrefix + userId;
+        // 2. Tạo Redis Key. VD: SUBMIT_CODE:sw:123-456-789, LOGIN:tb:ip:10.0.0.1
+        String subject = resolveSubject(joinPoint, rateLimit.keyType());
+        String algorithmTag = switch (rateLimit.algorithm()) {
+            case SLIDING_WINDOW -> "sw:";
+            case TOKEN_BUCKET -> "tb:";
+        };
+        String redisKey = mappedPrefix + algorithmTag + subject;
 
-        // setIfAbsent tương đương với lệnh SETNX trong Redis.
-        // Trả về TRUE nếu chưa có key (tạo thành công), FALSE nếu key đã tồn tại (đang bị spam).
-        Boolean isAllowed = redisTemplate.opsForValue().setIfAbsent(redisKey, "LOCKED", rateLimit.timeout(), rateLimit.timeUnit());
+        long periodMs = rateLimit.timeUnit().toMillis(rateLimit.timeout());
+        long retryAfterMs = rateLimiter.tryAcquire(redisKey, rateLimit.algorithm(),
+                rateLimit.capacity(), rateLimit.refillTokens(), periodMs);
 
-        if (Boolean.FALSE.equals(isAllowed)) {
-            log.warn("Rate limit triggered for User [{}]. Key: {}", userId, rateLimit.keyPrefix());
+        if (retryAfterMs > 0) {
+            log.warn("Rate limit triggered for [{}]. Retry after {} ms", redisKey, retryAfterMs);
             // Quăng Exception 429 TOO_MANY_REQUESTS
-            throw new BusinessException(ErrorCode.SUBMISSION_LIMIT_EXCEEDED, rateLimit.errorMessage());
+            throw new BusinessException(rateLimit.errorCode(), rateLimit.errorMessage());
         }
 
-        // Nếu hợp lệ, cho phép qua chốt đoạn code gốc (submitCode)
+        // Nếu hợp lệ, cho phép qua chốt đoạn code gốc
         return joinPoint.proceed();
     }
+
+    private String resolveSubject(ProceedingJoinPoint joinPoint, RateLimitKeyType keyType) {
+        if (keyType == RateLimitKeyType.ENDPOINT) {
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            return signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+        }
+        if (keyType == RateLimitKeyType.USER) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof UserPrincipal userPrincipal) {
+                return userPrincipal.getId().toString();
+            }
+        }
+        // Nặc danh (hoặc keyType = IP): đếm theo IP client.
+        // remoteAddr là IP thật nhờ server.forward-headers-strategy (application.yml) khi chạy sau reverse proxy.
+        return "ip:" + clientIp();
+    }
+
+    private String clientIp() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            return request.getRemoteAddr();
+        }
+        return "unknown";
+    }
 }
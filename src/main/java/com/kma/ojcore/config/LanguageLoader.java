@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kma.ojcore.entity.LanguageConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
@@ -23,18 +24,24 @@ public class LanguageLoader {
     private Map<String, LanguageConfig> configMap;
     private final ObjectMapper objectMapper;
 
+    // sha256 của nguyên file languages.json: message compact gửi máy chấm chỉ ghi key + version này thay vì copy lệnh
+    private String configVersion;
+    private byte[] rawConfig;
+
     @PostConstruct
     public void init() {
         try (InputStream is = getClass().getResourceAsStream("/languages.json")) {
             if (is == null) throw new IOException("Config file not found in resources");
 
-            List<LanguageConfig> data = objectMapper.readValue(is, new TypeReference<List<LanguageConfig>>() {});
+            rawConfig = is.readAllBytes();
+            configVersion = DigestUtils.sha256Hex(rawConfig);
+            List<LanguageConfig> data = objectMapper.readValue(rawConfig, new TypeReference<List<LanguageConfig>>() {});
 
             // Biến List thành Map với key là getLanguageKey() (VD: "CPP", "JAVA")
             configMap = data.stream()
                     .collect(Collectors.toMap(LanguageConfig::getLanguageKey, config -> config));
 
-            log.info("Successfully loaded {} languages into Memory Cache", configMap.size());
+            log.info("Successfully loaded {} languages into Memory Cache (version {})", configMap.size(), configVersion);
         } catch (IOException e) {
             log.error("Failed to load languages.json: {}", e.getMessage());
         }
@@ -45,6 +52,15 @@ public class LanguageLoader {
         return configMap.get(key);
     }
 
+    public String getConfigVersion() {
+        return configVersion;
+    }
+
+    // Nội dung gốc của languages.json, đúng bản ứng với getConfigVersion()
+    public byte[] getRawConfig() {
+        return rawConfig.clone();
+    }
+
     // Hàm lấy tất cả (nếu bro cần hiển thị lên UI)
     public Map<String, LanguageConfig> getAllConfigs() {
         return Collections.unmodifiableMap(configMap);
@@ -1,10 +1,14 @@
 package com.kma.ojcore.config;
 
+import com.kma.ojcore.service.judge.JudgeMessageConverter;
+import com.kma.ojcore.service.judge.JudgeWireCodec;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,7 +20,10 @@ public class RabbitMQConfig {
 
     // 2. Khai báo tên CÁC HÒM THƯ (Queues)
     public static final String EMAIL_QUEUE = "email.queue";
-    public static final String JUDGE_QUEUE = "judge.queue";
+    public static final String JUDGE_QUEUE = "judge.queue"; // Lane PRACTICE
+    public static final String JUDGE_CONTEST_QUEUE = "judge.contest.queue";
+    public static final String JUDGE_REJUDGE_QUEUE = "judge.rejudge.queue";
+    public static final String JUDGE_PRIORITY_QUEUE = "judge.priority.queue"; // Chỉ dùng ở chế độ priority
     public static final String RESULT_QUEUE = "result.queue";
     public static final String RUN_CODE_QUEUE = "judge.run.queue";
     public static final String RUN_CODE_RESULT_QUEUE = "judge.run.result.queue";
@@ -24,10 +31,22 @@ public class RabbitMQConfig {
     // 3. Khai báo CÁC NHÃN ĐỊA CHỈ (Routing Keys)
     public static final String EMAIL_ROUTING_KEY = "email.routing.key";
     public static final String JUDGE_ROUTING_KEY = "judge.routing.key";
+    public static final String JUDGE_CONTEST_ROUTING_KEY = "judge.contest.routing.key";
+    public static final String JUDGE_REJUDGE_ROUTING_KEY = "judge.rejudge.routing.key";
+    public static final String JUDGE_PRIORITY_ROUTING_KEY = "judge.priority.routing.key";
     public static final String RESULT_ROUTING_KEY = "result.routing.key";
     public static final String RUN_CODE_ROUTING_KEY = "judge.run.routing.key";
     public static final String RUN_CODE_RESULT_ROUTING_KEY = "judge.run.result.routing.key";
 
+    // Mức ưu tiên tối đa của judge.priority.queue (RabbitMQ khuyến nghị <= 10)
+    public static final int JUDGE_MAX_PRIORITY = 10;
+
+    // Giá trị oj.judge.wire.format dùng định dạng nhị phân của JudgeWireCodec
+    public static final String WIRE_FORMAT_COMPACT = "compact";
+
+    // 4. Container factory cho listener nhận kết quả theo lô
+    public static final String RESULT_BATCH_CONTAINER_FACTORY = "judgeResultBatchContainerFactory";
+
     // ==========================================
     // KHỞI TẠO CÁC BEAN
     // ==========================================
@@ -40,6 +59,11 @@ public class RabbitMQConfig {
     // Xây dựng các Hòm thư (Queues)
     @Bean public Queue emailQueue() { return new Queue(EMAIL_QUEUE, true); }
     @Bean public Queue judgeQueue() { return new Queue(JUDGE_QUEUE, true); }
+    @Bean public Queue judgeContestQueue() { return new Queue(JUDGE_CONTEST_QUEUE, true); }
+    @Bean public Queue judgeRejudgeQueue() { return new Queue(JUDGE_REJUDGE_QUEUE, true); }
+    @Bean public Queue judgePriorityQueue() {
+        return QueueBuilder.durable(JUDGE_PRIORITY_QUEUE).maxPriority(JUDGE_MAX_PRIORITY).build();
+    }
     @Bean public Queue resultQueue() { return new Queue(RESULT_QUEUE, true); }
     @Bean public Queue runCodeQueue() { return new Queue(RUN_CODE_QUEUE, true); }
     @Bean public Queue runCodeResultQueue() { return new Queue(RUN_CODE_RESULT_QUEUE, true); }
@@ -55,6 +79,21 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(judgeQueue).to(judgeExchange).with(JUDGE_ROUTING_KEY);
     }
 
+    @Bean
+    public Binding judgeContestBinding(Queue judgeContestQueue, DirectExchange judgeExchange) {
+        return BindingBuilder.bind(judgeContestQueue).to(judgeExchange).with(JUDGE_CONTEST_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding judgeRejudgeBinding(Queue judgeRejudgeQueue, DirectExchange judgeExchange) {
+        return BindingBuilder.bind(judgeRejudgeQueue).to(judgeExchange).with(JUDGE_REJUDGE_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding judgePriorityBinding(Queue judgePriorityQueue, DirectExchange judgeExchange) {
+        return BindingBuilder.bind(judgePriorityQueue).to(judgeExchange).with(JUDGE_PRIORITY_ROUTING_KEY);
+    }
+
     @Bean
     public Binding resultBinding(Queue resultQueue, DirectExchange judgeExchange) {
         return BindingBuilder.bind(resultQueue).to(judgeExchange).with(RESULT_ROUTING_KEY);
@@ -78,10 +117,32 @@ public class RabbitMQConfig {
         return new Jackson2JsonMessageConverter();
     }
 
+    // Consumer-side batching: gom tối đa batch-size message, hoặc chờ receive-timeout rồi giao cả lô cho listener
+    @Bean(name = RESULT_BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory judgeResultBatchContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${oj.judge.result-batch.size:100}") int batchSize,
+            @Value("${oj.judge.result-batch.receive-timeout-ms:200}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        return factory;
+    }
+
+    // Gửi đi: JudgeSdi / RunCodeRequest theo oj.judge.wire.format (json | compact), còn lại JSON.
+    // Không khai báo thành bean MessageConverter thứ 2 để listener container mặc định vẫn lấy đúng JSON converter.
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
+                                         JudgeWireCodec judgeWireCodec,
+                                         @Value("${oj.judge.wire.format:json}") String wireFormat) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        rabbitTemplate.setMessageConverter(new JudgeMessageConverter(jsonMessageConverter(), judgeWireCodec,
+                WIRE_FORMAT_COMPACT.equalsIgnoreCase(wireFormat)));
         return rabbitTemplate;
     }
 }
\ No newline at end of file
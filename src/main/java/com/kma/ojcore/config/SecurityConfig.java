@@ -86,15 +86,16 @@ public class SecurityConfig {
                                             apiPrefix + "/problems/*",
                                             apiPrefix + "/problems/slug/*",
                                             apiPrefix + "/problems/*/statistics").permitAll()
-                                    .requestMatchers(HttpMethod.GET, apiPrefix + "/submissions", apiPrefix + "/submissions/statistics").permitAll()
+                                    .requestMatchers(HttpMethod.GET, apiPrefix + "/submissions", apiPrefix + "/submissions/statistics", apiPrefix + "/submissions/cursor").permitAll()
                                     .requestMatchers(HttpMethod.GET, apiPrefix + "/files/view").permitAll()
-                                    .requestMatchers(HttpMethod.GET, apiPrefix + "/rankings").permitAll()
+                                    .requestMatchers(HttpMethod.GET, apiPrefix + "/rankings", apiPrefix + "/rankings/cursor").permitAll()
 
                                     // Public Contest API
                                     .requestMatchers(HttpMethod.GET,
                                             apiPrefix + "/contests",
                                             apiPrefix + "/contests/*",
-                                            apiPrefix + "/contests/*/participants").permitAll()
+                                            apiPrefix + "/contests/*/participants",
+                                            apiPrefix + "/contests/*/participants/cursor").permitAll()
 
                                     // Fine-grained access control is handled via @PreAuthorize on each controller.
 
@@ -10,6 +10,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.web.SortDefault;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.UUID;
+
 @RestController
 @RequestMapping("${app.api.prefix}/rankings")
 @RequiredArgsConstructor
@@ -28,4 +30,25 @@ public class RankingController {
                 .data(rankingService.getRanking(ruleType, pageable))
                 .build();
     }
+
+    @GetMapping("/cursor")
+    public ApiResponse<?> getRankingsByCursor(@RequestParam RuleType ruleType,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "100") int size) {
+        return ApiResponse.builder()
+                .status(200)
+                .message("Rankings retrieved successfully")
+                .data(rankingService.getRankingByCursor(ruleType, cursor, size))
+                .build();
+    }
+
+    @GetMapping("/users/{userId}")
+    public ApiResponse<?> getUserRank(@PathVariable UUID userId,
+                                      @RequestParam RuleType ruleType) {
+        return ApiResponse.builder()
+                .status(200)
+                .message("User rank retrieved successfully")
+                .data(rankingService.getUserRank(ruleType, userId))
+                .build();
+    }
 }
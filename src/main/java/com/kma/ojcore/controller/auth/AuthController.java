@@ -1,10 +1,13 @@
 package com.kma.ojcore.controller.auth;
 
+import com.kma.ojcore.annotation.RateLimit;
 import com.kma.ojcore.dto.request.auth.ResetPasswordRequest;
 import com.kma.ojcore.dto.response.auth.JwtAuthenticationResponse;
 import com.kma.ojcore.dto.request.auth.LoginRequest;
 import com.kma.ojcore.dto.request.auth.RegisterRequest;
 import com.kma.ojcore.dto.response.users.UserDetailsSdo;
+import com.kma.ojcore.enums.RateLimitAlgorithm;
+import com.kma.ojcore.enums.RateLimitKeyType;
 import com.kma.ojcore.exception.BusinessException;
 import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.security.UserPrincipal;
@@ -22,6 +25,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("${app.api.prefix}/auth")
 @RequiredArgsConstructor
@@ -32,6 +37,9 @@ public class AuthController {
     private final TokenCookieUtil tokenCookieUtil;
 
     @PostMapping("/login")
+    @RateLimit(keyPrefix = "${oj.redis.prefix.login}", keyType = RateLimitKeyType.IP, algorithm = RateLimitAlgorithm.TOKEN_BUCKET,
+            capacity = 10, refillTokens = 5, timeout = 1, timeUnit = TimeUnit.MINUTES,
+            errorMessage = "Too many login attempts. Please try again later.")
     public ApiResponse<UserDetailsSdo> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletResponse response) {
         JwtAuthenticationResponse jwtResponse = authService.login(loginRequest);
         tokenCookieUtil.setTokenCookies(response, jwtResponse.getAccessToken(), jwtResponse.getRefreshToken());
@@ -106,6 +114,9 @@ public class AuthController {
     }
 
     @PostMapping("/forgot-password")
+    @RateLimit(keyPrefix = "${oj.redis.prefix.forgot-password}", keyType = RateLimitKeyType.IP,
+            capacity = 3, timeout = 10, timeUnit = TimeUnit.MINUTES,
+            errorMessage = "Too many password reset requests. Please try again later.")
     public ApiResponse<?> forgotPassword(@RequestParam String email) {
         authService.forgotPassword(email);
         return ApiResponse.builder()
@@ -115,6 +126,9 @@ public class AuthController {
     }
 
     @PostMapping("/reset-password")
+    @RateLimit(keyPrefix = "${oj.redis.prefix.reset-password}", keyType = RateLimitKeyType.IP,
+            capacity = 10, timeout = 10, timeUnit = TimeUnit.MINUTES,
+            errorMessage = "Too many password reset attempts. Please try again later.")
     public ApiResponse<?> resetPassword(@RequestBody @Valid ResetPasswordRequest request) throws BadRequestException {
         authService.resetPassword(request);
         return ApiResponse.builder()
@@ -2,6 +2,7 @@ package com.kma.ojcore.controller.contests;
 
 import com.kma.ojcore.dto.request.contests.*;
 import com.kma.ojcore.dto.response.common.ApiResponse;
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.contests.*;
 import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
 import com.kma.ojcore.enums.ContestStatus;
@@ -22,6 +23,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -213,6 +215,22 @@ public class AdminContestController {
                                 .build();
         }
 
+        @GetMapping("/{id}/participants/cursor")
+        @PreAuthorize("@contestSecurity.canManageContest(#id, authentication)")
+        public ApiResponse<CursorPageSdo<ContestParticipationSdo>> getParticipantsByCursor(
+                        @PathVariable UUID id,
+                        @RequestParam(value = "keyword", required = false) String keyword,
+                        @RequestParam(value = "isDisqualified", required = false) Boolean isDisqualified,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size) {
+
+                return ApiResponse.<CursorPageSdo<ContestParticipationSdo>>builder()
+                                .status(200)
+                                .message("Fetched participants successfully")
+                                .data(contestService.searchContestParticipantsByCursor(id, keyword, isDisqualified, cursor, size))
+                                .build();
+        }
+
         @PostMapping("/{id}/participants/bulk-ban")
         @PreAuthorize("@contestSecurity.canManageContest(#id, authentication)")
         public ApiResponse<?> banUsers(@PathVariable UUID id,
@@ -249,6 +267,20 @@ public class AdminContestController {
                                 .build();
         }
 
+        @GetMapping("/{id}/submissions/cursor")
+        @PreAuthorize("@contestSecurity.canManageContest(#id, authentication)")
+        public ApiResponse<CursorPageSdo<SubmissionBasicSdo>> getContestSubmissionsByCursor(
+                        @PathVariable UUID id,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "50") int size) {
+
+                return ApiResponse.<CursorPageSdo<SubmissionBasicSdo>>builder()
+                                .status(200)
+                                .message("Fetched all contest submissions successfully")
+                                .data(contestService.getAdminContestSubmissionsByCursor(id, cursor, size))
+                                .build();
+        }
+
         @GetMapping("/{id}/leaderboard")
         @PreAuthorize("@contestSecurity.canManageContest(#id, authentication)")
         public ApiResponse<ContestLeaderboardPageSdo> getLeaderboard(@PathVariable UUID id,
@@ -261,13 +293,17 @@ public class AdminContestController {
                                 .build();
         }
 
-        @GetMapping(value = "/{id}/export", produces = "text/csv")
+        @GetMapping(value = "/{id}/export", produces = {"text/csv", "application/gzip"})
         @PreAuthorize("@contestSecurity.canManageContest(#id, authentication)")
-        public org.springframework.http.ResponseEntity<byte[]> exportContestResults(@PathVariable UUID id) {
-                byte[] csvData = contestService.exportContestResults(id);
+        public org.springframework.http.ResponseEntity<StreamingResponseBody> exportContestResults(
+                        @PathVariable UUID id,
+                        @RequestParam(defaultValue = "false") boolean gzip) {
+                StreamingResponseBody body = contestService.exportContestResults(id, gzip);
                 return org.springframework.http.ResponseEntity.ok()
                                 .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
-                                                "attachment; filename=contest_" + id + "_results.csv")
-                                .body(csvData);
+                                                "attachment; filename=contest_" + id + "_results.csv" + (gzip ? ".gz" : ""))
+                                .contentType(gzip ? org.springframework.http.MediaType.parseMediaType("application/gzip")
+                                                : org.springframework.http.MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                                .body(body);
         }
 }
\ No newline at end of file
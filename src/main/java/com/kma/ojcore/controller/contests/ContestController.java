@@ -1,12 +1,15 @@
 package com.kma.ojcore.controller.contests;
 
+import com.kma.ojcore.annotation.RateLimit;
 import com.kma.ojcore.dto.request.contests.RegisterContestSdi;
 import com.kma.ojcore.dto.response.common.ApiResponse;
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.contests.*;
 import com.kma.ojcore.dto.response.problems.ProblemDetailsSdo;
 import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
 import com.kma.ojcore.enums.ContestStatus;
 import com.kma.ojcore.enums.EStatus;
+import com.kma.ojcore.enums.RateLimitAlgorithm;
 import com.kma.ojcore.enums.RuleType;
 import com.kma.ojcore.security.UserPrincipal;
 import com.kma.ojcore.service.ContestService;
@@ -23,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("${app.api.prefix}/contests")
@@ -47,6 +51,8 @@ public class ContestController {
 
     @GetMapping("/{contestKey}/leaderboard")
     @PreAuthorize("isAuthenticated()")
+    @RateLimit(keyPrefix = "${oj.redis.prefix.leaderboard-rate}", algorithm = RateLimitAlgorithm.TOKEN_BUCKET,
+            capacity = 20, refillTokens = 10, timeout = 1, timeUnit = TimeUnit.SECONDS)
     public ApiResponse<ContestLeaderboardPageSdo> getLeaderboard(@PathVariable String contestKey,
                                                                    Pageable pageable) {
  
@@ -126,6 +132,20 @@ public class ContestController {
                 .build();
     }
 
+    @GetMapping("/{contestKey}/participants/cursor")
+    public ApiResponse<CursorPageSdo<ContestParticipantPublicSdo>> getPublicParticipantsByCursor(
+                                @PathVariable String contestKey,
+                                @RequestParam(value = "keyword", required = false) String keyword,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(defaultValue = "20") int size) {
+
+        return ApiResponse.<CursorPageSdo<ContestParticipantPublicSdo>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Fetched public participants successfully")
+                .data(contestService.getPublicContestParticipantsByCursor(contestKey, keyword, cursor, size))
+                .build();
+    }
+
     @GetMapping("/{contestKey}/submissions/me")
     @PreAuthorize("isAuthenticated()")
     public ApiResponse<Page<SubmissionBasicSdo>> getMySubmissions(
@@ -141,6 +161,22 @@ public class ContestController {
                 .build();
     }
 
+    @GetMapping("/{contestKey}/submissions/me/cursor")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<CursorPageSdo<SubmissionBasicSdo>> getMySubmissionsByCursor(
+            @PathVariable String contestKey,
+            @RequestParam(required = false) UUID problemId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        return ApiResponse.<CursorPageSdo<SubmissionBasicSdo>>builder()
+                .status(200)
+                .message("Fetched your contest submissions successfully")
+                .data(contestService.getMyContestSubmissionsByCursor(contestKey, userPrincipal.getId(), problemId, cursor, size))
+                .build();
+    }
+
     @PostMapping("/{contestKey}/start")
     @PreAuthorize("isAuthenticated()")
     public ApiResponse<ContestParticipationSdo> startContest(
@@ -3,6 +3,7 @@ package com.kma.ojcore.controller.submissions;
 import com.kma.ojcore.dto.response.common.ApiResponse;
 import com.kma.ojcore.enums.EStatus;
 import com.kma.ojcore.enums.SubmissionVerdict;
+import com.kma.ojcore.service.RejudgeJobService;
 import com.kma.ojcore.service.SubmissionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -30,6 +31,7 @@ import java.util.UUID;
 public class AdminSubmissionController {
 
     private final SubmissionService submissionService;
+    private final RejudgeJobService rejudgeJobService;
 
 
     /**
@@ -38,6 +40,7 @@ public class AdminSubmissionController {
      * @param userId
      * @param submissionVerdict
      * @param keyword
+     * @param withCount false = không đếm tổng, trả Slice
      * @param page
      * @param size
      * @param sort
@@ -54,6 +57,7 @@ public class AdminSubmissionController {
             @RequestParam(required = false) String languageKey,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
+            @RequestParam(defaultValue = "true") boolean withCount,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @SortDefault(sort = "createdDate", direction = Sort.Direction.DESC) Sort sort
@@ -64,7 +68,30 @@ public class AdminSubmissionController {
         return ApiResponse.builder()
                 .status(HttpStatus.OK.value())
                 .message("Submissions retrieved successfully")
-                .data(submissionService.getSubmissions(problemId, userId, submissionVerdict, keyword, status, null, submissionStatus, languageKey, fromDate, toDate, allowedVerdicts, false, true, false, pageable))
+                .data(submissionService.getSubmissions(problemId, userId, submissionVerdict, keyword, status, null, submissionStatus, languageKey, fromDate, toDate, allowedVerdicts, false, true, false, withCount, pageable))
+                .build();
+    }
+
+    // Phân trang keyset cho công cụ admin duyệt toàn bộ submission
+    @GetMapping("/cursor")
+    public ApiResponse<?> getSubmissionsByCursor(
+            @RequestParam(required = false) UUID problemId,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) SubmissionVerdict submissionVerdict,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) EStatus status,
+            @RequestParam(required = false) EStatus submissionStatus,
+            @RequestParam(required = false) String languageKey,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        List<SubmissionVerdict> allowedVerdicts = SubmissionVerdict.getAllVerdicts();
+        return ApiResponse.builder()
+                .status(HttpStatus.OK.value())
+                .message("Submissions retrieved successfully")
+                .data(submissionService.getSubmissionsByCursor(problemId, userId, submissionVerdict, keyword, status, null, submissionStatus, languageKey, fromDate, toDate, allowedVerdicts, false, true, false, cursor, size))
                 .build();
     }
 
@@ -79,10 +106,56 @@ public class AdminSubmissionController {
 
     @PostMapping("/rejudge")
     public ApiResponse<?> rejudgeSubmissions(@RequestBody RejudgeSdi request) {
-        submissionService.rejudgeSubmissions(request);
         return ApiResponse.builder()
                 .status(HttpStatus.OK.value())
                 .message("Submissions have been queued for rejudging.")
+                .data(submissionService.rejudgeSubmissions(request))
+                .build();
+    }
+
+    @GetMapping("/rejudge-jobs")
+    public ApiResponse<?> getRejudgeJobs(@RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.builder()
+                .status(HttpStatus.OK.value())
+                .message("Rejudge jobs retrieved successfully")
+                .data(rejudgeJobService.getJobs(PageRequest.of(page, size)))
+                .build();
+    }
+
+    @GetMapping("/rejudge-jobs/{jobId}")
+    public ApiResponse<?> getRejudgeJob(@PathVariable UUID jobId) {
+        return ApiResponse.builder()
+                .status(HttpStatus.OK.value())
+                .message("Rejudge job retrieved successfully")
+                .data(rejudgeJobService.getJob(jobId))
+                .build();
+    }
+
+    @PatchMapping("/rejudge-jobs/{jobId}/pause")
+    public ApiResponse<?> pauseRejudgeJob(@PathVariable UUID jobId) {
+        return ApiResponse.builder()
+                .status(HttpStatus.OK.value())
+                .message("Rejudge job paused.")
+                .data(rejudgeJobService.pauseJob(jobId))
+                .build();
+    }
+
+    @PatchMapping("/rejudge-jobs/{jobId}/resume")
+    public ApiResponse<?> resumeRejudgeJob(@PathVariable UUID jobId) {
+        return ApiResponse.builder()
+                .status(HttpStatus.OK.value())
+                .message("Rejudge job resumed.")
+                .data(rejudgeJobService.resumeJob(jobId))
+                .build();
+    }
+
+    @PatchMapping("/rejudge-jobs/{jobId}/cancel")
+    public ApiResponse<?> cancelRejudgeJob(@PathVariable UUID jobId) {
+        return ApiResponse.builder()
+                .status(HttpStatus.OK.value())
+                .message("Rejudge job cancelled.")
+                .data(rejudgeJobService.cancelJob(jobId))
                 .build();
     }
 
@@ -8,6 +8,7 @@ import com.kma.ojcore.dto.response.submissions.RunCodeResponse;
 import com.kma.ojcore.enums.EStatus;
 import com.kma.ojcore.enums.ProblemStatus;
 import com.kma.ojcore.enums.SubmissionVerdict;
+import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.security.UserPrincipal;
 import com.kma.ojcore.service.RunCodeService;
 import com.kma.ojcore.service.SubmissionService;
@@ -38,7 +39,7 @@ public class SubmissionController {
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    @RateLimit(keyPrefix = "${oj.redis.prefix.submit-code}", timeout = 10, timeUnit = TimeUnit.SECONDS, errorMessage = "Please wait 10 seconds before submitting code again!")
+    @RateLimit(keyPrefix = "${oj.redis.prefix.submit-code}", timeout = 10, timeUnit = TimeUnit.SECONDS, errorCode = ErrorCode.SUBMISSION_LIMIT_EXCEEDED, errorMessage = "Please wait 10 seconds before submitting code again!")
     public ApiResponse<?> submitCode(@Valid @RequestBody SubmissionSdi request,
                                      @AuthenticationPrincipal UserPrincipal userPrincipal) {
 
@@ -52,7 +53,7 @@ public class SubmissionController {
 
     @PostMapping("/run_code")
     @PreAuthorize("isAuthenticated()")
-    @RateLimit(keyPrefix = "${oj.redis.prefix.run-code}", timeout = 10, timeUnit = TimeUnit.SECONDS, errorMessage = "Please wait 10 seconds before running code again!")
+    @RateLimit(keyPrefix = "${oj.redis.prefix.run-code}", timeout = 10, timeUnit = TimeUnit.SECONDS, errorCode = ErrorCode.SUBMISSION_LIMIT_EXCEEDED, errorMessage = "Please wait 10 seconds before running code again!")
     public ApiResponse<?> runCode(@Valid @RequestBody RunCodeSubmitDto request) {
         UUID runCodeToken = runCodeService.sendToJudge(request);
         return ApiResponse.builder()
@@ -95,6 +96,7 @@ public class SubmissionController {
      * @param userId
      * @param submissionVerdict
      * @param keyword
+     * @param withCount false = không đếm tổng, trả Slice
      * @param page
      * @param size
      * @param sort
@@ -110,6 +112,7 @@ public class SubmissionController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
             @RequestParam(required = false, defaultValue = "false") boolean isPracticeOnly,
+            @RequestParam(defaultValue = "true") boolean withCount,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @SortDefault(sort = "createdDate", direction = Sort.Direction.DESC) Sort sort
@@ -119,7 +122,31 @@ public class SubmissionController {
         return ApiResponse.builder()
                 .status(HttpStatus.OK.value())
                 .message("Submissions retrieved successfully")
-                .data(submissionService.getSubmissions(problemId, userId, submissionVerdict, keyword, EStatus.ACTIVE, ProblemStatus.PUBLISHED, EStatus.ACTIVE, languageKey, fromDate, toDate, allowedVerdicts, true, false, isPracticeOnly, pageable))
+                .data(submissionService.getSubmissions(problemId, userId, submissionVerdict, keyword, EStatus.ACTIVE, ProblemStatus.PUBLISHED, EStatus.ACTIVE, languageKey, fromDate, toDate, allowedVerdicts, true, false, isPracticeOnly, withCount, pageable))
+                .build();
+    }
+
+    /**
+     * Phân trang keyset (cuộn vô hạn): gửi lại nextCursor của trang trước, bỏ trống cho trang đầu
+     */
+    @GetMapping("/cursor")
+    public ApiResponse<?> getSubmissionsByCursor(
+            @RequestParam(required = false) UUID problemId,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) SubmissionVerdict submissionVerdict,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String languageKey,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
+            @RequestParam(required = false, defaultValue = "false") boolean isPracticeOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        List<SubmissionVerdict> allowedVerdicts = SubmissionVerdict.getPublicVerdicts();
+        return ApiResponse.builder()
+                .status(HttpStatus.OK.value())
+                .message("Submissions retrieved successfully")
+                .data(submissionService.getSubmissionsByCursor(problemId, userId, submissionVerdict, keyword, EStatus.ACTIVE, ProblemStatus.PUBLISHED, EStatus.ACTIVE, languageKey, fromDate, toDate, allowedVerdicts, true, false, isPracticeOnly, cursor, size))
                 .build();
     }
 
@@ -33,4 +33,8 @@ public class JudgeSdi {
     // --- Giới hạn ĐÃ ĐƯỢC TÍNH TOÁN ---
     Integer finalTimeLimitMs;
     Integer finalMemoryLimitMb;
+
+    // --- Phiên bản bộ test: máy chấm chỉ tải lại info.json / testcase khi version đổi ---
+    Long testcaseVersion;
+    String testcaseManifestHash; // sha256 của manifest, tải ở <testcaseDir>/manifests/<hash>.json
 }
\ No newline at end of file
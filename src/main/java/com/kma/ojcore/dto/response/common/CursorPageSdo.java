@@ -0,0 +1,46 @@
+package com.kma.ojcore.dto.response.common;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 1 trang phân trang keyset. Trang tiếp theo: gửi lại {@code nextCursor}; {@code hasNext = false} là hết dữ liệu.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageSdo<T> {
+    List<T> content;
+    int size;
+    boolean hasNext;
+    String nextCursor;
+
+    /**
+     * @param rows     kết quả query với LIMIT size + 1 (dòng dư chỉ để biết còn trang sau)
+     * @param cursorOf dựng cursor từ dòng cuối của trang
+     */
+    public static <T> CursorPageSdo<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return CursorPageSdo.<T>builder()
+                .content(content)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null)
+                .build();
+    }
+
+    public <R> CursorPageSdo<R> map(Function<T, R> mapper) {
+        return CursorPageSdo.<R>builder()
+                .content(content.stream().map(mapper).toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.kma.ojcore.dto.response.submissions;
+
+import com.kma.ojcore.enums.RejudgeJobStatus;
+import com.kma.ojcore.enums.RejudgeScope;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE)
+public class RejudgeJobSdo {
+    UUID id;
+    RejudgeScope scope;
+    UUID problemId;
+    UUID contestId;
+    RejudgeJobStatus jobStatus;
+    Long totalCount;
+    Boolean totalCountEstimated; // true khi totalCount là số đếm lúc tạo job, chưa chốt
+    Long queuedCount;
+    Long failedCount;
+    Double progressPercent;
+    Long etaSeconds; // null khi chưa đủ dữ liệu để ước lượng
+    String lastError;
+    LocalDateTime startedAt;
+    LocalDateTime finishedAt;
+    LocalDateTime createdDate;
+    String createdBy;
+}
@@ -1,5 +1,6 @@
 package com.kma.ojcore.dto.response.submissions;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.kma.ojcore.enums.SubmissionStatus;
 import com.kma.ojcore.enums.SubmissionVerdict;
 import lombok.*;
@@ -35,10 +36,15 @@ public class SubmissionDetailsSdo {
     Long executionMemoryMb;
     LocalDateTime createdDate;
 
-    // Dữ liệu nhạy cảm / Dung lượng lớn
+    // Dữ liệu nhạy cảm / Dung lượng lớn: HQL chỉ lấy hash, service nạp nội dung từ SubmissionBlobStore
     String errorMessage;
     String sourceCode;
 
+    @JsonIgnore
+    String errorHash;
+    @JsonIgnore
+    String sourceHash;
+
     Double contestScore;
 
     // Constructor cho HQL cũ, không có contestScore
@@ -48,8 +54,8 @@ public class SubmissionDetailsSdo {
                                 SubmissionVerdict verdict, Integer rawScore,
                                 Integer passedTestCount, Integer totalTestCount,
                                 Long executionTimeMs, Long executionMemoryMb,
-                                LocalDateTime createdDate, String errorMessage,
-                                String sourceCode) {
+                                LocalDateTime createdDate, String errorHash,
+                                String sourceHash) {
         this.submissionId = submissionId;
         this.userId = userId;
         this.username = username;
@@ -65,8 +71,8 @@ public class SubmissionDetailsSdo {
         this.executionTimeMs = executionTimeMs;
         this.executionMemoryMb = executionMemoryMb;
         this.createdDate = createdDate;
-        this.errorMessage = errorMessage;
-        this.sourceCode = sourceCode;
+        this.errorHash = errorHash;
+        this.sourceHash = sourceHash;
     }
 
     // Constructor có contestScore, ghi đè score hiển thị
@@ -76,11 +82,11 @@ public class SubmissionDetailsSdo {
                                 SubmissionVerdict verdict, Integer rawScore,
                                 Integer passedTestCount, Integer totalTestCount,
                                 Long executionTimeMs, Long executionMemoryMb,
-                                LocalDateTime createdDate, String errorMessage,
-                                String sourceCode, Double contestScore) {
+                                LocalDateTime createdDate, String errorHash,
+                                String sourceHash, Double contestScore) {
         this(submissionId, userId, username, problemId, problemTitle, problemSlug,
              language, submissionStatus, verdict, rawScore, passedTestCount, totalTestCount,
-             executionTimeMs, executionMemoryMb, createdDate, errorMessage, sourceCode);
+             executionTimeMs, executionMemoryMb, createdDate, errorHash, sourceHash);
         this.score = contestScore != null ? contestScore : (rawScore != null ? rawScore.doubleValue() : null);
         this.contestScore = contestScore;
     }
@@ -1,11 +1,13 @@
 package com.kma.ojcore.entity;
 
+import com.kma.ojcore.entity.generator.UuidV7Generator;
 import com.kma.ojcore.enums.EStatus;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.UuidGenerator;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -25,8 +27,10 @@ import java.util.UUID;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE)
 public abstract class BaseEntity {
 
+    // UUIDv7: tăng dần theo thời gian -> insert tuần tự vào clustered index thay vì rải ngẫu nhiên như v4
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID id;
 
     @Column(name = "status", nullable = false)
@@ -7,7 +7,9 @@ import lombok.experimental.FieldDefaults;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "contest_participations")
+@Table(name = "contest_participations", indexes = {
+        @Index(name = "idx_participation_contest_created", columnList = "contest_id, created_date") // Danh sách thí sinh, phân trang keyset
+})
 @Getter
 @Setter
 @NoArgsConstructor
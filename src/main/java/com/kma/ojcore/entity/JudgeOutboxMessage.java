@@ -0,0 +1,58 @@
+package com.kma.ojcore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Transactional outbox cho các message gửi sang máy chấm.
+ * Row được ghi CÙNG transaction với Submission, relay sẽ đọc và publish lên RabbitMQ sau.
+ */
+@Entity
+@Table(name = "judge_outbox", indexes = {
+        @Index(name = "idx_outbox_pending", columnList = "dispatched_at, created_date")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class JudgeOutboxMessage extends BaseEntity {
+
+    @Column(name = "exchange_name", nullable = false, length = 100)
+    String exchange;
+
+    @Column(name = "routing_key", nullable = false, length = 100)
+    String routingKey;
+
+    @Column(name = "content_type", length = 100)
+    String contentType;
+
+    // Header __TypeId__ do MessageConverter sinh ra, giữ nguyên để consumer vẫn deserialize được
+    @Column(name = "type_id")
+    String typeId;
+
+    // Body đã được serialize sẵn bằng MessageConverter của RabbitTemplate
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "MEDIUMBLOB")
+    byte[] payload;
+
+    // Priority của message AMQP (chỉ có khi chạy chế độ priority queue)
+    @Column(name = "priority")
+    Integer priority;
+
+    // NULL = chưa gửi
+    @Column(name = "dispatched_at")
+    LocalDateTime dispatchedAt;
+
+    // Relay đã nhận lô chứa row này và đang publish; hết hạn (relay chết giữa chừng) thì row được nhận lại
+    @Column(name = "claimed_until")
+    LocalDateTime claimedUntil;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    Integer attempts = 0;
+}
@@ -55,6 +55,16 @@ public class Problem extends BaseEntity {
     @Column(name = "testcase_dir", length = 255)
     String testcaseDir;
 
+    // Tăng 1 mỗi lần upload bộ test; máy chấm giữ cache testcase tới khi số này đổi.
+    // updatable = false: chỉ ProblemRepository.publishTestcases được ghi, save() entity cũ không ghi đè về version trước
+    @Column(name = "testcase_version", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    @Builder.Default
+    Long testcaseVersion = 0L;
+
+    // sha256 của manifest hiện tại; manifest nằm ở <testcaseDir>/manifests/<hash>.json (bất biến)
+    @Column(name = "testcase_manifest_hash", length = 64, updatable = false)
+    String testcaseManifestHash;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "problem_languages", joinColumns = @JoinColumn(name = "problem_id"))
     @Column(name = "language_key", length = 50)
@@ -67,6 +77,11 @@ public class Problem extends BaseEntity {
     @Column(name = "accepted_count")
     Long acceptedCount = 0L;
 
+    // Stamp của lần recalculateProblemStats gần nhất; delta write-behind có stamp nhỏ hơn bị bỏ khi flush (xem StatsFlushWriter)
+    @Column(name = "stats_epoch", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    @Builder.Default
+    Long statsEpoch = 0L;
+
     @Column(length = 255)
     String source;
 
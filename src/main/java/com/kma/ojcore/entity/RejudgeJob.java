@@ -0,0 +1,88 @@
+package com.kma.ojcore.entity;
+
+import com.kma.ojcore.enums.RejudgeJobStatus;
+import com.kma.ojcore.enums.RejudgeScope;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Job rejudge được lưu trong DB: runner đọc submission theo keyset (id > cursor), đẩy từng chunk qua outbox
+ * và ghi tiến độ cùng transaction -> restart node thì chạy tiếp từ cursor, không đẩy trùng.
+ */
+@Entity
+@Table(name = "rejudge_jobs", indexes = {
+        @Index(name = "idx_rejudge_job_status", columnList = "job_status, created_date")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RejudgeJob extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false, length = 20)
+    RejudgeScope scope;
+
+    @Column(name = "problem_id")
+    UUID problemId;
+
+    @Column(name = "contest_id")
+    UUID contestId;
+
+    // Scope SUBMISSIONS: danh sách id, phân tách bằng dấu phẩy (mỗi id đúng 36 ký tự)
+    @Lob
+    @Column(name = "submission_ids", columnDefinition = "MEDIUMTEXT")
+    String submissionIds;
+
+    // Scope SUBMISSIONS: số id đầu danh sách đã xử lý, chunk sau cắt thẳng từ vị trí này thay vì parse lại cả danh sách
+    @Column(name = "submission_offset")
+    Integer submissionOffset;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_status", nullable = false, length = 20)
+    RejudgeJobStatus jobStatus;
+
+    // Id submission cuối cùng đã xử lý (thứ tự theo khóa chính trong DB)
+    @Column(name = "cursor_id")
+    UUID cursorId;
+
+    // PROBLEM / CONTEST: ước lượng lúc tạo job (bài nộp mới trong lúc chạy vẫn được xử lý), chốt lại khi hoàn thành
+    @Column(name = "total_count", nullable = false)
+    @Builder.Default
+    Long totalCount = 0L;
+
+    @Column(name = "queued_count", nullable = false)
+    @Builder.Default
+    Long queuedCount = 0L;
+
+    @Column(name = "failed_count", nullable = false)
+    @Builder.Default
+    Long failedCount = 0L;
+
+    @Column(name = "last_error", length = 500)
+    String lastError;
+
+    @Column(name = "started_at")
+    LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    LocalDateTime finishedAt;
+
+    // Lease: chỉ 1 node được chạy job tại 1 thời điểm, node chết thì lease hết hạn và node khác nhận tiếp
+    @Column(name = "lease_owner", length = 100)
+    String leaseOwner;
+
+    @Column(name = "lease_until")
+    LocalDateTime leaseUntil;
+
+    // Chống ghi đè khi admin pause/cancel đúng lúc runner đang xử lý chunk
+    @Version
+    @Column(name = "version")
+    Long version;
+}
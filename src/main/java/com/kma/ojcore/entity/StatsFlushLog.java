@@ -0,0 +1,30 @@
+package com.kma.ojcore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nhật ký các lô counter đã flush từ Redis xuống MySQL.
+ * Row được INSERT cùng transaction với các UPDATE counter -> replay 1 lô đã áp dụng sẽ bị bỏ qua (idempotent).
+ */
+@Entity
+@Table(name = "stats_flush_log", indexes = {
+        @Index(name = "idx_stats_flush_log_applied_at", columnList = "applied_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StatsFlushLog {
+
+    @Id
+    @Column(name = "batch_id", length = 64)
+    String batchId;
+
+    @Column(name = "applied_at", nullable = false)
+    LocalDateTime appliedAt;
+}
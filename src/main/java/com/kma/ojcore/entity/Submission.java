@@ -8,8 +8,12 @@ import lombok.experimental.FieldDefaults;
 
 @Entity
 @Table(name = "submissions", indexes = {
-        @Index(name = "idx_submission_problem", columnList = "problem_id"), // Index cho cột problem_id để truy vấn nhanh các submission của một bài toán
-        @Index(name = "idx_submission_user", columnList = "user_id")        // Index cho cột user_id để truy vấn nhanh các submission của một người dùng
+        // Danh sách submission (SubmissionSearchRepository): lọc theo cột đầu, sắp xếp theo created_date không cần filesort
+        @Index(name = "idx_submission_user_created", columnList = "user_id, created_date"),
+        @Index(name = "idx_submission_problem_verdict_created", columnList = "problem_id, verdict, created_date"),
+        @Index(name = "idx_submission_contest_user_problem_created", columnList = "contest_id, user_id, problem_id, created_date"),
+        @Index(name = "idx_submission_created", columnList = "created_date"), // Trang submission không filter
+        @Index(name = "idx_submission_problem_staff_verdict", columnList = "problem_id, is_staff, verdict") // Thống kê verdict của bài (bỏ staff)
 })
 @Getter
 @Setter
@@ -22,8 +26,10 @@ public class Submission extends BaseEntity {
     @Column(name = "language_key", nullable = false, length = 50)
     String languageKey; // Lưu "CPP", "JAVA", "PYTHON3"
 
-    @Column(name = "source_code", columnDefinition = "TEXT", nullable = false)
-    String sourceCode;
+    // Source code nằm ở submission_blobs (SubmissionBlobStore), ở đây chỉ giữ hash.
+    // Cho phép NULL vì dòng cũ chỉ có hash sau khi SubmissionBlobBackfill chạy xong
+    @Column(name = "source_hash", length = 64)
+    String sourceHash;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
@@ -52,12 +58,17 @@ public class Submission extends BaseEntity {
     @Column(name = "execution_memory_mb")
     Long executionMemoryMb; // RAM tốn nhiều nhất (tùy chọn, sau này làm)
 
-    @Column(name = "error_message", columnDefinition = "TEXT")
-    String errorMessage; // Lưu log báo lỗi nếu bị CE (Compile Error) hoặc RE
+    @Column(name = "error_hash", length = 64)
+    String errorHash; // Hash log báo lỗi nếu bị CE (Compile Error) hoặc RE, nội dung ở submission_blobs
 
     @Column(name = "is_rejudged", columnDefinition = "boolean default false")
     Boolean isRejudged = false;
 
+    // Chép từ users.is_staff lúc nộp, đổi theo khi role của user đổi
+    @Column(name = "is_staff", nullable = false, columnDefinition = "boolean default false")
+    @Builder.Default
+    Boolean staff = false;
+
     // -- Relationships -- //
 
     // Submission - Problem //
@@ -0,0 +1,40 @@
+package com.kma.ojcore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nội dung lớn của submission (source code, log lỗi compile/runtime) tách khỏi bảng submissions.
+ * Khoá là SHA-256 của nội dung gốc -> các bài nộp giống hệt nhau (code mẫu, nộp lại y nguyên) dùng chung 1 dòng.
+ * Dòng bất biến, chỉ INSERT IGNORE / SELECT qua {@link com.kma.ojcore.repository.SubmissionBlobJdbcRepository}.
+ */
+@Entity
+@Table(name = "submission_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SubmissionBlob {
+
+    // SHA-256 (hex) của nội dung UTF-8 trước khi nén
+    @Id
+    @Column(name = "hash", length = 64)
+    String hash;
+
+    // 0 = lưu nguyên, 1 = deflate
+    @Column(name = "codec", nullable = false)
+    Byte codec;
+
+    @Column(name = "raw_size", nullable = false)
+    Integer rawSize;
+
+    @Column(name = "content", nullable = false, columnDefinition = "MEDIUMBLOB")
+    byte[] content;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+}
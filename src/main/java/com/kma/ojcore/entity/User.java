@@ -14,7 +14,8 @@ import java.util.Set;
 @Entity
 @Table(name = "users", indexes = {
         @Index(name = "idx_user_rank_oi", columnList = "status, total-score DESC, solved_count DESC, ac_count DESC, submission_count ASC"),
-        @Index(name = "idx_user_rank_acm", columnList = "status, solved_count DESC, total-score DESC, ac_count DESC, submission_count ASC")
+        @Index(name = "idx_user_rank_acm", columnList = "status, solved_count DESC, total-score DESC, ac_count DESC, submission_count ASC"),
+        @Index(name = "idx_user_staff", columnList = "is_staff, status")
 })
 @Getter
 @Setter
@@ -92,6 +93,11 @@ public class User extends BaseEntity implements Serializable {
     @Builder.Default
     Double totalScore = 0.0;
 
+    // Stamp của lần recalculateUserStats gần nhất; delta write-behind có stamp nhỏ hơn bị bỏ khi flush (xem StatsFlushWriter)
+    @Column(name = "stats_epoch", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    @Builder.Default
+    Long statsEpoch = 0L;
+
     @Column(name = "email_verified", nullable = false)
     @Builder.Default
     Boolean emailVerified = false;
@@ -111,6 +117,12 @@ public class User extends BaseEntity implements Serializable {
     @Builder.Default
     Integer tokenVersion = 1;
 
+    // Có role ADMIN / MODERATOR / ASSESSOR. Denormalize từ user_roles để query lọc staff không phải JOIN roles;
+    // cập nhật cùng lúc với roles (StaffFlagSynchronizer)
+    @Column(name = "is_staff", nullable = false, columnDefinition = "boolean default false")
+    @Builder.Default
+    Boolean staff = false;
+
     // -- Relationships -- //
 
     // User - Role //
@@ -0,0 +1,19 @@
+package com.kma.ojcore.entity.generator;
+
+import com.kma.ojcore.utils.UuidHelper;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.UUID;
+
+/**
+ * Sinh khóa chính UUIDv7 (RFC 9562) cho {@link com.kma.ojcore.entity.BaseEntity}.
+ * Giá trị tăng dần theo thời gian nên bản ghi mới luôn được chèn vào cuối clustered index của InnoDB.
+ */
+public class UuidV7Generator implements UuidValueGenerator {
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return UuidHelper.generateV7();
+    }
+}
@@ -0,0 +1,24 @@
+package com.kma.ojcore.enums;
+
+/**
+ * Luồng (lane) gửi việc cho máy chấm. Mỗi lane có queue riêng để rejudge hàng loạt
+ * không chặn bài nộp contest đang diễn ra.
+ * priority chỉ dùng khi bật chế độ priority queue (x-max-priority), số lớn = ưu tiên cao.
+ * RUN_CODE luôn đi judge.run.queue (không có x-max-priority) nên không mang priority.
+ */
+public enum JudgeLane {
+    CONTEST(9),   // Bài nộp trong giờ thi: cần verdict nhanh nhất
+    RUN_CODE(null), // Chạy thử với custom input: queue riêng, không xếp chung với bài chấm
+    PRACTICE(5),  // Luyện tập, upsolve
+    REJUDGE(1);   // Chấm lại hàng loạt: chạy nền, nhường các lane khác
+
+    private final Integer priority;
+
+    JudgeLane(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+}
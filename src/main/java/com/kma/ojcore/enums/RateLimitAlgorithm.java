@@ -0,0 +1,9 @@
+package com.kma.ojcore.enums;
+
+/**
+ * Thuật toán giới hạn tần suất cho {@link com.kma.ojcore.annotation.RateLimit}.
+ */
+public enum RateLimitAlgorithm {
+    SLIDING_WINDOW, // Tối đa capacity request trong mỗi cửa sổ trượt timeout (capacity = 1 ~ khoá SETNX cũ)
+    TOKEN_BUCKET    // Cho phép burst tới capacity, hồi refillTokens token sau mỗi timeout
+}
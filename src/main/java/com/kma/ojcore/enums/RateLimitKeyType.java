@@ -0,0 +1,10 @@
+package com.kma.ojcore.enums;
+
+/**
+ * Đối tượng bị đếm của {@link com.kma.ojcore.annotation.RateLimit}.
+ */
+public enum RateLimitKeyType {
+    USER,     // Theo user id; người dùng nặc danh rơi về theo IP
+    IP,       // Theo IP client (login, forgot-password...)
+    ENDPOINT  // Dùng chung 1 quota cho cả endpoint
+}
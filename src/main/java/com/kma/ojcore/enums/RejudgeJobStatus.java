@@ -0,0 +1,9 @@
+package com.kma.ojcore.enums;
+
+public enum RejudgeJobStatus {
+    PENDING,    // Vừa tạo, chưa node nào nhận
+    RUNNING,    // Đang đẩy bài vào hàng đợi chấm theo từng chunk
+    PAUSED,     // Admin tạm dừng, giữ nguyên cursor để chạy tiếp
+    COMPLETED,  // Đã đẩy hết
+    CANCELLED   // Admin hủy, các bài đã đẩy trước đó vẫn được chấm
+}
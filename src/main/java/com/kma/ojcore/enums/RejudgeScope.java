@@ -0,0 +1,7 @@
+package com.kma.ojcore.enums;
+
+public enum RejudgeScope {
+    SUBMISSIONS, // Danh sách submission cụ thể
+    PROBLEM,     // Toàn bộ submission của 1 bài
+    CONTEST      // Toàn bộ submission của 1 contest
+}
@@ -1,9 +1,27 @@
 package com.kma.ojcore.enums;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum RoleName {
     ROLE_USER,      // Normal user
     ROLE_ADMIN,     // Admin
     ROLE_MODERATOR, // Moderator/SME
     ROLE_ASSESSOR,  // HR / Recruiter (Contest Manager)
-    ROLE_JUDGE      // Judge/Reviewer
+    ROLE_JUDGE;     // Judge/Reviewer
+
+    // Staff: không tính điểm / xếp hạng / thống kê (cột users.is_staff, submissions.is_staff)
+    public static final Set<RoleName> STAFF_ROLES = EnumSet.of(ROLE_ADMIN, ROLE_MODERATOR, ROLE_ASSESSOR);
+
+    public static boolean containsStaff(Collection<RoleName> roleNames) {
+        return roleNames.stream().anyMatch(STAFF_ROLES::contains);
+    }
+
+    public static boolean isStaffAuthority(String authority) {
+        for (RoleName role : STAFF_ROLES) {
+            if (role.name().equals(authority)) return true;
+        }
+        return false;
+    }
 }
@@ -13,6 +13,7 @@ public enum ErrorCode {
     VALIDATION_FAILED("SYS_002", "Dữ liệu đầu vào không hợp lệ.", HttpStatus.BAD_REQUEST),
     METHOD_ARGUMENT_TYPE_MISMATCH("SYS_003", "Kiểu đối số không hợp lệ.", HttpStatus.BAD_REQUEST),
     MISSING_REQUEST_PARAMETER("SYS_004", "Thiếu tham số bắt buộc.", HttpStatus.BAD_REQUEST),
+    TOO_MANY_REQUESTS("SYS_005", "Quá nhiều yêu cầu. Vui lòng thử lại sau.", HttpStatus.TOO_MANY_REQUESTS),
 
     // ==========================================
     // 2. AUTH - AUTHENTICATION/AUTHORIZATION
@@ -49,6 +50,8 @@ public enum ErrorCode {
     LANGUAGE_NOT_SUPPORTED("SUB_002", "Ngôn ngữ lập trình không được hỗ trợ cho Problem này.", HttpStatus.BAD_REQUEST),
     SUBMISSION_LIMIT_EXCEEDED("SUB_003", "Vượt quá giới hạn tần suất nộp bài.", HttpStatus.TOO_MANY_REQUESTS),
     RUN_CODE_IN_PROGRESS("SUB_004", "Kết quả Run code đang được xử lý hoặc đã hết hạn.", HttpStatus.NOT_FOUND),
+    REJUDGE_JOB_NOT_FOUND("SUB_005", "Không tìm thấy Rejudge job.", HttpStatus.NOT_FOUND),
+    REJUDGE_JOB_INVALID_STATE("SUB_006", "Trạng thái Rejudge job không cho phép thao tác này.", HttpStatus.BAD_REQUEST),
 
     // ==========================================
     // 7. CON - CONTEST
@@ -4,11 +4,15 @@ import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
 import com.kma.ojcore.dto.response.submissions.SubmissionDetailsSdo;
 import com.kma.ojcore.entity.Submission;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface SubmissionMapper {
 
     SubmissionBasicSdo toBasicSdo(Submission submission);
 
+    // Nội dung nằm trong submission_blobs, nạp riêng qua SubmissionBlobStore theo sourceHash / errorHash
+    @Mapping(target = "sourceCode", ignore = true)
+    @Mapping(target = "errorMessage", ignore = true)
     SubmissionDetailsSdo toDetailsSdo(Submission submission);
 }
@@ -0,0 +1,166 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tính lại thống kê theo tập (set-based) cho nhiều key cùng lúc.
+ * <p>
+ * Các key được nạp vào TEMPORARY TABLE rồi mỗi bảng đích chỉ cần 1-2 câu UPDATE ... JOIN,
+ * thay vì 1 câu UPDATE có subquery tương quan cho từng user / problem / cặp user-problem.
+ * Mọi hàm phải được gọi trong transaction (temp table gắn với connection của transaction đó).
+ * Lưu ý MySQL: 1 câu lệnh không được tham chiếu cùng 1 temp table 2 lần -> mỗi câu chỉ JOIN temp table 1 lần.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkRecalculationJdbcRepository {
+
+    private static final String PAIRS_TABLE = "tmp_recalc_pairs";
+    private static final String USERS_TABLE = "tmp_recalc_users";
+    private static final String PROBLEMS_TABLE = "tmp_recalc_problems";
+    private static final String PARTICIPANTS_TABLE = "tmp_recalc_participants";
+
+    // Cùng ngữ nghĩa với UserProblemStatusRepository.recalculateStatus
+    private static final String RECALC_STATUS_SQL = "UPDATE user_problem_status ups " +
+            "JOIN ( " +
+            "    SELECT t.user_id, t.problem_id, " +
+            "           COALESCE(MAX(CASE WHEN s.verdict NOT IN ('CE', 'SE') THEN s.score END), 0) AS max_score, " +
+            "           COALESCE(MAX(s.verdict = 'AC'), 0) AS solved " +
+            "    FROM " + PAIRS_TABLE + " t " +
+            "    LEFT JOIN submissions s ON s.user_id = t.user_id AND s.problem_id = t.problem_id " +
+            "        AND s.contest_id IS NULL AND s.status = 'ACTIVE' " +
+            "    GROUP BY t.user_id, t.problem_id " +
+            ") agg ON agg.user_id = ups.user_id AND agg.problem_id = ups.problem_id " +
+            "SET ups.max_score = agg.max_score, " +
+            "    ups.state = CASE WHEN agg.solved = 1 THEN 'SOLVED' ELSE 'ATTEMPTED' END";
+
+    // Cùng ngữ nghĩa với UserRepository.recalculateUserStats (submission_count không tính lại)
+    private static final String RECALC_USER_STATUS_TOTALS_SQL = "UPDATE users u " +
+            "JOIN ( " +
+            "    SELECT t.user_id, COALESCE(SUM(ups.max_score), 0) AS total_score, " +
+            "           COALESCE(SUM(ups.state = 'SOLVED'), 0) AS solved_count " +
+            "    FROM " + USERS_TABLE + " t " +
+            "    LEFT JOIN user_problem_status ups ON ups.user_id = t.user_id " +
+            "    GROUP BY t.user_id " +
+            ") agg ON agg.user_id = u.id " +
+            "SET u.`total-score` = agg.total_score, u.solved_count = agg.solved_count";
+
+    // Chạy sau RECALC_USER_STATUS_TOTALS_SQL nên stamp stats_epoch ghi ở đây, khi đã đọc xong mọi dữ liệu nguồn
+    private static final String RECALC_USER_AC_SQL = "UPDATE users u " +
+            "JOIN ( " +
+            "    SELECT t.user_id, COUNT(s.id) AS ac_count " +
+            "    FROM " + USERS_TABLE + " t " +
+            "    LEFT JOIN submissions s ON s.user_id = t.user_id AND s.verdict = 'AC' " +
+            "        AND s.status = 'ACTIVE' AND s.contest_id IS NULL " +
+            "    GROUP BY t.user_id " +
+            ") agg ON agg.user_id = u.id " +
+            "SET u.ac_count = agg.ac_count, u.stats_epoch = " + StatsCounterJdbcRepository.NEXT_STAMP_SQL;
+
+    // Cùng ngữ nghĩa với ProblemRepository.recalculateProblemStats
+    private static final String RECALC_PROBLEM_SQL = "UPDATE problems p " +
+            "JOIN ( " +
+            "    SELECT t.problem_id, COALESCE(SUM(s.verdict = 'AC'), 0) AS accepted_count, COUNT(s.id) AS submission_count " +
+            "    FROM " + PROBLEMS_TABLE + " t " +
+            "    LEFT JOIN submissions s ON s.problem_id = t.problem_id AND s.status = 'ACTIVE' " +
+            "    GROUP BY t.problem_id " +
+            ") agg ON agg.problem_id = p.id " +
+            "SET p.accepted_count = agg.accepted_count, p.submission_count = agg.submission_count, " +
+            "    p.stats_epoch = " + StatsCounterJdbcRepository.NEXT_STAMP_SQL;
+
+    // Cùng ngữ nghĩa với ContestParticipationRepository.recalculateOiScoresByContestId, chỉ cho các thí sinh bị ảnh hưởng
+    private static final String RECALC_PARTICIPANT_SQL = "UPDATE contest_participations cp " +
+            "JOIN ( " +
+            "    SELECT per_problem.contest_id, per_problem.user_id, COALESCE(SUM(per_problem.max_score), 0) AS score " +
+            "    FROM ( " +
+            "        SELECT t.contest_id, t.user_id, s.problem_id, " +
+            "               MAX((CAST(COALESCE(s.score, 0) AS float) / COALESCE(p.total_score, 100.0)) * c_p.points) AS max_score " +
+            "        FROM " + PARTICIPANTS_TABLE + " t " +
+            "        LEFT JOIN submissions s ON s.contest_id = t.contest_id AND s.user_id = t.user_id AND s.status = 'ACTIVE' " +
+            "        LEFT JOIN problems p ON p.id = s.problem_id " +
+            "        LEFT JOIN contest_problems c_p ON c_p.problem_id = s.problem_id AND c_p.contest_id = s.contest_id " +
+            "        GROUP BY t.contest_id, t.user_id, s.problem_id " +
+            "    ) per_problem " +
+            "    GROUP BY per_problem.contest_id, per_problem.user_id " +
+            ") agg ON agg.contest_id = cp.contest_id AND agg.user_id = cp.user_id " +
+            "SET cp.score = agg.score";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param pairs mỗi phần tử là {userId, problemId}
+     */
+    public int recalculateUserProblemStatuses(Collection<UUID[]> pairs) {
+        return withKeyTable(PAIRS_TABLE, "user_id BINARY(16) NOT NULL, problem_id BINARY(16) NOT NULL, PRIMARY KEY (user_id, problem_id)",
+                pairs, RECALC_STATUS_SQL);
+    }
+
+    /**
+     * Phải chạy SAU recalculateUserProblemStatuses vì total-score / solved_count đọc từ user_problem_status.
+     */
+    public int recalculateUserStats(Collection<UUID> userIds) {
+        List<UUID[]> keys = userIds.stream().map(id -> new UUID[]{id}).toList();
+        createKeyTable(USERS_TABLE, "user_id BINARY(16) NOT NULL PRIMARY KEY", keys);
+        try {
+            int updated = jdbcTemplate.update(RECALC_USER_STATUS_TOTALS_SQL);
+            jdbcTemplate.update(RECALC_USER_AC_SQL);
+            return updated;
+        } finally {
+            dropKeyTable(USERS_TABLE);
+        }
+    }
+
+    public int recalculateProblemStats(Collection<UUID> problemIds) {
+        List<UUID[]> keys = problemIds.stream().map(id -> new UUID[]{id}).toList();
+        return withKeyTable(PROBLEMS_TABLE, "problem_id BINARY(16) NOT NULL PRIMARY KEY", keys, RECALC_PROBLEM_SQL);
+    }
+
+    /**
+     * @param participants mỗi phần tử là {contestId, userId}
+     */
+    public int recalculateParticipantScores(Collection<UUID[]> participants) {
+        return withKeyTable(PARTICIPANTS_TABLE, "contest_id BINARY(16) NOT NULL, user_id BINARY(16) NOT NULL, PRIMARY KEY (contest_id, user_id)",
+                participants, RECALC_PARTICIPANT_SQL);
+    }
+
+    private int withKeyTable(String table, String columns, Collection<UUID[]> keys, String sql) {
+        createKeyTable(table, columns, keys);
+        try {
+            return jdbcTemplate.update(sql);
+        } finally {
+            dropKeyTable(table);
+        }
+    }
+
+    // CREATE/DROP TEMPORARY TABLE không gây implicit commit trong MySQL nên an toàn bên trong transaction
+    private void createKeyTable(String table, String columns, Collection<UUID[]> keys) {
+        dropKeyTable(table);
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE " + table + " (" + columns + ") ENGINE = InnoDB");
+        if (keys.isEmpty()) return;
+
+        int width = keys.iterator().next().length;
+        String row = "(" + String.join(", ", Collections.nCopies(width, "?")) + ")";
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO ").append(table).append(" VALUES ");
+        List<Object> args = new ArrayList<>(keys.size() * width);
+        boolean first = true;
+        for (UUID[] key : keys) {
+            sql.append(first ? "" : ", ").append(row);
+            first = false;
+            for (UUID part : key) {
+                args.add(UuidHelper.toBytes(part));
+            }
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private void dropKeyTable(String table) {
+        jdbcTemplate.execute("DROP TEMPORARY TABLE IF EXISTS " + table);
+    }
+}
@@ -0,0 +1,114 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Đọc kết quả contest theo kiểu forward-only cursor (MySQL streaming, fetchSize = Integer.MIN_VALUE)
+ * để export: mỗi thí sinh được gom từ các dòng contest_participation_problems liền kề rồi đẩy ra ngay,
+ * không dựng cả bảng xếp hạng trong RAM.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ContestExportJdbcRepository {
+
+    // ORDER BY giống getLeaderboardNative, thêm cp.id để các dòng của cùng 1 thí sinh luôn liền nhau
+    private static final String RESULT_MATRIX_SQL = "SELECT cp.id AS participation_id, u.username, cp.score, cp.penalty, " +
+            "cpp.contest_problem_id, cpp.max_score, cpp.penalty AS problem_penalty, cpp.failed_attempts " +
+            "FROM contest_participations cp " +
+            "JOIN users u ON u.id = cp.user_id " +
+            "LEFT JOIN contest_participation_problems cpp ON cpp.participation_id = cp.id " +
+            "WHERE cp.contest_id = ? AND cp.is_disqualified = false " +
+            "ORDER BY cp.score DESC, cp.penalty ASC, cp.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param columnByContestProblem contest_problem id -> vị trí cột trong mảng kết quả từng bài
+     * @param consumer               nhận từng thí sinh theo thứ tự xếp hạng
+     */
+    public void streamResults(UUID contestId, Map<UUID, Integer> columnByContestProblem, Consumer<ResultRow> consumer) {
+        int problemCount = columnByContestProblem.size();
+        ResultRowCollector collector = new ResultRowCollector(columnByContestProblem, problemCount, consumer);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RESULT_MATRIX_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setBytes(1, UuidHelper.toBytes(contestId));
+            return ps;
+        }, collector);
+        collector.finish();
+    }
+
+    @Getter
+    public static final class ResultRow {
+        private final String username;
+        private final double score;
+        private final long penalty;
+        private final double[] problemScores;
+        private final long[] problemPenalties;
+        private final int[] problemTries;
+
+        ResultRow(String username, double score, long penalty, int problemCount) {
+            this.username = username;
+            this.score = score;
+            this.penalty = penalty;
+            this.problemScores = new double[problemCount];
+            this.problemPenalties = new long[problemCount];
+            this.problemTries = new int[problemCount];
+        }
+    }
+
+    private static final class ResultRowCollector implements RowCallbackHandler {
+        private final Map<UUID, Integer> columnByContestProblem;
+        private final int problemCount;
+        private final Consumer<ResultRow> consumer;
+
+        private byte[] currentParticipationId;
+        private ResultRow current;
+
+        ResultRowCollector(Map<UUID, Integer> columnByContestProblem, int problemCount, Consumer<ResultRow> consumer) {
+            this.columnByContestProblem = columnByContestProblem;
+            this.problemCount = problemCount;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            byte[] participationId = rs.getBytes("participation_id");
+            if (current == null || !Arrays.equals(participationId, currentParticipationId)) {
+                finish();
+                currentParticipationId = participationId;
+                current = new ResultRow(rs.getString("username"), rs.getDouble("score"), rs.getLong("penalty"), problemCount);
+            }
+
+            Integer column = columnByContestProblem.get(UuidHelper.getUuidFromBytes(rs.getBytes("contest_problem_id")));
+            if (column == null) return; // LEFT JOIN không có dòng nào, hoặc bài đã bị gỡ khỏi contest
+
+            current.problemScores[column] = rs.getDouble("max_score");
+            long problemPenalty = rs.getLong("problem_penalty");
+            current.problemPenalties[column] = problemPenalty == Long.MAX_VALUE ? 0L : problemPenalty;
+            current.problemTries[column] = rs.getInt("failed_attempts");
+        }
+
+        void finish() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
+    }
+}
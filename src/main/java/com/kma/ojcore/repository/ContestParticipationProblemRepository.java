@@ -4,6 +4,8 @@ import com.kma.ojcore.entity.ContestParticipation;
 import com.kma.ojcore.entity.ContestParticipationProblem;
 import com.kma.ojcore.entity.ContestProblem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +18,22 @@ public interface ContestParticipationProblemRepository extends JpaRepository<Con
     Optional<ContestParticipationProblem> findByParticipationAndContestProblem(ContestParticipation participation, ContestProblem contestProblem);
 
     List<ContestParticipationProblem> findByParticipationUserIdInAndContestProblemContestId(List<UUID> userIds, UUID contestId);
+
+    interface LiveLeaderboardCellProjection {
+        UUID getUserId();
+        UUID getProblemId();
+        String getDisplayId();
+        Double getMaxScore();
+        Long getPenalty();
+        Integer getFailedAttempts();
+        Boolean getIsAc();
+    }
+
+    @Query("SELECT p.user.id AS userId, cp.problem.id AS problemId, cp.displayId AS displayId, " +
+            "cpp.maxScore AS maxScore, cpp.penalty AS penalty, cpp.failedAttempts AS failedAttempts, cpp.isAc AS isAc " +
+            "FROM ContestParticipationProblem cpp " +
+            "JOIN cpp.participation p " +
+            "JOIN cpp.contestProblem cp " +
+            "WHERE cp.contest.id = :contestId AND p.isDisqualified = false")
+    List<LiveLeaderboardCellProjection> findLiveLeaderboardCells(@Param("contestId") UUID contestId);
 }
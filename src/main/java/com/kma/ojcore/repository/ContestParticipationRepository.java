@@ -14,6 +14,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -116,6 +117,75 @@ public interface ContestParticipationRepository extends JpaRepository<ContestPar
                                                                    @Param("keyword") String keyword,
                                                                    Pageable pageable);
 
+        // ===== Keyset theo (created_date, id) giảm dần. Trang đầu truyền mốc lớn nhất để 1 query dùng cho mọi trang =====
+        interface PublicParticipantRow {
+                UUID getId();
+                LocalDateTime getCreatedDate();
+                UUID getUserId();
+                String getUsername();
+        }
+
+        interface ParticipantRow extends PublicParticipantRow {
+                String getEmail();
+                Boolean getIsDisqualified();
+                LocalDateTime getStartTime();
+                LocalDateTime getEndTime();
+                Boolean getIsFinished();
+                Double getScore();
+                Long getPenalty();
+        }
+
+        @Query("SELECT cp.id AS id, cp.createdDate AS createdDate, u.id AS userId, u.username AS username, " +
+                        "u.email AS email, cp.isDisqualified AS isDisqualified, cp.startTime AS startTime, " +
+                        "cp.endTime AS endTime, cp.isFinished AS isFinished, cp.score AS score, cp.penalty AS penalty " +
+                        "FROM ContestParticipation cp JOIN cp.user u " +
+                        "WHERE cp.contest.id = :contestId " +
+                        "AND (:keyword IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', :keyword, '%')) ESCAPE '!' " +
+                        "     OR LOWER(u.email) LIKE LOWER(CONCAT('%', :keyword, '%')) ESCAPE '!') " +
+                        "AND (:isDisqualified IS NULL OR cp.isDisqualified = :isDisqualified) " +
+                        "AND (cp.createdDate < :afterCreatedDate OR (cp.createdDate = :afterCreatedDate AND cp.id < :afterId)) " +
+                        "ORDER BY cp.createdDate DESC, cp.id DESC")
+        List<ParticipantRow> findParticipantsAfter(@Param("contestId") UUID contestId,
+                                                   @Param("keyword") String keyword,
+                                                   @Param("isDisqualified") Boolean isDisqualified,
+                                                   @Param("afterCreatedDate") LocalDateTime afterCreatedDate,
+                                                   @Param("afterId") UUID afterId,
+                                                   Pageable limit);
+
+        @Query("SELECT cp.id AS id, cp.createdDate AS createdDate, u.id AS userId, u.username AS username " +
+                        "FROM ContestParticipation cp JOIN cp.user u " +
+                        "WHERE cp.contest.id = :contestId AND cp.isDisqualified = false " +
+                        "AND (:keyword IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', :keyword, '%')) ESCAPE '!') " +
+                        "AND (cp.createdDate < :afterCreatedDate OR (cp.createdDate = :afterCreatedDate AND cp.id < :afterId)) " +
+                        "ORDER BY cp.createdDate DESC, cp.id DESC")
+        List<PublicParticipantRow> findPublicParticipantsAfter(@Param("contestId") UUID contestId,
+                                                               @Param("keyword") String keyword,
+                                                               @Param("afterCreatedDate") LocalDateTime afterCreatedDate,
+                                                               @Param("afterId") UUID afterId,
+                                                               Pageable limit);
+
+        interface ScoreAndPenaltyProjection {
+                Double getScore();
+                Long getPenalty();
+        }
+
+        @Query("SELECT cp.score AS score, cp.penalty AS penalty FROM ContestParticipation cp WHERE cp.id = :participationId")
+        ScoreAndPenaltyProjection findScoreAndPenaltyById(@Param("participationId") UUID participationId);
+
+        interface LiveLeaderboardRowProjection {
+                byte[] getUserId();
+                String getUsername();
+                Double getScore();
+                Long getPenalty();
+        }
+
+        // Nạp toàn bộ thí sinh hợp lệ để dựng bảng xếp hạng trên Redis
+        @Query(value = "SELECT cp.user_id AS userId, u.username AS username, cp.score AS score, cp.penalty AS penalty " +
+                        "FROM contest_participations cp " +
+                        "JOIN users u ON cp.user_id = u.id " +
+                        "WHERE cp.contest_id = :contestId AND cp.is_disqualified = false", nativeQuery = true)
+        List<LiveLeaderboardRowProjection> findLiveLeaderboardRows(@Param("contestId") UUID contestId);
+
         interface ContestLeaderboardProjection {
                 byte[] getUserId();
                 String getUsername();
@@ -0,0 +1,48 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.entity.JudgeOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JudgeOutboxRepository extends JpaRepository<JudgeOutboxMessage, UUID> {
+
+    // SKIP LOCKED: nhiều instance chạy relay song song sẽ không giẫm chân lên nhau.
+    // Row đang được relay khác publish (claimed_until còn hạn) cũng bị bỏ qua.
+    @Query(value = "SELECT * FROM judge_outbox " +
+            "WHERE dispatched_at IS NULL " +
+            "AND (claimed_until IS NULL OR claimed_until < :now) " +
+            "ORDER BY created_date ASC " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<JudgeOutboxMessage> lockPendingBatch(@Param("limit") int limit, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE JudgeOutboxMessage m SET m.claimedUntil = :until, m.attempts = m.attempts + 1 WHERE m.id IN :ids")
+    int claim(@Param("ids") Collection<UUID> ids, @Param("until") LocalDateTime until);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE JudgeOutboxMessage m SET m.claimedUntil = NULL WHERE m.id IN :ids AND m.dispatchedAt IS NULL")
+    int releaseClaim(@Param("ids") Collection<UUID> ids);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE JudgeOutboxMessage m SET m.dispatchedAt = :now, m.claimedUntil = NULL WHERE m.id IN :ids")
+    int markDispatched(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM judge_outbox WHERE dispatched_at IS NOT NULL AND dispatched_at < :threshold LIMIT :limit",
+            nativeQuery = true)
+    int deleteDispatchedBefore(@Param("threshold") LocalDateTime threshold, @Param("limit") int limit);
+
+    long countByDispatchedAtIsNull();
+}
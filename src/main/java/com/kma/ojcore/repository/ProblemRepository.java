@@ -60,6 +60,35 @@ public interface ProblemRepository extends JpaRepository<Problem, UUID> {
 
     long countByIdInAndStatusNot(Collection<UUID> ids, EStatus status);
 
+    // Chỉ ghi đúng 3 cột testcase, không save cả entity (tránh ghi đè counter thống kê đang được cộng song song)
+    @Modifying
+    @Query("UPDATE Problem p SET p.testcaseVersion = COALESCE(p.testcaseVersion, 0) + 1, " +
+            "p.testcaseManifestHash = :manifestHash, p.testcaseDir = :testcaseDir WHERE p.id = :problemId")
+    int publishTestcases(@Param("problemId") UUID problemId,
+                         @Param("testcaseDir") String testcaseDir,
+                         @Param("manifestHash") String manifestHash);
+
+    @Query("SELECT p.testcaseVersion FROM Problem p WHERE p.id = :problemId")
+    Long findTestcaseVersionById(@Param("problemId") UUID problemId);
+
+    // ===== Metadata chấm bài (ProblemJudgeCache): mỗi ngôn ngữ được phép 1 dòng, không nạp cả entity =====
+    interface JudgeMetaRow {
+        UUID getId();
+        RuleType getRuleType();
+        Integer getTotalScore();
+        Integer getTimeLimitMs();
+        Integer getMemoryLimitMb();
+        Long getTestcaseVersion();
+        String getTestcaseManifestHash();
+        String getLanguageKey();
+    }
+
+    @Query("SELECT p.id AS id, p.ruleType AS ruleType, p.totalScore AS totalScore, p.timeLimitMs AS timeLimitMs, " +
+            "p.memoryLimitMb AS memoryLimitMb, p.testcaseVersion AS testcaseVersion, " +
+            "p.testcaseManifestHash AS testcaseManifestHash, l AS languageKey " +
+            "FROM Problem p LEFT JOIN p.allowedLanguages l WHERE p.id IN :problemIds")
+    List<JudgeMetaRow> findJudgeMetaByIds(@Param("problemIds") Collection<UUID> problemIds);
+
     @Modifying
     @Query("UPDATE Problem p SET p.acceptedCount = p.acceptedCount + 1 WHERE p.id = :problemId")
     void incrementAcceptedCount(@Param("problemId") UUID problemId);
@@ -71,7 +100,8 @@ public interface ProblemRepository extends JpaRepository<Problem, UUID> {
     @Modifying
     @Query(value = "UPDATE problems p " +
             "SET accepted_count = (SELECT COUNT(*) FROM submissions WHERE problem_id = p.id AND verdict = 'AC' AND status = 'ACTIVE'), " +
-            "submission_count = (SELECT COUNT(*) FROM submissions WHERE problem_id = p.id AND status = 'ACTIVE') " +
+            "submission_count = (SELECT COUNT(*) FROM submissions WHERE problem_id = p.id AND status = 'ACTIVE'), " +
+            "stats_epoch = " + StatsCounterJdbcRepository.NEXT_STAMP_SQL + " " +
             "WHERE p.id = :problemId", nativeQuery = true)
     int recalculateProblemStats(@Param("problemId") UUID problemId);
 }
@@ -0,0 +1,143 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.enums.RuleType;
+import com.kma.ojcore.service.ranking.RankingEntry;
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Nạp dữ liệu cho GlobalRankingIndex: cùng điều kiện lọc với getGlobalRankingOI/ACM
+ * (user ACTIVE, không mang role staff) nhưng không tính RANK() trong MySQL.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RankingJdbcRepository {
+
+    private static final int IN_CHUNK = 500;
+
+    private static final String FROM_RANKED_USERS = "FROM users u " +
+            "WHERE u.status = 'ACTIVE' AND u.is_staff = false";
+
+    private static final String SELECT_RANKED_USERS = "SELECT u.id, u.username, u.avatar_url, " +
+            "COALESCE(u.`total-score`, 0) AS total_score, COALESCE(u.solved_count, 0) AS solved_count, " +
+            "COALESCE(u.ac_count, 0) AS ac_count, COALESCE(u.submission_count, 0) AS submission_count " +
+            FROM_RANKED_USERS;
+
+    private static final RowMapper<RankingEntry> ENTRY_MAPPER = (rs, rowNum) -> toEntry(rs);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Đọc toàn bộ bằng forward-only cursor (fetchSize = Integer.MIN_VALUE) để không giữ cả result set trong RAM.
+     */
+    public void streamAll(Consumer<RankingEntry> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_RANKED_USERS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(toEntry(rs)));
+    }
+
+    /**
+     * User không còn thuộc bảng xếp hạng (bị khoá, thành staff...) sẽ không có trong kết quả.
+     */
+    public List<RankingEntry> findByIds(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) return Collections.emptyList();
+        List<UUID> ids = List.copyOf(userIds);
+        List<RankingEntry> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += IN_CHUNK) {
+            List<UUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CHUNK));
+            String sql = SELECT_RANKED_USERS + " AND u.id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            result.addAll(jdbcTemplate.query(sql, ENTRY_MAPPER, chunk.stream().map(UuidHelper::toBytes).toArray()));
+        }
+        return result;
+    }
+
+    /**
+     * Số user có khoá xếp hạng tốt hơn hẳn {@code entry} (hạng = kết quả + 1). Dùng khi index chưa sẵn sàng.
+     */
+    public long countRankedBefore(RuleType ruleType, RankingEntry entry) {
+        boolean acm = ruleType == RuleType.ACM;
+        String first = firstColumn(acm);
+        String second = secondColumn(acm);
+        Object f = acm ? entry.solvedCount() : entry.totalScore();
+        Object s = acm ? entry.totalScore() : entry.solvedCount();
+        int ac = entry.acCount();
+        int sub = entry.submissionCount();
+
+        String sql = "SELECT COUNT(*) " + FROM_RANKED_USERS + " AND (" + first + " > ?" +
+                " OR (" + first + " = ? AND " + second + " > ?)" +
+                " OR (" + first + " = ? AND " + second + " = ? AND u.ac_count > ?)" +
+                " OR (" + first + " = ? AND " + second + " = ? AND u.ac_count = ? AND u.submission_count < ?))";
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, f, f, s, f, s, ac, f, s, ac, sub);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Phân trang keyset khi index chưa sẵn sàng: các user đứng sau {@code after} theo khoá xếp hạng rồi id
+     * (cùng thứ tự với {@link RankingEntry#OI_ORDER} / {@link RankingEntry#ACM_ORDER}).
+     * <p>
+     * Điều kiện viết dạng OR mở rộng trên cột gốc (các cột đều NOT NULL) theo đúng chiều của idx_user_rank_*,
+     * id cuối cùng là PK mà InnoDB gắn sau mọi secondary index: MySQL quét range trên index, không filesort.
+     *
+     * @param after null = trang đầu
+     */
+    public List<RankingEntry> findRankedAfter(RuleType ruleType, RankingEntry after, int limit) {
+        boolean acm = ruleType == RuleType.ACM;
+        String first = firstColumn(acm);
+        String second = secondColumn(acm);
+        String orderBy = " ORDER BY " + first + " DESC, " + second + " DESC, u.ac_count DESC, " +
+                "u.submission_count ASC, u.id ASC LIMIT ?";
+
+        if (after == null) {
+            return jdbcTemplate.query(SELECT_RANKED_USERS + orderBy, ENTRY_MAPPER, limit);
+        }
+        Object f = acm ? after.solvedCount() : after.totalScore();
+        Object s = acm ? after.totalScore() : after.solvedCount();
+        int ac = after.acCount();
+        int sub = after.submissionCount();
+        byte[] id = UuidHelper.toBytes(after.userId());
+
+        String sql = SELECT_RANKED_USERS + " AND (" + first + " < ?" +
+                " OR (" + first + " = ? AND " + second + " < ?)" +
+                " OR (" + first + " = ? AND " + second + " = ? AND u.ac_count < ?)" +
+                " OR (" + first + " = ? AND " + second + " = ? AND u.ac_count = ? AND u.submission_count > ?)" +
+                " OR (" + first + " = ? AND " + second + " = ? AND u.ac_count = ? AND u.submission_count = ? AND u.id > ?))" +
+                orderBy;
+        return jdbcTemplate.query(sql, ENTRY_MAPPER, f, f, s, f, s, ac, f, s, ac, sub, f, s, ac, sub, id, limit);
+    }
+
+    private static String firstColumn(boolean acm) {
+        return acm ? "u.solved_count" : "u.`total-score`";
+    }
+
+    private static String secondColumn(boolean acm) {
+        return acm ? "u.`total-score`" : "u.solved_count";
+    }
+
+    private static RankingEntry toEntry(ResultSet rs) throws SQLException {
+        return new RankingEntry(
+                UuidHelper.getUuidFromBytes(rs.getBytes("id")),
+                rs.getString("username"),
+                rs.getString("avatar_url"),
+                rs.getDouble("total_score"),
+                rs.getInt("solved_count"),
+                rs.getInt("ac_count"),
+                rs.getInt("submission_count"));
+    }
+}
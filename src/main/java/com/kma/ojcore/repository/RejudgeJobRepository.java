@@ -0,0 +1,45 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.entity.RejudgeJob;
+import com.kma.ojcore.enums.RejudgeJobStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RejudgeJobRepository extends JpaRepository<RejudgeJob, UUID> {
+
+    Page<RejudgeJob> findAllByOrderByCreatedDateDesc(Pageable pageable);
+
+    @Query("SELECT j.id FROM RejudgeJob j WHERE j.jobStatus IN :statuses ORDER BY j.createdDate ASC")
+    List<UUID> findIdsByJobStatusIn(@Param("statuses") Collection<RejudgeJobStatus> statuses);
+
+    /**
+     * Nhận (hoặc gia hạn) lease của job. Trả về 1 nếu node này đang giữ lease.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RejudgeJob j SET j.leaseOwner = :owner, j.leaseUntil = :until " +
+            "WHERE j.id = :id AND j.jobStatus IN :statuses " +
+            "AND (j.leaseOwner IS NULL OR j.leaseOwner = :owner OR j.leaseUntil < :now)")
+    int tryAcquireLease(@Param("id") UUID id,
+                        @Param("owner") String owner,
+                        @Param("now") LocalDateTime now,
+                        @Param("until") LocalDateTime until,
+                        @Param("statuses") Collection<RejudgeJobStatus> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RejudgeJob j SET j.leaseOwner = NULL, j.leaseUntil = NULL WHERE j.id = :id AND j.leaseOwner = :owner")
+    int releaseLease(@Param("id") UUID id, @Param("owner") String owner);
+}
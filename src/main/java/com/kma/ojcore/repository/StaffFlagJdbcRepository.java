@@ -0,0 +1,57 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.enums.RoleName;
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Đồng bộ cột is_staff (users, submissions) với user_roles.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StaffFlagJdbcRepository {
+
+    // Dựng từ RoleName.STAFF_ROLES để backfill và cờ lúc đổi role luôn dùng cùng 1 danh sách.
+    // Tên enum là hằng số trong code nên nhúng thẳng vào SQL được
+    private static final String STAFF_ROLE_NAMES = RoleName.STAFF_ROLES.stream()
+            .map(role -> "'" + role.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    private static final String HAS_STAFF_ROLE = "EXISTS ( " +
+            "SELECT 1 FROM user_roles ur JOIN roles r ON ur.role_id = r.id " +
+            "WHERE ur.user_id = u.id AND r.name IN (" + STAFF_ROLE_NAMES + "))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * User có users.is_staff lệch với role hiện tại (cột mới thêm, hoặc role bị sửa thẳng trong DB).
+     */
+    public List<UUID> findUsersWithStaleFlag() {
+        return jdbcTemplate.query("SELECT u.id FROM users u WHERE u.is_staff <> " + HAS_STAFF_ROLE,
+                (rs, rowNum) -> UuidHelper.getUuidFromBytes(rs.getBytes(1)));
+    }
+
+    /**
+     * Tính lại users.is_staff của 1 user từ user_roles.
+     *
+     * @return giá trị mới
+     */
+    public boolean refreshUserFlag(UUID userId) {
+        byte[] id = UuidHelper.toBytes(userId);
+        jdbcTemplate.update("UPDATE users u SET u.is_staff = " + HAS_STAFF_ROLE + " WHERE u.id = ?", id);
+        Boolean staff = jdbcTemplate.queryForObject("SELECT is_staff FROM users WHERE id = ?", Boolean.class, id);
+        return Boolean.TRUE.equals(staff);
+    }
+
+    // Dùng idx_submission_user; chỉ chạm các dòng thực sự đổi
+    public int updateSubmissionFlags(UUID userId, boolean staff) {
+        return jdbcTemplate.update("UPDATE submissions SET is_staff = ? WHERE user_id = ? AND is_staff <> ?",
+                staff, UuidHelper.toBytes(userId), staff);
+    }
+}
@@ -0,0 +1,119 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.service.stats.ProblemStatsDelta;
+import com.kma.ojcore.service.stats.UserStatsDelta;
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Áp các counter delta đã gom nhóm xuống MySQL bằng JDBC batch: mỗi row chỉ 1 câu UPDATE.
+ * Các row được sắp theo id để mọi transaction khóa theo cùng thứ tự -> tránh deadlock.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsCounterJdbcRepository {
+
+    /**
+     * Stamp đơn điệu tăng do MySQL cấp, không đọc / khóa row nào. UUID_SHORT() = (server_id << 56) + (thời điểm khởi
+     * động server << 24) + bộ đếm tăng dần; bỏ byte server_id cho vừa BIGINT có dấu. Recalculation ghi stamp này vào
+     * stats_epoch ngay trong câu UPDATE (sau khi đã đọc xong dữ liệu nguồn), kết quả chấm lấy stamp khi record().
+     * Chỉ so sánh được trên cùng 1 MySQL primary.
+     */
+    public static final String NEXT_STAMP_SQL = "(UUID_SHORT() & 72057594037927935)";
+
+    private static final String UPDATE_USER_SQL = "UPDATE users SET " +
+            "submission_count = COALESCE(submission_count, 0) + ?, " +
+            "ac_count = COALESCE(ac_count, 0) + ?, " +
+            "solved_count = COALESCE(solved_count, 0) + ?, " +
+            "`total-score` = COALESCE(`total-score`, 0) + ? " +
+            "WHERE id = ?";
+
+    private static final String UPDATE_PROBLEM_SQL = "UPDATE problems SET " +
+            "submission_count = submission_count + ?, " +
+            "accepted_count = accepted_count + ? " +
+            "WHERE id = ?";
+
+    private static final String MARK_BATCH_SQL = "INSERT IGNORE INTO stats_flush_log (batch_id, applied_at) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void applyUserDeltas(Map<UUID, UserStatsDelta> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        new TreeMap<>(deltas).forEach((userId, d) -> {
+            if (!d.isEmpty()) {
+                args.add(new Object[]{d.getSubmissionCount(), d.getAcCount(), d.getSolvedCount(),
+                        d.getTotalScore(), UuidHelper.toBytes(userId)});
+            }
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_USER_SQL, args);
+        }
+    }
+
+    public void applyProblemDeltas(Map<UUID, ProblemStatsDelta> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        new TreeMap<>(deltas).forEach((problemId, d) -> {
+            if (!d.isEmpty()) {
+                args.add(new Object[]{d.getSubmissionCount(), d.getAcceptedCount(), UuidHelper.toBytes(problemId)});
+            }
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_PROBLEM_SQL, args);
+        }
+    }
+
+    public long nextStamp() {
+        return jdbcTemplate.queryForObject("SELECT " + NEXT_STAMP_SQL, Long.class);
+    }
+
+    /**
+     * Khóa X các row sắp flush và đọc stats_epoch. Chỉ transaction flush gọi (nó cũng sắp UPDATE các row này),
+     * luồng chấm bài không đụng tới.
+     */
+    public Map<UUID, Long> lockUserEpochs(Collection<UUID> userIds) {
+        return lockEpochs("users", userIds);
+    }
+
+    public Map<UUID, Long> lockProblemEpochs(Collection<UUID> problemIds) {
+        return lockEpochs("problems", problemIds);
+    }
+
+    private Map<UUID, Long> lockEpochs(String table, Collection<UUID> ids) {
+        if (ids.isEmpty()) return Map.of();
+        List<UUID> sorted = new ArrayList<>(new TreeSet<>(ids));
+        String sql = "SELECT id, stats_epoch FROM " + table + " WHERE id IN (" +
+                String.join(",", Collections.nCopies(sorted.size(), "?")) + ") FOR UPDATE";
+        Map<UUID, Long> epochs = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            epochs.put(UuidHelper.getUuidFromBytes(rs.getBytes("id")), rs.getLong("stats_epoch"));
+        }, sorted.stream().map(UuidHelper::toBytes).toArray());
+        return epochs;
+    }
+
+    /**
+     * Đánh dấu 1 lô flush đã được áp dụng. Phải gọi trong CÙNG transaction với các UPDATE counter.
+     *
+     * @return false nếu lô này đã được áp dụng trước đó (replay) -> không được cộng lại
+     */
+    public boolean markFlushBatchApplied(String batchId) {
+        return jdbcTemplate.update(MARK_BATCH_SQL, batchId, Timestamp.valueOf(LocalDateTime.now())) > 0;
+    }
+
+    public int deleteFlushLogBefore(LocalDateTime threshold) {
+        return jdbcTemplate.update("DELETE FROM stats_flush_log WHERE applied_at < ?", Timestamp.valueOf(threshold));
+    }
+}
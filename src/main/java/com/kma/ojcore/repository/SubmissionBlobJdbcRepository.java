@@ -0,0 +1,109 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Bảng submission_blobs (nội dung nén, khoá theo hash) và các query chuyển dữ liệu từ
+ * 2 cột TEXT cũ submissions.source_code / error_message sang.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SubmissionBlobJdbcRepository {
+
+    private static final int IN_CHUNK = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record BlobRow(String hash, byte codec, int rawSize, byte[] content) {
+    }
+
+    public record LegacyContentRow(UUID id, String sourceCode, String errorMessage) {
+    }
+
+    public record HashAssignment(UUID id, String sourceHash, String errorHash) {
+    }
+
+    // Trùng hash = cùng nội dung -> bỏ qua
+    public void insertIgnore(Collection<BlobRow> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO submission_blobs (hash, codec, raw_size, content, created_at) " +
+                        "VALUES (?, ?, ?, ?, NOW())",
+                rows.stream().map(r -> new Object[]{r.hash(), r.codec(), r.rawSize(), r.content()}).toList());
+    }
+
+    public List<BlobRow> findByHashes(Collection<String> hashes) {
+        if (hashes.isEmpty()) return Collections.emptyList();
+        List<String> all = List.copyOf(hashes);
+        List<BlobRow> result = new ArrayList<>(all.size());
+        for (int i = 0; i < all.size(); i += IN_CHUNK) {
+            List<String> chunk = all.subList(i, Math.min(all.size(), i + IN_CHUNK));
+            String sql = "SELECT hash, codec, raw_size, content FROM submission_blobs WHERE hash IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            result.addAll(jdbcTemplate.query(sql, (rs, rowNum) -> new BlobRow(rs.getString("hash"),
+                    rs.getByte("codec"), rs.getInt("raw_size"), rs.getBytes("content")), chunk.toArray()));
+        }
+        return result;
+    }
+
+    // ===== Chuyển dữ liệu từ cột TEXT cũ =====
+
+    /**
+     * @return null nếu cột submissions.source_code không còn (đã chạy script xoá), ngược lại IS_NULLABLE = "YES"/"NO"
+     */
+    public String legacySourceColumnNullable() {
+        List<String> result = jdbcTemplate.queryForList("SELECT IS_NULLABLE FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'submissions' AND COLUMN_NAME = 'source_code'", String.class);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    // Entity không còn map source_code -> cột phải cho phép NULL để INSERT submission mới không lỗi
+    public void relaxLegacySourceColumn() {
+        jdbcTemplate.execute("ALTER TABLE submissions MODIFY source_code TEXT NULL, ALGORITHM=INPLACE, LOCK=NONE");
+    }
+
+    // Keyset theo id, chỉ các dòng chưa chuyển
+    public List<LegacyContentRow> findLegacyBatch(UUID afterId, int limit) {
+        return jdbcTemplate.query("SELECT id, source_code, error_message FROM submissions " +
+                        "WHERE id > ? AND source_hash IS NULL ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new LegacyContentRow(UuidHelper.getUuidFromBytes(rs.getBytes("id")),
+                        rs.getString("source_code"), rs.getString("error_message")),
+                UuidHelper.toBytes(afterId), limit);
+    }
+
+    // Source của các dòng chưa backfill (source_hash IS NULL) đọc thẳng từ cột cũ
+    public Map<UUID, String> findLegacySources(Collection<UUID> ids) {
+        if (ids.isEmpty()) return Collections.emptyMap();
+        List<UUID> all = List.copyOf(ids);
+        Map<UUID, String> result = new HashMap<>();
+        for (int i = 0; i < all.size(); i += IN_CHUNK) {
+            List<UUID> chunk = all.subList(i, Math.min(all.size(), i + IN_CHUNK));
+            String sql = "SELECT id, source_code FROM submissions WHERE source_code IS NOT NULL AND id IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                result.put(UuidHelper.getUuidFromBytes(rs.getBytes("id")), rs.getString("source_code"));
+            }, chunk.stream().map(UuidHelper::toBytes).toArray());
+        }
+        return result;
+    }
+
+    // Nội dung cũ của 1 dòng chưa backfill, cho màn chi tiết submission
+    public Optional<LegacyContentRow> findLegacyContent(UUID id) {
+        return jdbcTemplate.query("SELECT id, source_code, error_message FROM submissions WHERE id = ? AND source_hash IS NULL",
+                (rs, rowNum) -> new LegacyContentRow(UuidHelper.getUuidFromBytes(rs.getBytes("id")),
+                        rs.getString("source_code"), rs.getString("error_message")),
+                UuidHelper.toBytes(id)).stream().findFirst();
+    }
+
+    // Gán hash và xoá nội dung ở cột cũ để trả lại dung lượng cho bảng submissions.
+    // error_hash chỉ ghi khi còn NULL: kết quả chấm về sau lúc đọc lô đã ghi error_hash mới, không được ghi đè
+    public void attachHashes(List<HashAssignment> assignments) {
+        jdbcTemplate.batchUpdate("UPDATE submissions SET source_hash = ?, error_hash = COALESCE(error_hash, ?), " +
+                        "source_code = NULL, error_message = NULL WHERE id = ? AND source_hash IS NULL",
+                assignments.stream().map(a -> new Object[]{a.sourceHash(), a.errorHash(), UuidHelper.toBytes(a.id())}).toList());
+    }
+}
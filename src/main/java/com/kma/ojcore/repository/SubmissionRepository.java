@@ -17,6 +17,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,6 +29,9 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
     @Query("SELECT s FROM Submission s JOIN FETCH s.user JOIN FETCH s.problem LEFT JOIN FETCH s.contest WHERE s.id = :id")
     Optional<Submission> findByIdWithRelations(@Param("id") UUID id);
 
+    @Query("SELECT s FROM Submission s JOIN FETCH s.user JOIN FETCH s.problem LEFT JOIN FETCH s.contest WHERE s.id IN :ids")
+    List<Submission> findAllByIdInWithRelations(@Param("ids") Collection<UUID> ids);
+
     interface DateCountProjection {
         String getDateStr();
         Long getCount();
@@ -84,7 +88,7 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
     @Query("SELECT s.verdict AS verdict, COUNT(s.id) AS count " +
             "FROM Submission s " +
             "WHERE s.problem.id = :problemId " +
-            "AND NOT EXISTS (SELECT 1 FROM s.user.roles r WHERE r.name IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_ASSESSOR')) " +
+            "AND s.staff = false " +
             "GROUP BY s.verdict")
     List<VerdictCountProjection> countSubmissionsByVerdict(@Param("problemId") UUID problemId);
 
@@ -93,59 +97,19 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
             "s.languageKey, s.submissionStatus, s.verdict, s.score, " +
             "s.passedTestCount, s.totalTestCount, " +
             "s.executionTimeMs, s.executionMemoryMb, s.createdDate, " +
-            "s.errorMessage, s.sourceCode, " +
+            "s.errorHash, s.sourceHash, " +
             "(CASE WHEN cp IS NULL THEN CAST(s.score AS double) ELSE (CAST(COALESCE(s.score, 0) AS double) / COALESCE(s.problem.totalScore, 100.0)) * cp.points END)) " +
             "FROM Submission s " +
             "LEFT JOIN ContestProblem cp ON cp.contest.id = s.contest.id AND cp.problem.id = s.problem.id " +
             "WHERE s.id = :submissionId")
     SubmissionDetailsSdo getDetails(UUID submissionId);
 
-    @Query("SELECT new com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo(" +
-            "s.id, s.verdict, s.score, s.passedTestCount, s.totalTestCount, " +
-            "s.executionTimeMs, s.executionMemoryMb, s.createdDate, s.languageKey, " +
-            "s.user.id, s.user.username, s.problem.id, s.problem.title, s.problem.slug, " +
-            "(CASE WHEN cp IS NULL THEN CAST(s.score AS double) ELSE (CAST(COALESCE(s.score, 0) AS double) / COALESCE(s.problem.totalScore, 100.0)) * cp.points END), " +
-            "s.status, c.id, c.title, c.contestKey) " +
-            "FROM Submission s LEFT JOIN s.contest c " +
-            "LEFT JOIN ContestProblem cp ON cp.contest.id = c.id AND cp.problem.id = s.problem.id " +
-            "WHERE (:problemId IS NULL OR s.problem.id = :problemId) " +
-            "AND (:userId IS NULL OR s.user.id = :userId) " +
-            "AND (:submissionVerdict IS NULL OR s.verdict = :submissionVerdict) " +
-            "AND (:keyword IS NULL OR LOWER(s.user.username) LIKE LOWER(CONCAT('%', :keyword, '%')) ESCAPE '!' " +
-            "                      OR LOWER(s.problem.title) LIKE LOWER(CONCAT('%', :keyword, '%')) ESCAPE '!') " +
-            "AND (:status IS NULL OR s.problem.status = :status) " +
-            "AND (:problemStatus IS NULL OR s.problem.problemStatus = :problemStatus) " +
-            "AND (:submissionStatus IS NULL OR s.status = :submissionStatus) " +
-            "AND (:languageKey IS NULL OR s.languageKey = :languageKey) " +
-            "AND (CAST(:fromDate AS timestamp) IS NULL OR s.createdDate >= :fromDate) " +
-            "AND (CAST(:toDate AS timestamp) IS NULL OR s.createdDate <= :toDate) " +
-            "AND (s.verdict IN :verdicts) " +
-            "AND (c IS NULL OR :ignoreContestPrivacy = true OR (c.status = com.kma.ojcore.enums.EStatus.ACTIVE AND c.endTime < CURRENT_TIMESTAMP AND c.visibility = com.kma.ojcore.enums.ContestVisibility.PUBLIC)) " +
-            "AND (:isPracticeOnly = false OR c IS NULL) " +
-            "AND (:hideStaff = false OR NOT EXISTS (SELECT 1 FROM s.user.roles r WHERE r.name IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_ASSESSOR')))")
-    Page<SubmissionBasicSdo> getSubmissions(@Param("problemId") UUID problemId,
-                                            @Param("userId") UUID userId,
-                                            @Param("submissionVerdict") SubmissionVerdict submissionVerdict,
-                                            @Param("keyword") String keyword,
-                                            @Param("status") EStatus status,
-                                            @Param("problemStatus") ProblemStatus problemStatus,
-                                            @Param("submissionStatus") EStatus submissionStatus,
-                                            @Param("languageKey") String languageKey,
-                                            @Param("fromDate") LocalDateTime fromDate,
-                                            @Param("toDate") LocalDateTime toDate,
-                                            @Param("verdicts") List<SubmissionVerdict> allowedVerdicts,
-                                            @Param("hideStaff") boolean hideStaff,
-                                            @Param("ignoreContestPrivacy") boolean ignoreContestPrivacy,
-                                            @Param("isPracticeOnly") boolean isPracticeOnly,
-                                            Pageable pageable);
-
-    @Query(value = "SELECT source_code FROM submissions " +
-                    "WHERE problem_id = :problemId " +
-                    "AND user_id = :userId " +
-                    "AND language_key = :languageKey " +
-                    "ORDER BY created_date DESC LIMIT 1",
-                    nativeQuery = true)
-    Optional<String> findFirstSourceCodeByProblemIdAndUserIdAndLanguageKey(
+    @Query("SELECT s FROM Submission s " +
+            "WHERE s.problem.id = :problemId " +
+            "AND s.user.id = :userId " +
+            "AND s.languageKey = :languageKey " +
+            "ORDER BY s.createdDate DESC LIMIT 1")
+    Optional<Submission> findLatestByProblemIdAndUserIdAndLanguageKey(
             @Param("problemId") UUID problemId,
             @Param("userId") UUID userId,
             @Param("languageKey") String languageKey
@@ -158,7 +122,8 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
     @Query("UPDATE Submission s SET s.isRejudged = true, s.submissionStatus = 'PENDING', s.verdict = 'PENDING', s.updatedDate = CURRENT_TIMESTAMP WHERE s.id IN :ids")
     void markSubmissionsForRejudge(@Param("ids") List<UUID> ids);
 
-    @Query("SELECT s FROM Submission s JOIN FETCH s.problem LEFT JOIN FETCH s.contest WHERE s.id IN :ids")
+    // Problem không fetch: metadata chấm lấy từ ProblemJudgeCache, chỉ cần problem_id (proxy)
+    @Query("SELECT s FROM Submission s LEFT JOIN FETCH s.contest WHERE s.id IN :ids")
     List<Submission> findSubmissionsWithRulesByIds(@Param("ids") List<UUID> ids);
 
     @Query("SELECT s.id FROM Submission s WHERE s.problem.id = :problemId")
@@ -167,6 +132,17 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
     @Query("SELECT s.id FROM Submission s WHERE s.contest.id = :contestId")
     List<UUID> findIdsByContestId(@Param("contestId") UUID contestId);
 
+    // Keyset theo khóa chính cho RejudgeJob: không nạp hết id vào RAM, mỗi lần chỉ lấy 1 chunk sau cursor
+    @Query("SELECT s.id FROM Submission s WHERE s.problem.id = :problemId AND s.id > :cursor ORDER BY s.id ASC")
+    List<UUID> findIdsByProblemIdAfter(@Param("problemId") UUID problemId, @Param("cursor") UUID cursor, Pageable pageable);
+
+    @Query("SELECT s.id FROM Submission s WHERE s.contest.id = :contestId AND s.id > :cursor ORDER BY s.id ASC")
+    List<UUID> findIdsByContestIdAfter(@Param("contestId") UUID contestId, @Param("cursor") UUID cursor, Pageable pageable);
+
+    long countByProblemId(UUID problemId);
+
+    long countByContestId(UUID contestId);
+
     @Query("SELECT s.user.id, s.problem.id, s.contest.id FROM Submission s WHERE s.id IN :ids")
     List<Object[]> findImpactedRelations(@Param("ids") List<UUID> ids);
 
@@ -0,0 +1,303 @@
+package com.kma.ojcore.repository;
+
+import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
+import com.kma.ojcore.entity.Contest;
+import com.kma.ojcore.entity.Problem;
+import com.kma.ojcore.entity.Submission;
+import com.kma.ojcore.entity.User;
+import com.kma.ojcore.enums.ContestVisibility;
+import com.kma.ojcore.enums.EStatus;
+import com.kma.ojcore.enums.ProblemStatus;
+import com.kma.ojcore.enums.SubmissionVerdict;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Danh sách submission dựng bằng Criteria: chỉ filter nào được truyền mới thành điều kiện WHERE,
+ * chỉ JOIN bảng nào điều kiện thật sự cần -> MySQL chọn được index ghép (user_id, created_date),
+ * (problem_id, verdict, created_date)... thay vì quét theo chuỗi {@code (:x IS NULL OR ...)}.
+ * <p>
+ * Điểm contest (contestScore) không JOIN contest_problems trong query chính mà tính sau cho các dòng của trang.
+ */
+@Repository
+public class SubmissionSearchRepository {
+
+    private static final Set<SubmissionVerdict> ALL_VERDICTS = EnumSet.allOf(SubmissionVerdict.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Getter
+    @Builder
+    public static class Filter {
+        private final UUID problemId;
+        private final UUID userId;
+        private final UUID contestId;
+        private final SubmissionVerdict verdict;
+        private final String keyword; // Đã escape LIKE bằng '!'
+        private final EStatus problemEntityStatus;
+        private final ProblemStatus problemStatus;
+        private final EStatus submissionStatus;
+        private final String languageKey;
+        private final LocalDateTime fromDate;
+        private final LocalDateTime toDate;
+        private final Collection<SubmissionVerdict> allowedVerdicts;
+        private final boolean hideStaff;
+        private final boolean ignoreContestPrivacy;
+        private final boolean practiceOnly;
+    }
+
+    /**
+     * @param withCount false = trả {@link Slice} (lấy dư 1 dòng để biết còn trang sau), không chạy COUNT
+     */
+    public Slice<SubmissionBasicSdo> search(Filter filter, Pageable pageable, boolean withCount) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Submission> s = cq.from(Submission.class);
+        Joins joins = new Joins(s);
+
+        select(cq, s, joins);
+        cq.where(predicates(cb, s, joins, filter));
+        cq.orderBy(orders(cb, s, pageable.getSort()));
+
+        int pageSize = pageable.getPageSize();
+        List<Tuple> rows = entityManager.createQuery(cq)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(withCount ? pageSize : pageSize + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > pageSize;
+        List<SubmissionBasicSdo> content = toSdos(hasNext ? rows.subList(0, pageSize) : rows);
+
+        if (!withCount) {
+            return new SliceImpl<>(content, pageable, hasNext);
+        }
+        // Trang cuối / trang đầu chưa đầy thì tự suy ra total, không cần COUNT
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(filter));
+    }
+
+    /**
+     * Phân trang keyset theo (created_date, id) giảm dần: "WHERE (created_date, id) < cursor ... LIMIT n",
+     * chi phí mỗi trang không phụ thuộc trang đó sâu đến đâu.
+     *
+     * @param afterCreatedDate null = trang đầu
+     * @param limit            số dòng tối đa trả về
+     */
+    public List<SubmissionBasicSdo> searchAfter(Filter filter, LocalDateTime afterCreatedDate, UUID afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Submission> s = cq.from(Submission.class);
+        Joins joins = new Joins(s);
+
+        select(cq, s, joins);
+        List<Predicate> predicates = new ArrayList<>(List.of(predicates(cb, s, joins, filter)));
+        if (afterCreatedDate != null) {
+            Path<LocalDateTime> createdDate = s.get("createdDate");
+            Path<UUID> id = s.get("id");
+            predicates.add(cb.or(
+                    cb.lessThan(createdDate, afterCreatedDate),
+                    cb.and(cb.equal(createdDate, afterCreatedDate), cb.lessThan(id, afterId))));
+        }
+        cq.where(predicates.toArray(Predicate[]::new));
+        cq.orderBy(cb.desc(s.get("createdDate")), cb.desc(s.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+        return toSdos(rows);
+    }
+
+    private void select(CriteriaQuery<Tuple> cq, Root<Submission> s, Joins joins) {
+        cq.multiselect(
+                s.get("id"), s.get("verdict"), s.get("score"), s.get("passedTestCount"), s.get("totalTestCount"),
+                s.get("executionTimeMs"), s.get("executionMemoryMb"), s.get("createdDate"), s.get("languageKey"),
+                s.get("status"),
+                joins.user().get("id"), joins.user().get("username"),
+                joins.problem().get("id"), joins.problem().get("title"), joins.problem().get("slug"),
+                joins.problem().get("totalScore"),
+                joins.contest().get("id"), joins.contest().get("title"), joins.contest().get("contestKey"));
+    }
+
+    private long count(Filter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Submission> s = cq.from(Submission.class);
+        cq.select(cb.count(s));
+        cq.where(predicates(cb, s, new Joins(s), filter));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    // ===== WHERE: chỉ các filter có giá trị =====
+    private Predicate[] predicates(CriteriaBuilder cb, Root<Submission> s, Joins joins, Filter f) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        // So sánh thẳng khoá ngoại, không JOIN
+        if (f.getProblemId() != null) {
+            predicates.add(cb.equal(s.get("problem").get("id"), f.getProblemId()));
+        }
+        if (f.getUserId() != null) {
+            predicates.add(cb.equal(s.get("user").get("id"), f.getUserId()));
+        }
+        if (f.getContestId() != null) {
+            predicates.add(cb.equal(s.get("contest").get("id"), f.getContestId()));
+        }
+        if (f.getVerdict() != null) {
+            predicates.add(cb.equal(s.get("verdict"), f.getVerdict()));
+        }
+        if (f.getAllowedVerdicts() != null && !f.getAllowedVerdicts().containsAll(ALL_VERDICTS)) {
+            predicates.add(s.get("verdict").in(f.getAllowedVerdicts()));
+        }
+        if (f.getSubmissionStatus() != null) {
+            predicates.add(cb.equal(s.get("status"), f.getSubmissionStatus()));
+        }
+        if (f.getLanguageKey() != null) {
+            predicates.add(cb.equal(s.get("languageKey"), f.getLanguageKey()));
+        }
+        if (f.getFromDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(s.get("createdDate"), f.getFromDate()));
+        }
+        if (f.getToDate() != null) {
+            predicates.add(cb.lessThanOrEqualTo(s.get("createdDate"), f.getToDate()));
+        }
+        if (f.isHideStaff()) {
+            predicates.add(cb.isFalse(s.get("staff")));
+        }
+        if (f.isPracticeOnly()) {
+            predicates.add(cb.isNull(s.get("contest")));
+        }
+
+        if (f.getKeyword() != null) {
+            String pattern = "%" + f.getKeyword().toLowerCase() + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(joins.user().get("username")), pattern, '!'),
+                    cb.like(cb.lower(joins.problem().get("title")), pattern, '!')));
+        }
+        if (f.getProblemEntityStatus() != null) {
+            predicates.add(cb.equal(joins.problem().get("status"), f.getProblemEntityStatus()));
+        }
+        if (f.getProblemStatus() != null) {
+            predicates.add(cb.equal(joins.problem().get("problemStatus"), f.getProblemStatus()));
+        }
+        if (!f.isIgnoreContestPrivacy() && !f.isPracticeOnly()) {
+            // Submission trong contest chỉ công khai khi contest PUBLIC, đang ACTIVE và đã kết thúc
+            Join<Submission, Contest> c = joins.contest();
+            predicates.add(cb.or(
+                    cb.isNull(s.get("contest")),
+                    cb.and(
+                            cb.equal(c.get("status"), EStatus.ACTIVE),
+                            cb.lessThan(c.get("endTime"), cb.localDateTime()),
+                            cb.equal(c.get("visibility"), ContestVisibility.PUBLIC))));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    // Thêm id làm tie-breaker để phân trang ổn định khi trùng created_date
+    private List<Order> orders(CriteriaBuilder cb, Root<Submission> s, Sort sort) {
+        if (sort.isUnsorted()) {
+            sort = Sort.by(Sort.Direction.DESC, "createdDate");
+        }
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(sort, s, cb));
+        if (sort.getOrderFor("id") == null) {
+            Sort.Order first = sort.iterator().next();
+            orders.add(first.isAscending() ? cb.asc(s.get("id")) : cb.desc(s.get("id")));
+        }
+        return orders;
+    }
+
+    // ===== Điểm contest cho các dòng của trang =====
+    private List<SubmissionBasicSdo> toSdos(List<Tuple> rows) {
+        Set<UUID> contestIds = new HashSet<>();
+        Set<UUID> problemIds = new HashSet<>();
+        for (Tuple row : rows) {
+            UUID contestId = row.get(16, UUID.class);
+            if (contestId != null) {
+                contestIds.add(contestId);
+                problemIds.add(row.get(12, UUID.class));
+            }
+        }
+        Map<List<UUID>, Integer> pointsByContestProblem = loadContestPoints(contestIds, problemIds);
+
+        List<SubmissionBasicSdo> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Integer rawScore = row.get(2, Integer.class);
+            UUID problemId = row.get(12, UUID.class);
+            UUID contestId = row.get(16, UUID.class);
+            Integer points = contestId == null ? null : pointsByContestProblem.get(List.of(contestId, problemId));
+
+            // Giống CASE WHEN cp IS NULL ... của query cũ
+            Double contestScore;
+            if (points == null) {
+                contestScore = rawScore != null ? rawScore.doubleValue() : null;
+            } else {
+                Integer totalScore = row.get(15, Integer.class);
+                double score = rawScore != null ? rawScore : 0;
+                contestScore = score / (totalScore != null ? totalScore : 100.0) * points;
+            }
+
+            result.add(new SubmissionBasicSdo(row.get(0, UUID.class), row.get(1, SubmissionVerdict.class), rawScore,
+                    row.get(3, Integer.class), row.get(4, Integer.class),
+                    row.get(5, Long.class), row.get(6, Long.class),
+                    row.get(7, LocalDateTime.class), row.get(8, String.class),
+                    row.get(10, UUID.class), row.get(11, String.class),
+                    problemId, row.get(13, String.class), row.get(14, String.class),
+                    contestScore, row.get(9, EStatus.class), contestId, row.get(17, String.class), row.get(18, String.class)));
+        }
+        return result;
+    }
+
+    private Map<List<UUID>, Integer> loadContestPoints(Set<UUID> contestIds, Set<UUID> problemIds) {
+        if (contestIds.isEmpty()) return Map.of();
+        List<Object[]> rows = entityManager.createQuery(
+                        "SELECT cp.contest.id, cp.problem.id, cp.points FROM ContestProblem cp " +
+                                "WHERE cp.contest.id IN :contestIds AND cp.problem.id IN :problemIds", Object[].class)
+                .setParameter("contestIds", contestIds)
+                .setParameter("problemIds", problemIds)
+                .getResultList();
+        Map<List<UUID>, Integer> points = new HashMap<>();
+        for (Object[] row : rows) {
+            points.put(List.of((UUID) row[0], (UUID) row[1]), (Integer) row[2]);
+        }
+        return points;
+    }
+
+    // JOIN tạo khi cần lần đầu, dùng lại cho cả SELECT lẫn WHERE
+    private static final class Joins {
+        private final Root<Submission> root;
+        private Join<Submission, User> user;
+        private Join<Submission, Problem> problem;
+        private Join<Submission, Contest> contest;
+
+        Joins(Root<Submission> root) {
+            this.root = root;
+        }
+
+        Join<Submission, User> user() {
+            if (user == null) user = root.join("user");
+            return user;
+        }
+
+        Join<Submission, Problem> problem() {
+            if (problem == null) problem = root.join("problem");
+            return problem;
+        }
+
+        Join<Submission, Contest> contest() {
+            if (contest == null) contest = root.join("contest", JoinType.LEFT);
+            return contest;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,6 +24,8 @@ public interface UserProblemStatusRepository extends JpaRepository<UserProblemSt
 
     List<UserProblemStatus> findByUserIdAndProblemIdIn(UUID userId, List<UUID> problemIds);
 
+    List<UserProblemStatus> findByUserIdInAndProblemIdIn(Collection<UUID> userIds, Collection<UUID> problemIds);
+
     @Query("SELECT new com.kma.ojcore.dto.response.problems.ProblemResponse(" +
            "p.id, p.title, p.slug, p.difficulty, p.status, p.problemStatus, " +
            "p.submissionCount, p.acceptedCount, p.totalScore, p.ruleType, null, null, p.createdDate, p.updatedDate) " +
@@ -65,19 +65,11 @@ public interface UserRepository extends JpaRepository<User, UUID> {
             "RANK() OVER (ORDER BY u.`total-score` DESC, u.solved_count DESC, u.ac_count DESC, u.submission_count ASC) AS `rank` " +
             "FROM users u " +
             "WHERE u.status = 'ACTIVE' " +
-            "AND NOT EXISTS ( " +
-            "    SELECT 1 FROM user_roles ur " +
-            "    JOIN roles r ON ur.role_id = r.id " +
-            "    WHERE ur.user_id = u.id AND r.name IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_ASSESSOR') " +
-            ") " +
+            "AND u.is_staff = false " +
             "ORDER BY `rank` ASC, u.username ASC",
             countQuery = "SELECT count(*) FROM users u " +
                     "WHERE u.status = 'ACTIVE' " +
-                    "AND NOT EXISTS ( " +
-                    "    SELECT 1 FROM user_roles ur " +
-                    "    JOIN roles r ON ur.role_id = r.id " +
-                    "    WHERE ur.user_id = u.id AND r.name IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_ASSESSOR') " +
-                    ")",
+                    "AND u.is_staff = false",
             nativeQuery = true)
     Page<UserRankingProjection> getGlobalRankingOI(Pageable pageable);
 
@@ -88,19 +80,11 @@ public interface UserRepository extends JpaRepository<User, UUID> {
             "RANK() OVER (ORDER BY u.solved_count DESC, u.`total-score` DESC, u.ac_count DESC, u.submission_count ASC) AS `rank` " +
             "FROM users u " +
             "WHERE u.status = 'ACTIVE' " +
-            "AND NOT EXISTS ( " +
-            "    SELECT 1 FROM user_roles ur " +
-            "    JOIN roles r ON ur.role_id = r.id " +
-            "    WHERE ur.user_id = u.id AND r.name IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_ASSESSOR') " +
-            ") " +
+            "AND u.is_staff = false " +
             "ORDER BY `rank` ASC, u.username ASC",
             countQuery = "SELECT count(*) FROM users u " +
                     "WHERE u.status = 'ACTIVE' " +
-                    "AND NOT EXISTS ( " +
-                    "    SELECT 1 FROM user_roles ur " +
-                    "    JOIN roles r ON ur.role_id = r.id " +
-                    "    WHERE ur.user_id = u.id AND r.name IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_ASSESSOR') " +
-                    ")",
+                    "AND u.is_staff = false",
             nativeQuery = true)
     Page<UserRankingProjection> getGlobalRankingACM(Pageable pageable);
 
@@ -139,7 +123,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query(value = "UPDATE users u " +
             "SET `total-score` = (SELECT COALESCE(SUM(max_score), 0) FROM user_problem_status WHERE user_id = u.id), " +
             "solved_count = (SELECT COUNT(*) FROM user_problem_status WHERE user_id = u.id AND state = 'SOLVED'), " +
-            "ac_count = (SELECT COUNT(*) FROM submissions WHERE user_id = u.id AND verdict = 'AC' AND status = 'ACTIVE' AND contest_id IS NULL) " +
+            "ac_count = (SELECT COUNT(*) FROM submissions WHERE user_id = u.id AND verdict = 'AC' AND status = 'ACTIVE' AND contest_id IS NULL), " +
+            "stats_epoch = " + StatsCounterJdbcRepository.NEXT_STAMP_SQL + " " +
             "WHERE u.id = :userId", nativeQuery = true)
     void recalculateUserStats(@Param("userId") UUID userId);
 
@@ -158,4 +143,5 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Modifying
     @Query("UPDATE User u SET u.totalScore = COALESCE(u.totalScore, 0.0) + :scoreDiff WHERE u.id = :userId")
     void addTotalScore(@Param("userId") UUID userId, @Param("scoreDiff") Double scoreDiff);
+
 }
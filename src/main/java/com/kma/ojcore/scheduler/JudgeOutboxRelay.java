@@ -0,0 +1,66 @@
+package com.kma.ojcore.scheduler;
+
+import com.kma.ojcore.repository.JudgeOutboxRepository;
+import com.kma.ojcore.service.JudgeOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Relay đọc bảng judge_outbox và đẩy message lên RabbitMQ theo lô (có publisher confirm).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JudgeOutboxRelay {
+
+    private static final int CLEANUP_CHUNK = 1000;
+
+    private final JudgeOutboxService judgeOutboxService;
+    private final JudgeOutboxRepository outboxRepository;
+
+    @Value("${oj.judge.outbox.batch-size:200}")
+    private int batchSize;
+
+    // Giới hạn số lô mỗi lượt để không giữ thread scheduler quá lâu
+    @Value("${oj.judge.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${oj.judge.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    @Scheduled(fixedDelayString = "${oj.judge.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                int sent = judgeOutboxService.relayPendingBatch();
+                if (sent < batchSize) {
+                    break; // Đã vét hết hàng chờ
+                }
+            }
+        } catch (Exception e) {
+            // Các row chưa được đánh dấu sẽ được gửi lại ở lượt sau
+            log.error("[Outbox Relay] Publish thất bại, sẽ thử lại ở lượt sau: {}", e.getMessage());
+        }
+    }
+
+    // Mỗi chunk DELETE là 1 transaction riêng để không khóa bảng lâu
+    @Scheduled(cron = "0 30 * * * *") // Dọn dẹp mỗi giờ
+    public void cleanupDispatched() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(retentionHours);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = outboxRepository.deleteDispatchedBefore(threshold, CLEANUP_CHUNK);
+            total += deleted;
+        } while (deleted == CLEANUP_CHUNK);
+
+        if (total > 0) {
+            log.info("[Outbox Relay] Đã dọn {} message đã gửi trước {}", total, threshold);
+        }
+    }
+}
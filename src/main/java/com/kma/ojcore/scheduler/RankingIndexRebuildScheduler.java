@@ -0,0 +1,28 @@
+package com.kma.ojcore.scheduler;
+
+import com.kma.ojcore.service.ranking.GlobalRankingIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dựng lại bảng xếp hạng toàn cục trong RAM: bù message pub/sub bị lỡ và thêm user mới kích hoạt.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RankingIndexRebuildScheduler {
+
+    private final GlobalRankingIndex globalRankingIndex;
+
+    @Scheduled(initialDelayString = "${oj.ranking.index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${oj.ranking.index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        try {
+            globalRankingIndex.rebuild();
+        } catch (Exception e) {
+            log.error("[Ranking Index] Rebuild thất bại, giữ index cũ: {}", e.getMessage());
+        }
+    }
+}
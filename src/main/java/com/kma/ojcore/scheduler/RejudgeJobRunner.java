@@ -0,0 +1,113 @@
+package com.kma.ojcore.scheduler;
+
+import com.kma.ojcore.enums.JudgeLane;
+import com.kma.ojcore.enums.RejudgeJobStatus;
+import com.kma.ojcore.repository.JudgeOutboxRepository;
+import com.kma.ojcore.repository.RejudgeJobRepository;
+import com.kma.ojcore.service.RejudgeJobService;
+import com.kma.ojcore.service.judge.JudgeLaneRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Chạy các RejudgeJob đang chờ: mỗi lượt đẩy tối đa rate-per-second * chu kỳ submission,
+ * và dừng lại khi hàng đợi rejudge (queue + outbox chưa gửi) đã đủ sâu để không chiếm hết máy chấm.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RejudgeJobRunner {
+
+    private static final EnumSet<RejudgeJobStatus> RUNNABLE = EnumSet.of(RejudgeJobStatus.PENDING, RejudgeJobStatus.RUNNING);
+
+    // Định danh node hiện tại cho lease
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final RejudgeJobService rejudgeJobService;
+    private final RejudgeJobRepository rejudgeJobRepository;
+    private final JudgeOutboxRepository outboxRepository;
+    private final JudgeLaneRouter judgeLaneRouter;
+    private final AmqpAdmin amqpAdmin;
+
+    @Value("${oj.rejudge.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${oj.rejudge.rate-per-second:50}")
+    private int ratePerSecond;
+
+    @Value("${oj.rejudge.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    // Hàng đợi rejudge sâu hơn ngưỡng này thì tạm ngưng đẩy thêm
+    @Value("${oj.rejudge.max-queue-depth:500}")
+    private long maxQueueDepth;
+
+    @Value("${oj.rejudge.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Scheduled(fixedDelayString = "${oj.rejudge.poll-interval-ms:1000}")
+    public void run() {
+        List<UUID> jobIds = rejudgeJobRepository.findIdsByJobStatusIn(RUNNABLE);
+        if (jobIds.isEmpty()) return;
+
+        // Ngân sách mỗi lượt theo tốc độ cấu hình, rồi co lại theo độ sâu hàng đợi hiện tại
+        long budget = Math.max(1, ratePerSecond * pollIntervalMs / 1000);
+        long backlog = currentBacklog();
+        budget = Math.min(budget, maxQueueDepth - backlog);
+        if (budget <= 0) {
+            log.debug("[Rejudge Runner] Judge backlog {} >= {}, waiting", backlog, maxQueueDepth);
+            return;
+        }
+
+        // Chạy lần lượt theo thứ tự tạo: job trước xong mới tới job sau
+        for (UUID jobId : jobIds) {
+            LocalDateTime now = LocalDateTime.now();
+            if (rejudgeJobRepository.tryAcquireLease(jobId, nodeId, now, now.plusSeconds(leaseSeconds), RUNNABLE) == 0) {
+                continue; // Node khác đang giữ
+            }
+            budget -= runJob(jobId, budget);
+            if (budget <= 0) break;
+        }
+    }
+
+    private long runJob(UUID jobId, long budget) {
+        long processed = 0;
+        try {
+            while (processed < budget) {
+                int limit = (int) Math.min(chunkSize, budget - processed);
+                int count = rejudgeJobService.processNextChunk(jobId, nodeId, limit);
+                if (count == 0) break; // Xong, bị pause/cancel, hoặc mất lease
+                processed += count;
+            }
+        } catch (OptimisticLockingFailureException e) {
+            // Admin vừa pause/cancel: chunk đã rollback, lượt sau sẽ đọc trạng thái mới
+            log.info("[Rejudge Runner] Job [{}] changed concurrently, chunk rolled back", jobId);
+        } catch (Exception e) {
+            // Giữ nguyên cursor, lease hết hạn thì node bất kỳ chạy lại
+            log.error("[Rejudge Runner] Job [{}] chunk failed: {}", jobId, e.getMessage(), e);
+        }
+        return processed;
+    }
+
+    private long currentBacklog() {
+        long outboxPending = outboxRepository.countByDispatchedAtIsNull();
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(judgeLaneRouter.queueName(JudgeLane.REJUDGE));
+            return outboxPending + (info != null ? info.getMessageCount() : 0);
+        } catch (Exception e) {
+            log.warn("[Rejudge Runner] Cannot read judge queue depth: {}", e.getMessage());
+            return outboxPending;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.kma.ojcore.scheduler;
+
+import com.kma.ojcore.repository.StatsCounterJdbcRepository;
+import com.kma.ojcore.service.stats.StatsCounterBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flush định kỳ các counter users/problems đang được gom trong {@link StatsCounterBuffer}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsCounterFlushScheduler {
+
+    private final StatsCounterBuffer statsCounterBuffer;
+    private final StatsCounterJdbcRepository statsCounterJdbcRepository;
+
+    @Value("${oj.stats.write-behind.flush-log-retention-days:7}")
+    private long flushLogRetentionDays;
+
+    @Scheduled(fixedDelayString = "${oj.stats.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        try {
+            int rows = statsCounterBuffer.flush();
+            if (rows > 0) {
+                log.debug("[Stats Buffer] Flushed counters of {} rows", rows);
+            }
+        } catch (Exception e) {
+            // Delta vẫn còn trong buffer (local) hoặc trong set FLUSHING (redis) -> lượt sau thử lại
+            log.error("[Stats Buffer] Flush thất bại, sẽ thử lại ở lượt sau: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "0 45 3 * * *") // Dọn nhật ký flush mỗi ngày
+    public void cleanupFlushLog() {
+        int deleted = statsCounterJdbcRepository.deleteFlushLogBefore(LocalDateTime.now().minusDays(flushLogRetentionDays));
+        if (deleted > 0) {
+            log.info("[Stats Buffer] Đã dọn {} dòng stats_flush_log", deleted);
+        }
+    }
+}
@@ -1,28 +1,29 @@
 package com.kma.ojcore.scheduler;
 
-import com.kma.ojcore.config.LanguageLoader;
 import com.kma.ojcore.config.RabbitMQConfig;
 import com.kma.ojcore.dto.request.submissions.JudgeResultSdi;
 import com.kma.ojcore.dto.request.submissions.JudgeSdi;
-import com.kma.ojcore.entity.LanguageConfig;
-import com.kma.ojcore.entity.Problem;
 import com.kma.ojcore.entity.Submission;
 import com.kma.ojcore.enums.SubmissionStatus;
 import com.kma.ojcore.enums.SubmissionVerdict;
 import com.kma.ojcore.exception.BusinessException;
 import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.repository.SubmissionRepository;
+import com.kma.ojcore.service.JudgeOutboxService;
+import com.kma.ojcore.service.judge.JudgeLaneRouter;
+import com.kma.ojcore.service.judge.JudgeSdiFactory;
+import com.kma.ojcore.service.judge.ProblemJudgeCache;
+import com.kma.ojcore.service.judge.ProblemJudgeSnapshot;
+import com.kma.ojcore.service.submission.SubmissionBlobStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -31,8 +32,11 @@ import java.util.UUID;
 public class SubmissionTimeoutScheduler {
 
     private final SubmissionRepository submissionRepository;
-    private final LanguageLoader languageLoader;
-    private final RabbitTemplate rabbitTemplate;
+    private final ProblemJudgeCache problemJudgeCache;
+    private final JudgeSdiFactory judgeSdiFactory;
+    private final JudgeOutboxService judgeOutboxService;
+    private final JudgeLaneRouter judgeLaneRouter;
+    private final SubmissionBlobStore submissionBlobStore;
 
     @Transactional(rollbackFor = Throwable.class)
     @Scheduled(cron = "0 */5 * * * *") // Chạy mỗi 5 phút
@@ -49,6 +53,10 @@ public class SubmissionTimeoutScheduler {
 
         log.warn("Tìm thấy {} submission bị kẹt. Đang cập nhật trạng thái...", stuckSubmissions.size());
 
+        Map<UUID, ProblemJudgeSnapshot> problems = problemJudgeCache.getAll(
+                stuckSubmissions.stream().map(s -> s.getProblem().getId()).toList());
+        Map<UUID, String> sources = submissionBlobStore.loadSources(stuckSubmissions);
+
         for (Submission submission : stuckSubmissions) {
             int currentRetry = submission.getRetryCount() != null ? submission.getRetryCount() : 0;
 
@@ -62,7 +70,7 @@ public class SubmissionTimeoutScheduler {
                         .errorMessage("Lỗi hệ thống: Máy chấm không phản hồi quá lâu. Vui lòng liên hệ Admin.")
                         .build();
 
-                rabbitTemplate.convertAndSend(RabbitMQConfig.JUDGE_EXCHANGE, RabbitMQConfig.RESULT_ROUTING_KEY, failSdi);
+                judgeOutboxService.enqueue(RabbitMQConfig.RESULT_ROUTING_KEY, failSdi);
             } else {
                 // Tăng biến đếm và reset thời gian trước khi build lại
                 submission.setRetryCount(currentRetry + 1);
@@ -70,43 +78,23 @@ public class SubmissionTimeoutScheduler {
                 submissionRepository.save(submission);
 
                 try {
-                    Problem problem = submission.getProblem();
-                    LanguageConfig langConfig = languageLoader.getConfigByKey(submission.getLanguageKey());
+                    ProblemJudgeSnapshot problem = problems.get(submission.getProblem().getId());
+                    if (problem == null) {
+                        throw new BusinessException(ErrorCode.PROBLEM_NOT_FOUND);
+                    }
 
-                    if (langConfig == null) {
-                        throw new BusinessException(ErrorCode.LANGUAGE_NOT_SUPPORTED);
+                    String sourceCode = sources.get(submission.getId());
+                    if (sourceCode == null) {
+                        throw new IllegalStateException("Source code not available");
                     }
 
-                    // Tính toán lại limit chuẩn xác
-                    int finalTimeLimit = (int) (problem.getTimeLimitMs() * langConfig.getTimeMultiplier()) + langConfig.getTimeLimitAllowance();
-                    int finalMemoryLimit = (int) (problem.getMemoryLimitMb() * langConfig.getMemoryMultiplier()) + langConfig.getMemoryLimitAllowance();
-
-                    JudgeSdi sdi = JudgeSdi.builder()
-                            .submissionId(submission.getId())
-                            .problemId(problem.getId())
-                            .ruleType(submission.getContest() != null ? submission.getContest().getRuleType().name() : problem.getRuleType().name())
-                            .sourceCode(submission.getSourceCode())
-                            .languageKey(submission.getLanguageKey())
-                            .compileCommand(langConfig.getCompileCommand())
-                            .runCommand(langConfig.getRunCommand())
-                            .isCompiled(langConfig.isCompiled())
-                            .sourceName(langConfig.getSourceName())
-                            .exeName(langConfig.getExeName())
-                            .finalTimeLimitMs(finalTimeLimit)
-                            .finalMemoryLimitMb(finalMemoryLimit)
-                            .build();
-
-                    final int nextRetryAttempt = currentRetry + 1;
-                    final UUID currentSubmissionId = submission.getId();
-
-                    // Bắn lại vào Exchange chuẩn chỉ
-                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                        @Override
-                        public void afterCommit() {
-                            rabbitTemplate.convertAndSend(RabbitMQConfig.JUDGE_EXCHANGE, RabbitMQConfig.JUDGE_ROUTING_KEY, sdi);
-                            log.info("Đã đẩy lại Submission [{}] vào RabbitMQ (Lần {}) SAU KHI DB COMMIT!", currentSubmissionId, nextRetryAttempt);
-                        }
-                    });
+                    JudgeSdi sdi = judgeSdiFactory.build(problem, submission.getId(),
+                            submission.getContest() != null ? submission.getContest().getRuleType() : null,
+                            submission.getLanguageKey(), sourceCode);
+
+                    // Ghi lại vào outbox, relay sẽ publish sau khi transaction commit
+                    judgeOutboxService.enqueue(judgeLaneRouter.laneOf(submission), sdi);
+                    log.info("Đã xếp lại Submission [{}] vào outbox (Lần {})", submission.getId(), currentRetry + 1);
                 } catch (Exception e) {
                     log.error("Lỗi khi build JudgeSdi cho submission {}: {}", submission.getId(), e.getMessage());
                 }
@@ -0,0 +1,28 @@
+package com.kma.ojcore.scheduler;
+
+import com.kma.ojcore.service.TokenBlacklistService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dựng lại Bloom filter blacklist từ Redis: bù các message pub/sub bị lỡ và bỏ các jti đã hết hạn.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenBlacklistResyncScheduler {
+
+    private final TokenBlacklistService tokenBlacklistService;
+
+    @Scheduled(fixedDelayString = "${oj.security.token-blacklist.resync-interval-ms:60000}")
+    public void resync() {
+        try {
+            int revoked = tokenBlacklistService.resyncLocalFilter();
+            log.debug("[Token Blacklist] Local filter rebuilt with {} revoked tokens", revoked);
+        } catch (Exception e) {
+            log.error("[Token Blacklist] Resync thất bại, giữ filter cũ: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.kma.ojcore.security;
+
+import com.kma.ojcore.enums.EStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bản chụp gọn của {@link UserPrincipal} để lưu trong cache L1/L2.
+ * Không chứa password, roles lưu dạng String để serialize JSON ổn định.
+ * Mỗi request dựng lại 1 UserPrincipal mới nên không ai sửa được bản dùng chung.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedPrincipal {
+
+    private UUID id;
+    private String username;
+    private String fullName;
+    private String email;
+    private String avatarUrl;
+    private EStatus status;
+    private boolean accountNonLocked;
+    private Integer tokenVersion;
+    private List<String> roles;
+
+    public static CachedPrincipal from(UserPrincipal principal) {
+        return new CachedPrincipal(
+                principal.getId(),
+                principal.getUsername(),
+                principal.getFullName(),
+                principal.getEmail(),
+                principal.getAvatarUrl(),
+                principal.getStatus(),
+                principal.isAccountNonLocked(),
+                principal.getTokenVersion(),
+                principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()
+        );
+    }
+
+    public UserPrincipal toPrincipal() {
+        List<GrantedAuthority> authorities = roles == null ? List.of()
+                : roles.stream().<GrantedAuthority>map(SimpleGrantedAuthority::new).toList();
+        return new UserPrincipal(id, username, fullName, email, avatarUrl, null,
+                status, accountNonLocked, tokenVersion, authorities, null);
+    }
+}
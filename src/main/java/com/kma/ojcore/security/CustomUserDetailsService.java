@@ -3,7 +3,6 @@ package com.kma.ojcore.security;
 import com.kma.ojcore.repository.UserRepository;
 import com.kma.ojcore.entity.User;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,6 +16,7 @@ import java.util.UUID;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -29,14 +29,18 @@ public class CustomUserDetailsService implements UserDetailsService {
         return UserPrincipal.create(user);
     }
 
-    @Transactional(readOnly = true)
-    @Cacheable(value = "userDetails", key = "#id")
+    /**
+     * Gọi trên mọi request có JWT: đi qua {@link PrincipalCache} (L1 Caffeine -> L2 Redis) trước khi chạm DB.
+     * Không mở transaction ở đây để cache hit không phải mượn connection.
+     */
     public UserDetails loadUserById(UUID id) {
-        User user = userRepository.findUserWithRolesById(id)
-                .orElseThrow(() ->
-                        new UsernameNotFoundException("User not found with id: " + id)
-                );
-
-        return UserPrincipal.create(user);
+        return principalCache.get(id, () -> {
+            User user = userRepository.findUserWithRolesById(id)
+                    .orElseThrow(() ->
+                            new UsernameNotFoundException("User not found with id: " + id)
+                    );
+
+            return UserPrincipal.create(user);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package com.kma.ojcore.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Cache principal 2 tầng cho JwtAuthenticationFilter.
+ * <ul>
+ *   <li>L1: Caffeine trong RAM từng node, có giới hạn số phần tử và TTL.</li>
+ *   <li>L2: Redis (JSON {@link CachedPrincipal}) dùng chung giữa các node, tránh DB hit khi L1 của node khác còn trống.</li>
+ * </ul>
+ * Khi lock/unlock, đổi role, reset password (tăng token version)... gọi {@link #invalidate} : sau commit sẽ xoá L2,
+ * tăng version của user và publish id qua Redis pub/sub để mọi node bỏ bản L1 ngay lập tức.
+ * Version giúp chặn trường hợp 1 node đọc DB trước commit rồi ghi đè bản cũ lên L2 sau khi đã bị xoá.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PrincipalCache implements MessageListener {
+
+    // KEYS[1] = principal key, KEYS[2] = version key | ARGV[1] = version đọc được trước khi load DB, ARGV[2] = json, ARGV[3] = ttl ms
+    private static final DefaultRedisScript<Long> WRITE_IF_VERSION_SCRIPT = new DefaultRedisScript<>("""
+            local v = redis.call('GET', KEYS[2]) or ''
+            if v ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // KEYS = [principal key, version key] * n | ARGV[1] = ttl ms của version key
+    private static final DefaultRedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 2 do
+                redis.call('DEL', KEYS[i])
+                redis.call('INCR', KEYS[i + 1])
+                redis.call('PEXPIRE', KEYS[i + 1], ARGV[1])
+            end
+            return #KEYS / 2
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${oj.redis.prefix.principal}")
+    private String keyPrefix;
+
+    @Value("${oj.redis.channel.principal-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${oj.security.principal-cache.l1-max-size}")
+    private long l1MaxSize;
+
+    @Value("${oj.security.principal-cache.l1-ttl-seconds}")
+    private long l1TtlSeconds;
+
+    @Value("${oj.security.principal-cache.l2-ttl-seconds}")
+    private long l2TtlSeconds;
+
+    private Cache<UUID, CachedPrincipal> local;
+
+    @PostConstruct
+    void init() {
+        // L1 TTL là giới hạn trên cho độ trễ nếu node lỡ mất message pub/sub (mất kết nối Redis...)
+        local = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(invalidationChannel));
+    }
+
+    /**
+     * Lấy principal theo thứ tự L1 -> L2 -> loader (DB). Luôn trả về 1 instance mới.
+     */
+    public UserPrincipal get(UUID userId, Supplier<UserPrincipal> loader) {
+        return local.get(userId, id -> loadFromRedisOrSource(id, loader)).toPrincipal();
+    }
+
+    /**
+     * Bỏ cache của các user trên mọi node. Nếu đang trong transaction thì chỉ chạy sau khi commit,
+     * để node khác không kịp nạp lại dữ liệu cũ từ DB.
+     */
+    public void invalidate(Collection<UUID> userIds) {
+        if (userIds == null || userIds.isEmpty()) return;
+        List<UUID> ids = List.copyOf(userIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(ids);
+                }
+            });
+        } else {
+            doInvalidate(ids);
+        }
+    }
+
+    public void invalidate(UUID userId) {
+        invalidate(List.of(userId));
+    }
+
+    // ===== Pub/Sub: nhận id bị invalidate từ node khác (và cả chính node này) =====
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<UUID> ids = new ArrayList<>();
+        for (String raw : body.split(",")) {
+            try {
+                ids.add(UUID.fromString(raw.trim()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed principal invalidation entry: {}", raw);
+            }
+        }
+        local.invalidateAll(ids);
+    }
+
+    private void doInvalidate(List<UUID> ids) {
+        local.invalidateAll(ids);
+        try {
+            List<String> keys = new ArrayList<>(ids.size() * 2);
+            for (UUID id : ids) {
+                keys.add(principalKey(id));
+                keys.add(versionKey(id));
+            }
+            redisTemplate.execute(INVALIDATE_SCRIPT, keys, String.valueOf(versionTtlMillis()));
+            redisTemplate.convertAndSend(invalidationChannel,
+                    String.join(",", ids.stream().map(UUID::toString).toList()));
+        } catch (Exception e) {
+            // L1 của node khác sẽ tự hết hạn sau l1-ttl-seconds
+            log.error("Failed to broadcast principal invalidation for {} user(s): {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private CachedPrincipal loadFromRedisOrSource(UUID userId, Supplier<UserPrincipal> loader) {
+        String version = "";
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(principalKey(userId), versionKey(userId)));
+            if (values != null) {
+                if (values.get(0) != null) {
+                    return objectMapper.readValue(values.get(0), CachedPrincipal.class);
+                }
+                if (values.get(1) != null) {
+                    version = values.get(1);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Principal L2 cache read failed for user {}: {}", userId, e.getMessage());
+        }
+
+        CachedPrincipal loaded = CachedPrincipal.from(loader.get());
+
+        try {
+            redisTemplate.execute(WRITE_IF_VERSION_SCRIPT, List.of(principalKey(userId), versionKey(userId)),
+                    version, objectMapper.writeValueAsString(loaded), String.valueOf(l2TtlSeconds * 1000));
+        } catch (Exception e) {
+            log.warn("Principal L2 cache write failed for user {}: {}", userId, e.getMessage());
+        }
+        return loaded;
+    }
+
+    private long versionTtlMillis() {
+        // Version phải sống lâu hơn 1 lần load DB bất kỳ; giữ gấp đôi TTL của L2 cho chắc
+        return l2TtlSeconds * 2000;
+    }
+
+    private String principalKey(UUID userId) {
+        return keyPrefix + userId;
+    }
+
+    private String versionKey(UUID userId) {
+        return keyPrefix + "ver:" + userId;
+    }
+}
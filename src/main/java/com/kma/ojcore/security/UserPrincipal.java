@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.kma.ojcore.entity.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.kma.ojcore.enums.EStatus;
+import com.kma.ojcore.enums.RoleName;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -122,5 +123,12 @@ public class UserPrincipal implements UserDetails, OAuth2User, Serializable {
         return authorities.stream()
                 .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(roleName));
     }
+
+    @JsonIgnore
+    public boolean isStaff() {
+        if (authorities == null) return false;
+        return authorities.stream()
+                .anyMatch(grantedAuthority -> RoleName.isStaffAuthority(grantedAuthority.getAuthority()));
+    }
 }
 
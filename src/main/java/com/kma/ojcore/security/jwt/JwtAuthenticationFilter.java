@@ -5,7 +5,7 @@ import com.kma.ojcore.dto.response.common.ErrorResponse;
 import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.security.CustomUserDetailsService;
 import com.kma.ojcore.security.UserPrincipal;
-import com.kma.ojcore.service.impl.TokenBlacklistServiceImpl;
+import com.kma.ojcore.service.TokenBlacklistService;
 import com.kma.ojcore.utils.TokenCookieUtil;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
@@ -34,7 +34,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final TokenCookieUtil tokenCookieUtil;
-    private final TokenBlacklistServiceImpl tokenBlacklistServiceImpl;
+    private final TokenBlacklistService tokenBlacklistService;
     private final CustomUserDetailsService customUserDetailsService;
     private final ObjectMapper objectMapper;
 
@@ -59,13 +59,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = tokenCookieUtil.getCookieValue(request, tokenCookieUtil.ACCESS_TOKEN_COOKIE_NAME);
 
             if (StringUtils.hasText(jwt)) {
-                if (tokenBlacklistServiceImpl.isBlacklisted(jwt)) {
+                Claims claims = tokenProvider.getAccessTokenClaims(jwt);
+
+                // Bloom filter cục bộ trả lời gần như mọi request, chỉ hỏi Redis khi filter báo trúng
+                if (tokenBlacklistService.isBlacklisted(tokenProvider.getTokenId(claims, jwt))) {
                     log.warn("Token is blacklisted");
                     sendErrorResponse(response, ErrorCode.TOKEN_INVALID, "Token is blacklisted or revoked.", request.getServletPath());
                     return;
                 }
 
-                Claims claims = tokenProvider.getAccessTokenClaims(jwt);
                 UUID userId = UUID.fromString(claims.getSubject());
                 Integer tokenVersion = claims.get("token_version", Integer.class);
 
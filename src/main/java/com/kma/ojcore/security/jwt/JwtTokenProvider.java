@@ -5,6 +5,7 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -90,6 +91,14 @@ public class JwtTokenProvider {
                 .getPayload();
     }
 
+    /**
+     * Định danh ngắn của access token dùng cho blacklist: jti, hoặc SHA-256 của token nếu token không có jti.
+     */
+    public String getTokenId(Claims claims, String token) {
+        String jti = claims.getId();
+        return jti != null && !jti.isBlank() ? jti : DigestUtils.sha256Hex(token);
+    }
+
     public boolean validateAccessToken(String authToken) {
         return validateToken(authToken, accessSecret);
     }
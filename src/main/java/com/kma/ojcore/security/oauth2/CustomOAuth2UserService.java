@@ -5,11 +5,14 @@ import com.kma.ojcore.entity.User;
 import com.kma.ojcore.enums.Provider;
 import com.kma.ojcore.repository.RoleRepository;
 import com.kma.ojcore.repository.UserRepository;
+import com.kma.ojcore.security.PrincipalCache;
 import com.kma.ojcore.security.UserPrincipal;
 import com.kma.ojcore.security.oauth2.user.OAuth2UserInfo;
 import com.kma.ojcore.security.oauth2.user.OAuth2UserInfoFactory;
+import com.kma.ojcore.service.ranking.UserStatsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
@@ -19,6 +22,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -29,6 +33,8 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final PrincipalCache principalCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
@@ -138,7 +144,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         Set<Role> roles = Set.of(defaultRole);
         user.setRoles(roles);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatsChangedEvent(List.of(saved.getId())));
+        return saved;
     }
 
     private User updateExistingUser(User existingUser, OAuth2UserInfo oAuth2UserInfo) {
@@ -148,6 +156,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             existingUser.setEmail(oAuth2UserInfo.getEmail());
             existingUser.setEmailVerified(true);
         }
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        principalCache.invalidate(saved.getId());
+        eventPublisher.publishEvent(new UserStatsChangedEvent(List.of(saved.getId())));
+        return saved;
     }
 }
\ No newline at end of file
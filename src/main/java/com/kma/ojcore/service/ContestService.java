@@ -5,6 +5,7 @@ import com.kma.ojcore.dto.request.contests.UpdateContestProblemSdi;
 import com.kma.ojcore.dto.request.contests.CreateContestSdi;
 import com.kma.ojcore.dto.request.contests.RegisterContestSdi;
 import com.kma.ojcore.dto.request.contests.UpdateContestSdi;
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.contests.*;
 import com.kma.ojcore.dto.response.problems.ProblemDetailsSdo;
 import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
@@ -15,6 +16,8 @@ import com.kma.ojcore.enums.RuleType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
 import java.util.List;
 import java.util.UUID;
 
@@ -56,11 +59,16 @@ public interface ContestService {
 
     Page<ContestParticipationSdo> searchContestParticipants(UUID contestId, String keyword, Boolean isDisqualified, Pageable pageable);
 
+    CursorPageSdo<ContestParticipationSdo> searchContestParticipantsByCursor(UUID contestId, String keyword, Boolean isDisqualified, String cursor, int size);
+
     void disqualifyUsers(UUID contestId, List<UUID> userId);
 
     void requalifyUsers(UUID contestId, List<UUID> userIds);
 
-    byte[] exportContestResults(UUID contestId);
+    /**
+     * Export kết quả contest dạng CSV (kèm điểm / penalty / số lần sai từng bài), ghi dần ra response.
+     */
+    StreamingResponseBody exportContestResults(UUID contestId, boolean gzip);
 
     // Leaderboard & Submissions
 
@@ -70,6 +78,8 @@ public interface ContestService {
 
     Page<SubmissionBasicSdo> getAdminContestSubmissions(UUID contestId, Pageable pageable);
 
+    CursorPageSdo<SubmissionBasicSdo> getAdminContestSubmissionsByCursor(UUID contestId, String cursor, int size);
+
 
     // USER
     List<MyActiveContestSdo> getMyActiveContests(UUID userId);
@@ -84,8 +94,12 @@ public interface ContestService {
 
     Page<ContestParticipantPublicSdo> getPublicContestParticipants(String contestKey, String keyword, Pageable pageable);
 
+    CursorPageSdo<ContestParticipantPublicSdo> getPublicContestParticipantsByCursor(String contestKey, String keyword, String cursor, int size);
+
     Page<SubmissionBasicSdo> getMyContestSubmissions(String contestKey, UUID userId, UUID problemId, Pageable pageable);
 
+    CursorPageSdo<SubmissionBasicSdo> getMyContestSubmissionsByCursor(String contestKey, UUID userId, UUID problemId, String cursor, int size);
+
     ContestParticipationSdo startContest(String contestKey, UUID userId);
 
     void finishContest(String contestKey, UUID userId);
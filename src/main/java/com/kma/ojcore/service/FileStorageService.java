@@ -9,6 +9,22 @@ public interface FileStorageService {
      */
     String upload(String bucketName, String objectName, InputStream inputStream, long size, String contentType);
 
+    /**
+     * Upload một stream chưa biết trước kích thước (multipart, mỗi lần chỉ giữ 1 part trong bộ nhớ).
+     * Nếu stream ném IOException thì upload bị huỷ, object cũ (nếu có) giữ nguyên.
+     */
+    String uploadStream(String bucketName, String objectName, InputStream inputStream, String contentType);
+
+    /**
+     * Kiểm tra object đã tồn tại chưa.
+     */
+    boolean exists(String bucketName, String objectName);
+
+    /**
+     * Copy object phía server (không tải về), ghi đè {@code targetObject} nếu đã có.
+     */
+    void copy(String bucketName, String sourceObject, String targetObject);
+
     /**
      * Xóa file khỏi object storage (nếu cần).
      */
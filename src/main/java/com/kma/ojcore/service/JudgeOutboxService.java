@@ -0,0 +1,22 @@
+package com.kma.ojcore.service;
+
+import com.kma.ojcore.enums.JudgeLane;
+
+public interface JudgeOutboxService {
+
+    /**
+     * Ghi message vào outbox trong transaction hiện tại.
+     * Message chỉ được publish lên RabbitMQ sau khi transaction commit (bởi JudgeOutboxRelay).
+     */
+    void enqueue(String routingKey, Object payload);
+
+    /**
+     * Như {@link #enqueue(String, Object)} nhưng routing key / priority được chọn theo lane máy chấm.
+     */
+    void enqueue(JudgeLane lane, Object payload);
+
+    /**
+     * Publish một lô message đang chờ, trả về số message đã gửi thành công.
+     */
+    int relayPendingBatch();
+}
@@ -1,11 +1,19 @@
 package com.kma.ojcore.service;
 
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.users.UserRankSdo;
 import com.kma.ojcore.enums.RuleType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.UUID;
+
 public interface RankingService {
 
     Page<UserRankSdo> getRanking(RuleType ruleType, Pageable pageable);
+
+    // Phân trang keyset theo khoá xếp hạng; cursor = null cho trang đầu
+    CursorPageSdo<UserRankSdo> getRankingByCursor(RuleType ruleType, String cursor, int size);
+
+    UserRankSdo getUserRank(RuleType ruleType, UUID userId);
 }
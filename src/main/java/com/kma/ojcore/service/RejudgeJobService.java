@@ -0,0 +1,30 @@
+package com.kma.ojcore.service;
+
+import com.kma.ojcore.dto.request.submissions.RejudgeSdi;
+import com.kma.ojcore.dto.response.submissions.RejudgeJobSdo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.UUID;
+
+public interface RejudgeJobService {
+
+    RejudgeJobSdo createJob(RejudgeSdi request);
+
+    RejudgeJobSdo getJob(UUID jobId);
+
+    Page<RejudgeJobSdo> getJobs(Pageable pageable);
+
+    RejudgeJobSdo pauseJob(UUID jobId);
+
+    RejudgeJobSdo resumeJob(UUID jobId);
+
+    RejudgeJobSdo cancelJob(UUID jobId);
+
+    /**
+     * Đẩy chunk kế tiếp của job vào outbox (1 transaction gồm: đánh dấu rejudge + outbox + tiến độ).
+     *
+     * @return số submission đã xử lý trong chunk, 0 nếu job đã xong hoặc không còn được phép chạy
+     */
+    int processNextChunk(UUID jobId, String leaseOwner, int limit);
+}
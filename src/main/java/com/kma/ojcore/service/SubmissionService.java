@@ -1,14 +1,17 @@
 package com.kma.ojcore.service;
 
 import com.kma.ojcore.dto.request.submissions.SubmissionSdi;
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.problems.ProblemStatisticSdo;
+import com.kma.ojcore.dto.response.submissions.RejudgeJobSdo;
 import com.kma.ojcore.dto.response.submissions.RunCodeResponse;
+import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
 import com.kma.ojcore.dto.response.submissions.SubmissionDetailsSdo;
 import com.kma.ojcore.enums.EStatus;
 import com.kma.ojcore.enums.ProblemStatus;
 import com.kma.ojcore.enums.SubmissionVerdict;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.kma.ojcore.dto.request.submissions.RejudgeSdi;
 
@@ -24,7 +27,7 @@ public interface SubmissionService {
 
     RunCodeResponse getRunCodeResult(UUID runCodeToken);
 
-    Page<?> getSubmissions(UUID problemId,
+    Slice<?> getSubmissions(UUID problemId,
                            UUID userId,
                            SubmissionVerdict submissionVerdict,
                            String keyword,
@@ -38,13 +41,32 @@ public interface SubmissionService {
                            boolean hideStaff,
                            boolean ignoreContestPrivacy,
                            boolean isPracticeOnly,
+                           boolean withCount,
                            Pageable pageable);
 
+    // Phân trang keyset theo (createdDate, id) giảm dần; cursor = null cho trang đầu
+    CursorPageSdo<SubmissionBasicSdo> getSubmissionsByCursor(UUID problemId,
+                                                             UUID userId,
+                                                             SubmissionVerdict submissionVerdict,
+                                                             String keyword,
+                                                             EStatus status,
+                                                             ProblemStatus problemStatus,
+                                                             EStatus submissionStatus,
+                                                             String languageKey,
+                                                             LocalDateTime fromDate,
+                                                             LocalDateTime toDate,
+                                                             List<SubmissionVerdict> allowedVerdicts,
+                                                             boolean hideStaff,
+                                                             boolean ignoreContestPrivacy,
+                                                             boolean isPracticeOnly,
+                                                             String cursor,
+                                                             int size);
+
     ProblemStatisticSdo getProblemStatistics(UUID problemId, List<SubmissionVerdict> allowedVerdicts);
 
     String getLatestSubmissionCode(UUID problemId, UUID userId, String languageKey);
 
-    void rejudgeSubmissions(RejudgeSdi request);
+    RejudgeJobSdo rejudgeSubmissions(RejudgeSdi request);
 
     void softDeleteSubmissions(List<UUID> ids);
 
@@ -4,5 +4,15 @@ public interface TokenBlacklistService {
 
     void blacklistToken(String token);
 
-    boolean isBlacklisted(String token);
+    /**
+     * @param tokenId jti của access token (xem JwtTokenProvider#getTokenId)
+     */
+    boolean isBlacklisted(String tokenId);
+
+    /**
+     * Dựng lại filter cục bộ từ các key blacklist còn sống trên Redis.
+     *
+     * @return số token đang bị thu hồi
+     */
+    int resyncLocalFilter();
 }
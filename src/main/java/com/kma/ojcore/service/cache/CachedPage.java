@@ -0,0 +1,31 @@
+package com.kma.ojcore.service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Dạng lưu cache của {@link Page}: PageImpl không deserialize được bằng Jackson.
+ * Sort không được lưu, lấy lại từ Pageable của lời gọi hiện tại.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedPage<T> {
+    private List<T> content;
+    private long totalElements;
+
+    public static <T> CachedPage<T> from(Page<T> page) {
+        return new CachedPage<>(page.getContent(), page.getTotalElements());
+    }
+
+    public Page<T> toPage(Pageable pageable) {
+        return new PageImpl<>(content, pageable != null ? pageable : PageRequest.of(0, Math.max(1, content.size())), totalElements);
+    }
+}
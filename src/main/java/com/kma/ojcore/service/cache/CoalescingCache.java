@@ -0,0 +1,244 @@
+package com.kma.ojcore.service.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache Redis chống stampede cho {@link com.kma.ojcore.annotation.CoalescedCache}.
+ * <p>
+ * Value lưu dạng {@code <softExpireAtMillis>|<json>}, TTL Redis = hard TTL.
+ * <ul>
+ *   <li>Còn hạn mềm: trả luôn.</li>
+ *   <li>Hết hạn mềm: trả giá trị cũ, đồng thời 1 thread nền (nếu lấy được lock Redis) tính lại.</li>
+ *   <li>Không có giá trị: single-flight trong node; giữa các node ai giữ lock thì tính, còn lại chờ cache được ghi
+ *       (quá thời gian chờ thì tự tính để không treo request).</li>
+ * </ul>
+ * Redis lỗi thì gọi thẳng loader, cache không bao giờ làm hỏng request.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CoalescingCache {
+
+    private static final char SEPARATOR = '|';
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final long LOCK_POLL_MS = 50;
+
+    // Chỉ xoá lock nếu vẫn là của mình
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    @FunctionalInterface
+    public interface Loader {
+        Object load() throws Throwable;
+    }
+
+    private record Entry(long softExpireAt, Object value) {
+    }
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${oj.cache.coalesced.lock-ttl-ms}")
+    private long lockTtlMs;
+
+    @Value("${oj.cache.coalesced.lock-wait-ms}")
+    private long lockWaitMs;
+
+    @Value("${oj.cache.coalesced.refresh-threads}")
+    private int refreshThreads;
+
+    @Value("${oj.cache.coalesced.refresh-queue-size}")
+    private int refreshQueueSize;
+
+    // key -> lần tính đang chạy trong node này
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor refreshExecutor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(refreshQueueSize), r -> {
+            Thread t = new Thread(r, "cache-refresh-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public Object get(String key, JavaType type, long softTtlMs, long hardTtlMs, Loader loader) throws Throwable {
+        Entry cached = read(key, type);
+        if (cached != null) {
+            if (System.currentTimeMillis() >= cached.softExpireAt()) {
+                refreshInBackground(key, softTtlMs, hardTtlMs, loader, cached.value());
+            }
+            return cached.value();
+        }
+
+        // Miss: chỉ 1 thread trong node đi tính, các thread còn lại đợi chung future
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Object value = loadAcrossNodes(key, type, softTtlMs, hardTtlMs, loader);
+            mine.complete(value);
+            return value;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // ===== Miss: lock Redis giữa các node =====
+    private Object loadAcrossNodes(String key, JavaType type, long softTtlMs, long hardTtlMs, Loader loader) throws Throwable {
+        String lockKey = key + LOCK_SUFFIX;
+        String token = UUID.randomUUID().toString();
+        boolean locked = tryLock(lockKey, token);
+
+        if (!locked) {
+            // Node khác đang tính -> chờ nó ghi cache
+            long deadline = System.currentTimeMillis() + lockWaitMs;
+            while (System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(LOCK_POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                Entry entry = read(key, type);
+                if (entry != null) {
+                    return entry.value();
+                }
+            }
+            log.debug("Timed out waiting for cache key {}, loading locally", key);
+        }
+
+        try {
+            Object value = loader.load();
+            write(key, value, softTtlMs, hardTtlMs);
+            return value;
+        } finally {
+            if (locked) {
+                releaseLock(lockKey, token);
+            }
+        }
+    }
+
+    // ===== Hết hạn mềm: làm mới ngầm, request hiện tại nhận giá trị cũ =====
+    private void refreshInBackground(String key, long softTtlMs, long hardTtlMs, Loader loader, Object stale) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                String lockKey = key + LOCK_SUFFIX;
+                String token = UUID.randomUUID().toString();
+                try {
+                    if (!tryLock(lockKey, token)) {
+                        // Node khác đang làm mới
+                        mine.complete(stale);
+                        return;
+                    }
+                    try {
+                        Object value = loader.load();
+                        write(key, value, softTtlMs, hardTtlMs);
+                        mine.complete(value);
+                    } finally {
+                        releaseLock(lockKey, token);
+                    }
+                } catch (Throwable t) {
+                    log.warn("Background refresh failed for cache key {}: {}", key, t.getMessage());
+                    mine.complete(stale);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool đầy: bỏ qua lượt làm mới này, request sau sẽ thử lại
+            inFlight.remove(key, mine);
+            mine.complete(stale);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> running) throws Throwable {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    // ===== Redis =====
+    private Entry read(String key, JavaType type) {
+        try {
+            String raw = redisTemplate.opsForValue().get(key);
+            if (raw == null) return null;
+            int sep = raw.indexOf(SEPARATOR);
+            if (sep < 0) return null;
+            long softExpireAt = Long.parseLong(raw, 0, sep, 10);
+            return new Entry(softExpireAt, objectMapper.readValue(raw.substring(sep + 1), type));
+        } catch (Exception e) {
+            log.error("Coalesced cache read failed for key {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String key, Object value, long softTtlMs, long hardTtlMs) {
+        if (value == null) return;
+        try {
+            String raw = (System.currentTimeMillis() + softTtlMs) + String.valueOf(SEPARATOR)
+                    + objectMapper.writeValueAsString(value);
+            redisTemplate.opsForValue().set(key, raw, hardTtlMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Coalesced cache write failed for key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, Duration.ofMillis(lockTtlMs)));
+        } catch (Exception e) {
+            // Redis lỗi -> coi như giữ lock, tự tính
+            log.error("Coalesced cache lock failed for key {}: {}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void releaseLock(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.warn("Coalesced cache unlock failed for key {}: {}", lockKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.kma.ojcore.service.contest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kma.ojcore.entity.Contest;
+import com.kma.ojcore.entity.ContestParticipation;
+import com.kma.ojcore.entity.User;
+import com.kma.ojcore.enums.ContestVisibility;
+import com.kma.ojcore.repository.ContestParticipationRepository;
+import com.kma.ojcore.repository.ContestRepository;
+import com.kma.ojcore.repository.ContestWhitelistRepository;
+import com.kma.ojcore.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache phân quyền cho hot path của contest (nộp bài, xem đề, danh sách đề, bài nộp của tôi).
+ * <ul>
+ *   <li>{@link ContestSnapshot} theo contest id (và contestKey -> id).</li>
+ *   <li>{@link ParticipationState} theo (contest, user), kể cả trạng thái "chưa đăng ký" và kết quả whitelist.</li>
+ * </ul>
+ * Cấu trúc giống {@link com.kma.ojcore.security.PrincipalCache}: L1 Caffeine từng node + L2 Redis dùng chung.
+ * Mọi thay đổi (admin sửa contest/đề/whitelist, ban, đăng ký, start/finish) gọi evict sau commit: xoá L2, tăng version
+ * của contest để chặn lượt load đang dở ghi đè dữ liệu cũ, rồi publish để mọi node bỏ L1.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContestAccessCache implements MessageListener {
+
+    // KEYS[1] = key (string hoặc hash), KEYS[2] = version key | ARGV[1] = hash field ('' = string) | trả về {value, version}
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> READ_SCRIPT = new DefaultRedisScript<>("""
+            local value
+            if ARGV[1] == '' then
+                value = redis.call('GET', KEYS[1])
+            else
+                value = redis.call('HGET', KEYS[1], ARGV[1])
+            end
+            return {value or '', redis.call('GET', KEYS[2]) or ''}
+            """, List.class);
+
+    // KEYS[1] = key, KEYS[2] = version key | ARGV[1] = version đọc trước khi load DB, ARGV[2] = hash field, ARGV[3] = json, ARGV[4] = ttl ms
+    private static final DefaultRedisScript<Long> WRITE_IF_VERSION_SCRIPT = new DefaultRedisScript<>("""
+            local v = redis.call('GET', KEYS[2]) or ''
+            if v ~= ARGV[1] then
+                return 0
+            end
+            if ARGV[2] == '' then
+                redis.call('SET', KEYS[1], ARGV[3], 'PX', ARGV[4])
+            else
+                redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+                redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = version key, KEYS[2..] = key cần xoá | ARGV[1] = ttl ms của version
+    private static final DefaultRedisScript<Long> EVICT_CONTEST_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            for i = 2, #KEYS do
+                redis.call('DEL', KEYS[i])
+            end
+            return #KEYS - 1
+            """, Long.class);
+
+    // KEYS[1] = version key, KEYS[2] = participation hash | ARGV[1] = ttl ms của version, ARGV[2..] = user id
+    private static final DefaultRedisScript<Long> EVICT_PARTICIPANTS_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            for i = 2, #ARGV do
+                redis.call('HDEL', KEYS[2], ARGV[i])
+            end
+            return #ARGV - 1
+            """, Long.class);
+
+    // Giá trị của idByKey khi không có contest nào mang contestKey đó (chỉ cache ở L1)
+    private static final UUID MISSING_CONTEST = new UUID(0L, 0L);
+
+    private static final String MSG_CONTEST = "C";
+    private static final String MSG_PARTICIPANTS = "P";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper;
+    private final ContestRepository contestRepository;
+    private final ContestParticipationRepository contestParticipationRepository;
+    private final ContestWhitelistRepository contestWhitelistRepository;
+    private final UserRepository userRepository;
+
+    @Value("${oj.redis.prefix.contest-cache}")
+    private String keyPrefix;
+
+    @Value("${oj.redis.channel.contest-cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${oj.contest.cache.l1-max-size}")
+    private long l1MaxSize;
+
+    @Value("${oj.contest.cache.l1-ttl-seconds}")
+    private long l1TtlSeconds;
+
+    @Value("${oj.contest.cache.l2-ttl-seconds}")
+    private long l2TtlSeconds;
+
+    private Cache<UUID, ContestSnapshot> snapshots;
+    private Cache<String, UUID> idByKey;
+    private Cache<String, ParticipationState> participations;
+    // Số lần evictContestLocal, để loadByKey biết có evict chen vào giữa lúc đọc DB và lúc ghi L1
+    private final AtomicLong localEvictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        snapshots = newL1Cache();
+        idByKey = newL1Cache();
+        participations = newL1Cache();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(invalidationChannel));
+    }
+
+    // ===== Đọc =====
+
+    public Optional<ContestSnapshot> findById(UUID contestId) {
+        return Optional.ofNullable(snapshots.get(contestId, this::loadSnapshot));
+    }
+
+    public Optional<ContestSnapshot> findByKey(String contestKey) {
+        UUID contestId = idByKey.getIfPresent(contestKey);
+        if (contestId == null) {
+            contestId = readRedisKeyMapping(contestKey);
+        }
+        if (MISSING_CONTEST.equals(contestId)) {
+            return Optional.empty();
+        }
+        if (contestId != null) {
+            Optional<ContestSnapshot> snapshot = findById(contestId);
+            if (snapshot.isPresent() && contestKey.equals(snapshot.get().getContestKey())) {
+                idByKey.put(contestKey, contestId);
+                return snapshot;
+            }
+            // contestKey đã đổi sang contest khác -> mapping cũ không còn đúng
+            idByKey.invalidate(contestKey);
+        }
+        return loadByKey(contestKey);
+    }
+
+    /**
+     * Miss cả L1 lẫn L2 mapping: 1 query DB trả lời cả contestKey -> id lẫn snapshot.
+     * Không có contest thì nhớ kết quả âm ở L1 (tạo contest / đổi key đều evictContest với key đó).
+     * Có evict chen vào trong lúc load thì bỏ những gì vừa ghi vào L1, chỉ trả kết quả cho lượt gọi này.
+     */
+    private Optional<ContestSnapshot> loadByKey(String contestKey) {
+        long evictions = localEvictions.get();
+        ContestSnapshot snapshot = contestRepository.findByContestKeyAndStatus(contestKey, null)
+                .map(ContestSnapshot::from)
+                .orElse(null);
+
+        idByKey.put(contestKey, snapshot != null ? snapshot.getId() : MISSING_CONTEST);
+        if (snapshot != null) {
+            snapshots.asMap().putIfAbsent(snapshot.getId(), snapshot);
+        }
+        // evictContestLocal tăng bộ đếm trước khi xoá L1: hoặc thấy bộ đếm đổi ở đây, hoặc lượt xoá đến sau lượt ghi
+        if (localEvictions.get() != evictions) {
+            idByKey.invalidate(contestKey);
+            if (snapshot != null) {
+                snapshots.asMap().remove(snapshot.getId(), snapshot);
+            }
+            return Optional.ofNullable(snapshot);
+        }
+        if (snapshot == null) return Optional.empty();
+
+        try {
+            redisTemplate.opsForValue().set(keyMappingKey(contestKey), snapshot.getId().toString(), Duration.ofSeconds(l2TtlSeconds));
+        } catch (Exception e) {
+            log.warn("Contest key mapping write failed for {}: {}", contestKey, e.getMessage());
+        }
+        return Optional.of(snapshot);
+    }
+
+    public ParticipationState participation(ContestSnapshot contest, UUID userId) {
+        return participations.get(participationKey(contest.getId(), userId),
+                k -> loadParticipation(contest, userId));
+    }
+
+    // ===== Invalidate (sau commit) =====
+
+    /**
+     * Bỏ snapshot và toàn bộ participation state của contest. Truyền vào mọi contestKey liên quan (cũ và mới khi đổi key).
+     */
+    public void evictContest(UUID contestId, String... contestKeys) {
+        List<String> keys = Arrays.stream(contestKeys).filter(Objects::nonNull).distinct().toList();
+        afterCommit(() -> {
+            evictContestLocal(contestId, keys);
+            try {
+                List<String> redisKeys = new ArrayList<>();
+                redisKeys.add(versionKey(contestId));
+                redisKeys.add(snapshotKey(contestId));
+                redisKeys.add(participationHashKey(contestId));
+                keys.forEach(k -> redisKeys.add(keyMappingKey(k)));
+                redisTemplate.execute(EVICT_CONTEST_SCRIPT, redisKeys, String.valueOf(versionTtlMillis()));
+                publish(MSG_CONTEST, contestId, keys);
+            } catch (Exception e) {
+                log.error("Failed to broadcast contest cache eviction for {}: {}", contestId, e.getMessage());
+            }
+        });
+    }
+
+    public void evictParticipants(UUID contestId, Collection<UUID> userIds) {
+        if (userIds == null || userIds.isEmpty()) return;
+        List<String> ids = userIds.stream().map(UUID::toString).distinct().toList();
+        afterCommit(() -> {
+            evictParticipantsLocal(contestId, ids);
+            try {
+                List<String> args = new ArrayList<>(ids.size() + 1);
+                args.add(String.valueOf(versionTtlMillis()));
+                args.addAll(ids);
+                redisTemplate.execute(EVICT_PARTICIPANTS_SCRIPT,
+                        List.of(versionKey(contestId), participationHashKey(contestId)), args.toArray());
+                publish(MSG_PARTICIPANTS, contestId, ids);
+            } catch (Exception e) {
+                log.error("Failed to broadcast participation cache eviction for contest {}: {}", contestId, e.getMessage());
+            }
+        });
+    }
+
+    public void evictParticipant(UUID contestId, UUID userId) {
+        evictParticipants(contestId, List.of(userId));
+    }
+
+    // ===== Pub/Sub: "C|<contestId>|key1,key2" hoặc "P|<contestId>|user1,user2" =====
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 2) return;
+        try {
+            UUID contestId = UUID.fromString(parts[1]);
+            List<String> items = parts.length == 3 && !parts[2].isEmpty() ? List.of(parts[2].split(",")) : List.of();
+            if (MSG_CONTEST.equals(parts[0])) {
+                evictContestLocal(contestId, items);
+            } else if (MSG_PARTICIPANTS.equals(parts[0])) {
+                evictParticipantsLocal(contestId, items);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed contest cache invalidation message: {}", e.getMessage());
+        }
+    }
+
+    // ===== Internal =====
+
+    private ContestSnapshot loadSnapshot(UUID contestId) {
+        return loadThrough(snapshotKey(contestId), "", contestId, ContestSnapshot.class,
+                () -> contestRepository.findByIdAndStatus(contestId, null).map(ContestSnapshot::from).orElse(null));
+    }
+
+    private ParticipationState loadParticipation(ContestSnapshot contest, UUID userId) {
+        return loadThrough(participationHashKey(contest.getId()), userId.toString(), contest.getId(), ParticipationState.class,
+                () -> {
+                    ContestParticipation participation = contestParticipationRepository
+                            .findByContestIdAndUserId(contest.getId(), userId).orElse(null);
+                    Boolean whitelisted = null;
+                    if (contest.getVisibility() == ContestVisibility.PRIVATE) {
+                        String email = userRepository.findById(userId).map(User::getEmail).orElse(null);
+                        whitelisted = email != null && contestWhitelistRepository.existsByContestIdAndEmail(contest.getId(), email);
+                    }
+                    return ParticipationState.of(participation, whitelisted);
+                });
+    }
+
+    /**
+     * L2 -> DB; chỉ ghi ngược lên L2 nếu version của contest không đổi trong lúc load.
+     */
+    private <T> T loadThrough(String key, String field, UUID contestId, Class<T> type, Supplier<T> loader) {
+        String version = "";
+        try {
+            List<?> result = redisTemplate.execute(READ_SCRIPT, List.of(key, versionKey(contestId)), field);
+            if (result != null && result.size() == 2) {
+                String cached = (String) result.get(0);
+                if (!cached.isEmpty()) {
+                    return objectMapper.readValue(cached, type);
+                }
+                version = (String) result.get(1);
+            }
+        } catch (Exception e) {
+            log.warn("Contest cache L2 read failed for {}: {}", key, e.getMessage());
+        }
+
+        T loaded = loader.get();
+        if (loaded == null) return null;
+
+        try {
+            redisTemplate.execute(WRITE_IF_VERSION_SCRIPT, List.of(key, versionKey(contestId)),
+                    version, field, objectMapper.writeValueAsString(loaded), String.valueOf(l2TtlSeconds * 1000));
+        } catch (Exception e) {
+            log.warn("Contest cache L2 write failed for {}: {}", key, e.getMessage());
+        }
+        return loaded;
+    }
+
+    private UUID readRedisKeyMapping(String contestKey) {
+        try {
+            String cachedId = redisTemplate.opsForValue().get(keyMappingKey(contestKey));
+            return cachedId != null ? UUID.fromString(cachedId) : null;
+        } catch (Exception e) {
+            log.warn("Contest key mapping read failed for {}: {}", contestKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void evictContestLocal(UUID contestId, Collection<String> contestKeys) {
+        localEvictions.incrementAndGet();
+        snapshots.invalidate(contestId);
+        idByKey.invalidateAll(contestKeys);
+        String prefix = contestId + ":";
+        participations.asMap().keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    private void evictParticipantsLocal(UUID contestId, Collection<String> userIds) {
+        participations.invalidateAll(userIds.stream().map(uid -> contestId + ":" + uid).toList());
+    }
+
+    private void publish(String type, UUID contestId, List<String> items) {
+        redisTemplate.convertAndSend(invalidationChannel, type + "|" + contestId + "|" + String.join(",", items));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private <K, V> Cache<K, V> newL1Cache() {
+        // L1 TTL là giới hạn trên cho độ trễ nếu node lỡ mất message pub/sub
+        return Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .build();
+    }
+
+    private long versionTtlMillis() {
+        return l2TtlSeconds * 2000;
+    }
+
+    private static String participationKey(UUID contestId, UUID userId) {
+        return contestId + ":" + userId;
+    }
+
+    private String snapshotKey(UUID contestId) {
+        return keyPrefix + "snap:" + contestId;
+    }
+
+    private String participationHashKey(UUID contestId) {
+        return keyPrefix + "part:" + contestId;
+    }
+
+    private String keyMappingKey(String contestKey) {
+        return keyPrefix + "key:" + contestKey;
+    }
+
+    private String versionKey(UUID contestId) {
+        return keyPrefix + "ver:" + contestId;
+    }
+}
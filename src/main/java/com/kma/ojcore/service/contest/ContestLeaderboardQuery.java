@@ -0,0 +1,121 @@
+package com.kma.ojcore.service.contest;
+
+import com.kma.ojcore.annotation.CoalescedCache;
+import com.kma.ojcore.dto.response.contests.ContestLeaderboardPageSdo;
+import com.kma.ojcore.dto.response.contests.ContestLeaderboardSdo;
+import com.kma.ojcore.dto.response.contests.ContestProblemResultSdo;
+import com.kma.ojcore.dto.response.contests.ContestProblemSdo;
+import com.kma.ojcore.entity.ContestParticipationProblem;
+import com.kma.ojcore.entity.ContestProblem;
+import com.kma.ojcore.repository.ContestParticipationProblemRepository;
+import com.kma.ojcore.repository.ContestParticipationRepository;
+import com.kma.ojcore.repository.ContestProblemRepository;
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Dựng 1 trang bảng xếp hạng từ SQL khi bảng live trên Redis chưa sẵn sàng.
+ * Tách thành bean riêng để {@link CoalescedCache} bọc được qua proxy; key theo contestId nên
+ * {@code ContestServiceImpl} xoá được bằng pattern {@code <prefix><contestId>:*}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContestLeaderboardQuery {
+
+    private final ContestParticipationRepository contestParticipationRepository;
+    private final ContestParticipationProblemRepository cppRepository;
+    private final ContestProblemRepository contestProblemRepository;
+
+    @CoalescedCache(keyPrefix = "${REDIS_PREFIX_LEADERBOARD:CONTEST_LEADERBOARD:}",
+            key = "#contestId + ':' + #pageable.pageNumber + ':' + #pageable.pageSize",
+            softTtl = 5, hardTtl = 60)
+    @Transactional(readOnly = true)
+    public ContestLeaderboardPageSdo loadPage(UUID contestId, Pageable pageable) {
+        Page<ContestParticipationRepository.ContestLeaderboardProjection> nativePage = contestParticipationRepository.getLeaderboardNative(contestId, pageable);
+
+        List<ContestLeaderboardSdo> sdoContent = nativePage.getContent().stream().map(p -> {
+            ContestLeaderboardSdo sdo = new ContestLeaderboardSdo();
+            sdo.setUserId(UuidHelper.getUuidFromBytes(p.getUserId()));
+            sdo.setUsername(p.getUsername());
+            sdo.setScore(p.getScore());
+            sdo.setPenalty(p.getPenalty());
+            sdo.setRank(p.getRank());
+            return sdo;
+        }).collect(Collectors.toList());
+
+        Page<ContestLeaderboardSdo> page = new PageImpl<>(sdoContent, pageable, nativePage.getTotalElements());
+
+        List<ContestProblem> contestProblems = contestProblemRepository.findByContestId(contestId);
+
+        if (!page.isEmpty()) {
+            List<UUID> userIds = page.getContent().stream().map(ContestLeaderboardSdo::getUserId).collect(Collectors.toList());
+        
+            // Lấy trạng thái trung gian (Intermediate State) của tất cả user trong Page này
+            List<ContestParticipationProblem> matrixRecords = cppRepository.findByParticipationUserIdInAndContestProblemContestId(userIds, contestId);
+
+            // Nhóm dữ liệu: UserId -> (DisplayId -> ContestParticipationProblem)
+            Map<UUID, Map<String, ContestParticipationProblem>> cppByUserAndDisplayId = matrixRecords.stream()
+                    .collect(Collectors.groupingBy(cpp -> cpp.getParticipation().getUser().getId(),
+                            Collectors.toMap(cpp -> cpp.getContestProblem().getDisplayId(), cpp -> cpp)));
+
+            for (ContestLeaderboardSdo lb : page) {
+                Map<String, ContestParticipationProblem> userCpps = cppByUserAndDisplayId.getOrDefault(lb.getUserId(), Collections.emptyMap());
+
+                for (ContestProblem cp : contestProblems) { // Vòng lặp này đã duyệt qua toàn bộ problems của contest rồi
+                    String displayId = cp.getDisplayId();
+                    ContestParticipationProblem cpp = userCpps.get(displayId);
+
+                    ContestProblemResultSdo result = new ContestProblemResultSdo();
+                    result.setProblemId(cp.getProblem().getId());
+                    result.setDisplayId(displayId);
+                
+                    if (cpp != null) {
+                        result.setTries(cpp.getFailedAttempts());
+                        result.setIsAc(cpp.getIsAc());
+                        result.setScore(cpp.getMaxScore());
+                        result.setPenalty(cpp.getPenalty() == Long.MAX_VALUE ? 0L : cpp.getPenalty());
+                    } else {
+                        result.setTries(0);
+                        result.setIsAc(false);
+                        result.setScore(0.0);
+                        result.setPenalty(0L);
+                    }
+                
+                    lb.getProblemResults().put(displayId, result);
+                }
+            }
+        }
+
+        List<ContestProblemSdo> problemSdos = contestProblems.stream()
+                .map(cp -> ContestProblemSdo.builder()
+                        .id(cp.getId())
+                        .problemId(cp.getProblem().getId())
+                        .problemSlug(cp.getProblem().getSlug())
+                        .originalTitle(cp.getProblem().getTitle())
+                        .displayId(cp.getDisplayId())
+                        .points(cp.getPoints())
+                        .sortOrder(cp.getSortOrder())
+                        .build())
+                .sorted(Comparator.comparing(ContestProblemSdo::getSortOrder))
+                .toList();
+ 
+        ContestLeaderboardPageSdo response = ContestLeaderboardPageSdo.builder()
+                .content(page.getContent())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .size(page.getSize())
+                .number(page.getNumber())
+                .problems(problemSdos)
+                .build();
+
+        return response;
+    }
+}
@@ -0,0 +1,74 @@
+package com.kma.ojcore.service.contest;
+
+import com.kma.ojcore.entity.Contest;
+import com.kma.ojcore.entity.ContestProblem;
+import com.kma.ojcore.enums.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bản chụp metadata của 1 contest đủ để phân quyền trên hot path (nộp bài, xem đề) mà không cần đọc MySQL.
+ * Không chứa password / description / author: những thứ đó vẫn đọc từ entity ở các luồng cần đến.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContestSnapshot {
+
+    private UUID id;
+    private String contestKey;
+    private EStatus status;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private RuleType ruleType;
+    private ContestVisibility visibility;
+    private ContestFormat format;
+    private Integer durationMinutes;
+    private Boolean allowLateRegistration;
+    private ScoreboardVisibility scoreboardVisibility;
+    private ContestResourceVisibility resourceVisibility;
+
+    // problemId -> displayId, theo sortOrder
+    private Map<UUID, String> problemDisplayIds;
+
+    public static ContestSnapshot from(Contest contest) {
+        Map<UUID, String> displayIds = new LinkedHashMap<>();
+        if (contest.getProblems() != null) {
+            contest.getProblems().stream()
+                    .sorted(Comparator.comparing(ContestProblem::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .forEach(cp -> displayIds.put(cp.getProblem().getId(), cp.getDisplayId()));
+        }
+        return ContestSnapshot.builder()
+                .id(contest.getId())
+                .contestKey(contest.getContestKey())
+                .status(contest.getStatus())
+                .startTime(contest.getStartTime())
+                .endTime(contest.getEndTime())
+                .ruleType(contest.getRuleType())
+                .visibility(contest.getVisibility())
+                .format(contest.getFormat())
+                .durationMinutes(contest.getDurationMinutes())
+                .allowLateRegistration(contest.getAllowLateRegistration())
+                .scoreboardVisibility(contest.getScoreboardVisibility())
+                .resourceVisibility(contest.getResourceVisibility())
+                .problemDisplayIds(displayIds)
+                .build();
+    }
+
+    public boolean isActive() {
+        return status == EStatus.ACTIVE;
+    }
+
+    public boolean containsProblem(UUID problemId) {
+        return problemDisplayIds != null && problemDisplayIds.containsKey(problemId);
+    }
+}
@@ -0,0 +1,51 @@
+package com.kma.ojcore.service.contest;
+
+import com.kma.ojcore.entity.ContestParticipation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Trạng thái tham gia của 1 user trong 1 contest (kể cả "chưa đăng ký") dùng cho phân quyền trên hot path.
+ * whitelisted chỉ có nghĩa với contest PRIVATE (null với contest PUBLIC).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipationState {
+
+    private boolean registered;
+    private UUID participationId;
+    private boolean disqualified;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private boolean finished;
+    private Boolean whitelisted;
+
+    public static ParticipationState of(ContestParticipation participation, Boolean whitelisted) {
+        if (participation == null) {
+            return ParticipationState.builder().registered(false).whitelisted(whitelisted).build();
+        }
+        return ParticipationState.builder()
+                .registered(true)
+                .participationId(participation.getId())
+                .disqualified(Boolean.TRUE.equals(participation.getIsDisqualified()))
+                .startTime(participation.getStartTime())
+                .endTime(participation.getEndTime())
+                .finished(Boolean.TRUE.equals(participation.getIsFinished()))
+                .whitelisted(whitelisted)
+                .build();
+    }
+
+    /**
+     * Hết giờ làm bài cá nhân nhưng DB chưa đánh dấu finished.
+     */
+    public boolean isSessionExpired(LocalDateTime now) {
+        return !finished && endTime != null && now.isAfter(endTime);
+    }
+}
@@ -18,13 +18,16 @@ import com.kma.ojcore.mapper.UserMapper;
 import com.kma.ojcore.repository.RoleRepository;
 import com.kma.ojcore.repository.UserRepository;
 import com.kma.ojcore.security.CustomUserDetailsService;
+import com.kma.ojcore.security.PrincipalCache;
 import com.kma.ojcore.security.UserPrincipal;
 import com.kma.ojcore.security.jwt.JwtTokenProvider;
 import com.kma.ojcore.service.AuthService;
 import com.kma.ojcore.service.RefreshTokenService;
 import com.kma.ojcore.service.TokenBlacklistService;
+import com.kma.ojcore.service.ranking.UserStatsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -39,6 +42,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -58,6 +62,8 @@ public class AuthServiceImpl implements AuthService {
     private final TokenBlacklistService tokenBlacklistService;
     private final RedisTemplate<String, String> redisTemplate;
     private final CustomUserDetailsService customUserDetailsService;
+    private final PrincipalCache principalCache;
+    private final ApplicationEventPublisher eventPublisher;
     private final RabbitTemplate rabbitTemplate;
 
     private static final String RESET_PASS_PREFIX = "RESET_PASS:";
@@ -239,7 +245,7 @@ public class AuthServiceImpl implements AuthService {
         userRepository.save(user);
 
         refreshTokenService.revokeAllUserTokens(user); // Đuổi sạch thiết bị cũ
-        redisTemplate.delete("userDetails::" + user.getId());  // Ép cập nhật version trên Redis
+        principalCache.invalidate(user.getId());  // Ép mọi node nạp lại token version mới
 
         redisTemplate.delete(RESET_PASS_PREFIX + normalizedEmail);
     }
@@ -298,6 +304,8 @@ public class AuthServiceImpl implements AuthService {
         user.setEmailVerified(true);
         user.setStatus(EStatus.ACTIVE);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
+        eventPublisher.publishEvent(new UserStatsChangedEvent(List.of(user.getId()))); // ACTIVE -> vào bảng xếp hạng
 
         redisTemplate.delete(VERIFY_EMAIL_PREFIX + token);
     }
@@ -1,11 +1,11 @@
 package com.kma.ojcore.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kma.ojcore.dto.request.contests.AddContestProblemSdi;
 import com.kma.ojcore.dto.request.contests.UpdateContestProblemSdi;
 import com.kma.ojcore.dto.request.contests.CreateContestSdi;
 import com.kma.ojcore.dto.request.contests.RegisterContestSdi;
 import com.kma.ojcore.dto.request.contests.UpdateContestSdi;
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.contests.*;
 import com.kma.ojcore.dto.response.problems.ProblemDetailsSdo;
 import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
@@ -17,23 +17,33 @@ import com.kma.ojcore.mapper.ContestMapper;
 import com.kma.ojcore.mapper.ProblemMapper;
 import com.kma.ojcore.repository.*;
 import com.kma.ojcore.service.ContestService;
+import com.kma.ojcore.service.contest.ContestAccessCache;
+import com.kma.ojcore.service.contest.ContestLeaderboardQuery;
+import com.kma.ojcore.service.contest.ContestSnapshot;
+import com.kma.ojcore.service.contest.ParticipationState;
+import com.kma.ojcore.service.scoring.ContestLiveLeaderboard;
+import com.kma.ojcore.utils.CursorCodec;
 import com.kma.ojcore.utils.EscapeHelper;
 import com.kma.ojcore.utils.UuidHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,25 +51,31 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ContestServiceImpl implements ContestService {
 
+    private static final String CONTEST_SUBMISSION_CURSOR = "csub";
+    private static final String PARTICIPANT_CURSOR = "cpar";
+    private static final LocalDateTime FIRST_PAGE_CREATED_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final UUID FIRST_PAGE_ID = new UUID(-1L, -1L); // ffff...ff: lớn nhất khi so sánh BINARY(16)
+
     private final ContestRepository contestRepository;
     private final ContestProblemRepository contestProblemRepository;
     private final ProblemRepository problemRepository;
     private final UserRepository userRepository;
     private final ContestMapper contestMapper;
     private final ContestParticipationRepository contestParticipationRepository;
-    private final ContestParticipationProblemRepository cppRepository;
     private final com.kma.ojcore.repository.ContestWhitelistRepository contestWhitelistRepository;
     private final SubmissionRepository submissionRepository;
     private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
     private final PasswordEncoder passwordEncoder;
     private final ProblemMapper problemMapper;
+    private final ContestLiveLeaderboard liveLeaderboard;
+    private final ContestAccessCache contestAccessCache;
+    private final ContestExportJdbcRepository contestExportJdbcRepository;
+    private final ContestLeaderboardQuery leaderboardQuery;
+    private final SubmissionSearchRepository submissionSearchRepository;
 
     @Value("${REDIS_PREFIX_LEADERBOARD:CONTEST_LEADERBOARD:}")
     private String leaderboardPrefix;
 
-    // No longer needed, using ContestLeaderboardPageSdo directly for caching
-
 
     @Transactional(readOnly = true)
     @Override
@@ -120,6 +136,8 @@ public class ContestServiceImpl implements ContestService {
 
         Contest saved = contestRepository.save(contest);
         log.info("Created new contest: {}", saved.getId());
+        // Xoá kết quả "không tồn tại" đã cache cho contestKey này
+        contestAccessCache.evictContest(saved.getId(), saved.getContestKey());
 
         ContestAdminSdo sdo = contestMapper.toAdminSdo(saved);
         sdo.setParticipantCount(0L);
@@ -158,8 +176,10 @@ public class ContestServiceImpl implements ContestService {
             req.setDurationMinutes(null);
         }
 
+        String oldContestKey = contest.getContestKey();
         contestMapper.updateEntityFromSdi(req, contest);
         Contest updated = contestRepository.save(contest);
+        contestAccessCache.evictContest(contestId, oldContestKey, updated.getContestKey());
         log.info("Updated contest: {}", updated.getContestKey());
 
         ContestAdminSdo sdo = contestMapper.toAdminSdo(updated);
@@ -181,6 +201,7 @@ public class ContestServiceImpl implements ContestService {
         validateContestStatusConfig(contest, true, null);
 
         contest.setStatus(EStatus.INACTIVE);
+        contestAccessCache.evictContest(contestId, contest.getContestKey());
         log.info("Contest {} restored to INACTIVE", contestId);
     }
 
@@ -196,6 +217,7 @@ public class ContestServiceImpl implements ContestService {
         validateContestStatusConfig(contest, true, null);
 
         contest.setStatus(EStatus.DELETED);
+        contestAccessCache.evictContest(contestId, contest.getContestKey());
         log.info("Contest {} soft deleted", contestId);
     }
 
@@ -215,6 +237,7 @@ public class ContestServiceImpl implements ContestService {
         EStatus targetStatus = isCurrentlyActive ? EStatus.INACTIVE : EStatus.ACTIVE;
 
         contest.setStatus(targetStatus);
+        contestAccessCache.evictContest(contestId, contest.getContestKey());
         log.info("Contest {} status changed to {}", contestId, targetStatus);
     }
 
@@ -280,6 +303,7 @@ public class ContestServiceImpl implements ContestService {
         }
 
         contestProblemRepository.saveAll(toSave);
+        contestAccessCache.evictContest(contestId, contest.getContestKey());
         log.info("Added {} problems to contest {}", toSave.size(), contestId);
         recalculateLeaderboardScores(contestId, contest);
     }
@@ -301,6 +325,7 @@ public class ContestServiceImpl implements ContestService {
         validateContestStatusConfig(contest, true, null);
 
         contestProblemRepository.deleteByContestIdAndProblemIdIn(contestId, problemIds);
+        contestAccessCache.evictContest(contestId, contest.getContestKey());
         log.info("Removed {} problems from contest {}", problemIds.size(), contestId);
         recalculateLeaderboardScores(contestId, contest);
     }
@@ -337,12 +362,16 @@ public class ContestServiceImpl implements ContestService {
 
         if (updated) {
             contestProblemRepository.saveAll(existingProblems);
+            contestAccessCache.evictContest(contestId, contest.getContestKey());
             log.info("Updated problems config for contest {}", contestId);
             recalculateLeaderboardScores(contestId, contest);
         }
     }
 
     private void recalculateLeaderboardScores(UUID contestId, Contest contest) {
+        // Danh sách bài / điểm thay đổi -> dựng lại bảng xếp hạng live
+        liveLeaderboard.invalidate(contestId);
+
         if (contest.getRuleType() != RuleType.OI) {
             return; // Only OI requires automatic score recalculation upon problem updates
         }
@@ -352,6 +381,7 @@ public class ContestServiceImpl implements ContestService {
             try {
                 // Optimized N+1: Delegate aggregation logic to the database engine directly.
                 int updatedRows = contestParticipationRepository.recalculateOiScoresByContestId(contestId);
+                liveLeaderboard.invalidate(contestId);
 
                 // Evict obsolete Redis Leaderboard Caches
                 Set<String> keys = redisTemplate.keys(leaderboardPrefix + contestId + ":*");
@@ -401,6 +431,8 @@ public class ContestServiceImpl implements ContestService {
                 .toList();
             contestWhitelistRepository.saveAll(entities);
         }
+        // Kết quả whitelist nằm trong participation state của từng user
+        contestAccessCache.evictContest(contestId, contest.getContestKey());
     }
 
     @Transactional(readOnly = true)
@@ -430,6 +462,26 @@ public class ContestServiceImpl implements ContestService {
         return contestParticipationRepository.searchParticipants(contest.getContestKey(), escapedKeyword, isDisqualified, pageable);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageSdo<ContestParticipationSdo> searchContestParticipantsByCursor(UUID contestId, String keyword,
+            Boolean isDisqualified, String cursor, int size) {
+        if (!contestRepository.existsById(contestId)) {
+            throw new BusinessException(ErrorCode.CONTEST_NOT_FOUND, "Contest not found.");
+        }
+        CursorCodec.validateSize(size);
+        CursorCodec.TimeIdKey after = participantCursorOrFirst(cursor);
+
+        List<ContestParticipationRepository.ParticipantRow> rows = contestParticipationRepository.findParticipantsAfter(
+                contestId, EscapeHelper.escapeLike(keyword), isDisqualified, after.createdDate(), after.id(),
+                PageRequest.of(0, size + 1));
+        return CursorPageSdo.of(rows, size,
+                        last -> CursorCodec.encodeTimeId(PARTICIPANT_CURSOR, last.getCreatedDate(), last.getId()))
+                .map(row -> new ContestParticipationSdo(row.getUserId(), row.getUsername(), row.getEmail(),
+                        Boolean.TRUE.equals(row.getIsDisqualified()), row.getStartTime(), row.getEndTime(),
+                        Boolean.TRUE.equals(row.getIsFinished()), row.getScore(), row.getPenalty()));
+    }
+
     @Transactional(rollbackFor = Throwable.class)
     @Override
     public void disqualifyUsers(UUID contestId, List<UUID> userIds) {
@@ -444,6 +496,8 @@ public class ContestServiceImpl implements ContestService {
         }
 
         int bannedCount = contestParticipationRepository.banUsersInBulk(contestId, userIds);
+        contestAccessCache.evictParticipants(contestId, userIds);
+        liveLeaderboard.removeParticipants(contestId, userIds);
         log.info("BULK BANNED: {} users from Contest {}", bannedCount, contestId);
     }
 
@@ -461,6 +515,9 @@ public class ContestServiceImpl implements ContestService {
         }
 
         int unbannedCount = contestParticipationRepository.unbanUsersInBulk(contestId, userIds);
+        contestAccessCache.evictParticipants(contestId, userIds);
+        // Cần nạp lại điểm + từng ô của các user được gỡ ban -> rebuild cho chắc
+        liveLeaderboard.invalidate(contestId);
         log.info("BULK UNBANNED: {} users in Contest {}", unbannedCount, contestId);
     }
 
@@ -494,111 +551,17 @@ public class ContestServiceImpl implements ContestService {
         }
 
         // ==========================================
-        // 2. KÍCH HOẠT LÁ CHẮN REDIS (TTL = 5 GIÂY)
+        // 2. ĐỌC TỪ BẢNG XẾP HẠNG LIVE (REDIS ZSET)
         // ==========================================
-        String redisKey = String.format("%s:%s:PAGE:%d:SIZE:%d%s", leaderboardPrefix,
-                contest.getContestKey(), pageable.getPageNumber(), pageable.getPageSize(),
-                bypassVisibility ? ":ADMIN" : "");
-
-        try {
-            String cachedLeaderboard = redisTemplate.opsForValue().get(redisKey);
-            if (cachedLeaderboard != null) {
-                return objectMapper.readValue(cachedLeaderboard, ContestLeaderboardPageSdo.class);
-            }
-        } catch (Exception e) {
-            log.error("Redis Cache Error for Leaderboard: {}", e.getMessage());
+        Optional<ContestLeaderboardPageSdo> livePage = liveLeaderboard.readPage(contest.getId(), pageable);
+        if (livePage.isPresent()) {
+            return livePage.get();
         }
 
         // ==========================================
-        // 3. NẾU REDIS TRỐNG -> CHỌC XUỐNG DB
+        // 3. FALLBACK: SQL, qua cache chống stampede (single-flight + stale-while-revalidate)
         // ==========================================
-        Page<ContestParticipationRepository.ContestLeaderboardProjection> nativePage = contestParticipationRepository.getLeaderboardNative(contest.getId(), pageable);
-
-        List<ContestLeaderboardSdo> sdoContent = nativePage.getContent().stream().map(p -> {
-            ContestLeaderboardSdo sdo = new ContestLeaderboardSdo();
-            sdo.setUserId(UuidHelper.getUuidFromBytes(p.getUserId()));
-            sdo.setUsername(p.getUsername());
-            sdo.setScore(p.getScore());
-            sdo.setPenalty(p.getPenalty());
-            sdo.setRank(p.getRank());
-            return sdo;
-        }).collect(Collectors.toList());
-
-        Page<ContestLeaderboardSdo> page = new PageImpl<>(sdoContent, pageable, nativePage.getTotalElements());
-
-        List<ContestProblem> contestProblems = contestProblemRepository.findByContestId(contest.getId());
-
-        if (!page.isEmpty()) {
-            List<UUID> userIds = page.getContent().stream().map(ContestLeaderboardSdo::getUserId).collect(Collectors.toList());
-            
-            // Lấy trạng thái trung gian (Intermediate State) của tất cả user trong Page này
-            List<ContestParticipationProblem> matrixRecords = cppRepository.findByParticipationUserIdInAndContestProblemContestId(userIds, contest.getId());
-
-            // Nhóm dữ liệu: UserId -> (DisplayId -> ContestParticipationProblem)
-            Map<UUID, Map<String, ContestParticipationProblem>> cppByUserAndDisplayId = matrixRecords.stream()
-                    .collect(Collectors.groupingBy(cpp -> cpp.getParticipation().getUser().getId(),
-                            Collectors.toMap(cpp -> cpp.getContestProblem().getDisplayId(), cpp -> cpp)));
-
-            for (ContestLeaderboardSdo lb : page) {
-                Map<String, ContestParticipationProblem> userCpps = cppByUserAndDisplayId.getOrDefault(lb.getUserId(), Collections.emptyMap());
-
-                for (ContestProblem cp : contestProblems) { // Vòng lặp này đã duyệt qua toàn bộ problems của contest rồi
-                    String displayId = cp.getDisplayId();
-                    ContestParticipationProblem cpp = userCpps.get(displayId);
-
-                    ContestProblemResultSdo result = new ContestProblemResultSdo();
-                    result.setProblemId(cp.getProblem().getId());
-                    result.setDisplayId(displayId);
-                    
-                    if (cpp != null) {
-                        result.setTries(cpp.getFailedAttempts());
-                        result.setIsAc(cpp.getIsAc());
-                        result.setScore(cpp.getMaxScore());
-                        result.setPenalty(cpp.getPenalty() == Long.MAX_VALUE ? 0L : cpp.getPenalty());
-                    } else {
-                        result.setTries(0);
-                        result.setIsAc(false);
-                        result.setScore(0.0);
-                        result.setPenalty(0L);
-                    }
-                    
-                    lb.getProblemResults().put(displayId, result);
-                }
-            }
-        }
-
-        List<ContestProblemSdo> problemSdos = contestProblems.stream()
-                .map(cp -> ContestProblemSdo.builder()
-                        .id(cp.getId())
-                        .problemId(cp.getProblem().getId())
-                        .problemSlug(cp.getProblem().getSlug())
-                        .originalTitle(cp.getProblem().getTitle())
-                        .displayId(cp.getDisplayId())
-                        .points(cp.getPoints())
-                        .sortOrder(cp.getSortOrder())
-                        .build())
-                .sorted(Comparator.comparing(ContestProblemSdo::getSortOrder))
-                .toList();
- 
-        ContestLeaderboardPageSdo response = ContestLeaderboardPageSdo.builder()
-                .content(page.getContent())
-                .totalElements(page.getTotalElements())
-                .totalPages(page.getTotalPages())
-                .size(page.getSize())
-                .number(page.getNumber())
-                .problems(problemSdos)
-                .build();
-
-        try {
-            String jsonToCache = objectMapper.writeValueAsString(response);
- 
-            // TTL = 5 giây là quá đủ để chặn hàng vạn request F5 cùng lúc
-            redisTemplate.opsForValue().set(redisKey, jsonToCache, 5, java.util.concurrent.TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.error("Failed to save Leaderboard to Redis: {}", e.getMessage());
-        }
-
-        return response;
+        return leaderboardQuery.loadPage(contest.getId(), pageable);
     }
 
     @Transactional(readOnly = true)
@@ -613,11 +576,56 @@ public class ContestServiceImpl implements ContestService {
     @Transactional(readOnly = true)
     @Override
     public Page<SubmissionBasicSdo> getMyContestSubmissions(String contestKey, UUID userId, UUID problemId, Pageable pageable) {
-        Contest contest = contestRepository.findByContestKeyAndStatus(contestKey, EStatus.ACTIVE)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CONTEST_NOT_FOUND, "Contest not found."));
+        checkCanViewOwnSubmissions(findActiveSnapshot(contestKey), userId);
+        return submissionRepository.findMyContestSubmissions(contestKey, userId, problemId, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageSdo<SubmissionBasicSdo> getMyContestSubmissionsByCursor(String contestKey, UUID userId, UUID problemId,
+                                                                            String cursor, int size) {
+        ContestSnapshot contest = findActiveSnapshot(contestKey);
+        checkCanViewOwnSubmissions(contest, userId);
+
+        SubmissionSearchRepository.Filter filter = SubmissionSearchRepository.Filter.builder()
+                .contestId(contest.getId())
+                .userId(userId)
+                .problemId(problemId)
+                .submissionStatus(EStatus.ACTIVE)
+                .ignoreContestPrivacy(true)
+                .build();
+        return searchContestSubmissionsAfter(filter, cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageSdo<SubmissionBasicSdo> getAdminContestSubmissionsByCursor(UUID contestId, String cursor, int size) {
+        if (!contestRepository.existsById(contestId)) {
+            throw new BusinessException(ErrorCode.CONTEST_NOT_FOUND, "Contest not found.");
+        }
+
+        SubmissionSearchRepository.Filter filter = SubmissionSearchRepository.Filter.builder()
+                .contestId(contestId)
+                .submissionStatus(EStatus.ACTIVE)
+                .ignoreContestPrivacy(true)
+                .build();
+        return searchContestSubmissionsAfter(filter, cursor, size);
+    }
+
+    private CursorPageSdo<SubmissionBasicSdo> searchContestSubmissionsAfter(SubmissionSearchRepository.Filter filter,
+                                                                           String cursor, int size) {
+        CursorCodec.validateSize(size);
+        CursorCodec.TimeIdKey after = CursorCodec.decodeTimeId(cursor, CONTEST_SUBMISSION_CURSOR);
+        List<SubmissionBasicSdo> rows = submissionSearchRepository.searchAfter(filter,
+                after != null ? after.createdDate() : null, after != null ? after.id() : null, size + 1);
+        return CursorPageSdo.of(rows, size,
+                last -> CursorCodec.encodeTimeId(CONTEST_SUBMISSION_CURSOR, last.getCreatedDate(), last.getSubmissionId()));
+    }
+
+    private void checkCanViewOwnSubmissions(ContestSnapshot contest, UUID userId) {
 
         // Cha(^.n xem ne^'u chu'a da(ng ky'
-        if (!contestParticipationRepository.existsByContestContestKeyAndUserId(contestKey, userId)) {
+        if (!contestAccessCache.participation(contest, userId).isRegistered()) {
             throw new BusinessException(ErrorCode.NOT_REGISTERED, "You are not registered for this contest.");
         }
 
@@ -630,48 +638,90 @@ public class ContestServiceImpl implements ContestService {
                         "Ky thi da ket thuc. Lich su nop bai da duoc bao mat.");
             }
         }
-
-        return submissionRepository.findMyContestSubmissions(contestKey, userId, problemId, pageable);
     }
 
     // ==================================================================== //
     // EXPORT
     @Transactional(readOnly = true)
     @Override
-    public byte[] exportContestResults(UUID contestId) {
-        Contest contest = contestRepository.findById(contestId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CONTEST_NOT_FOUND, "Contest not found."));
+    public StreamingResponseBody exportContestResults(UUID contestId, boolean gzip) {
+        // Kiểm tra contest + lấy danh sách cột ngay trong request; phần đọc kết quả chạy khi ghi response
+        if (!contestRepository.existsById(contestId)) {
+            throw new BusinessException(ErrorCode.CONTEST_NOT_FOUND, "Contest not found.");
+        }
+        List<ContestProblem> contestProblems = contestProblemRepository.findByContestId(contestId).stream()
+                .sorted(Comparator.comparing(ContestProblem::getSortOrder))
+                .toList();
+        Map<UUID, Integer> columnByContestProblem = new HashMap<>();
+        for (int i = 0; i < contestProblems.size(); i++) {
+            columnByContestProblem.put(contestProblems.get(i).getId(), i);
+        }
+        List<String> displayIds = contestProblems.stream().map(ContestProblem::getDisplayId).toList();
 
-        // Get all participants using a large page size
-        ContestLeaderboardPageSdo leaderboard = getContestLeaderboardInternal(contest, PageRequest.of(0, 100000), true);
+        return outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
 
-        StringBuilder csv = new StringBuilder();
-        csv.append('\uFEFF'); // BOM for UTF-8 Excel compat
-        csv.append("Rank,Username,Score,Penalty");
+            writer.write('\uFEFF'); // BOM for UTF-8 Excel compat
+            writer.write("Rank,Username,Score,Penalty");
+            for (String displayId : displayIds) {
+                String column = escapeCsv(displayId);
+                writer.write("," + column + " (Score)," + column + " (Penalty)," + column + " (Tries)");
+            }
+            writer.write("\n");
 
-        for (ContestProblemSdo prob : leaderboard.getProblems()) {
-            csv.append(",").append(prob.getDisplayId()).append(" (Score)");
-        }
-        csv.append("\n");
-
-        for (ContestLeaderboardSdo row : leaderboard.getContent()) {
-            csv.append(row.getRank() != null ? row.getRank() : "").append(",");
-            csv.append(row.getUsername() != null ? row.getUsername() : "").append(",");
-            csv.append(row.getScore() != null ? row.getScore() : 0).append(",");
-            csv.append(row.getPenalty() != null ? row.getPenalty() : 0);
-
-            for (ContestProblemSdo prob : leaderboard.getProblems()) {
-                ContestProblemResultSdo pr = row.getProblemResults().get(prob.getDisplayId());
-                if (pr != null) {
-                    csv.append(",").append(pr.getScore());
-                } else {
-                    csv.append(",0");
-                }
+            // Rank giống RANK() OVER (ORDER BY score DESC, penalty ASC) của bảng xếp hạng
+            long[] position = {0};
+            long[] rank = {0};
+            double[] previousScore = {Double.NaN};
+            long[] previousPenalty = {Long.MIN_VALUE};
+            try {
+                contestExportJdbcRepository.streamResults(contestId, columnByContestProblem, row -> {
+                    position[0]++;
+                    if (row.getScore() != previousScore[0] || row.getPenalty() != previousPenalty[0]) {
+                        rank[0] = position[0];
+                        previousScore[0] = row.getScore();
+                        previousPenalty[0] = row.getPenalty();
+                    }
+                    try {
+                        writer.write(String.valueOf(rank[0]));
+                        writer.write(',');
+                        writer.write(escapeCsv(row.getUsername()));
+                        writer.write(',');
+                        writer.write(String.valueOf(row.getScore()));
+                        writer.write(',');
+                        writer.write(String.valueOf(row.getPenalty()));
+                        for (int i = 0; i < displayIds.size(); i++) {
+                            writer.write(',');
+                            writer.write(String.valueOf(row.getProblemScores()[i]));
+                            writer.write(',');
+                            writer.write(String.valueOf(row.getProblemPenalties()[i]));
+                            writer.write(',');
+                            writer.write(String.valueOf(row.getProblemTries()[i]));
+                        }
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // Client ngắt kết nối giữa chừng
             }
-            csv.append("\n");
-        }
 
-        return csv.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            log.info("Exported results of contest {} ({} participants)", contestId, position[0]);
+        };
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 
     // ==================================================================== //
@@ -721,14 +771,11 @@ public class ContestServiceImpl implements ContestService {
                 throw new BusinessException(ErrorCode.UNAUTHORIZED,
                         "This is a private contest. Please log in to continue.");
             }
-            boolean isParticipant = contestParticipationRepository
-                    .existsByContestContestKeyAndUserId(contestKey, userId);
-            if (!isParticipant) {
-                String email = userRepository.findById(userId)
-                        .map(com.kma.ojcore.entity.User::getEmail).orElse(null);
-                boolean isWhitelisted = email != null
-                        && contestWhitelistRepository.existsByContestIdAndEmail(contest.getId(), email);
-                if (!isWhitelisted) {
+            ParticipationState state = contestAccessCache.findById(contest.getId())
+                    .map(snapshot -> contestAccessCache.participation(snapshot, userId))
+                    .orElseThrow(() -> new BusinessException(ErrorCode.CONTEST_NOT_FOUND, "Contest not found."));
+            if (!state.isRegistered()) {
+                if (!Boolean.TRUE.equals(state.getWhitelisted())) {
                     throw new BusinessException(ErrorCode.UNAUTHORIZED,
                             "You are not authorized to view this private contest.");
                 }
@@ -798,14 +845,15 @@ public class ContestServiceImpl implements ContestService {
                 .build();
 
         contestParticipationRepository.save(participation);
+        contestAccessCache.evictParticipant(contest.getId(), userId);
+        liveLeaderboard.addParticipant(contest.getId(), userId, user.getUsername());
         log.info("User {} registered for contest {}", userId, contest.getId());
     }
 
     @Transactional(rollbackFor = Throwable.class)
     @Override
     public List<ContestProblemSdo> getContestProblemsForUser(String contestKey, UUID userId) {
-        Contest contest = contestRepository.findByContestKeyAndStatus(contestKey, EStatus.ACTIVE)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CONTEST_NOT_FOUND));
+        ContestSnapshot contest = findActiveSnapshot(contestKey);
 
         ContestStatus timeStatus = contestMapper.getRealTimeStatus(contest.getStartTime(), contest.getEndTime());
 
@@ -818,12 +866,14 @@ public class ContestServiceImpl implements ContestService {
         // 2. CHỈ KIỂM TRA QUYỀN KHẮT KHE KHI KỲ THI ĐANG DIỄN RA (ONGOING)
         // ========================================================
         if (timeStatus == ContestStatus.ONGOING) {
-            checkWhitelistIfPrivate(contest, userId);
-            
-            ContestParticipation participation = contestParticipationRepository.findByContestContestKeyAndUserId(contestKey, userId)
-                    .orElseThrow(() -> new BusinessException(ErrorCode.NOT_REGISTERED, "You must register to view problems during an active contest."));
+            ParticipationState participation = contestAccessCache.participation(contest, userId);
+            checkWhitelistIfPrivate(contest, participation);
 
-            if (participation.getIsDisqualified()) {
+            if (!participation.isRegistered()) {
+                throw new BusinessException(ErrorCode.NOT_REGISTERED, "You must register to view problems during an active contest.");
+            }
+
+            if (participation.isDisqualified()) {
                 throw new BusinessException(ErrorCode.BANNED_FROM_CONTEST, "You are banned from participating in this contest.");
             }
 
@@ -837,13 +887,13 @@ public class ContestServiceImpl implements ContestService {
 
 
             // Tự động tước quyền nếu Hết giờ cá nhân (Chỉ check nếu đã có endTime cá nhân)
-            if (!participation.getIsFinished()
-                    && participation.getEndTime() != null
-                    && java.time.LocalDateTime.now().isAfter(participation.getEndTime())) {
+            if (participation.isSessionExpired(java.time.LocalDateTime.now())) {
+                contestParticipationRepository.findById(participation.getParticipationId()).ifPresent(p -> {
+                    p.setIsFinished(true);
+                    contestParticipationRepository.save(p);
+                });
+                contestAccessCache.evictParticipant(contest.getId(), userId);
 
-                participation.setIsFinished(true);
-                contestParticipationRepository.save(participation);
-                
                 if (contest.getVisibility() == ContestVisibility.PRIVATE) {
                     String email = userRepository.findById(userId).map(User::getEmail).orElse("");
                     contestWhitelistRepository.deleteByContestIdAndEmail(contest.getId(), email);
@@ -902,6 +952,28 @@ public class ContestServiceImpl implements ContestService {
         return contestParticipationRepository.searchPublicParticipants(contestKey, escapedKeyword, pageable);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageSdo<ContestParticipantPublicSdo> getPublicContestParticipantsByCursor(String contestKey, String keyword,
+                                                                                          String cursor, int size) {
+        ContestSnapshot contest = findActiveSnapshot(contestKey);
+        CursorCodec.validateSize(size);
+        CursorCodec.TimeIdKey after = participantCursorOrFirst(cursor);
+
+        List<ContestParticipationRepository.PublicParticipantRow> rows = contestParticipationRepository.findPublicParticipantsAfter(
+                contest.getId(), EscapeHelper.escapeLike(keyword), after.createdDate(), after.id(),
+                PageRequest.of(0, size + 1));
+        return CursorPageSdo.of(rows, size,
+                        last -> CursorCodec.encodeTimeId(PARTICIPANT_CURSOR, last.getCreatedDate(), last.getId()))
+                .map(row -> new ContestParticipantPublicSdo(row.getUserId(), row.getUsername()));
+    }
+
+    // Query keyset của participants luôn có điều kiện cursor: trang đầu dùng mốc lớn hơn mọi dòng
+    private CursorCodec.TimeIdKey participantCursorOrFirst(String cursor) {
+        CursorCodec.TimeIdKey after = CursorCodec.decodeTimeId(cursor, PARTICIPANT_CURSOR);
+        return after != null ? after : new CursorCodec.TimeIdKey(FIRST_PAGE_CREATED_DATE, FIRST_PAGE_ID);
+    }
+
     @Transactional(readOnly = true)
     @Override
     public Page<SubmissionBasicSdo> getAdminContestSubmissions(UUID contestId, Pageable pageable) {
@@ -972,6 +1044,7 @@ public class ContestServiceImpl implements ContestService {
         }
 
         participation = contestParticipationRepository.save(participation);
+        contestAccessCache.evictParticipant(contest.getId(), userId);
         log.info("User {} started contest {}. Session ends at {}", userId, contest.getId(), participation.getEndTime());
 
         return contestMapper.toParticipationSdo(participation);
@@ -998,6 +1071,7 @@ public class ContestServiceImpl implements ContestService {
         // Đánh dấu nộp bài sớm/Thoát phòng thi
         participation.setIsFinished(true);
         contestParticipationRepository.save(participation);
+        contestAccessCache.evictParticipant(contest.getId(), userId);
 
         // Xóa khỏi whitelist để chặn truy cập vĩnh viễn (nếu là Private)
         if (contest.getVisibility() == ContestVisibility.PRIVATE) {
@@ -1012,15 +1086,14 @@ public class ContestServiceImpl implements ContestService {
     @Override
     public ProblemDetailsSdo getContestProblemDetail(String contestKey, String problemSlug, UUID userId) {
         // 1. Find contest (must be ACTIVE record)
-        Contest contest = contestRepository.findByContestKeyAndStatus(contestKey, EStatus.ACTIVE)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CONTEST_NOT_FOUND));
+        ContestSnapshot contest = findActiveSnapshot(contestKey);
 
         // 2. Find problem by slug (regardless of its ACTIVE/INACTIVE status)
         com.kma.ojcore.entity.Problem problem = problemRepository.findBySlug(problemSlug)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PROBLEM_NOT_FOUND));
 
         // 3. Problem must belong to this contest
-        if (!contestProblemRepository.existsByContestIdAndProblemId(contest.getId(), problem.getId())) {
+        if (!contest.containsProblem(problem.getId())) {
             throw new BusinessException(ErrorCode.PROBLEM_NOT_FOUND, "Problem does not belong to this contest.");
         }
 
@@ -1031,9 +1104,8 @@ public class ContestServiceImpl implements ContestService {
             if (userId == null) {
                 throw new BusinessException(ErrorCode.UNAUTHORIZED, "Please log in to access contest problems.");
             }
-            ContestParticipation participation = contestParticipationRepository
-                    .findByContestContestKeyAndUserId(contestKey, userId).orElse(null);
-            if (participation == null) {
+            ParticipationState participation = contestAccessCache.participation(contest, userId);
+            if (!participation.isRegistered()) {
                 throw new BusinessException(ErrorCode.NOT_REGISTERED, "You are not registered for this contest.");
             }
             if (participation.getStartTime() == null) {
@@ -1050,6 +1122,19 @@ public class ContestServiceImpl implements ContestService {
         return problemMapper.toProblemDetailsSdo(problem);
     }
 
+    private ContestSnapshot findActiveSnapshot(String contestKey) {
+        return contestAccessCache.findByKey(contestKey)
+                .filter(ContestSnapshot::isActive)
+                .orElseThrow(() -> new BusinessException(ErrorCode.CONTEST_NOT_FOUND));
+    }
+
+    // Bản dùng participation state đã cache (hot path), kết quả whitelist được tính sẵn lúc nạp state
+    private void checkWhitelistIfPrivate(ContestSnapshot contest, ParticipationState participation) {
+        if (contest.getVisibility() == ContestVisibility.PRIVATE && !Boolean.TRUE.equals(participation.getWhitelisted())) {
+            throw new BusinessException(ErrorCode.UNAUTHORIZED, "Your email is not in the authorized whitelist, or you have already finished the contest.");
+        }
+    }
+
     private void checkWhitelistIfPrivate(Contest contest, UUID userId) {
         if (contest.getVisibility() == ContestVisibility.PRIVATE) {
             String email = userRepository.findById(userId).map(User::getEmail)
@@ -0,0 +1,142 @@
+package com.kma.ojcore.service.impl;
+
+import com.kma.ojcore.config.RabbitMQConfig;
+import com.kma.ojcore.entity.JudgeOutboxMessage;
+import com.kma.ojcore.enums.JudgeLane;
+import com.kma.ojcore.repository.JudgeOutboxRepository;
+import com.kma.ojcore.service.JudgeOutboxService;
+import com.kma.ojcore.service.judge.JudgeLaneRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JudgeOutboxServiceImpl implements JudgeOutboxService {
+
+    private static final String TYPE_ID_HEADER = "__TypeId__";
+
+    private final JudgeOutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final JudgeLaneRouter judgeLaneRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${oj.judge.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${oj.judge.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    // Phải lớn hơn confirm-timeout-ms, nếu không relay khác có thể nhận lại lô khi lô vẫn đang chờ confirm
+    @Value("${oj.judge.outbox.claim-timeout-ms:30000}")
+    private long claimTimeoutMs;
+
+    // MANDATORY: outbox chỉ có ý nghĩa khi được ghi cùng transaction với dữ liệu nghiệp vụ
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void enqueue(String routingKey, Object payload) {
+        save(routingKey, null, payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void enqueue(JudgeLane lane, Object payload) {
+        save(judgeLaneRouter.routingKey(lane), judgeLaneRouter.priority(lane), payload);
+    }
+
+    private void save(String routingKey, Integer priority, Object payload) {
+        // Serialize ngay bằng converter của RabbitTemplate để body gửi đi giống hệt convertAndSend trước đây
+        Message message = rabbitTemplate.getMessageConverter().toMessage(payload, new MessageProperties());
+        MessageProperties props = message.getMessageProperties();
+
+        Object typeId = props.getHeaders().get(TYPE_ID_HEADER);
+        outboxRepository.save(JudgeOutboxMessage.builder()
+                .exchange(RabbitMQConfig.JUDGE_EXCHANGE)
+                .routingKey(routingKey)
+                .priority(priority)
+                .contentType(props.getContentType())
+                .typeId(typeId != null ? typeId.toString() : null)
+                .payload(message.getBody())
+                .build());
+    }
+
+    /**
+     * Không chạy trong 1 transaction duy nhất: chờ broker confirm mà vẫn giữ row lock + connection thì broker chậm sẽ
+     * ghim cả lô outbox lẫn 1 connection của pool. Thay vào đó:
+     * <ol>
+     *     <li>Transaction ngắn: khóa SKIP LOCKED, đặt claimed_until cho cả lô rồi commit ngay.</li>
+     *     <li>Publish + chờ confirm, không giữ transaction nào.</li>
+     *     <li>Transaction ngắn: đánh dấu dispatched_at.</li>
+     * </ol>
+     * Relay chết sau bước 1 thì lô được nhận lại khi claimed_until hết hạn; chết sau khi publish mà chưa kịp bước 3 thì
+     * message được gửi lại (at-least-once, như trước).
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    @Override
+    public int relayPendingBatch() {
+        List<JudgeOutboxMessage> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<JudgeOutboxMessage> pending = outboxRepository.lockPendingBatch(batchSize, now);
+            if (!pending.isEmpty()) {
+                outboxRepository.claim(pending.stream().map(JudgeOutboxMessage::getId).toList(),
+                        now.plus(Duration.ofMillis(claimTimeoutMs)));
+            }
+            return pending;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        List<UUID> ids = batch.stream().map(JudgeOutboxMessage::getId).toList();
+
+        // Publish cả lô trên cùng 1 channel rồi chờ broker confirm 1 lần
+        try {
+            rabbitTemplate.invoke(ops -> {
+                for (JudgeOutboxMessage outbox : batch) {
+                    ops.send(outbox.getExchange(), outbox.getRoutingKey(), toAmqpMessage(outbox));
+                }
+                ops.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Trả lô về hàng chờ ngay để lượt sau gửi lại, không phải đợi claimed_until hết hạn
+            try {
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.releaseClaim(ids));
+            } catch (RuntimeException releaseError) {
+                log.warn("[Outbox Relay] Không trả được claim của {} message, chờ hết hạn: {}",
+                        ids.size(), releaseError.getMessage());
+            }
+            throw e;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.markDispatched(ids, LocalDateTime.now()));
+
+        log.debug("Outbox relay: đã publish {} message lên RabbitMQ", ids.size());
+        return ids.size();
+    }
+
+    private Message toAmqpMessage(JudgeOutboxMessage outbox) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(outbox.getContentType());
+        props.setMessageId(outbox.getId().toString());
+        if (outbox.getPriority() != null) {
+            props.setPriority(outbox.getPriority());
+        }
+        if (outbox.getTypeId() != null) {
+            props.setHeader(TYPE_ID_HEADER, outbox.getTypeId());
+        }
+        return new Message(outbox.getPayload(), props);
+    }
+}
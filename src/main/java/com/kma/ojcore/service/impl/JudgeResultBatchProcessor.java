@@ -0,0 +1,252 @@
+package com.kma.ojcore.service.impl;
+
+import com.kma.ojcore.dto.request.submissions.JudgeResultSdi;
+import com.kma.ojcore.entity.Problem;
+import com.kma.ojcore.entity.Submission;
+import com.kma.ojcore.entity.User;
+import com.kma.ojcore.entity.UserProblemStatus;
+import com.kma.ojcore.enums.RuleType;
+import com.kma.ojcore.enums.SubmissionVerdict;
+import com.kma.ojcore.enums.UserProblemState;
+import com.kma.ojcore.repository.*;
+import com.kma.ojcore.service.scoring.ContestLiveLeaderboard;
+import com.kma.ojcore.service.scoring.ScoringStrategyFactory;
+import com.kma.ojcore.service.stats.ProblemStatsDelta;
+import com.kma.ojcore.service.stats.StatsCounterBuffer;
+import com.kma.ojcore.service.stats.UserStatsDelta;
+import com.kma.ojcore.service.submission.SubmissionBlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Xử lý kết quả chấm theo lô: 1 transaction cho cả lô, các counter của users/problems được gom theo
+ * từng row rồi giao cho {@link StatsCounterBuffer} thay vì 4-6 câu UPDATE cho mỗi kết quả.
+ * Ngữ nghĩa giữ nguyên như {@link JudgeResultListener#handleJudgeResult}: chỉ xử lý submission còn PENDING,
+ * staff chỉ lưu kết quả mà không cộng điểm, rejudge thì tính lại bằng native recalculation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JudgeResultBatchProcessor {
+
+    private final SubmissionRepository submissionRepository;
+    private final ProblemRepository problemRepository;
+    private final UserProblemStatusRepository userProblemStatusRepo;
+    private final UserRepository userRepository;
+    private final StatsCounterBuffer statsCounterBuffer;
+    private final ScoringStrategyFactory scoringStrategyFactory;
+    private final ContestParticipationRepository contestParticipationRepository;
+    private final ContestLiveLeaderboard contestLiveLeaderboard;
+    private final SubmissionBlobStore submissionBlobStore;
+
+    @Transactional(rollbackFor = Throwable.class)
+    public void processBatch(List<JudgeResultSdi> results) {
+        // Cùng 1 submission có thể bị gửi trùng trong 1 lô (worker retry) -> chỉ giữ bản đầu tiên
+        Map<UUID, JudgeResultSdi> resultById = new LinkedHashMap<>();
+        for (JudgeResultSdi result : results) {
+            if (result != null && result.getSubmissionId() != null) {
+                resultById.putIfAbsent(result.getSubmissionId(), result);
+            }
+        }
+        if (resultById.isEmpty()) return;
+
+        Map<UUID, Submission> submissionById = submissionRepository.findAllByIdInWithRelations(resultById.keySet())
+                .stream().collect(Collectors.toMap(Submission::getId, Function.identity()));
+
+        // 1. Idempotency: chỉ nhận các submission còn PENDING, cập nhật kết quả chấm
+        List<Submission> judged = new ArrayList<>();
+        for (Map.Entry<UUID, JudgeResultSdi> entry : resultById.entrySet()) {
+            Submission submission = submissionById.get(entry.getKey());
+            if (submission == null) {
+                log.error("Submission [{}] not found in database!", entry.getKey());
+                continue;
+            }
+            if (submission.getVerdict() != SubmissionVerdict.PENDING) {
+                log.info("Submission [{}] is currently in state {}. Skipping duplicate/retry processing.", submission.getId(), submission.getVerdict());
+                continue;
+            }
+
+            JudgeResultSdi result = entry.getValue();
+            submission.setVerdict(result.getSubmissionVerdict());
+            submission.setScore(result.getScore());
+            submission.setPassedTestCount(result.getPassedTestCount());
+            submission.setTotalTestCount(result.getTotalTestCount());
+            submission.setExecutionTimeMs(result.getExecutionTimeMs());
+            submission.setExecutionMemoryMb(result.getExecutionMemoryMb());
+            submission.setSubmissionStatus(result.getSubmissionStatus());
+            judged.add(submission);
+        }
+        if (judged.isEmpty()) return;
+
+        // Log lỗi của cả lô ghi vào submission_blobs bằng 1 batch INSERT IGNORE (CE giống nhau dùng chung blob)
+        Map<String, String> errorHashByText = submissionBlobStore.storeAll(judged.stream()
+                .map(s -> resultById.get(s.getId()).getErrorMessage())
+                .toList());
+        for (Submission submission : judged) {
+            submission.setErrorHash(errorHashByText.get(resultById.get(submission.getId()).getErrorMessage()));
+        }
+
+        // Hibernate gom các UPDATE submissions thành JDBC batch (hibernate.jdbc.batch_size)
+        submissionRepository.flush();
+
+        // 2. Ghost Mode: users đã JOIN FETCH cùng submission, đọc thẳng cột is_staff
+        Set<UUID> staffIds = judged.stream()
+                .map(Submission::getUser)
+                .filter(u -> Boolean.TRUE.equals(u.getStaff()))
+                .map(User::getId)
+                .collect(Collectors.toSet());
+
+        Map<UUID, UserStatsDelta> userDeltas = new HashMap<>();
+        Map<UUID, ProblemStatsDelta> problemDeltas = new HashMap<>();
+        Map<String, UserProblemStatus> statusByPair = loadStatuses(judged, staffIds);
+        Set<UserProblemStatus> touchedStatuses = new LinkedHashSet<>();
+
+        Set<List<UUID>> rejudgedPairs = new LinkedHashSet<>();
+        Set<UUID> rejudgedUsers = new LinkedHashSet<>();
+        Set<UUID> rejudgedProblems = new LinkedHashSet<>();
+        Set<UUID> rejudgedContests = new LinkedHashSet<>();
+        List<Submission> contestSubmissions = new ArrayList<>();
+
+        for (Submission submission : judged) {
+            User user = submission.getUser();
+            Problem problem = submission.getProblem();
+
+            if (staffIds.contains(user.getId())) {
+                log.info("Staff debug mode: Saved test result, SKIPPING points and ranking update for Submission [{}]", submission.getId());
+                continue;
+            }
+
+            if (Boolean.TRUE.equals(submission.getIsRejudged())) {
+                rejudgedPairs.add(List.of(user.getId(), problem.getId()));
+                rejudgedUsers.add(user.getId());
+                rejudgedProblems.add(problem.getId());
+                if (submission.getContest() != null) {
+                    rejudgedContests.add(submission.getContest().getId());
+                }
+                submission.setIsRejudged(false);
+                continue;
+            }
+
+            if (submission.getContest() == null) {
+                UserProblemStatus status = statusByPair.computeIfAbsent(pairKey(user.getId(), problem.getId()),
+                        k -> UserProblemStatus.builder()
+                                .user(user)
+                                .problem(problem)
+                                .state(UserProblemState.ATTEMPTED)
+                                .maxScore(0.0)
+                                .build());
+                applyPracticeResult(submission, status,
+                        userDeltas.computeIfAbsent(user.getId(), k -> new UserStatsDelta()),
+                        problemDeltas.computeIfAbsent(problem.getId(), k -> new ProblemStatsDelta()));
+                touchedStatuses.add(status);
+            } else {
+                contestSubmissions.add(submission);
+            }
+        }
+
+        // 3. Ghi trạng thái; counter đã gom nhóm được đẩy vào buffer write-behind (áp dụng sau commit)
+        userProblemStatusRepo.saveAll(touchedStatuses);
+        statsCounterBuffer.record(userDeltas, problemDeltas);
+
+        // 4. Contest scoring vẫn đi tuần tự theo thứ tự nhận (strategy phụ thuộc trạng thái ô trước đó)
+        for (Submission submission : contestSubmissions) {
+            if (submission.getCreatedDate().isAfter(submission.getContest().getEndTime())) {
+                log.info("Submission {} is Upsolving (submitted after contest ended). Score not counted.", submission.getId());
+                continue;
+            }
+            contestParticipationRepository.findByContestIdAndUserId(submission.getContest().getId(), submission.getUser().getId())
+                    .ifPresent(participation -> scoringStrategyFactory.getStrategy(submission.getContest().getRuleType())
+                            .processScore(submission, participation));
+        }
+
+        // 5. Rejudge: tính lại tuyệt đối (đã bao gồm kết quả của lô này) và ghi stamp mới vào stats_epoch, delta cùng
+        // lô vừa record() mang stamp nhỏ hơn nên bị bỏ khi flush (trừ submission_count của user)
+        for (List<UUID> pair : rejudgedPairs) {
+            userProblemStatusRepo.recalculateStatus(pair.get(0), pair.get(1));
+        }
+        rejudgedUsers.forEach(userRepository::recalculateUserStats);
+        rejudgedProblems.forEach(problemRepository::recalculateProblemStats);
+        statsCounterBuffer.onRecalculated(rejudgedUsers, rejudgedProblems);
+        for (UUID contestId : rejudgedContests) {
+            contestParticipationRepository.recalculateOiScoresByContestId(contestId);
+            contestLiveLeaderboard.invalidate(contestId);
+        }
+
+        log.info("Processed judge result batch: {} received, {} judged, {} contest, {} rejudged",
+                results.size(), judged.size(), contestSubmissions.size(), rejudgedPairs.size());
+    }
+
+    private Map<String, UserProblemStatus> loadStatuses(List<Submission> judged, Set<UUID> staffIds) {
+        Set<UUID> userIds = new HashSet<>();
+        Set<UUID> problemIds = new HashSet<>();
+        for (Submission s : judged) {
+            if (s.getContest() == null && !staffIds.contains(s.getUser().getId())) {
+                userIds.add(s.getUser().getId());
+                problemIds.add(s.getProblem().getId());
+            }
+        }
+        Map<String, UserProblemStatus> statusByPair = new HashMap<>();
+        if (userIds.isEmpty()) return statusByPair;
+
+        for (UserProblemStatus status : userProblemStatusRepo.findByUserIdInAndProblemIdIn(userIds, problemIds)) {
+            statusByPair.put(pairKey(status.getUser().getId(), status.getProblem().getId()), status);
+        }
+        return statusByPair;
+    }
+
+    /**
+     * Cùng logic ACM/OI với luồng đơn lẻ, nhưng ghi vào delta thay vì UPDATE ngay.
+     */
+    private void applyPracticeResult(Submission submission, UserProblemStatus status,
+                                     UserStatsDelta userDelta, ProblemStatsDelta problemDelta) {
+        Problem problem = submission.getProblem();
+        boolean isAc = submission.getVerdict() == SubmissionVerdict.AC;
+
+        userDelta.addSubmission();
+        problemDelta.addSubmission();
+        if (isAc) {
+            userDelta.addAc();
+            problemDelta.addAccepted();
+        }
+
+        if (problem.getRuleType() == RuleType.ACM) {
+            if (isAc) {
+                if (status.getState() != UserProblemState.SOLVED) {
+                    status.setState(UserProblemState.SOLVED);
+                    userDelta.addSolved();
+                }
+            } else if (status.getState() != UserProblemState.SOLVED) {
+                status.setState(UserProblemState.ATTEMPTED);
+            }
+            return;
+        }
+
+        // =============== OI LOGIC ===============
+        double currentScore = submission.getScore() != null ? submission.getScore().doubleValue() : 0.0;
+        double previousMax = status.getMaxScore() != null ? status.getMaxScore() : 0.0;
+        if (currentScore > previousMax) {
+            status.setMaxScore(currentScore);
+            userDelta.addScore(currentScore - previousMax);
+        }
+
+        double problemTotalScore = problem.getTotalScore() != null ? problem.getTotalScore().doubleValue() : 0.0;
+        if (isAc || currentScore >= problemTotalScore) {
+            if (status.getState() != UserProblemState.SOLVED) {
+                status.setState(UserProblemState.SOLVED);
+                userDelta.addSolved();
+            }
+        } else if (status.getState() != UserProblemState.SOLVED) {
+            status.setState(UserProblemState.ATTEMPTED);
+        }
+    }
+
+    private static String pairKey(UUID userId, UUID problemId) {
+        return userId + "_" + problemId;
+    }
+}
@@ -11,8 +11,13 @@ import com.kma.ojcore.entity.UserProblemStatus;
 import com.kma.ojcore.enums.RuleType;
 import com.kma.ojcore.enums.UserProblemState;
 import com.kma.ojcore.repository.*;
+import com.kma.ojcore.service.scoring.ContestLiveLeaderboard;
 import com.kma.ojcore.service.scoring.ContestScoringStrategy;
 import com.kma.ojcore.service.scoring.ScoringStrategyFactory;
+import com.kma.ojcore.service.stats.ProblemStatsDelta;
+import com.kma.ojcore.service.stats.StatsCounterBuffer;
+import com.kma.ojcore.service.stats.UserStatsDelta;
+import com.kma.ojcore.service.submission.SubmissionBlobStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
@@ -20,6 +25,8 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -36,11 +43,16 @@ public class JudgeResultListener {
     private final ScoringStrategyFactory scoringStrategyFactory;
     private final ContestParticipationRepository contestParticipationRepository;
     private final ContestProblemRepository contestProblemRepository;
+    private final ContestLiveLeaderboard contestLiveLeaderboard;
+    private final JudgeResultBatchProcessor judgeResultBatchProcessor;
+    private final StatsCounterBuffer statsCounterBuffer;
+    private final SubmissionBlobStore submissionBlobStore;
 
     // ========================================================
     // FLOW 1: PROCESS SUBMISSION JUDGE RESULT
     // ========================================================
-    @RabbitListener(queues = RabbitMQConfig.RESULT_QUEUE)
+    // Chỉ chạy khi tắt batch mode (oj.judge.result-batch.enabled=false)
+    @RabbitListener(queues = RabbitMQConfig.RESULT_QUEUE, autoStartup = "#{!${oj.judge.result-batch.enabled:false}}")
     @Transactional
     public void handleJudgeResult(JudgeResultSdi result) {
         log.info("Received judge result from RabbitMQ for Submission ID: [{}] - Verdict: {}", result.getSubmissionId(), result.getSubmissionVerdict());
@@ -70,7 +82,7 @@ public class JudgeResultListener {
         submission.setTotalTestCount(result.getTotalTestCount());
         submission.setExecutionTimeMs(result.getExecutionTimeMs());
         submission.setExecutionMemoryMb(result.getExecutionMemoryMb());
-        submission.setErrorMessage(result.getErrorMessage());
+        submission.setErrorHash(submissionBlobStore.store(result.getErrorMessage()));
 
         // Save submission status early
         // Ensure Admin submission history is saved even if the flow is interrupted below
@@ -79,9 +91,8 @@ public class JudgeResultListener {
 
         if (user != null && problem != null) {
 
-            // 1. Check Role (Ghost Mode mechanism)
-            boolean isStaff = user.getRoles().stream()
-                    .anyMatch(r -> r.getName().name().equals("ROLE_ADMIN") || r.getName().name().equals("ROLE_MODERATOR") || r.getName().name().equals("ROLE_ASSESSOR"));
+            // 1. Check Role (Ghost Mode mechanism): cột users.is_staff, không lazy-load roles
+            boolean isStaff = Boolean.TRUE.equals(user.getStaff());
 
             if (isStaff) {
                 log.info("Staff debug mode: Saved test result, SKIPPING points and ranking update for Submission [{}]", submission.getId());
@@ -98,10 +109,12 @@ public class JudgeResultListener {
                 userProblemStatusRepo.recalculateStatus(user.getId(), problem.getId());
                 userRepository.recalculateUserStats(user.getId());
                 problemRepository.recalculateProblemStats(problem.getId());
+                statsCounterBuffer.onRecalculated(List.of(user.getId()), List.of(problem.getId()));
 
                 if (submission.getContest() != null) {
                     // Update the global leaderboard in contest mode!
                     contestParticipationRepository.recalculateOiScoresByContestId(submission.getContest().getId());
+                    contestLiveLeaderboard.invalidate(submission.getContest().getId());
                 }
 
                 // Tắt cờ hiệu để bài nộp trở về trạng thái ổn định
@@ -112,16 +125,16 @@ public class JudgeResultListener {
 
             // ONLY UPDATE GLOBAL STATS FOR NON-CONTEST SUBMISSIONS
             if (submission.getContest() == null) {
-                // 2. ATOMIC INCREMENT SUBMISSION_COUNT FOR USER AND PROBLEM
-                userRepository.incrementSubmissionCount(user.getId());
-                problemRepository.incrementSubmissionCount(problem.getId());
+                // 2. GOM DELTA COUNTER (flush xuống users/problems bởi StatsCounterBuffer, không khóa row ở đây)
+                UserStatsDelta userDelta = new UserStatsDelta().addSubmission();
+                ProblemStatsDelta problemDelta = new ProblemStatsDelta().addSubmission();
 
                 boolean isAc = "AC".equals(result.getSubmissionVerdict().toString());
 
-                // 3. IF AC -> ATOMIC INCREMENT AC_COUNT FOR USER AND PROBLEM
+                // 3. IF AC -> INCREMENT AC_COUNT FOR USER AND PROBLEM
                 if (isAc) {
-                    userRepository.incrementAcCount(user.getId());
-                    problemRepository.incrementAcceptedCount(problem.getId());
+                    userDelta.addAc();
+                    problemDelta.addAccepted();
                 }
 
                 // =========================================================
@@ -143,8 +156,7 @@ public class JudgeResultListener {
                         if (status.getState() != UserProblemState.SOLVED) {
                             status.setState(UserProblemState.SOLVED);
 
-                            // Atomic Increment Solved Count
-                            userRepository.incrementSolvedCount(user.getId());
+                            userDelta.addSolved();
                         }
                     } else if (status.getState() != UserProblemState.SOLVED) {
                         status.setState(UserProblemState.ATTEMPTED);
@@ -159,8 +171,7 @@ public class JudgeResultListener {
                         double scoreDiff = currentScore - previousMax;
                         status.setMaxScore(currentScore);
 
-                        // Atomic Add Total Score for User
-                        userRepository.addTotalScore(user.getId(), scoreDiff);
+                        userDelta.addScore(scoreDiff);
                     }
 
                     // 4.2 Update Problem Status & Solved Count
@@ -170,16 +181,16 @@ public class JudgeResultListener {
                         if (status.getState() != UserProblemState.SOLVED) {
                             status.setState(UserProblemState.SOLVED);
 
-                            // Atomic Increment Solved Count
-                            userRepository.incrementSolvedCount(user.getId());
+                            userDelta.addSolved();
                         }
                     } else if (status.getState() != UserProblemState.SOLVED) {
                         status.setState(UserProblemState.ATTEMPTED);
                     }
                 }
 
-                // 5. SAVE STATUS ONLY (Counters are updated atomically above)
+                // 5. SAVE STATUS, counters được ghi nhận sau commit
                 userProblemStatusRepo.save(status);
+                statsCounterBuffer.record(Map.of(user.getId(), userDelta), Map.of(problem.getId(), problemDelta));
             }
 
 
@@ -209,6 +220,30 @@ public class JudgeResultListener {
         }
     }
 
+    // ========================================================
+    // FLOW 1b: BATCH MODE - NHẬN N KẾT QUẢ MỖI LẦN
+    // ========================================================
+    @RabbitListener(queues = RabbitMQConfig.RESULT_QUEUE,
+            containerFactory = RabbitMQConfig.RESULT_BATCH_CONTAINER_FACTORY,
+            autoStartup = "${oj.judge.result-batch.enabled:false}")
+    public void handleJudgeResults(List<JudgeResultSdi> results) {
+        log.info("Received judge result batch from RabbitMQ: {} messages", results.size());
+        try {
+            judgeResultBatchProcessor.processBatch(results);
+        } catch (Exception e) {
+            // Cả lô đã rollback -> xử lý lại từng kết quả trong transaction riêng để 1 message lỗi không kéo cả lô
+            log.error("Judge result batch failed ({}), falling back to per-message processing", e.getMessage());
+            for (JudgeResultSdi result : results) {
+                try {
+                    judgeResultBatchProcessor.processBatch(List.of(result));
+                } catch (Exception ex) {
+                    // Submission vẫn PENDING -> SubmissionTimeoutScheduler sẽ cứu hộ
+                    log.error("Failed to process judge result for Submission [{}]: {}", result.getSubmissionId(), ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
     // ========================================================
     // FLOW 2: PROCESS RUN CODE RESULT
     // ========================================================
@@ -4,9 +4,11 @@ import com.kma.ojcore.exception.BusinessException;
 import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.service.FileStorageService;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
@@ -19,8 +21,20 @@ public class MinioFileStorageService implements FileStorageService {
 
     private final MinioClient minioClient;
 
+    @Value("${oj.storage.minio.stream-part-size}")
+    private long streamPartSize;
+
     @Override
     public String upload(String bucketName, String objectName, InputStream inputStream, long size, String contentType) {
+        return put(bucketName, objectName, inputStream, size, -1, contentType);
+    }
+
+    @Override
+    public String uploadStream(String bucketName, String objectName, InputStream inputStream, String contentType) {
+        return put(bucketName, objectName, inputStream, -1, streamPartSize, contentType);
+    }
+
+    private String put(String bucketName, String objectName, InputStream inputStream, long size, long partSize, String contentType) {
         try {
             boolean exists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
             if (!exists) {
@@ -31,7 +45,7 @@ public class MinioFileStorageService implements FileStorageService {
                     PutObjectArgs.builder()
                             .bucket(bucketName)
                             .object(objectName)
-                            .stream(inputStream, size, -1)
+                            .stream(inputStream, size, partSize)
                             .contentType(contentType)
                             .build());
             log.info("File uploaded to MinIO: bucket={}, object={}", bucketName, objectName);
@@ -42,6 +56,44 @@ public class MinioFileStorageService implements FileStorageService {
         }
     }
 
+    @Override
+    public boolean exists(String bucketName, String objectName) {
+        try {
+            minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build());
+            return true;
+        } catch (ErrorResponseException e) {
+            String code = e.errorResponse().code();
+            if ("NoSuchKey".equals(code) || "NoSuchBucket".equals(code) || "NoSuchObject".equals(code)) {
+                return false;
+            }
+            log.error("Failed to stat object on MinIO", e);
+            throw new BusinessException(ErrorCode.UNCATEGORIZED_EXCEPTION, "Failed to check file in storage.");
+        } catch (Exception e) {
+            log.error("Failed to stat object on MinIO", e);
+            throw new BusinessException(ErrorCode.UNCATEGORIZED_EXCEPTION, "Failed to check file in storage.");
+        }
+    }
+
+    @Override
+    public void copy(String bucketName, String sourceObject, String targetObject) {
+        try {
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(targetObject)
+                            .source(CopySource.builder().bucket(bucketName).object(sourceObject).build())
+                            .build());
+            log.info("File copied on MinIO: bucket={}, {} -> {}", bucketName, sourceObject, targetObject);
+        } catch (Exception e) {
+            log.error("Failed to copy file on MinIO", e);
+            throw new BusinessException(ErrorCode.FILE_UPLOAD_FAILED, "Failed to copy file in storage.");
+        }
+    }
+
     @Override
     public void delete(String bucketName, String objectName) {
         try {
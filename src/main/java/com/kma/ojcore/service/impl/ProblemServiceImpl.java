@@ -14,6 +14,9 @@ import com.kma.ojcore.mapper.TemplateMapper;
 import com.kma.ojcore.repository.*;
 import com.kma.ojcore.service.ImageStorageService;
 import com.kma.ojcore.service.ProblemService;
+import com.kma.ojcore.service.judge.ProblemJudgeCache;
+import com.kma.ojcore.service.stats.ProblemStatsDelta;
+import com.kma.ojcore.service.stats.StatsCounterBuffer;
 import com.kma.ojcore.utils.EscapeHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +43,8 @@ public class ProblemServiceImpl implements ProblemService {
     private final UserRepository userRepository;
     private final ContestProblemRepository contestProblemRepository;
     private final ContestRepository contestRepository;
+    private final StatsCounterBuffer statsCounterBuffer;
+    private final ProblemJudgeCache problemJudgeCache;
 
     @Transactional(rollbackFor = Throwable.class)
     @Override
@@ -108,7 +113,7 @@ public class ProblemServiceImpl implements ProblemService {
         if (problem.getStatus() != EStatus.ACTIVE || problem.getProblemStatus() != ProblemStatus.PUBLISHED) {
             throw new BusinessException(ErrorCode.PROBLEM_NOT_FOUND, "Problem is not available or inactive");
         }
-        return problemMapper.toProblemDetailsSdo(problem);
+        return withPendingStats(problemMapper.toProblemDetailsSdo(problem));
     }
 
     @Transactional(readOnly = true)
@@ -116,7 +121,7 @@ public class ProblemServiceImpl implements ProblemService {
     public ProblemDetailsSdo getAdminProblemById(UUID id) {
         Problem problem = problemRepository.findById(id)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PROBLEM_NOT_FOUND));
-        return problemMapper.toProblemDetailsSdo(problem);
+        return withPendingStats(problemMapper.toProblemDetailsSdo(problem));
     }
 
     @Transactional(readOnly = true)
@@ -129,7 +134,7 @@ public class ProblemServiceImpl implements ProblemService {
             throw new BusinessException(ErrorCode.PROBLEM_NOT_FOUND, "Problem is not available or inactive");
         }
         
-        return problemMapper.toProblemDetailsSdo(problem);
+        return withPendingStats(problemMapper.toProblemDetailsSdo(problem));
     }
 
     @Transactional(readOnly = true)
@@ -163,7 +168,7 @@ public class ProblemServiceImpl implements ProblemService {
         }
 
         // All checks passed — return problem details (even if INACTIVE/DRAFT)
-        return problemMapper.toProblemDetailsSdo(problem);
+        return withPendingStats(problemMapper.toProblemDetailsSdo(problem));
     }
 
     @Transactional(readOnly = true)
@@ -190,6 +195,18 @@ public class ProblemServiceImpl implements ProblemService {
                 .map(ProblemResponse::getId)
                 .collect(Collectors.toList());
 
+        // Cộng counter chưa flush (write-behind) để số submission/AC trên danh sách không bị trễ
+        Map<UUID, ProblemStatsDelta> pendingStats = statsCounterBuffer.pendingProblemDeltas(problemIds);
+        if (!pendingStats.isEmpty()) {
+            pageResult.getContent().forEach(problem -> {
+                ProblemStatsDelta pending = pendingStats.get(problem.getId());
+                if (pending != null) {
+                    problem.setSubmissionCount(nullToZero(problem.getSubmissionCount()) + pending.getSubmissionCount());
+                    problem.setAcceptedCount(nullToZero(problem.getAcceptedCount()) + pending.getAcceptedCount());
+                }
+            });
+        }
+
         // =========================================================
         // LUỒNG 1: LOGIC TRẠNG THÁI LÀM BÀI CỦA USER (Cũ của bro)
         // =========================================================
@@ -287,6 +304,8 @@ public class ProblemServiceImpl implements ProblemService {
         }
 
         Problem saved = problemRepository.save(problem);
+        // Limit / ngôn ngữ / rule type có thể đã đổi
+        problemJudgeCache.evict(id);
         log.info("Problem updated successfully: {}", id);
 
         return problemMapper.toProblemDetailsSdo(saved);
@@ -334,4 +353,17 @@ public class ProblemServiceImpl implements ProblemService {
     public long countUserProblemsByUserIdAndState(UUID userId, UserProblemState state) {
         return userProblemStatusRepo.countByUserIdAndState(userId, state);
     }
+
+    private ProblemDetailsSdo withPendingStats(ProblemDetailsSdo sdo) {
+        ProblemStatsDelta pending = statsCounterBuffer.pendingProblemDeltas(List.of(sdo.getId())).get(sdo.getId());
+        if (pending != null) {
+            sdo.setSubmissionCount(nullToZero(sdo.getSubmissionCount()) + pending.getSubmissionCount());
+            sdo.setAcceptedCount(nullToZero(sdo.getAcceptedCount()) + pending.getAcceptedCount());
+        }
+        return sdo;
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
 }
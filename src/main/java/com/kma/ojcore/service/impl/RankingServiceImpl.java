@@ -1,17 +1,26 @@
 package com.kma.ojcore.service.impl;
 
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.users.UserRankSdo;
 import com.kma.ojcore.enums.RuleType;
 import com.kma.ojcore.exception.BusinessException;
 import com.kma.ojcore.exception.ErrorCode;
+import com.kma.ojcore.repository.RankingJdbcRepository;
 import com.kma.ojcore.repository.UserRepository;
 import com.kma.ojcore.service.RankingService;
+import com.kma.ojcore.service.ranking.GlobalRankingIndex;
+import com.kma.ojcore.service.ranking.RankingEntry;
+import com.kma.ojcore.utils.CursorCodec;
 import com.kma.ojcore.utils.UuidHelper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -19,19 +28,23 @@ import java.util.UUID;
 public class RankingServiceImpl implements RankingService {
 
     private final UserRepository userRepository;
+    private final RankingJdbcRepository rankingJdbcRepository;
+    private final GlobalRankingIndex rankingIndex;
 
     @Override
     public Page<UserRankSdo> getRanking(RuleType ruleType, Pageable pageable) {
+        validateRuleType(ruleType);
 
-        Page<UserRepository.UserRankingProjection> ranking;
-
-        if(ruleType == RuleType.ACM) {
-            ranking = userRepository.getGlobalRankingACM(pageable);
-        } else if(ruleType == RuleType.OI) {
-            ranking = userRepository.getGlobalRankingOI(pageable);
-        } else {
-            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Invalid rule type: " + ruleType);
+        // Index trong RAM: O(log n + size), không quét bảng users
+        Optional<Page<UserRankSdo>> indexed = rankingIndex.page(ruleType, pageable);
+        if (indexed.isPresent()) {
+            return indexed.get();
         }
+
+        // Index chưa dựng xong (vừa khởi động) -> query SQL như cũ
+        Page<UserRepository.UserRankingProjection> ranking = ruleType == RuleType.ACM
+                ? userRepository.getGlobalRankingACM(pageable)
+                : userRepository.getGlobalRankingOI(pageable);
         return ranking.map(projection -> new UserRankSdo(
                 UuidHelper.getUuidFromBytes(projection.getUserId()),
                 projection.getUsername(),
@@ -43,4 +56,77 @@ public class RankingServiceImpl implements RankingService {
                 projection.getRank()
         ));
     }
-}
\ No newline at end of file
+
+    @Override
+    public CursorPageSdo<UserRankSdo> getRankingByCursor(RuleType ruleType, String cursor, int size) {
+        validateRuleType(ruleType);
+        CursorCodec.validateSize(size);
+        String kind = cursorKind(ruleType);
+        RankingEntry after = decodeCursor(cursor, kind);
+
+        List<UserRankSdo> rows = rankingIndex.after(ruleType, after, size + 1)
+                .orElseGet(() -> rankedAfterFromSql(ruleType, after, size + 1));
+        return CursorPageSdo.of(rows, size, last -> CursorCodec.encode(kind, last.getTotalScore(), last.getSolvedCount(),
+                last.getAcCount(), last.getSubmissionCount(), last.getUsername(), last.getId()));
+    }
+
+    private List<UserRankSdo> rankedAfterFromSql(RuleType ruleType, RankingEntry after, int limit) {
+        List<RankingEntry> entries = rankingJdbcRepository.findRankedAfter(ruleType, after, limit);
+        Comparator<RankingEntry> rankKey = ruleType == RuleType.ACM ? RankingEntry.ACM_RANK_KEY : RankingEntry.OI_RANK_KEY;
+
+        List<UserRankSdo> result = new ArrayList<>(entries.size());
+        int before = 0; // Số user đứng trước dòng đầu tiên của trang
+        int rank = 0;
+        RankingEntry previous = null;
+        for (int i = 0; i < entries.size(); i++) {
+            RankingEntry entry = entries.get(i);
+            if (previous == null) {
+                before = (int) rankingJdbcRepository.countRankedBefore(ruleType, entry);
+                rank = before + 1;
+            } else if (rankKey.compare(previous, entry) != 0) {
+                rank = before + i + 1;
+            }
+            result.add(new UserRankSdo(entry.userId(), entry.username(), entry.avatarUrl(), entry.acCount(),
+                    entry.solvedCount(), entry.submissionCount(), entry.totalScore(), rank));
+            previous = entry;
+        }
+        return result;
+    }
+
+    @Override
+    public UserRankSdo getUserRank(RuleType ruleType, UUID userId) {
+        validateRuleType(ruleType);
+
+        if (rankingIndex.isReady()) {
+            return rankingIndex.rankOf(ruleType, userId)
+                    .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, "User is not in the ranking."));
+        }
+
+        RankingEntry entry = rankingJdbcRepository.findByIds(List.of(userId)).stream().findFirst()
+                .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, "User is not in the ranking."));
+        int rank = (int) rankingJdbcRepository.countRankedBefore(ruleType, entry) + 1;
+        return new UserRankSdo(entry.userId(), entry.username(), entry.avatarUrl(), entry.acCount(),
+                entry.solvedCount(), entry.submissionCount(), entry.totalScore(), rank);
+    }
+
+    private static String cursorKind(RuleType ruleType) {
+        return ruleType == RuleType.ACM ? "rank-acm" : "rank-oi";
+    }
+
+    private static RankingEntry decodeCursor(String cursor, String kind) {
+        String[] parts = CursorCodec.decode(cursor, kind, 6);
+        if (parts == null) return null;
+        try {
+            return new RankingEntry(UUID.fromString(parts[5]), parts[4], null, Double.parseDouble(parts[0]),
+                    Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Invalid cursor.");
+        }
+    }
+
+    private void validateRuleType(RuleType ruleType) {
+        if (ruleType != RuleType.ACM && ruleType != RuleType.OI) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Invalid rule type: " + ruleType);
+        }
+    }
+}
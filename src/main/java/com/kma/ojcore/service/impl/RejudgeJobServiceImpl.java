@@ -0,0 +1,283 @@
+package com.kma.ojcore.service.impl;
+
+import com.kma.ojcore.config.LanguageLoader;
+import com.kma.ojcore.dto.request.submissions.JudgeSdi;
+import com.kma.ojcore.dto.request.submissions.RejudgeSdi;
+import com.kma.ojcore.dto.response.submissions.RejudgeJobSdo;
+import com.kma.ojcore.entity.RejudgeJob;
+import com.kma.ojcore.entity.Submission;
+import com.kma.ojcore.enums.JudgeLane;
+import com.kma.ojcore.enums.RejudgeJobStatus;
+import com.kma.ojcore.enums.RejudgeScope;
+import com.kma.ojcore.exception.BusinessException;
+import com.kma.ojcore.exception.ErrorCode;
+import com.kma.ojcore.repository.RejudgeJobRepository;
+import com.kma.ojcore.repository.SubmissionRepository;
+import com.kma.ojcore.service.JudgeOutboxService;
+import com.kma.ojcore.service.RejudgeJobService;
+import com.kma.ojcore.service.judge.JudgeSdiFactory;
+import com.kma.ojcore.service.judge.ProblemJudgeCache;
+import com.kma.ojcore.service.judge.ProblemJudgeSnapshot;
+import com.kma.ojcore.service.submission.SubmissionBlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RejudgeJobServiceImpl implements RejudgeJobService {
+
+    // Cursor khởi đầu: nhỏ hơn mọi BINARY(16)
+    private static final UUID MIN_CURSOR = new UUID(0L, 0L);
+    // Độ dài 1 phần tử "uuid," trong RejudgeJob.submissionIds
+    private static final int ID_CSV_WIDTH = 37;
+    private static final EnumSet<RejudgeJobStatus> ACTIVE_STATUSES = EnumSet.of(RejudgeJobStatus.PENDING, RejudgeJobStatus.RUNNING);
+
+    private final RejudgeJobRepository rejudgeJobRepository;
+    private final SubmissionRepository submissionRepository;
+    private final JudgeOutboxService judgeOutboxService;
+    private final LanguageLoader languageLoader;
+    private final SubmissionBlobStore submissionBlobStore;
+    private final ProblemJudgeCache problemJudgeCache;
+    private final JudgeSdiFactory judgeSdiFactory;
+
+    @Transactional(rollbackFor = Throwable.class)
+    @Override
+    public RejudgeJobSdo createJob(RejudgeSdi request) {
+        log.info("Creating rejudge job: {}", request);
+        RejudgeJob.RejudgeJobBuilder builder = RejudgeJob.builder().jobStatus(RejudgeJobStatus.PENDING);
+
+        if (request.getSubmissionIds() != null && !request.getSubmissionIds().isEmpty()) {
+            Set<UUID> ids = new LinkedHashSet<>(request.getSubmissionIds());
+            builder.scope(RejudgeScope.SUBMISSIONS)
+                    .submissionIds(ids.stream().map(UUID::toString).collect(Collectors.joining(",")))
+                    .totalCount((long) ids.size());
+        } else if (request.getProblemId() != null) {
+            builder.scope(RejudgeScope.PROBLEM)
+                    .problemId(request.getProblemId())
+                    .totalCount(submissionRepository.countByProblemId(request.getProblemId()));
+        } else if (request.getContestId() != null) {
+            builder.scope(RejudgeScope.CONTEST)
+                    .contestId(request.getContestId())
+                    .totalCount(submissionRepository.countByContestId(request.getContestId()));
+        } else {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED,
+                    "Cần truyền submissionIds, problemId, hoặc contestId.");
+        }
+
+        RejudgeJob job = builder.build();
+        if (job.getTotalCount() == 0) {
+            job.setJobStatus(RejudgeJobStatus.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        job = rejudgeJobRepository.save(job);
+        log.info("Rejudge job [{}] created: {} submissions ({})", job.getId(), job.getTotalCount(), job.getScope());
+        return toSdo(job);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public RejudgeJobSdo getJob(UUID jobId) {
+        return toSdo(findJob(jobId));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Page<RejudgeJobSdo> getJobs(Pageable pageable) {
+        return rejudgeJobRepository.findAllByOrderByCreatedDateDesc(pageable).map(this::toSdo);
+    }
+
+    @Transactional(rollbackFor = Throwable.class)
+    @Override
+    public RejudgeJobSdo pauseJob(UUID jobId) {
+        RejudgeJob job = findJob(jobId);
+        requireStatus(job, ACTIVE_STATUSES);
+        job.setJobStatus(RejudgeJobStatus.PAUSED);
+        return toSdo(rejudgeJobRepository.save(job));
+    }
+
+    @Transactional(rollbackFor = Throwable.class)
+    @Override
+    public RejudgeJobSdo resumeJob(UUID jobId) {
+        RejudgeJob job = findJob(jobId);
+        requireStatus(job, EnumSet.of(RejudgeJobStatus.PAUSED));
+        job.setJobStatus(job.getStartedAt() != null ? RejudgeJobStatus.RUNNING : RejudgeJobStatus.PENDING);
+        return toSdo(rejudgeJobRepository.save(job));
+    }
+
+    @Transactional(rollbackFor = Throwable.class)
+    @Override
+    public RejudgeJobSdo cancelJob(UUID jobId) {
+        RejudgeJob job = findJob(jobId);
+        requireStatus(job, EnumSet.of(RejudgeJobStatus.PENDING, RejudgeJobStatus.RUNNING, RejudgeJobStatus.PAUSED));
+        job.setJobStatus(RejudgeJobStatus.CANCELLED);
+        job.setFinishedAt(LocalDateTime.now());
+        job.setLeaseOwner(null);
+        job.setLeaseUntil(null);
+        return toSdo(rejudgeJobRepository.save(job));
+    }
+
+    @Transactional(rollbackFor = Throwable.class)
+    @Override
+    public int processNextChunk(UUID jobId, String leaseOwner, int limit) {
+        RejudgeJob job = rejudgeJobRepository.findById(jobId).orElse(null);
+        if (job == null || !ACTIVE_STATUSES.contains(job.getJobStatus()) || !leaseOwner.equals(job.getLeaseOwner())) {
+            return 0;
+        }
+        if (job.getJobStatus() == RejudgeJobStatus.PENDING) {
+            job.setJobStatus(RejudgeJobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+        }
+
+        List<UUID> ids = nextIds(job, limit);
+        if (ids.isEmpty()) {
+            job.setJobStatus(RejudgeJobStatus.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setLeaseOwner(null);
+            job.setLeaseUntil(null);
+            // Số thực tế đã xử lý (PROBLEM/CONTEST có thể lệch so với số đếm lúc tạo job)
+            job.setTotalCount(job.getQueuedCount() + job.getFailedCount());
+            rejudgeJobRepository.save(job);
+            log.info("Rejudge job [{}] completed: {} queued, {} failed", jobId, job.getQueuedCount(), job.getFailedCount());
+            return 0;
+        }
+
+        List<Submission> submissions = submissionRepository.findSubmissionsWithRulesByIds(ids);
+        List<UUID> queuedIds = new ArrayList<>(submissions.size());
+        List<JudgeSdi> payloads = new ArrayList<>(submissions.size());
+        long failed = ids.size() - submissions.size(); // Bị xóa cứng giữa chừng
+        // Source của cả chunk đọc 1 lần; nộp y hệt nhau dùng chung blob
+        Map<UUID, String> sources = submissionBlobStore.loadSources(submissions);
+        // Metadata chấm của các problem trong chunk: lấy từ cache, phần thiếu load chung 1 query
+        Map<UUID, ProblemJudgeSnapshot> problems = problemJudgeCache.getAll(
+                submissions.stream().map(s -> s.getProblem().getId()).toList());
+        for (Submission submission : submissions) {
+            if (languageLoader.getConfigByKey(submission.getLanguageKey()) == null) {
+                log.warn("Skipping rejudge for submission {}: Language {} not supported",
+                        submission.getId(), submission.getLanguageKey());
+                job.setLastError("Language " + submission.getLanguageKey() + " not supported (submission " + submission.getId() + ")");
+                failed++;
+                continue;
+            }
+            ProblemJudgeSnapshot problem = problems.get(submission.getProblem().getId());
+            if (problem == null || problem.limitsFor(submission.getLanguageKey()) == null) {
+                log.warn("Skipping rejudge for submission {}: problem {} missing or has no limits",
+                        submission.getId(), submission.getProblem().getId());
+                job.setLastError("Problem " + submission.getProblem().getId() + " cannot be judged (submission " + submission.getId() + ")");
+                failed++;
+                continue;
+            }
+            String sourceCode = sources.get(submission.getId());
+            if (sourceCode == null) {
+                // Không gửi source rỗng cho máy chấm: sẽ ra verdict sai
+                log.warn("Skipping rejudge for submission {}: source code not available", submission.getId());
+                job.setLastError("Source code not available (submission " + submission.getId() + ")");
+                failed++;
+                continue;
+            }
+            queuedIds.add(submission.getId());
+            payloads.add(judgeSdiFactory.build(problem, submission.getId(),
+                    submission.getContest() != null ? submission.getContest().getRuleType() : null,
+                    submission.getLanguageKey(), sourceCode));
+        }
+
+        // Đánh dấu rejudge + outbox + tiến độ trong cùng transaction: hoặc cả chunk được ghi nhận, hoặc không gì cả
+        if (!queuedIds.isEmpty()) {
+            submissionRepository.markSubmissionsForRejudge(queuedIds);
+            payloads.forEach(sdi -> judgeOutboxService.enqueue(JudgeLane.REJUDGE, sdi));
+        }
+        if (job.getScope() == RejudgeScope.SUBMISSIONS) {
+            job.setSubmissionOffset(submissionOffset(job) + ids.size());
+        } else {
+            job.setCursorId(ids.get(ids.size() - 1));
+        }
+        job.setQueuedCount(job.getQueuedCount() + queuedIds.size());
+        job.setFailedCount(job.getFailedCount() + failed);
+        rejudgeJobRepository.save(job);
+        return ids.size();
+    }
+
+    private List<UUID> nextIds(RejudgeJob job, int limit) {
+        if (job.getScope() == RejudgeScope.SUBMISSIONS) {
+            // Id không còn trong DB được tính là failed khi xử lý chunk
+            return sliceIds(job.getSubmissionIds(), submissionOffset(job), limit);
+        }
+        UUID cursor = job.getCursorId() != null ? job.getCursorId() : MIN_CURSOR;
+        Pageable page = PageRequest.of(0, limit);
+        return job.getScope() == RejudgeScope.PROBLEM
+                ? submissionRepository.findIdsByProblemIdAfter(job.getProblemId(), cursor, page)
+                : submissionRepository.findIdsByContestIdAfter(job.getContestId(), cursor, page);
+    }
+
+    private static int submissionOffset(RejudgeJob job) {
+        return job.getSubmissionOffset() != null ? job.getSubmissionOffset() : 0;
+    }
+
+    private RejudgeJob findJob(UUID jobId) {
+        return rejudgeJobRepository.findById(jobId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.REJUDGE_JOB_NOT_FOUND));
+    }
+
+    private void requireStatus(RejudgeJob job, Set<RejudgeJobStatus> allowed) {
+        if (!allowed.contains(job.getJobStatus())) {
+            throw new BusinessException(ErrorCode.REJUDGE_JOB_INVALID_STATE,
+                    "Rejudge job is " + job.getJobStatus());
+        }
+    }
+
+    // Chỉ parse các id của chunk: phần tử thứ i nằm ở [i * 37, i * 37 + 36)
+    private static List<UUID> sliceIds(String csv, int offset, int limit) {
+        if (csv == null) return List.of();
+        int total = (csv.length() + 1) / ID_CSV_WIDTH;
+        int end = Math.min(total, offset + limit);
+        List<UUID> ids = new ArrayList<>(Math.max(0, end - offset));
+        for (int i = offset; i < end; i++) {
+            int start = i * ID_CSV_WIDTH;
+            ids.add(UUID.fromString(csv.substring(start, start + ID_CSV_WIDTH - 1)));
+        }
+        return ids;
+    }
+
+    private RejudgeJobSdo toSdo(RejudgeJob job) {
+        long total = job.getTotalCount();
+        long processed = job.getQueuedCount() + job.getFailedCount();
+        Double percent = total > 0 ? Math.min(100.0, processed * 100.0 / total) : 100.0;
+
+        // ETA = phần còn lại / tốc độ trung bình từ lúc bắt đầu
+        Long eta = null;
+        if (job.getJobStatus() == RejudgeJobStatus.RUNNING && job.getStartedAt() != null && processed > 0) {
+            long elapsedSeconds = Math.max(1, Duration.between(job.getStartedAt(), LocalDateTime.now()).getSeconds());
+            eta = (long) Math.ceil(Math.max(0, total - processed) * (double) elapsedSeconds / processed);
+        }
+
+        return RejudgeJobSdo.builder()
+                .id(job.getId())
+                .scope(job.getScope())
+                .problemId(job.getProblemId())
+                .contestId(job.getContestId())
+                .jobStatus(job.getJobStatus())
+                .totalCount(total)
+                .totalCountEstimated(job.getScope() != RejudgeScope.SUBMISSIONS
+                        && job.getJobStatus() != RejudgeJobStatus.COMPLETED)
+                .queuedCount(job.getQueuedCount())
+                .failedCount(job.getFailedCount())
+                .progressPercent(percent)
+                .etaSeconds(eta)
+                .lastError(job.getLastError())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .createdDate(job.getCreatedDate())
+                .createdBy(job.getCreatedBy())
+                .build();
+    }
+}
@@ -1,15 +1,16 @@
 package com.kma.ojcore.service.impl;
 
-import com.kma.ojcore.config.LanguageLoader;
 import com.kma.ojcore.config.RabbitMQConfig;
 import com.kma.ojcore.dto.request.submissions.RunCodeRequest;
 import com.kma.ojcore.dto.request.submissions.RunCodeSubmitDto;
-import com.kma.ojcore.entity.LanguageConfig;
-import com.kma.ojcore.entity.Problem;
+import com.kma.ojcore.enums.JudgeLane;
 import com.kma.ojcore.exception.BusinessException;
 import com.kma.ojcore.exception.ErrorCode;
-import com.kma.ojcore.repository.ProblemRepository;
 import com.kma.ojcore.service.RunCodeService;
+import com.kma.ojcore.service.judge.JudgeLaneRouter;
+import com.kma.ojcore.service.judge.JudgeSdiFactory;
+import com.kma.ojcore.service.judge.ProblemJudgeCache;
+import com.kma.ojcore.service.judge.ProblemJudgeSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -22,48 +23,27 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RunCodeServiceImpl implements RunCodeService {
 
-    private final ProblemRepository problemRepository;
-    private final LanguageLoader languageLoader;
+    private final ProblemJudgeCache problemJudgeCache;
+    private final JudgeSdiFactory judgeSdiFactory;
     private final RabbitTemplate rabbitTemplate;
+    private final JudgeLaneRouter judgeLaneRouter;
 
     @Override
     public UUID sendToJudge(RunCodeSubmitDto request) {
 
-        Problem problem = problemRepository.findById(request.getProblemId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.PROBLEM_NOT_FOUND));
+        ProblemJudgeSnapshot problem = problemJudgeCache.get(request.getProblemId());
 
-        if (!problem.getAllowedLanguages().contains(request.getLanguageKey())) {
+        if (!problem.allowsLanguage(request.getLanguageKey())) {
             throw new BusinessException(ErrorCode.LANGUAGE_NOT_SUPPORTED);
         }
 
-        LanguageConfig langConfig = languageLoader.getConfigByKey(request.getLanguageKey());
-        if (langConfig == null) {
-            throw new BusinessException(ErrorCode.LANGUAGE_NOT_SUPPORTED);
-        }
-
-        int finalTimeLimit = (int) (problem.getTimeLimitMs() * langConfig.getTimeMultiplier()) + langConfig.getTimeLimitAllowance();
-        int finalMemoryLimit = (int) (problem.getMemoryLimitMb() * langConfig.getMemoryMultiplier()) + langConfig.getMemoryLimitAllowance();
-
         final UUID runToken = UUID.randomUUID();
 
-        RunCodeRequest judgeRequest = RunCodeRequest.builder()
-                .runToken(runToken)
-                .problemId(request.getProblemId())
-                .sourceCode(request.getSourceCode())
-                .languageKey(request.getLanguageKey())
-                .customInputs(request.getCustomInputs())
-                .compileCommand(langConfig.getCompileCommand())
-                .runCommand(langConfig.getRunCommand())
-                .isCompiled(langConfig.isCompiled())
-                .sourceName(langConfig.getSourceName())
-                .exeName(langConfig.getExeName())
-                .finalTimeLimitMs(finalTimeLimit)
-                .finalMemoryLimitMb(finalMemoryLimit)
-                .build();
+        RunCodeRequest judgeRequest = judgeSdiFactory.buildRunCode(problem, runToken, request);
 
         rabbitTemplate.convertAndSend(
                 RabbitMQConfig.JUDGE_EXCHANGE,
-                RabbitMQConfig.RUN_CODE_ROUTING_KEY,
+                judgeLaneRouter.routingKey(JudgeLane.RUN_CODE),
                 judgeRequest
         );
 
@@ -1,13 +1,16 @@
 package com.kma.ojcore.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.kma.ojcore.config.LanguageLoader;
+import com.kma.ojcore.annotation.CoalescedCache;
 import com.kma.ojcore.config.RabbitMQConfig;
 import com.kma.ojcore.dto.request.submissions.JudgeSdi;
 import com.kma.ojcore.dto.request.submissions.RejudgeSdi;
 import com.kma.ojcore.dto.request.submissions.SubmissionSdi;
+import com.kma.ojcore.dto.response.common.CursorPageSdo;
 import com.kma.ojcore.dto.response.problems.ProblemStatisticSdo;
+import com.kma.ojcore.dto.response.submissions.RejudgeJobSdo;
 import com.kma.ojcore.dto.response.submissions.RunCodeResponse;
+import com.kma.ojcore.dto.response.submissions.SubmissionBasicSdo;
 import com.kma.ojcore.dto.response.submissions.SubmissionDetailsSdo;
 import com.kma.ojcore.dto.response.submissions.SubmissionStatusSdo;
 import com.kma.ojcore.entity.*;
@@ -16,13 +19,26 @@ import com.kma.ojcore.exception.BusinessException;
 import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.mapper.ContestMapper;
 import com.kma.ojcore.repository.*;
+import com.kma.ojcore.security.CustomUserDetailsService;
+import com.kma.ojcore.security.UserPrincipal;
+import com.kma.ojcore.service.JudgeOutboxService;
+import com.kma.ojcore.service.RejudgeJobService;
 import com.kma.ojcore.service.SubmissionService;
+import com.kma.ojcore.service.contest.ContestAccessCache;
+import com.kma.ojcore.service.contest.ContestSnapshot;
+import com.kma.ojcore.service.contest.ParticipationState;
+import com.kma.ojcore.service.judge.JudgeLaneRouter;
+import com.kma.ojcore.service.judge.JudgeSdiFactory;
+import com.kma.ojcore.service.judge.ProblemJudgeCache;
+import com.kma.ojcore.service.judge.ProblemJudgeSnapshot;
+import com.kma.ojcore.service.stats.BulkRecalculationEngine;
+import com.kma.ojcore.service.submission.SubmissionBlobStore;
+import com.kma.ojcore.utils.CursorCodec;
 import com.kma.ojcore.utils.EscapeHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,40 +54,45 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class SubmissionServiceImpl implements SubmissionService {
 
+    private static final String SUBMISSION_CURSOR = "sub";
+
     private final SubmissionRepository submissionRepository;
+    private final SubmissionSearchRepository submissionSearchRepository;
     private final ProblemRepository problemRepository;
     private final UserRepository userRepository;
     private final UserProblemStatusRepository userProblemStatusRepository;
-    private final LanguageLoader languageLoader;
-    private final RabbitTemplate rabbitTemplate;
     private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
     private final ContestRepository contestRepository;
     private final ContestParticipationRepository contestParticipationRepository;
-    private final ContestProblemRepository contestProblemRepository;
     private final ContestMapper contestMapper;
     private final org.springframework.transaction.support.TransactionTemplate transactionTemplate;
+    private final JudgeOutboxService judgeOutboxService;
+    private final JudgeLaneRouter judgeLaneRouter;
+    private final RejudgeJobService rejudgeJobService;
+    private final BulkRecalculationEngine bulkRecalculationEngine;
+    private final ContestAccessCache contestAccessCache;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final SubmissionBlobStore submissionBlobStore;
+    private final ProblemJudgeCache problemJudgeCache;
+    private final JudgeSdiFactory judgeSdiFactory;
 
     @Transactional(rollbackFor = Throwable.class)
     @Override
     public UUID submitCode(SubmissionSdi request, UUID currentUserId) {
 
-        Problem problem = problemRepository.findById(request.getProblemId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.PROBLEM_NOT_FOUND));
-
-
-        if (!problem.getAllowedLanguages().contains(request.getLanguageKey())) {
-            throw new BusinessException(ErrorCode.LANGUAGE_NOT_SUPPORTED);
-        }
+        // Ngôn ngữ / giới hạn / version bộ test lấy từ snapshot đã cache, không nạp entity Problem
+        ProblemJudgeSnapshot problem = problemJudgeCache.get(request.getProblemId());
 
-        LanguageConfig langConfig = languageLoader.getConfigByKey(request.getLanguageKey());
-        if (langConfig == null) {
+        if (!problem.allowsLanguage(request.getLanguageKey())) {
             throw new BusinessException(ErrorCode.LANGUAGE_NOT_SUPPORTED);
         }
 
-        Contest contest = null;
+        // Phân quyền contest chỉ dùng snapshot + participation state đã cache, không đọc MySQL
+        ContestSnapshot contest = null;
         if (request.getContestId() != null) {
-            contest = contestRepository.findByIdAndStatus(request.getContestId(), EStatus.ACTIVE)
+            contest = contestAccessCache.findById(request.getContestId())
+                    .filter(ContestSnapshot::isActive)
                     .orElseThrow(() -> new BusinessException(ErrorCode.CONTEST_NOT_FOUND,
                             "Contest not found or not active."));
 
@@ -93,12 +114,13 @@ public class SubmissionServiceImpl implements SubmissionService {
             }
 
             // Luật 2: Lấy Participation lên để check đăng ký và quyền thi đấu cá nhân
-            ContestParticipation participation = contestParticipationRepository
-                    .findByContestIdAndUserId(contest.getId(), currentUserId)
-                    .orElseThrow(() -> new BusinessException(ErrorCode.NOT_REGISTERED,
-                            "You are not registered for this contest."));
+            ParticipationState participation = contestAccessCache.participation(contest, currentUserId);
+            if (!participation.isRegistered()) {
+                throw new BusinessException(ErrorCode.NOT_REGISTERED,
+                        "You are not registered for this contest.");
+            }
 
-            if (participation.getIsDisqualified()) {
+            if (participation.isDisqualified()) {
                 throw new BusinessException(ErrorCode.BANNED_FROM_CONTEST, "You are disqualified from this contest.");
             }
 
@@ -113,67 +135,51 @@ public class SubmissionServiceImpl implements SubmissionService {
                 }
             }
             // 2. Chặn nếu đã bị ép kết thúc
-            if (participation.getIsFinished()) {
+            if (participation.isFinished()) {
                 throw new BusinessException(ErrorCode.VALIDATION_FAILED, "You have already finished this contest.");
             }
 
             // 3. Tự động tước quyền nếu Hết giờ cá nhân (CHỈ CHECK KHI END TIME KHÔNG NULL)
-            if (participation.getEndTime() != null
-                    && java.time.LocalDateTime.now().isAfter(participation.getEndTime())) {
-                participation.setIsFinished(true); // Tự động khóa mõm luôn
-                contestParticipationRepository.save(participation);
+            if (participation.isSessionExpired(LocalDateTime.now())) {
+                // Tự động khóa mõm luôn
+                contestParticipationRepository.findById(participation.getParticipationId()).ifPresent(p -> {
+                    p.setIsFinished(true);
+                    contestParticipationRepository.save(p);
+                });
+                contestAccessCache.evictParticipant(contest.getId(), currentUserId);
                 throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Your contest session time has expired.");
             }
             // ==========================================
 
             // Luật 3: Bài toán này có nằm trong Contest không?
-            if (!contestProblemRepository.existsByContestIdAndProblemId(contest.getId(), problem.getId())) {
+            if (!contest.containsProblem(problem.getId())) {
                 throw new BusinessException(ErrorCode.VALIDATION_FAILED,
                         "This problem does not belong to the requested contest.");
             }
         }
 
         User user = userRepository.getReferenceById(currentUserId);
+        // Principal đã nằm trong PrincipalCache (vừa xác thực request) -> không tốn query để biết staff
+        boolean staff = ((UserPrincipal) customUserDetailsService.loadUserById(currentUserId)).isStaff();
 
         Submission submission = Submission.builder()
-                .problem(problem)
+                .problem(problemRepository.getReferenceById(problem.getId()))
                 .user(user)
-                .contest(contest)
+                .contest(contest != null ? contestRepository.getReferenceById(contest.getId()) : null)
                 .languageKey(request.getLanguageKey())
-                .sourceCode(request.getSourceCode())
+                .sourceHash(submissionBlobStore.store(request.getSourceCode()))
                 .submissionStatus(SubmissionStatus.PENDING)
                 .verdict(SubmissionVerdict.PENDING)
+                .staff(staff)
                 .build();
         submission = submissionRepository.save(submission);
 
-        int finalTimeLimit = (int) (problem.getTimeLimitMs() * langConfig.getTimeMultiplier())
-                + langConfig.getTimeLimitAllowance();
-        int finalMemoryLimit = (int) (problem.getMemoryLimitMb() * langConfig.getMemoryMultiplier())
-                + langConfig.getMemoryLimitAllowance();
-
-        JudgeSdi sdi = JudgeSdi.builder()
-                .submissionId(submission.getId())
-                .problemId(problem.getId())
-                .ruleType(contest != null ? contest.getRuleType().name() : problem.getRuleType().name())
-                .sourceCode(request.getSourceCode())
-                .languageKey(request.getLanguageKey())
-                .compileCommand(langConfig.getCompileCommand())
-                .runCommand(langConfig.getRunCommand())
-                .isCompiled(langConfig.isCompiled())
-                .sourceName(langConfig.getSourceName())
-                .exeName(langConfig.getExeName())
-                .finalTimeLimitMs(finalTimeLimit)
-                .finalMemoryLimitMb(finalMemoryLimit)
-                .build();
+        JudgeSdi sdi = judgeSdiFactory.build(problem, submission.getId(),
+                contest != null ? contest.getRuleType() : null,
+                request.getLanguageKey(), request.getSourceCode());
 
-        Submission finalSubmission = submission;
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                rabbitTemplate.convertAndSend(RabbitMQConfig.JUDGE_EXCHANGE, RabbitMQConfig.JUDGE_ROUTING_KEY, sdi);
-                log.info("Sent Submission [{}] to RabbitMQ AFTER DB COMMIT!", finalSubmission.getId());
-            }
-        });
+        // Ghi vào outbox cùng transaction với Submission, relay sẽ publish sau khi commit
+        judgeOutboxService.enqueue(judgeLaneRouter.laneOf(submission, contest != null ? contest.getEndTime() : null), sdi);
 
         return submission.getId();
     }
@@ -185,7 +191,22 @@ public class SubmissionServiceImpl implements SubmissionService {
             throw new BusinessException(ErrorCode.SUBMISSION_NOT_FOUND);
         }
 
-        return submissionRepository.getDetails(submissionId);
+        SubmissionDetailsSdo details = submissionRepository.getDetails(submissionId);
+        // Source / log lỗi chỉ nạp ở màn chi tiết, 1 lần đọc cho cả 2 blob
+        Map<String, String> contents = submissionBlobStore.loadAll(
+                Arrays.asList(details.getSourceHash(), details.getErrorHash()));
+        details.setSourceCode(contents.get(details.getSourceHash()));
+        details.setErrorMessage(contents.get(details.getErrorHash()));
+        if (details.getSourceHash() == null) {
+            // Dòng backfill chưa tới: nội dung vẫn ở cột cũ (error_hash có thể đã có nếu chấm sau khi chuyển)
+            submissionBlobStore.loadLegacyContent(submissionId).ifPresent(legacy -> {
+                details.setSourceCode(legacy.sourceCode());
+                if (details.getErrorHash() == null) {
+                    details.setErrorMessage(legacy.errorMessage());
+                }
+            });
+        }
+        return details;
     }
 
     @Override
@@ -208,7 +229,7 @@ public class SubmissionServiceImpl implements SubmissionService {
     }
 
     @Override
-    public Page<?> getSubmissions(UUID problemId,
+    public Slice<?> getSubmissions(UUID problemId,
             UUID userId,
             SubmissionVerdict submissionVerdict,
             String keyword,
@@ -222,8 +243,60 @@ public class SubmissionServiceImpl implements SubmissionService {
             boolean hideStaff,
             boolean ignoreContestPrivacy,
             boolean isPracticeOnly,
+            boolean withCount,
             Pageable pageable) {
 
+        SubmissionSearchRepository.Filter filter = buildSearchFilter(problemId, userId, submissionVerdict, keyword,
+                status, problemStatus, submissionStatus, languageKey, fromDate, toDate, allowedVerdicts, hideStaff,
+                ignoreContestPrivacy, isPracticeOnly);
+        return submissionSearchRepository.search(filter, pageable, withCount);
+    }
+
+    @Override
+    public CursorPageSdo<SubmissionBasicSdo> getSubmissionsByCursor(UUID problemId,
+            UUID userId,
+            SubmissionVerdict submissionVerdict,
+            String keyword,
+            EStatus status,
+            ProblemStatus problemStatus,
+            EStatus submissionStatus,
+            String languageKey,
+            LocalDateTime fromDate,
+            LocalDateTime toDate,
+            List<SubmissionVerdict> allowedVerdicts,
+            boolean hideStaff,
+            boolean ignoreContestPrivacy,
+            boolean isPracticeOnly,
+            String cursor,
+            int size) {
+
+        CursorCodec.validateSize(size);
+        CursorCodec.TimeIdKey after = CursorCodec.decodeTimeId(cursor, SUBMISSION_CURSOR);
+        SubmissionSearchRepository.Filter filter = buildSearchFilter(problemId, userId, submissionVerdict, keyword,
+                status, problemStatus, submissionStatus, languageKey, fromDate, toDate, allowedVerdicts, hideStaff,
+                ignoreContestPrivacy, isPracticeOnly);
+
+        List<SubmissionBasicSdo> rows = submissionSearchRepository.searchAfter(filter,
+                after != null ? after.createdDate() : null, after != null ? after.id() : null, size + 1);
+        return CursorPageSdo.of(rows, size,
+                last -> CursorCodec.encodeTimeId(SUBMISSION_CURSOR, last.getCreatedDate(), last.getSubmissionId()));
+    }
+
+    private SubmissionSearchRepository.Filter buildSearchFilter(UUID problemId,
+            UUID userId,
+            SubmissionVerdict submissionVerdict,
+            String keyword,
+            EStatus status,
+            ProblemStatus problemStatus,
+            EStatus submissionStatus,
+            String languageKey,
+            LocalDateTime fromDate,
+            LocalDateTime toDate,
+            List<SubmissionVerdict> allowedVerdicts,
+            boolean hideStaff,
+            boolean ignoreContestPrivacy,
+            boolean isPracticeOnly) {
+
         if (problemId != null && !problemRepository.existsById(problemId)) {
             throw new BusinessException(ErrorCode.PROBLEM_NOT_FOUND);
         }
@@ -234,12 +307,27 @@ public class SubmissionServiceImpl implements SubmissionService {
 
         String searchKeyword = EscapeHelper.escapeLike(keyword);
 
-        return submissionRepository.getSubmissions(problemId, userId, submissionVerdict, searchKeyword, status,
-                problemStatus, submissionStatus, languageKey, fromDate, toDate, allowedVerdicts, hideStaff,
-                ignoreContestPrivacy, isPracticeOnly, pageable);
+        return SubmissionSearchRepository.Filter.builder()
+                .problemId(problemId)
+                .userId(userId)
+                .verdict(submissionVerdict)
+                .keyword(searchKeyword)
+                .problemEntityStatus(status)
+                .problemStatus(problemStatus)
+                .submissionStatus(submissionStatus)
+                .languageKey(languageKey)
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .allowedVerdicts(allowedVerdicts)
+                .hideStaff(hideStaff)
+                .ignoreContestPrivacy(ignoreContestPrivacy)
+                .practiceOnly(isPracticeOnly)
+                .build();
     }
 
     @Override
+    @CoalescedCache(keyPrefix = "${oj.redis.prefix.problem-stats}",
+            key = "#problemId + ':' + #allowedVerdicts", softTtl = 10, hardTtl = 120)
     public ProblemStatisticSdo getProblemStatistics(UUID problemId, List<SubmissionVerdict> allowedVerdicts) {
         List<SubmissionRepository.VerdictCountProjection> projections = submissionRepository
                 .countSubmissionsByVerdict(problemId);
@@ -271,105 +359,18 @@ public class SubmissionServiceImpl implements SubmissionService {
 
     @Override
     public String getLatestSubmissionCode(UUID problemId, UUID userId, String languageKey) {
+        // Đi qua loadSources để dòng chưa backfill (source_hash NULL) vẫn đọc được từ cột cũ
         return submissionRepository
-                .findFirstSourceCodeByProblemIdAndUserIdAndLanguageKey(problemId, userId, languageKey).orElse(null);
+                .findLatestByProblemIdAndUserIdAndLanguageKey(problemId, userId, languageKey)
+                .map(submission -> submissionBlobStore.loadSources(List.of(submission)).get(submission.getId()))
+                .orElse(null);
     }
 
     @Override
     @Transactional
-    public void rejudgeSubmissions(RejudgeSdi request) {
-        log.info("Starting Rejudge request: {}", request);
-        List<UUID> targetIds = new ArrayList<>();
-
-        if (request.getSubmissionIds() != null && !request.getSubmissionIds().isEmpty()) {
-            targetIds.addAll(request.getSubmissionIds());
-        } else if (request.getProblemId() != null) {
-            targetIds.addAll(submissionRepository.findIdsByProblemId(request.getProblemId()));
-            log.info("Found {} submissions for Problem [{}] to rejudge", targetIds.size(), request.getProblemId());
-        } else if (request.getContestId() != null) {
-            targetIds.addAll(submissionRepository.findIdsByContestId(request.getContestId()));
-            log.info("Found {} submissions for Contest [{}] to rejudge", targetIds.size(), request.getContestId());
-        } else {
-            throw new BusinessException(ErrorCode.VALIDATION_FAILED,
-                    "Cần truyền submissionIds, problemId, hoặc contestId.");
-        }
-
-        if (targetIds.isEmpty()) {
-            log.info("No submissions found to rejudge.");
-            return;
-        }
-
-        // 1. Cập nhật trạng thái ngay lập tức trong transaction hiện tại
-        int batchSize = 1000;
-        for (int i = 0; i < targetIds.size(); i += batchSize) {
-            List<UUID> batchIds = targetIds.subList(i, Math.min(i + batchSize, targetIds.size()));
-            submissionRepository.markSubmissionsForRejudge(batchIds);
-        }
-
-        // 2. Đăng ký xử lý bắn Message Queue ở background SAU KHI COMMIT thành công
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        log.info("[Background Rejudge] Bắt đầu đẩy {} bài nộp vào hàng đợi...", targetIds.size());
-                        processRejudgeQueueing(targetIds);
-                        log.info("[Background Rejudge] Hoàn tất đẩy bài vào hàng đợi.");
-                    } catch (Exception e) {
-                        log.error("[Background Rejudge] Lỗi nghiêm trọng khi xử lý ngầm: {}", e.getMessage(), e);
-                    }
-                });
-            }
-        });
-    }
-
-    /**
-     * Phương thức nội bộ chạy ngầm để đẩy bài nộp vào RabbitMQ
-     */
-    private void processRejudgeQueueing(List<UUID> targetIds) {
-        int batchSize = 1000;
-        for (int i = 0; i < targetIds.size(); i += batchSize) {
-            List<UUID> batchIds = targetIds.subList(i, Math.min(i + batchSize, targetIds.size()));
-            List<Submission> submissionsBatch = submissionRepository.findSubmissionsWithRulesByIds(batchIds);
-
-            for (Submission submission : submissionsBatch) {
-                try {
-                    Problem problem = submission.getProblem();
-                    LanguageConfig langConfig = languageLoader.getConfigByKey(submission.getLanguageKey());
-
-                    if (langConfig == null) {
-                        log.warn("Skipping rejudge for submission {}: Language {} not supported", 
-                                submission.getId(), submission.getLanguageKey());
-                        continue;
-                    }
-
-                    int finalTimeLimit = (int) (problem.getTimeLimitMs() * langConfig.getTimeMultiplier())
-                            + langConfig.getTimeLimitAllowance();
-                    int finalMemoryLimit = (int) (problem.getMemoryLimitMb() * langConfig.getMemoryMultiplier())
-                            + langConfig.getMemoryLimitAllowance();
-
-                    JudgeSdi sdi = JudgeSdi.builder()
-                            .submissionId(submission.getId())
-                            .problemId(problem.getId())
-                            .ruleType(submission.getContest() != null ? submission.getContest().getRuleType().name()
-                                    : problem.getRuleType().name())
-                            .sourceCode(submission.getSourceCode())
-                            .languageKey(submission.getLanguageKey())
-                            .compileCommand(langConfig.getCompileCommand())
-                            .runCommand(langConfig.getRunCommand())
-                            .isCompiled(langConfig.isCompiled())
-                            .sourceName(langConfig.getSourceName())
-                            .exeName(langConfig.getExeName())
-                            .finalTimeLimitMs(finalTimeLimit)
-                            .finalMemoryLimitMb(finalMemoryLimit)
-                            .build();
-
-                    rabbitTemplate.convertAndSend(RabbitMQConfig.JUDGE_EXCHANGE, RabbitMQConfig.JUDGE_ROUTING_KEY, sdi);
-                } catch (Exception e) {
-                    log.error("Error queueing rejudge for submission {}: {}", submission.getId(), e.getMessage());
-                }
-            }
-        }
+    public RejudgeJobSdo rejudgeSubmissions(RejudgeSdi request) {
+        // Tạo job bền vững; RejudgeJobRunner sẽ đẩy dần theo chunk (keyset + giới hạn tốc độ)
+        return rejudgeJobService.createJob(request);
     }
 
     @Transactional(rollbackFor = Throwable.class)
@@ -400,7 +401,7 @@ public class SubmissionServiceImpl implements SubmissionService {
     }
 
     private void triggerBulkRecalculations(List<UUID> submissionIds) {
-        log.info("Registering Bulk Native Recalculations in background after commit for {} submissions",
+        log.info("Registering Bulk Recalculations in background after commit for {} submissions",
                 submissionIds.size());
 
         // 1. Find impacted relations within the current transaction
@@ -413,45 +414,11 @@ public class SubmissionServiceImpl implements SubmissionService {
                     public void afterCommit() {
                         CompletableFuture.runAsync(() -> {
                             try {
-                                log.info("[Background Job] Starting Native Recalculations for {} submissions...",
+                                log.info("[Background Job] Starting set-based recalculations for {} submissions...",
                                         submissionIds.size());
 
-                                transactionTemplate.execute(status -> {
-                                    Set<UUID> uniqueUserIds = new HashSet<>();
-                                    Set<UUID> uniqueProblemIds = new HashSet<>();
-                                    Set<UUID> uniqueContestIds = new HashSet<>();
-                                    Set<String> processedPairs = new HashSet<>();
-
-                                    for (Object[] row : impacts) {
-                                        UUID userId = (UUID) row[0];
-                                        UUID problemId = (UUID) row[1];
-                                        UUID contestId = (UUID) row[2];
-
-                                        if (userId != null)
-                                            uniqueUserIds.add(userId);
-                                        if (problemId != null)
-                                            uniqueProblemIds.add(problemId);
-                                        if (contestId != null)
-                                            uniqueContestIds.add(contestId);
-
-                                        if (userId != null && problemId != null) {
-                                            String pairKey = userId + "_" + problemId;
-                                            if (!processedPairs.contains(pairKey)) {
-                                                userProblemStatusRepository.recalculateStatus(userId, problemId);
-                                                processedPairs.add(pairKey);
-                                            }
-                                        }
-                                    }
-
-                                    for (UUID contestId : uniqueContestIds)
-                                        contestParticipationRepository.recalculateOiScoresByContestId(contestId);
-                                    for (UUID problemId : uniqueProblemIds)
-                                        problemRepository.recalculateProblemStats(problemId);
-                                    for (UUID userId : uniqueUserIds)
-                                        userRepository.recalculateUserStats(userId);
-
-                                    return null;
-                                });
+                                // Các chunk commit riêng, mỗi chunk vài câu UPDATE ... JOIN thay vì 1 câu cho mỗi key
+                                bulkRecalculationEngine.recalculate(impacts);
 
                                 log.info("[Background Job] Completed Bulk Recalculations successfully.");
                             } catch (Exception e) {
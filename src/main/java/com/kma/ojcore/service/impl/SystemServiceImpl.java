@@ -1,5 +1,6 @@
 package com.kma.ojcore.service.impl;
 
+import com.kma.ojcore.annotation.CoalescedCache;
 import com.kma.ojcore.config.LanguageLoader;
 import com.kma.ojcore.dto.response.common.DashboardStatsSdo;
 import com.kma.ojcore.dto.response.common.LanguageSdo;
@@ -47,6 +48,7 @@ public class SystemServiceImpl implements SystemService {
     }
 
     @Override
+    @CoalescedCache(keyPrefix = "${oj.redis.prefix.dashboard-stats}", key = "#days", softTtl = 30, hardTtl = 600)
     public DashboardStatsSdo getAdminDashboardStats(Integer days) {
         if (days == null || days <= 0) days = 7;
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
@@ -7,21 +7,39 @@ import com.kma.ojcore.exception.ErrorCode;
 import com.kma.ojcore.repository.ProblemRepository;
 import com.kma.ojcore.service.FileStorageService;
 import com.kma.ojcore.service.TestcaseService;
+import com.kma.ojcore.service.judge.ProblemJudgeCache;
+import com.kma.ojcore.service.testcase.PipedObjectUpload;
+import com.kma.ojcore.service.testcase.StrippedOutputMd5;
+import com.kma.ojcore.service.testcase.TestcaseBlobStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.TeeInputStream;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -39,22 +57,75 @@ public class TestcasesServiceImpl implements TestcaseService {
     @Value("${oj.storage.minio.suffix-testcase}")
     private String testcaseSuffix;
 
+    // true = vẫn upload nguyên testcases.zip cho máy chấm chưa đọc được manifest dạng hash
+    @Value("${oj.testcase.legacy-archive}")
+    private boolean legacyArchive;
+
     private final ProblemRepository problemRepository;
     private final ObjectMapper objectMapper;
     private final FileStorageService minioService;
+    private final TestcaseBlobStore testcaseBlobStore;
+    private final ProblemJudgeCache problemJudgeCache;
+
+    // Buffer pipe giữa luồng đọc archive và luồng upload archive lên MinIO
+    private static final int UPLOAD_PIPE_BUFFER = 1 << 20;
+    private static final int MANIFEST_VERSION = 2;
+    // Thư mục manifest bất biến trong testcaseDir, key = sha256 nội dung (= Problem.testcaseManifestHash)
+    private static final String MANIFEST_DIR = "manifests";
+    // Archive của từng lần upload, chờ commit rồi mới copy đè testcases.zip
+    private static final String ARCHIVE_DIR = "archives";
+
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        uploadExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "testcase-upload-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdownNow();
+    }
 
+    /**
+     * Đọc archive đúng 1 lần, mỗi entry .in/.out được ghi ra file tạm đồng thời tính size / sha256 /
+     * strippedOutputMd5. Sau khi archive hợp lệ:
+     * <ol>
+     *   <li>Chỉ upload các file có hash chưa tồn tại trong kho chung ({@link TestcaseBlobStore}).</li>
+     *   <li>Ghi manifest (trỏ tới hash) sau cùng vào {@code manifests/<sha256>.json}, nên máy chấm không bao giờ thấy
+     *       manifest thiếu file; rồi mới tăng testcaseVersion. info.json cố định chỉ được ghi đè sau commit.</li>
+     * </ol>
+     * Khi bật {@code oj.testcase.legacy-archive}, archive được tee lên MinIO song song lúc đọc vào key riêng của lần
+     * upload ({@code archives/<uploadId>.zip}); chỉ sau commit mới copy đè testcases.zip cùng lúc với info.json,
+     * rollback thì xoá key riêng đó. Heap không phụ thuộc kích thước archive.
+     */
     @Transactional(rollbackFor = Throwable.class)
     @Override
     public void processAndUploadTestcases(UUID problemId, MultipartFile zipFile) throws IOException {
         Problem problem = problemRepository.findById(problemId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PROBLEM_NOT_FOUND));
 
+        String minioPath = String.format("%s/%s/%s", problemPrefix, problemId, testcaseSuffix);
         Path tempDir = Files.createTempDirectory("oj_testcase_" + problemId);
-        Map<String, byte[]> fileMap = new HashMap<>();
+        Path entryDir = Files.createDirectory(tempDir.resolve("entries"));
+        Map<String, TestcaseFileInfo> fileMap = new HashMap<>();
+        int entrySeq = 0;
         String configJsonStr = null;
+        String archiveKey = minioPath + "/" + ARCHIVE_DIR + "/" + UUID.randomUUID() + ".zip";
 
-        try {
-            try (ZipInputStream zis = new ZipInputStream(zipFile.getInputStream())) {
+        try (PipedObjectUpload archiveUpload = legacyArchive
+                ? new PipedObjectUpload(minioService, uploadExecutor, UPLOAD_PIPE_BUFFER,
+                        testcaseBucket, archiveKey, "application/zip")
+                : null) {
+
+            InputStream rawArchive = zipFile.getInputStream();
+            try (InputStream archive = archiveUpload != null ? new TeeInputStream(rawArchive, archiveUpload.sink()) : rawArchive;
+                 ZipInputStream zis = new ZipInputStream(archive)) {
                 ZipEntry entry;
                 while ((entry = zis.getNextEntry()) != null) {
                     if (entry.isDirectory()) continue;
@@ -65,10 +136,18 @@ public class TestcasesServiceImpl implements TestcaseService {
                         if (fileName.equals("config.json")) {
                             configJsonStr = new String(zis.readAllBytes(), StandardCharsets.UTF_8);
                         } else if (fileName.endsWith(".in") || fileName.endsWith(".out")) {
-                            fileMap.put(fileName, zis.readAllBytes());
+                            TestcaseFileInfo previous = fileMap.put(fileName,
+                                    spillEntry(zis, entryDir.resolve(String.valueOf(entrySeq++)), fileName.endsWith(".out")));
+                            if (previous != null) {
+                                Files.deleteIfExists(previous.file()); // Trùng tên ở thư mục khác: bản sau thắng như trước
+                            }
                         }
                     }
                 }
+                if (archiveUpload != null) {
+                    // ZipInputStream dừng trước central directory, phần còn lại vẫn phải đi qua tee để lên MinIO đủ file
+                    archive.transferTo(OutputStream.nullOutputStream());
+                }
             }
 
             List<String> baseNames = fileMap.keySet().stream()
@@ -147,6 +226,9 @@ public class TestcasesServiceImpl implements TestcaseService {
             // Ghi ra info.json
             Map<String, Object> finalInfo = new HashMap<>();
             finalInfo.put("problemId", problemId.toString());
+            // Manifest v2: mỗi testcase có inputHash / outputHash, file nằm ở <blobPrefix>/<2 ký tự đầu>/<hash>
+            finalInfo.put("manifestVersion", MANIFEST_VERSION);
+            finalInfo.put("blobPrefix", testcaseBlobStore.getBlobPrefix());
             if (!subtaskList.isEmpty()) {
                 finalInfo.put("subtasks", subtaskList);
             }
@@ -157,49 +239,138 @@ public class TestcasesServiceImpl implements TestcaseService {
             Path infoJsonPath = tempDir.resolve("info.json");
             objectMapper.writeValue(infoJsonPath.toFile(), finalInfo);
 
-            String minioPath = String.format("%s/%s/%s", problemPrefix, problemId, testcaseSuffix);
-
-            minioService.upload(
-                    testcaseBucket,
-                    minioPath + "/info.json",
-                    Files.newInputStream(infoJsonPath),
-                    Files.size(infoJsonPath),
-                    "application/json"
-            );
+            // Chỉ đẩy file mới; hash trùng (cùng bài hay bài khác) bỏ qua. Cặp in/out không được dùng thì không upload
+            Map<String, Path> fileByHash = new HashMap<>();
+            forEachTestcase(finalInfo, tc -> {
+                TestcaseFileInfo in = fileMap.get((String) tc.get("inputName"));
+                TestcaseFileInfo out = fileMap.get((String) tc.get("outputName"));
+                fileByHash.putIfAbsent(in.sha256(), in.file());
+                fileByHash.putIfAbsent(out.sha256(), out.file());
+            });
+            int uploaded = testcaseBlobStore.uploadMissing(fileByHash);
+            log.info("Problem {}: {} testcase files, {} new uploaded", problemId, fileByHash.size(), uploaded);
+
+            // Archive hợp lệ -> cho upload hoàn tất (vào key riêng, testcases.zip đang dùng chưa bị đụng tới)
+            if (archiveUpload != null) {
+                archiveUpload.complete();
+                afterRollback(() -> minioService.delete(testcaseBucket, archiveKey));
+            }
 
-            minioService.upload(
-                    testcaseBucket,
-                    minioPath + "/testcases.zip",
-                    zipFile.getInputStream(),
-                    zipFile.getSize(),
-                    "application/zip"
-            );
+            // Manifest bất biến theo hash: <testcaseDir>/manifests/<sha256>.json. Message đang xếp hàng cho version cũ
+            // vẫn tải đúng manifest cũ; transaction rollback chỉ để lại 1 object thừa, không đổi bộ test đang dùng
+            byte[] manifest = Files.readAllBytes(infoJsonPath);
+            String manifestHash = DigestUtils.sha256Hex(manifest);
+            String manifestKey = minioPath + "/" + MANIFEST_DIR + "/" + manifestHash + ".json";
+            if (!minioService.exists(testcaseBucket, manifestKey)) {
+                minioService.upload(testcaseBucket, manifestKey, new ByteArrayInputStream(manifest), manifest.length,
+                        "application/json");
+            }
 
-            problem.setTestcaseDir(minioPath);
-            problemRepository.save(problem);
+            // Manifest đã nằm trên storage mới tăng version
+            problemRepository.publishTestcases(problemId, minioPath, manifestHash);
+            // testcases.zip + info.json (key cố định, cho máy chấm đời cũ) chỉ ghi đè khi version mới đã commit
+            afterCommit(() -> {
+                if (archiveUpload != null) {
+                    minioService.copy(testcaseBucket, archiveKey, minioPath + "/testcases.zip");
+                }
+                minioService.upload(testcaseBucket, minioPath + "/info.json",
+                        new ByteArrayInputStream(manifest), manifest.length, "application/json");
+                if (archiveUpload != null) {
+                    minioService.delete(testcaseBucket, archiveKey);
+                }
+            });
+            problemJudgeCache.evict(problemId);
+            Long version = problemRepository.findTestcaseVersionById(problemId);
 
-            log.info("Successfully processed and uploaded testcases for problem {}", problemId);
+            log.info("Successfully processed and uploaded testcases for problem {} (version {}, manifest {})",
+                    problemId, version, manifestHash);
 
         } finally {
             FileUtils.deleteDirectory(tempDir.toFile());
         }
     }
 
-    private Map<String, Object> buildTestCaseInfoMap(String inName, String outName, Map<String, byte[]> fileMap, int score) {
-        byte[] inBytes = fileMap.get(inName);
-        byte[] outBytes = fileMap.get(outName);
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // Version mới đã commit; chỉ máy chấm đời cũ (đọc info.json) bị ảnh hưởng tới lần upload sau
+                log.error("Failed to update legacy testcases.zip / info.json after commit: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    // Dọn object đã upload khi transaction rollback (lỗi ở bước sau hoặc commit thất bại)
+    private void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
 
-        String rawOutputStr = new String(outBytes, StandardCharsets.UTF_8);
-        String strippedOutputStr = rawOutputStr.replaceAll("(?m)[ \\t]+$", "").replace("\r\n", "\n").trim();
-        String strippedOutputMd5 = DigestUtils.md5Hex(strippedOutputStr.getBytes(StandardCharsets.UTF_8));
+    // Ghi 1 entry ra file tạm, cùng lượt đọc tính size, sha256 và strippedOutputMd5 (chỉ file .out)
+    private TestcaseFileInfo spillEntry(InputStream entryStream, Path target, boolean isOutput) throws IOException {
+        MessageDigest sha256 = DigestUtils.getSha256Digest();
+        StrippedOutputMd5 stripped = isOutput ? new StrippedOutputMd5() : null;
+        long size = 0;
+        byte[] buffer = new byte[8192];
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int n;
+            while ((n = entryStream.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                sha256.update(buffer, 0, n);
+                if (stripped != null) {
+                    stripped.write(buffer, 0, n);
+                }
+                size += n;
+            }
+        }
+        return new TestcaseFileInfo(target, size, Hex.encodeHexString(sha256.digest()),
+                stripped != null ? stripped.hex() : null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void forEachTestcase(Map<String, Object> info, Consumer<Map<String, Object>> action) {
+        List<Map<String, Object>> plain = (List<Map<String, Object>>) info.get("testCases");
+        if (plain != null) plain.forEach(action);
+        List<Map<String, Object>> subtasks = (List<Map<String, Object>>) info.get("subtasks");
+        if (subtasks != null) {
+            subtasks.forEach(sub -> ((List<Map<String, Object>>) sub.get("testCases")).forEach(action));
+        }
+    }
+
+    private Map<String, Object> buildTestCaseInfoMap(String inName, String outName, Map<String, TestcaseFileInfo> fileMap, int score) {
+        TestcaseFileInfo in = fileMap.get(inName);
+        TestcaseFileInfo out = fileMap.get(outName);
 
         Map<String, Object> tcInfo = new HashMap<>();
         tcInfo.put("inputName", inName);
         tcInfo.put("outputName", outName);
-        tcInfo.put("inputSize", inBytes.length);
-        tcInfo.put("outputSize", outBytes.length);
-        tcInfo.put("strippedOutputMd5", strippedOutputMd5);
+        tcInfo.put("inputSize", in.size());
+        tcInfo.put("outputSize", out.size());
+        tcInfo.put("inputHash", in.sha256());
+        tcInfo.put("outputHash", out.sha256());
+        tcInfo.put("strippedOutputMd5", out.strippedOutputMd5());
         tcInfo.put("score", score);
         return tcInfo;
     }
-}
\ No newline at end of file
+
+    private record TestcaseFileInfo(Path file, long size, String sha256, String strippedOutputMd5) {
+    }
+}
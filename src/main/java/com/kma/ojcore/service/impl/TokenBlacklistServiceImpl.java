@@ -1,46 +1,176 @@
 package com.kma.ojcore.service.impl;
 
+import com.kma.ojcore.security.jwt.JwtTokenProvider;
 import com.kma.ojcore.service.TokenBlacklistService;
+import com.kma.ojcore.utils.BloomFilter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Blacklist access token theo jti (key ngắn, TTL = thời gian sống còn lại của token).
+ * Mỗi node giữ 1 Bloom filter các jti đã bị thu hồi, đồng bộ qua Redis pub/sub và dựng lại định kỳ bằng SCAN
+ * (vừa bù message bị lỡ, vừa loại các jti đã hết hạn). Chỉ khi filter báo "có thể có" mới hỏi Redis.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class TokenBlacklistServiceImpl implements TokenBlacklistService {
+public class TokenBlacklistServiceImpl implements TokenBlacklistService, MessageListener {
+
+    // Format cũ: key = full JWT. Chỉ còn dùng để chuyển đổi 1 lần lúc khởi động.
+    private static final String LEGACY_BLACKLIST_PREFIX = "blacklist:token:";
+    private static final int SCAN_BATCH = 1000;
 
     @Value("${jwt.access-expiration}")
     private long jwtAccessExpirationMs;
 
+    @Value("${oj.redis.prefix.token-blacklist}")
+    private String blacklistPrefix;
+
+    @Value("${oj.redis.channel.token-revoked}")
+    private String revokedChannel;
+
+    @Value("${oj.security.token-blacklist.expected-insertions}")
+    private long expectedInsertions;
+
+    @Value("${oj.security.token-blacklist.false-positive-rate}")
+    private double falsePositiveRate;
+
     private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final JwtTokenProvider tokenProvider;
 
-    private static final String BLACKLIST_PREFIX = "blacklist:token:";
+    // null = chưa dựng được filter (Redis lỗi lúc khởi động) -> hỏi thẳng Redis như trước
+    private volatile BloomFilter filter;
+    // Filter đang được dựng lại: jti mới thu hồi trong lúc SCAN phải được ghi vào cả 2
+    private BloomFilter rebuilding;
+
+    @PostConstruct
+    void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(revokedChannel));
+        try {
+            migrateLegacyKeys();
+            resyncLocalFilter();
+        } catch (Exception e) {
+            log.warn("Token blacklist filter not ready, falling back to Redis lookups: {}", e.getMessage());
+        }
+    }
 
     @Override
     public void blacklistToken(String token) {
+        Claims claims;
+        try {
+            claims = tokenProvider.getAccessTokenClaims(token);
+        } catch (ExpiredJwtException e) {
+            log.debug("Token already expired, no need to blacklist");
+            return;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Ignoring blacklist request for invalid token: {}", e.getMessage());
+            return;
+        }
+
+        String tokenId = tokenProvider.getTokenId(claims, token);
+        long ttlMs = claims.getExpiration() != null
+                ? claims.getExpiration().getTime() - System.currentTimeMillis()
+                : jwtAccessExpirationMs;
+        if (ttlMs <= 0) return;
+
+        addLocal(tokenId);
         try {
-            long expirationMs = jwtAccessExpirationMs;
-            String key = BLACKLIST_PREFIX + token;
-            redisTemplate.opsForValue().set(key, "blacklisted", expirationMs, TimeUnit.MILLISECONDS);
-            log.info("Token added to blacklist with TTL: {} ms", expirationMs);
+            redisTemplate.opsForValue().set(blacklistPrefix + tokenId, "1", ttlMs, TimeUnit.MILLISECONDS);
+            redisTemplate.convertAndSend(revokedChannel, tokenId);
+            log.info("Token {} added to blacklist with TTL: {} ms", tokenId, ttlMs);
         } catch (Exception e) {
             log.error("Error blacklisting token: {}", e.getMessage());
         }
     }
 
     @Override
-    public boolean isBlacklisted(String token) {
+    public boolean isBlacklisted(String tokenId) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(tokenId)) {
+            return false;
+        }
         try {
-            String key = BLACKLIST_PREFIX + token;
-            return redisTemplate.hasKey(key);
+            return Boolean.TRUE.equals(redisTemplate.hasKey(blacklistPrefix + tokenId));
         } catch (Exception e) {
             log.error("Error checking token blacklist: {}", e.getMessage());
-            return false;
+            // Filter đã báo trúng thì gần như chắc chắn token bị thu hồi
+            return current != null;
+        }
+    }
+
+    @Override
+    public int resyncLocalFilter() {
+        BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveRate);
+        synchronized (this) {
+            rebuilding = fresh;
+        }
+        int count = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions()
+                .match(blacklistPrefix + "*").count(SCAN_BATCH).build())) {
+            while (cursor.hasNext()) {
+                fresh.put(cursor.next().substring(blacklistPrefix.length()));
+                count++;
+            }
+            synchronized (this) {
+                filter = fresh;
+            }
+        } finally {
+            synchronized (this) {
+                rebuilding = null;
+            }
+        }
+        if (count > expectedInsertions) {
+            log.warn("Token blacklist holds {} entries, above expected {}: false positive rate will rise", count, expectedInsertions);
+        }
+        return count;
+    }
+
+    // ===== Pub/Sub: jti vừa bị thu hồi ở node khác =====
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private synchronized void addLocal(String tokenId) {
+        if (filter != null) filter.put(tokenId);
+        if (rebuilding != null) rebuilding.put(tokenId);
+    }
+
+    /**
+     * Chuyển các key blacklist:token:&lt;JWT&gt; còn sống sang key theo jti để token đã logout trước khi deploy
+     * không dùng lại được.
+     */
+    private void migrateLegacyKeys() {
+        List<String> legacyKeys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions()
+                .match(LEGACY_BLACKLIST_PREFIX + "*").count(SCAN_BATCH).build())) {
+            cursor.forEachRemaining(legacyKeys::add);
+        }
+        if (legacyKeys.isEmpty()) return;
+
+        for (String key : legacyKeys) {
+            blacklistToken(key.substring(LEGACY_BLACKLIST_PREFIX.length()));
         }
+        redisTemplate.delete(legacyKeys);
+        log.info("Migrated {} legacy token blacklist keys to jti keys", legacyKeys.size());
     }
-}
\ No newline at end of file
+}
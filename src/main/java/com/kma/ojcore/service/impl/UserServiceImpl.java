@@ -15,12 +15,17 @@ import com.kma.ojcore.repository.RoleRepository;
 import com.kma.ojcore.repository.SubmissionRepository;
 import com.kma.ojcore.repository.UserProblemStatusRepository;
 import com.kma.ojcore.repository.UserRepository;
+import com.kma.ojcore.security.PrincipalCache;
 import com.kma.ojcore.service.ImageStorageService;
 import com.kma.ojcore.service.UserService;
+import com.kma.ojcore.service.ranking.UserStatsChangedEvent;
+import com.kma.ojcore.service.stats.StaffFlagSynchronizer;
+import com.kma.ojcore.service.stats.StatsCounterBuffer;
+import com.kma.ojcore.service.stats.UserStatsDelta;
 import com.kma.ojcore.utils.EscapeHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -45,6 +50,10 @@ public class UserServiceImpl implements UserService {
     private final ImageStorageService imageStorageService;
     private final SubmissionRepository submissionRepo;
     private final UserProblemStatusRepository userProblemStatusRepo;
+    private final StatsCounterBuffer statsCounterBuffer;
+    private final PrincipalCache principalCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StaffFlagSynchronizer staffFlagSynchronizer;
 
     @Transactional(rollbackFor = Throwable.class)
     @Override
@@ -61,6 +70,8 @@ public class UserServiceImpl implements UserService {
 
         user.setAvatarUrl(newAvatarUrl);
         userRepository.save(user);
+        principalCache.invalidate(userId);
+        eventPublisher.publishEvent(new UserStatsChangedEvent(List.of(userId)));
 
         return newAvatarUrl;
     }
@@ -99,7 +110,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByUserIdAndStatusIsActive(userId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND));
 
-        return userMapper.toUserDetailsSdo(user, isMine);
+        return withPendingStats(userMapper.toUserDetailsSdo(user, isMine), user.getId());
     }
 
     @Transactional(readOnly = true)
@@ -108,7 +119,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND));
 
-        return userMapper.toUserDetailsSdo(user, isMine);
+        return withPendingStats(userMapper.toUserDetailsSdo(user, isMine), user.getId());
     }
 
     @Transactional(rollbackFor = Throwable.class)
@@ -119,6 +130,7 @@ public class UserServiceImpl implements UserService {
 
         userMapper.UpdateUserFromUpdateSdi(request, user);
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
         return userMapper.toUserDetailsSdo(updatedUser, true);
     }
 
@@ -161,7 +173,6 @@ public class UserServiceImpl implements UserService {
 
     @Transactional(rollbackFor = Throwable.class)
     @Override
-    @CacheEvict(value = "userDetails", allEntries = true)
     public void bulkToggleUserLock(UUID adminId, List<UUID> userTargetIds, boolean accountNonLocked) {
         if (userTargetIds.contains(adminId)) {
             throw new BusinessException(ErrorCode.CANNOT_MODIFY_SELF);
@@ -173,11 +184,11 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.bulkUpdateAccountNonLocked(accountNonLocked, userTargetIds);
+        principalCache.invalidate(userTargetIds);
     }
 
     @Transactional(rollbackFor = Throwable.class)
     @Override
-    @CacheEvict(value = "userDetails", key = "#targetUserId")
     public void updateUserRoles(UUID adminId, UUID targetUserId, Set<RoleName> roleNames) {
         if (adminId.equals(targetUserId)) {
             throw new BusinessException(ErrorCode.CANNOT_MODIFY_SELF);
@@ -197,6 +208,25 @@ public class UserServiceImpl implements UserService {
 
         targetUser.getRoles().clear();
         targetUser.getRoles().addAll(newRoles);
+        staffFlagSynchronizer.applyRoles(targetUser);
         userRepository.save(targetUser);
+        principalCache.invalidate(targetUserId);
+        eventPublisher.publishEvent(new UserStatsChangedEvent(List.of(targetUserId))); // Thành / thôi là staff
     }
-}
\ No newline at end of file
+
+    // Cộng phần counter chưa flush của StatsCounterBuffer để profile hiển thị ngay kết quả vừa chấm
+    private UserDetailsSdo withPendingStats(UserDetailsSdo sdo, UUID userId) {
+        UserStatsDelta pending = statsCounterBuffer.pendingUserDelta(userId);
+        if (pending.isEmpty()) return sdo;
+
+        sdo.setSubmissionCount(nullToZero(sdo.getSubmissionCount()) + (int) pending.getSubmissionCount());
+        sdo.setAcCount(nullToZero(sdo.getAcCount()) + (int) pending.getAcCount());
+        sdo.setSolvedCount(nullToZero(sdo.getSolvedCount()) + (int) pending.getSolvedCount());
+        sdo.setTotalScore((sdo.getTotalScore() != null ? sdo.getTotalScore() : 0.0) + pending.getTotalScore());
+        return sdo;
+    }
+
+    private static int nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.kma.ojcore.service.judge;
+
+import com.kma.ojcore.config.RabbitMQConfig;
+import com.kma.ojcore.entity.Submission;
+import com.kma.ojcore.enums.JudgeLane;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chọn routing key / priority cho việc gửi máy chấm theo lane.
+ * <ul>
+ *     <li>lanes (mặc định): mỗi lane 1 queue riêng, worker chia consumer cho từng queue.</li>
+ *     <li>priority: bài chấm (contest/practice/rejudge) dồn vào judge.priority.queue, broker giao theo priority.</li>
+ * </ul>
+ * Run code luôn đi queue riêng vì payload khác JudgeSdi.
+ */
+@Component
+public class JudgeLaneRouter {
+
+    private static final String MODE_PRIORITY = "priority";
+
+    private final boolean priorityMode;
+
+    public JudgeLaneRouter(@Value("${oj.judge.dispatch.mode:lanes}") String mode) {
+        this.priorityMode = MODE_PRIORITY.equalsIgnoreCase(mode);
+    }
+
+    public String routingKey(JudgeLane lane) {
+        if (lane == JudgeLane.RUN_CODE) {
+            return RabbitMQConfig.RUN_CODE_ROUTING_KEY;
+        }
+        if (priorityMode) {
+            return RabbitMQConfig.JUDGE_PRIORITY_ROUTING_KEY;
+        }
+        return switch (lane) {
+            case CONTEST -> RabbitMQConfig.JUDGE_CONTEST_ROUTING_KEY;
+            case REJUDGE -> RabbitMQConfig.JUDGE_REJUDGE_ROUTING_KEY;
+            default -> RabbitMQConfig.JUDGE_ROUTING_KEY;
+        };
+    }
+
+    /**
+     * Tên queue mà lane đang đổ vào (dùng để đo độ sâu hàng đợi).
+     */
+    public String queueName(JudgeLane lane) {
+        if (lane == JudgeLane.RUN_CODE) {
+            return RabbitMQConfig.RUN_CODE_QUEUE;
+        }
+        if (priorityMode) {
+            return RabbitMQConfig.JUDGE_PRIORITY_QUEUE;
+        }
+        return switch (lane) {
+            case CONTEST -> RabbitMQConfig.JUDGE_CONTEST_QUEUE;
+            case REJUDGE -> RabbitMQConfig.JUDGE_REJUDGE_QUEUE;
+            default -> RabbitMQConfig.JUDGE_QUEUE;
+        };
+    }
+
+    /**
+     * Priority gắn vào message, null nếu không chạy chế độ priority.
+     */
+    public Integer priority(JudgeLane lane) {
+        return priorityMode ? lane.getPriority() : null;
+    }
+
+    /**
+     * Lane của 1 bài nộp: đang rejudge -> REJUDGE, nộp trong giờ thi -> CONTEST, còn lại (luyện tập, upsolve) -> PRACTICE.
+     */
+    public JudgeLane laneOf(Submission submission) {
+        return laneOf(submission, submission.getContest() != null ? submission.getContest().getEndTime() : null);
+    }
+
+    /**
+     * Như {@link #laneOf(Submission)} khi caller đã có sẵn giờ kết thúc contest (tránh nạp proxy Contest).
+     */
+    public JudgeLane laneOf(Submission submission, LocalDateTime contestEndTime) {
+        if (Boolean.TRUE.equals(submission.getIsRejudged())) {
+            return JudgeLane.REJUDGE;
+        }
+        if (contestEndTime != null
+                && (submission.getCreatedDate() == null
+                || !submission.getCreatedDate().isAfter(contestEndTime))) {
+            return JudgeLane.CONTEST;
+        }
+        return JudgeLane.PRACTICE;
+    }
+}
@@ -0,0 +1,47 @@
+package com.kma.ojcore.service.judge;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Converter của RabbitTemplate: JudgeSdi / RunCodeRequest đi định dạng {@link JudgeWireCodec} khi bật compact,
+ * mọi payload khác (và cả 2 loại trên khi tắt compact) đi JSON như cũ.
+ * Chiều nhận chọn theo content_type của message nên đọc được cả 2 định dạng.
+ */
+public class JudgeMessageConverter implements MessageConverter {
+
+    private final MessageConverter delegate;
+    private final JudgeWireCodec codec;
+    private final boolean compact;
+
+    public JudgeMessageConverter(MessageConverter delegate, JudgeWireCodec codec, boolean compact) {
+        this.delegate = delegate;
+        this.codec = codec;
+        this.compact = compact;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        if (!compact || !codec.supports(object)) {
+            return delegate.toMessage(object, messageProperties);
+        }
+        byte[] body = codec.encode(object);
+        messageProperties.setContentType(JudgeWireCodec.CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        if (JudgeWireCodec.CONTENT_TYPE.equals(message.getMessageProperties().getContentType())) {
+            try {
+                return codec.decode(message.getBody());
+            } catch (IllegalArgumentException e) {
+                throw new MessageConversionException("Failed to decode judge message", e);
+            }
+        }
+        return delegate.fromMessage(message);
+    }
+}
@@ -0,0 +1,88 @@
+package com.kma.ojcore.service.judge;
+
+import com.kma.ojcore.config.LanguageLoader;
+import com.kma.ojcore.dto.request.submissions.JudgeSdi;
+import com.kma.ojcore.dto.request.submissions.RunCodeRequest;
+import com.kma.ojcore.dto.request.submissions.RunCodeSubmitDto;
+import com.kma.ojcore.entity.LanguageConfig;
+import com.kma.ojcore.enums.RuleType;
+import com.kma.ojcore.exception.BusinessException;
+import com.kma.ojcore.exception.ErrorCode;
+import com.kma.ojcore.service.judge.ProblemJudgeSnapshot.JudgeLimits;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Dựng payload gửi máy chấm từ {@link ProblemJudgeSnapshot} + cấu hình ngôn ngữ trong RAM, dùng chung cho
+ * nộp bài, run code, rejudge và cứu submission kẹt.
+ */
+@Component
+@RequiredArgsConstructor
+public class JudgeSdiFactory {
+
+    private final LanguageLoader languageLoader;
+
+    /**
+     * @param contestRuleType rule của contest nếu bài nộp thuộc contest (ghi đè rule của problem), ngược lại null
+     */
+    public JudgeSdi build(ProblemJudgeSnapshot problem, UUID submissionId, RuleType contestRuleType,
+                          String languageKey, String sourceCode) {
+        LanguageConfig langConfig = language(languageKey);
+        JudgeLimits limits = limits(problem, languageKey);
+
+        return JudgeSdi.builder()
+                .submissionId(submissionId)
+                .problemId(problem.getId())
+                .ruleType(contestRuleType != null ? contestRuleType.name() : problem.getRuleType().name())
+                .sourceCode(sourceCode)
+                .languageKey(languageKey)
+                .compileCommand(langConfig.getCompileCommand())
+                .runCommand(langConfig.getRunCommand())
+                .isCompiled(langConfig.isCompiled())
+                .sourceName(langConfig.getSourceName())
+                .exeName(langConfig.getExeName())
+                .finalTimeLimitMs(limits.timeLimitMs())
+                .finalMemoryLimitMb(limits.memoryLimitMb())
+                .testcaseVersion(problem.getTestcaseVersion())
+                .testcaseManifestHash(problem.getTestcaseManifestHash())
+                .build();
+    }
+
+    public RunCodeRequest buildRunCode(ProblemJudgeSnapshot problem, UUID runToken, RunCodeSubmitDto request) {
+        LanguageConfig langConfig = language(request.getLanguageKey());
+        JudgeLimits limits = limits(problem, request.getLanguageKey());
+
+        return RunCodeRequest.builder()
+                .runToken(runToken)
+                .problemId(problem.getId())
+                .sourceCode(request.getSourceCode())
+                .languageKey(request.getLanguageKey())
+                .customInputs(request.getCustomInputs())
+                .compileCommand(langConfig.getCompileCommand())
+                .runCommand(langConfig.getRunCommand())
+                .isCompiled(langConfig.isCompiled())
+                .sourceName(langConfig.getSourceName())
+                .exeName(langConfig.getExeName())
+                .finalTimeLimitMs(limits.timeLimitMs())
+                .finalMemoryLimitMb(limits.memoryLimitMb())
+                .build();
+    }
+
+    private LanguageConfig language(String languageKey) {
+        LanguageConfig langConfig = languageLoader.getConfigByKey(languageKey);
+        if (langConfig == null) {
+            throw new BusinessException(ErrorCode.LANGUAGE_NOT_SUPPORTED);
+        }
+        return langConfig;
+    }
+
+    private static JudgeLimits limits(ProblemJudgeSnapshot problem, String languageKey) {
+        JudgeLimits limits = problem.limitsFor(languageKey);
+        if (limits == null) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Problem has no time/memory limit configured.");
+        }
+        return limits;
+    }
+}
@@ -0,0 +1,294 @@
+package com.kma.ojcore.service.judge;
+
+import com.kma.ojcore.config.LanguageLoader;
+import com.kma.ojcore.dto.request.submissions.JudgeSdi;
+import com.kma.ojcore.dto.request.submissions.RunCodeRequest;
+import com.kma.ojcore.dto.request.submissions.RunTestCaseSdi;
+import com.kma.ojcore.entity.LanguageConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Định dạng nhị phân gọn cho message gửi máy chấm ({@link #CONTENT_TYPE}), thay cho JSON của JudgeSdi / RunCodeRequest.
+ * <p>
+ * Số nguyên big-endian. {@code str} = u16 độ dài + UTF-8 (0xFFFF = null).
+ * {@code text} = u8 codec (0 null, 1 UTF-8 thô, 2 zlib) + i32 độ dài thô [+ i32 độ dài nén nếu zlib] + bytes.
+ * <pre>
+ * u8   format version (1)
+ * u8   kind: 1 = JudgeSdi, 2 = RunCodeRequest
+ * 16B  submissionId / runToken
+ * 16B  problemId
+ * str  languageKey
+ * 32B  language config version (sha256 của languages.json, xem LanguageConfigPublisher)
+ * i32  finalTimeLimitMs
+ * i32  finalMemoryLimitMb
+ * JudgeSdi:       str ruleType, i64 testcaseVersion (-1 = null), str testcaseManifestHash
+ * RunCodeRequest: i32 số custom input, mỗi input: text rawInput, text expectedOutput
+ * text sourceCode
+ * </pre>
+ * Lệnh compile/run, sourceName, exeName không gửi: máy chấm tra languages.json theo version rồi theo languageKey.
+ * Text từ {@code oj.judge.wire.compress-min-bytes} trở lên được nén zlib (nếu nhỏ hơn bản thô).
+ */
+@Component
+public class JudgeWireCodec {
+
+    public static final String CONTENT_TYPE = "application/vnd.oj.judge-v1";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int KIND_JUDGE = 1;
+    private static final int KIND_RUN_CODE = 2;
+
+    private static final int TEXT_NULL = 0;
+    private static final int TEXT_RAW = 1;
+    private static final int TEXT_ZLIB = 2;
+
+    private static final int NULL_STRING = 0xFFFF;
+
+    private final LanguageLoader languageLoader;
+    private final int compressMinBytes;
+    private final byte[] configVersion;
+
+    public JudgeWireCodec(LanguageLoader languageLoader,
+                          @Value("${oj.judge.wire.compress-min-bytes:16384}") int compressMinBytes) {
+        this.languageLoader = languageLoader;
+        this.compressMinBytes = compressMinBytes;
+        this.configVersion = HexFormat.of().parseHex(languageLoader.getConfigVersion());
+    }
+
+    public boolean supports(Object payload) {
+        return payload instanceof JudgeSdi || payload instanceof RunCodeRequest;
+    }
+
+    // ===== Encode =====
+
+    public byte[] encode(Object payload) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(FORMAT_VERSION);
+            if (payload instanceof JudgeSdi sdi) {
+                out.writeByte(KIND_JUDGE);
+                writeHeader(out, sdi.getSubmissionId(), sdi.getProblemId(), sdi.getLanguageKey(),
+                        sdi.getFinalTimeLimitMs(), sdi.getFinalMemoryLimitMb());
+                writeString(out, sdi.getRuleType());
+                out.writeLong(sdi.getTestcaseVersion() != null ? sdi.getTestcaseVersion() : -1L);
+                writeString(out, sdi.getTestcaseManifestHash());
+                writeText(out, sdi.getSourceCode());
+            } else if (payload instanceof RunCodeRequest request) {
+                out.writeByte(KIND_RUN_CODE);
+                writeHeader(out, request.getRunToken(), request.getProblemId(), request.getLanguageKey(),
+                        request.getFinalTimeLimitMs(), request.getFinalMemoryLimitMb());
+                List<RunTestCaseSdi> inputs = request.getCustomInputs() != null ? request.getCustomInputs() : List.of();
+                out.writeInt(inputs.size());
+                for (RunTestCaseSdi input : inputs) {
+                    writeText(out, input.getRawInput());
+                    writeText(out, input.getExpectedOutput());
+                }
+                writeText(out, request.getSourceCode());
+            } else {
+                throw new IllegalArgumentException("Unsupported judge payload: " + payload.getClass().getName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private void writeHeader(DataOutputStream out, UUID id, UUID problemId, String languageKey,
+                             int finalTimeLimitMs, int finalMemoryLimitMb) throws IOException {
+        writeUuid(out, id);
+        writeUuid(out, problemId);
+        writeString(out, languageKey);
+        out.write(configVersion);
+        out.writeInt(finalTimeLimitMs);
+        out.writeInt(finalMemoryLimitMb);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("String field too long for judge wire format: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(TEXT_NULL);
+            return;
+        }
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= compressMinBytes) {
+            byte[] compressed = new byte[raw.length];
+            int length = deflate(raw, compressed);
+            if (length >= 0) {
+                out.writeByte(TEXT_ZLIB);
+                out.writeInt(raw.length);
+                out.writeInt(length);
+                out.write(compressed, 0, length);
+                return;
+            }
+        }
+        out.writeByte(TEXT_RAW);
+        out.writeInt(raw.length);
+        out.write(raw);
+    }
+
+    // ===== Decode (tham chiếu cho phía máy chấm) =====
+
+    /**
+     * Giải mã về JudgeSdi / RunCodeRequest. Lệnh của ngôn ngữ chỉ được điền lại khi version khớp languages.json
+     * đang nạp; khác version thì để null (bên nhận phải tự tra theo version).
+     */
+    public Object decode(byte[] body) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported judge wire format version: " + format);
+            }
+            int kind = in.readUnsignedByte();
+            UUID id = readUuid(in);
+            UUID problemId = readUuid(in);
+            String languageKey = readString(in);
+            byte[] version = in.readNBytes(configVersion.length);
+            int finalTimeLimitMs = in.readInt();
+            int finalMemoryLimitMb = in.readInt();
+            LanguageConfig lang = Arrays.equals(version, configVersion)
+                    ? languageLoader.getConfigByKey(languageKey) : null;
+
+            if (kind == KIND_JUDGE) {
+                String ruleType = readString(in);
+                long testcaseVersion = in.readLong();
+                String manifestHash = readString(in);
+                String sourceCode = readText(in);
+                JudgeSdi sdi = JudgeSdi.builder()
+                        .submissionId(id)
+                        .problemId(problemId)
+                        .ruleType(ruleType)
+                        .sourceCode(sourceCode)
+                        .languageKey(languageKey)
+                        .finalTimeLimitMs(finalTimeLimitMs)
+                        .finalMemoryLimitMb(finalMemoryLimitMb)
+                        .testcaseVersion(testcaseVersion >= 0 ? testcaseVersion : null)
+                        .testcaseManifestHash(manifestHash)
+                        .build();
+                if (lang != null) {
+                    sdi.setCompileCommand(lang.getCompileCommand());
+                    sdi.setRunCommand(lang.getRunCommand());
+                    sdi.setCompiled(lang.isCompiled());
+                    sdi.setSourceName(lang.getSourceName());
+                    sdi.setExeName(lang.getExeName());
+                }
+                return sdi;
+            }
+            if (kind == KIND_RUN_CODE) {
+                int count = in.readInt();
+                List<RunTestCaseSdi> inputs = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    inputs.add(new RunTestCaseSdi(readText(in), readText(in)));
+                }
+                RunCodeRequest request = RunCodeRequest.builder()
+                        .runToken(id)
+                        .problemId(problemId)
+                        .languageKey(languageKey)
+                        .customInputs(inputs)
+                        .sourceCode(readText(in))
+                        .finalTimeLimitMs(finalTimeLimitMs)
+                        .finalMemoryLimitMb(finalMemoryLimitMb)
+                        .build();
+                if (lang != null) {
+                    request.setCompileCommand(lang.getCompileCommand());
+                    request.setRunCommand(lang.getRunCommand());
+                    request.setCompiled(lang.isCompiled());
+                    request.setSourceName(lang.getSourceName());
+                    request.setExeName(lang.getExeName());
+                }
+                return request;
+            }
+            throw new IllegalArgumentException("Unknown judge message kind: " + kind);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated judge message", e);
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length == NULL_STRING) return null;
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int codec = in.readUnsignedByte();
+        if (codec == TEXT_NULL) return null;
+        int rawLength = in.readInt();
+        byte[] raw = codec == TEXT_ZLIB ? inflate(in.readNBytes(in.readInt()), rawLength) : in.readNBytes(rawLength);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    // ===== zlib =====
+
+    // BEST_SPEED: source code nén tốt ngay ở mức thấp, mức cao hơn chỉ tốn CPU trên đường nộp bài.
+    // Mỗi thread giữ 1 Deflater (reset giữa các lần): khởi tạo zlib stream tốn hơn cả việc nén 1 source vài KB
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+    /**
+     * Nén vào {@code target} (cùng kích thước bản thô), trả về số byte nén hoặc -1 nếu không nhỏ hơn bản thô.
+     */
+    private static int deflate(byte[] raw, byte[] target) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished() && length < target.length) {
+            length += deflater.deflate(target, length, target.length - length);
+        }
+        return deflater.finished() && length < target.length ? length : -1;
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawSize];
+            int offset = 0;
+            while (offset < rawSize && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawSize - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                offset += n;
+            }
+            if (offset != rawSize) {
+                throw new IllegalArgumentException("Corrupted judge message: expected " + rawSize + " bytes, got " + offset);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted judge message", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
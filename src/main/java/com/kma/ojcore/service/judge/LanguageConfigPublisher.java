@@ -0,0 +1,56 @@
+package com.kma.ojcore.service.judge;
+
+import com.kma.ojcore.config.LanguageLoader;
+import com.kma.ojcore.config.RabbitMQConfig;
+import com.kma.ojcore.service.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * Đẩy languages.json đang dùng lên {@code <bucket-testcase>/<prefix-language-config>/<version>.json}.
+ * Message compact chỉ mang languageKey + version, máy chấm tải file này 1 lần cho mỗi version rồi cache.
+ * Object bất biến theo version nên đã có thì không upload lại.
+ * <p>
+ * Chạy khi khởi tạo xong singleton, trước khi scheduler / relay outbox bắt đầu gửi. Đang dùng định dạng compact mà
+ * không publish được thì dừng khởi động: máy chấm sẽ không tra được version này và mọi message đều lỗi.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LanguageConfigPublisher implements SmartInitializingSingleton {
+
+    private final LanguageLoader languageLoader;
+    private final FileStorageService storage;
+
+    @Value("${oj.storage.minio.bucket-testcase}")
+    private String bucket;
+
+    @Value("${oj.storage.minio.prefix-language-config}")
+    private String prefix;
+
+    @Value("${oj.judge.wire.format:json}")
+    private String wireFormat;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String objectName = prefix + "/" + languageLoader.getConfigVersion() + ".json";
+        try {
+            if (storage.exists(bucket, objectName)) return;
+            byte[] raw = languageLoader.getRawConfig();
+            storage.upload(bucket, objectName, new ByteArrayInputStream(raw), raw.length, "application/json");
+            log.info("[Judge Wire] Published language config {}", objectName);
+        } catch (Exception e) {
+            if (RabbitMQConfig.WIRE_FORMAT_COMPACT.equalsIgnoreCase(wireFormat)) {
+                throw new IllegalStateException("Cannot publish language config " + objectName
+                        + " required by oj.judge.wire.format=compact", e);
+            }
+            // JSON vẫn copy đủ lệnh vào message, thiếu file này không ảnh hưởng
+            log.warn("[Judge Wire] Failed to publish language config {}: {}", objectName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.kma.ojcore.service.judge;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.kma.ojcore.config.LanguageLoader;
+import com.kma.ojcore.exception.BusinessException;
+import com.kma.ojcore.exception.ErrorCode;
+import com.kma.ojcore.repository.ProblemRepository;
+import com.kma.ojcore.repository.ProblemRepository.JudgeMetaRow;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Cache {@link ProblemJudgeSnapshot} theo problem id cho các luồng gửi máy chấm (nộp bài, run code, rejudge, cứu
+ * submission kẹt). Chỉ có L1 Caffeine từng node: snapshot nhỏ, load lại chỉ tốn 1 query gọn.
+ * <p>
+ * Sửa problem / upload bộ test gọi {@link #evict(UUID)}: sau commit bỏ L1 của node này rồi publish để các node khác
+ * bỏ theo. L1 TTL là giới hạn trên cho độ trễ nếu node lỡ message (hoặc lượt load theo lô chạy chồng lên evict).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProblemJudgeCache implements MessageListener {
+
+    private final ProblemRepository problemRepository;
+    private final LanguageLoader languageLoader;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${oj.redis.channel.problem-judge-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${oj.problem.judge-cache.l1-max-size}")
+    private long l1MaxSize;
+
+    @Value("${oj.problem.judge-cache.l1-ttl-seconds}")
+    private long l1TtlSeconds;
+
+    private LoadingCache<UUID, ProblemJudgeSnapshot> snapshots;
+
+    @PostConstruct
+    void init() {
+        snapshots = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .build(new CacheLoader<>() {
+                    @Override
+                    public ProblemJudgeSnapshot load(UUID problemId) {
+                        return loadSnapshots(List.of(problemId)).get(problemId);
+                    }
+
+                    @Override
+                    public Map<UUID, ProblemJudgeSnapshot> loadAll(Set<? extends UUID> problemIds) {
+                        return loadSnapshots(problemIds);
+                    }
+                });
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(invalidationChannel));
+    }
+
+    // ===== Đọc =====
+
+    public ProblemJudgeSnapshot get(UUID problemId) {
+        ProblemJudgeSnapshot snapshot = snapshots.get(problemId);
+        if (snapshot == null) {
+            throw new BusinessException(ErrorCode.PROBLEM_NOT_FOUND);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Snapshot của nhiều problem, phần chưa có trong L1 load bằng 1 query. Problem không tồn tại không có trong kết quả.
+     */
+    public Map<UUID, ProblemJudgeSnapshot> getAll(Collection<UUID> problemIds) {
+        return snapshots.getAll(new HashSet<>(problemIds));
+    }
+
+    // ===== Invalidate (sau commit) =====
+
+    public void evict(UUID problemId) {
+        afterCommit(() -> {
+            snapshots.invalidate(problemId);
+            try {
+                redisTemplate.convertAndSend(invalidationChannel, problemId.toString());
+            } catch (Exception e) {
+                log.error("Failed to broadcast problem judge cache eviction for {}: {}", problemId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            snapshots.invalidate(UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed problem judge cache invalidation message: {}", e.getMessage());
+        }
+    }
+
+    // ===== Internal =====
+
+    private Map<UUID, ProblemJudgeSnapshot> loadSnapshots(Collection<? extends UUID> problemIds) {
+        Map<UUID, List<JudgeMetaRow>> rowsByProblem = problemRepository.findJudgeMetaByIds(new ArrayList<>(problemIds))
+                .stream()
+                .collect(Collectors.groupingBy(JudgeMetaRow::getId));
+        Map<UUID, ProblemJudgeSnapshot> result = new HashMap<>(rowsByProblem.size());
+        rowsByProblem.forEach((id, rows) -> result.put(id, ProblemJudgeSnapshot.of(rows, languageLoader.getAllConfigs())));
+        return result;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.kma.ojcore.service.judge;
+
+import com.kma.ojcore.entity.LanguageConfig;
+import com.kma.ojcore.enums.RuleType;
+import com.kma.ojcore.repository.ProblemRepository.JudgeMetaRow;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Bản chụp bất biến của 1 problem, đủ để dựng JudgeSdi / RunCodeRequest mà không đọc MySQL.
+ * Giới hạn cuối cùng (đã nhân hệ số + cộng allowance của ngôn ngữ) tính sẵn 1 lần cho mọi ngôn ngữ trong
+ * {@link com.kma.ojcore.config.LanguageLoader}, kể cả ngôn ngữ không còn được cho phép (rejudge bài nộp cũ).
+ */
+@Value
+@Builder
+public class ProblemJudgeSnapshot {
+
+    UUID id;
+    RuleType ruleType;
+    Integer totalScore;
+    Long testcaseVersion;
+    String testcaseManifestHash;
+    Set<String> allowedLanguages;
+
+    // languageKey -> giới hạn cuối cùng; rỗng nếu problem chưa cấu hình time/memory limit
+    Map<String, JudgeLimits> limits;
+
+    public record JudgeLimits(int timeLimitMs, int memoryLimitMb) {
+    }
+
+    public boolean allowsLanguage(String languageKey) {
+        return allowedLanguages.contains(languageKey) && limits.containsKey(languageKey);
+    }
+
+    public JudgeLimits limitsFor(String languageKey) {
+        return limits.get(languageKey);
+    }
+
+    /**
+     * @param rows các dòng của cùng 1 problem (LEFT JOIN problem_languages, mỗi ngôn ngữ 1 dòng)
+     */
+    static ProblemJudgeSnapshot of(List<JudgeMetaRow> rows, Map<String, LanguageConfig> languages) {
+        JudgeMetaRow head = rows.get(0);
+        Set<String> allowed = rows.stream()
+                .map(JudgeMetaRow::getLanguageKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+
+        Map<String, JudgeLimits> limits = new HashMap<>();
+        if (head.getTimeLimitMs() != null && head.getMemoryLimitMb() != null) {
+            languages.forEach((key, lang) -> limits.put(key, new JudgeLimits(
+                    (int) (head.getTimeLimitMs() * lang.getTimeMultiplier()) + lang.getTimeLimitAllowance(),
+                    (int) (head.getMemoryLimitMb() * lang.getMemoryMultiplier()) + lang.getMemoryLimitAllowance())));
+        }
+
+        return ProblemJudgeSnapshot.builder()
+                .id(head.getId())
+                .ruleType(head.getRuleType())
+                .totalScore(head.getTotalScore())
+                .testcaseVersion(head.getTestcaseVersion())
+                .testcaseManifestHash(head.getTestcaseManifestHash())
+                .allowedLanguages(allowed)
+                .limits(Map.copyOf(limits))
+                .build();
+    }
+}
@@ -0,0 +1,294 @@
+package com.kma.ojcore.service.ranking;
+
+import com.kma.ojcore.dto.response.users.UserRankSdo;
+import com.kma.ojcore.enums.RuleType;
+import com.kma.ojcore.repository.RankingJdbcRepository;
+import com.kma.ojcore.utils.OrderStatisticTree;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Bảng xếp hạng toàn cục (OI + ACM) giữ trong RAM từng node, thay cho RANK() OVER cả bảng users mỗi lần xem trang.
+ * <ul>
+ *   <li>Mỗi luật 1 {@link OrderStatisticTree}: lấy trang N và hạng của 1 user đều O(log n).</li>
+ *   <li>Dựng từ MySQL khi khởi động và định kỳ (bù message bị lỡ, user mới đăng ký).</li>
+ *   <li>{@link UserStatsChangedEvent} sau commit được phát qua Redis pub/sub; mọi node (kể cả node phát)
+ *       đọc lại đúng các user đó từ MySQL rồi cập nhật cây.</li>
+ * </ul>
+ * Chưa dựng xong thì {@link #isReady()} = false và RankingService dùng lại query SQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GlobalRankingIndex implements MessageListener {
+
+    private final RankingJdbcRepository rankingJdbcRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${oj.ranking.index.enabled}")
+    private boolean enabled;
+
+    @Value("${oj.redis.channel.ranking-changed}")
+    private String changedChannel;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Đọc MySQL + áp vào cây tuần tự, để bản đọc cũ không ghi đè bản mới hơn
+    private final Object reloadMutex = new Object();
+
+    // Các field dưới đây được bảo vệ bởi lock
+    private Map<UUID, RankingEntry> entries = new HashMap<>();
+    private OrderStatisticTree<RankingEntry> oiTree = new OrderStatisticTree<>(RankingEntry.OI_ORDER);
+    private OrderStatisticTree<RankingEntry> acmTree = new OrderStatisticTree<>(RankingEntry.ACM_ORDER);
+    // != null khi đang dựng lại: user được cập nhật trong lúc đó phải đọc lại sau khi tráo cây
+    private Set<UUID> touchedDuringRebuild;
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    void init() {
+        if (enabled) {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(changedChannel));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) return;
+        CompletableFuture.runAsync(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("[Ranking Index] Initial build failed, serving rankings from SQL: {}", e.getMessage());
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Dựng lại toàn bộ từ MySQL rồi tráo vào. Đọc MySQL không giữ lock nên request xem bảng xếp hạng không bị chặn.
+     *
+     * @return số user trong bảng xếp hạng
+     */
+    public synchronized int rebuild() {
+        if (!enabled) return 0;
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<UUID, RankingEntry> freshEntries = new HashMap<>();
+        OrderStatisticTree<RankingEntry> freshOi = new OrderStatisticTree<>(RankingEntry.OI_ORDER);
+        OrderStatisticTree<RankingEntry> freshAcm = new OrderStatisticTree<>(RankingEntry.ACM_ORDER);
+        Set<UUID> touched;
+        boolean built = false;
+        try {
+            rankingJdbcRepository.streamAll(entry -> {
+                freshEntries.put(entry.userId(), entry);
+                freshOi.add(entry);
+                freshAcm.add(entry);
+            });
+            built = true;
+        } finally {
+            // Chốt danh sách touched và tráo cây trong cùng 1 lần giữ lock: reload chen vào giữa 2 bước
+            // sẽ không nằm trong touched mà cũng không nằm trong cây mới
+            lock.writeLock().lock();
+            try {
+                touched = touchedDuringRebuild;
+                touchedDuringRebuild = null;
+                if (built) {
+                    entries = freshEntries;
+                    oiTree = freshOi;
+                    acmTree = freshAcm;
+                    ready = true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Snapshot vừa đọc có thể cũ hơn các cập nhật đã đến trong lúc dựng
+        if (!touched.isEmpty()) {
+            reload(touched);
+        }
+        log.info("[Ranking Index] Rebuilt with {} users", freshEntries.size());
+        return freshEntries.size();
+    }
+
+    public Optional<Page<UserRankSdo>> page(RuleType ruleType, Pageable pageable) {
+        if (!ready) return Optional.empty();
+
+        lock.readLock().lock();
+        try {
+            OrderStatisticTree<RankingEntry> tree = treeOf(ruleType);
+            int total = tree.size();
+            int offset = (int) Math.min(pageable.getOffset(), total);
+            return Optional.of(new PageImpl<>(rankedRange(ruleType, offset, pageable.getPageSize()), pageable, total));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Phân trang keyset: các user đứng sau {@code after} theo thứ tự hiển thị.
+     *
+     * @param after null = trang đầu; không cần còn nằm trong cây (user đã đổi điểm vẫn định vị được)
+     */
+    public Optional<List<UserRankSdo>> after(RuleType ruleType, RankingEntry after, int limit) {
+        if (!ready) return Optional.empty();
+
+        lock.readLock().lock();
+        try {
+            int offset = 0;
+            if (after != null) {
+                Comparator<RankingEntry> order = ruleType == RuleType.ACM ? RankingEntry.ACM_ORDER : RankingEntry.OI_ORDER;
+                offset = treeOf(ruleType).countBefore(after, order);
+                RankingEntry current = entries.get(after.userId());
+                if (current != null && order.compare(current, after) == 0) {
+                    offset++; // Bản thân dòng cursor vẫn trong cây -> bỏ qua
+                }
+            }
+            return Optional.of(rankedRange(ruleType, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Gọi khi đang giữ read lock
+    private List<UserRankSdo> rankedRange(RuleType ruleType, int offset, int limit) {
+        OrderStatisticTree<RankingEntry> tree = treeOf(ruleType);
+        Comparator<RankingEntry> rankKey = rankKeyOf(ruleType);
+        List<RankingEntry> slice = tree.range(offset, limit);
+
+        List<UserRankSdo> content = new ArrayList<>(slice.size());
+        int rank = 0;
+        RankingEntry previous = null;
+        for (int i = 0; i < slice.size(); i++) {
+            RankingEntry entry = slice.get(i);
+            if (previous == null) {
+                rank = tree.countBefore(entry, rankKey) + 1;
+            } else if (rankKey.compare(previous, entry) != 0) {
+                rank = offset + i + 1; // RANK(): hạng = số người đứng trước + 1
+            }
+            content.add(toSdo(entry, rank));
+            previous = entry;
+        }
+        return content;
+    }
+
+    /**
+     * Chỉ gọi khi {@link #isReady()}. Rỗng = user không thuộc bảng xếp hạng (staff, chưa kích hoạt...).
+     */
+    public Optional<UserRankSdo> rankOf(RuleType ruleType, UUID userId) {
+        lock.readLock().lock();
+        try {
+            RankingEntry entry = entries.get(userId);
+            if (entry == null) return Optional.empty();
+            int rank = treeOf(ruleType).countBefore(entry, rankKeyOf(ruleType)) + 1;
+            return Optional.of(toSdo(entry, rank));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Cập nhật: sự kiện trong node -> pub/sub -> mọi node đọc lại từ MySQL =====
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatsChanged(UserStatsChangedEvent event) {
+        if (!enabled || event.userIds().isEmpty()) return;
+        String payload = event.userIds().stream().map(UUID::toString).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(changedChannel, payload);
+        } catch (Exception e) {
+            // Redis lỗi: ít nhất node này vẫn đúng, node khác chờ lần dựng lại định kỳ
+            log.warn("[Ranking Index] Cannot broadcast ranking change, reloading locally: {}", e.getMessage());
+            reload(event.userIds());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.isEmpty()) return;
+        Set<UUID> userIds = new HashSet<>();
+        try {
+            for (String id : body.split(",")) {
+                userIds.add(UUID.fromString(id));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("[Ranking Index] Ignoring malformed ranking change message: {}", body);
+            return;
+        }
+        try {
+            reload(userIds);
+        } catch (Exception e) {
+            log.error("[Ranking Index] Reload of {} users failed: {}", userIds.size(), e.getMessage());
+        }
+    }
+
+    private void reload(Collection<UUID> userIds) {
+        synchronized (reloadMutex) {
+            Map<UUID, RankingEntry> fresh = rankingJdbcRepository.findByIds(userIds).stream()
+                    .collect(Collectors.toMap(RankingEntry::userId, e -> e));
+
+            lock.writeLock().lock();
+            try {
+                if (touchedDuringRebuild != null) {
+                    touchedDuringRebuild.addAll(userIds);
+                }
+                for (UUID userId : userIds) {
+                    RankingEntry old = entries.remove(userId);
+                    if (old != null) {
+                        oiTree.remove(old);
+                        acmTree.remove(old);
+                    }
+                    RankingEntry entry = fresh.get(userId);
+                    if (entry != null) { // Không còn trong kết quả = bị khoá / thành staff -> chỉ xoá
+                        entries.put(userId, entry);
+                        oiTree.add(entry);
+                        acmTree.add(entry);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private OrderStatisticTree<RankingEntry> treeOf(RuleType ruleType) {
+        return ruleType == RuleType.ACM ? acmTree : oiTree;
+    }
+
+    private static Comparator<RankingEntry> rankKeyOf(RuleType ruleType) {
+        return ruleType == RuleType.ACM ? RankingEntry.ACM_RANK_KEY : RankingEntry.OI_RANK_KEY;
+    }
+
+    private static UserRankSdo toSdo(RankingEntry entry, int rank) {
+        return new UserRankSdo(entry.userId(), entry.username(), entry.avatarUrl(), entry.acCount(),
+                entry.solvedCount(), entry.submissionCount(), entry.totalScore(), rank);
+    }
+}
@@ -0,0 +1,38 @@
+package com.kma.ojcore.service.ranking;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * 1 user trong bảng xếp hạng toàn cục (đã loại staff và tài khoản không ACTIVE).
+ */
+public record RankingEntry(UUID userId, String username, String avatarUrl,
+                           double totalScore, int solvedCount, int acCount, int submissionCount) {
+
+    // Khoá xếp hạng giống RANK() OVER (...) trong UserRepository: bằng khoá = đồng hạng
+    public static final Comparator<RankingEntry> OI_RANK_KEY = Comparator
+            .comparingDouble(RankingEntry::totalScore).reversed()
+            .thenComparing(Comparator.comparingInt(RankingEntry::solvedCount).reversed())
+            .thenComparing(Comparator.comparingInt(RankingEntry::acCount).reversed())
+            .thenComparingInt(RankingEntry::submissionCount);
+
+    public static final Comparator<RankingEntry> ACM_RANK_KEY = Comparator
+            .comparingInt(RankingEntry::solvedCount).reversed()
+            .thenComparing(Comparator.comparingDouble(RankingEntry::totalScore).reversed())
+            .thenComparing(Comparator.comparingInt(RankingEntry::acCount).reversed())
+            .thenComparingInt(RankingEntry::submissionCount);
+
+    // Thứ tự trong cùng hạng: id theo byte không dấu, giống ORDER BY u.id của cột BINARY(16), để cursor
+    // phát ra từ index trong RAM và từ query SQL dự phòng nối tiếp được cho nhau
+    private static final Comparator<RankingEntry> TIE_BREAK = Comparator
+            .comparing(RankingEntry::userId, RankingEntry::compareUnsigned);
+
+    public static final Comparator<RankingEntry> OI_ORDER = OI_RANK_KEY.thenComparing(TIE_BREAK);
+    public static final Comparator<RankingEntry> ACM_ORDER = ACM_RANK_KEY.thenComparing(TIE_BREAK);
+
+    // UUID.compareTo so sánh 2 nửa long có dấu, khác thứ tự byte của BINARY(16)
+    private static int compareUnsigned(UUID a, UUID b) {
+        int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
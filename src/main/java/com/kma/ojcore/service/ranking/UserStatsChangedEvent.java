@@ -0,0 +1,16 @@
+package com.kma.ojcore.service.ranking;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Counter (submission/AC/solved/score) hoặc thông tin hiển thị trên bảng xếp hạng (role, trạng thái, avatar)
+ * của các user này vừa đổi trong MySQL. Được xử lý sau commit.
+ */
+public record UserStatsChangedEvent(Set<UUID> userIds) {
+
+    public UserStatsChangedEvent(Collection<UUID> userIds) {
+        this(Set.copyOf(userIds));
+    }
+}
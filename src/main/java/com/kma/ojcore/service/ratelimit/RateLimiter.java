@@ -0,0 +1,122 @@
+package com.kma.ojcore.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kma.ojcore.enums.RateLimitAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bộ giới hạn tần suất dùng chung cho {@link com.kma.ojcore.aspect.RateLimitAspect}.
+ * <ul>
+ *   <li>Quyết định cuối cùng nằm ở Redis, 1 Lua script atomic cho mỗi thuật toán, thời gian lấy từ Redis TIME
+ *       nên không phụ thuộc lệch đồng hồ giữa các node.</li>
+ *   <li>Khi Redis đã từ chối 1 key, node nhớ "bị chặn tới lúc nào" trong RAM và từ chối luôn các request tiếp theo
+ *       của key đó mà không gọi Redis, nên flood bị cắt ngay tại node.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiter {
+
+    // KEYS[1] = zset | ARGV[1] = window ms, ARGV[2] = capacity, ARGV[3] = member | trả về 0 hoặc số ms phải chờ
+    private static final DefaultRedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            local window = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+            if redis.call('ZCARD', KEYS[1]) < capacity then
+                redis.call('ZADD', KEYS[1], now, ARGV[3])
+                redis.call('PEXPIRE', KEYS[1], window)
+                return 0
+            end
+            local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+            return math.max(1, tonumber(oldest[2]) + window - now)
+            """, Long.class);
+
+    // KEYS[1] = hash {tokens, ts} | ARGV[1] = capacity, ARGV[2] = refill tokens, ARGV[3] = refill period ms
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            local capacity = tonumber(ARGV[1])
+            local refill = tonumber(ARGV[2])
+            local period = tonumber(ARGV[3])
+            local data = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(data[1])
+            local ts = tonumber(data[2])
+            if tokens == nil or ts == nil then
+                tokens = capacity
+                ts = now
+            end
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * refill / period)
+            local wait = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+            else
+                wait = math.ceil((1 - tokens) * period / refill)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * period / refill) + 1000)
+            return wait
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${oj.rate-limit.local-block.max-keys}")
+    private long localBlockMaxKeys;
+
+    @Value("${oj.rate-limit.local-block.max-block-ms}")
+    private long localBlockMaxMs;
+
+    // key -> thời điểm (epoch ms) được phép gọi lại
+    private Cache<String, Long> blockedUntil;
+
+    @PostConstruct
+    void init() {
+        blockedUntil = Caffeine.newBuilder()
+                .maximumSize(localBlockMaxKeys)
+                .expireAfterWrite(Duration.ofMillis(localBlockMaxMs))
+                .build();
+    }
+
+    /**
+     * @return 0 nếu được phép, ngược lại số ms nên chờ trước khi thử lại
+     */
+    public long tryAcquire(String key, RateLimitAlgorithm algorithm, int capacity, int refillTokens, long periodMs) {
+        long now = System.currentTimeMillis();
+        Long until = blockedUntil.getIfPresent(key);
+        if (until != null) {
+            if (until > now) return until - now;
+            blockedUntil.invalidate(key);
+        }
+
+        Long waitMs;
+        try {
+            waitMs = switch (algorithm) {
+                case SLIDING_WINDOW -> redisTemplate.execute(SLIDING_WINDOW_SCRIPT, List.of(key),
+                        String.valueOf(periodMs), String.valueOf(capacity), UUID.randomUUID().toString());
+                case TOKEN_BUCKET -> redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(key),
+                        String.valueOf(capacity), String.valueOf(Math.max(1, refillTokens)), String.valueOf(periodMs));
+            };
+        } catch (Exception e) {
+            // Redis lỗi thì không chặn người dùng hợp lệ; chặn cục bộ vẫn còn hiệu lực
+            log.error("Rate limiter unavailable for key {}: {}", key, e.getMessage());
+            return 0;
+        }
+
+        if (waitMs == null || waitMs <= 0) return 0;
+        blockedUntil.put(key, now + Math.min(waitMs, localBlockMaxMs));
+        return waitMs;
+    }
+}
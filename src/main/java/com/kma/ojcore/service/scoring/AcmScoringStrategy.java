@@ -23,6 +23,7 @@ public class AcmScoringStrategy implements ContestScoringStrategy {
     private final ContestParticipationProblemRepository cppRepository;
     private final ContestParticipationRepository participationRepository;
     private final ContestProblemRepository contestProblemRepository;
+    private final ContestLiveLeaderboard liveLeaderboard;
 
     @Override
     @Transactional
@@ -49,6 +50,7 @@ public class AcmScoringStrategy implements ContestScoringStrategy {
         if (submission.getVerdict() != SubmissionVerdict.AC && submission.getVerdict() != SubmissionVerdict.CE) {
             cpp.setFailedAttempts(cpp.getFailedAttempts() + 1);
             cppRepository.save(cpp);
+            publishToLiveLeaderboard(submission, participation, cp, cpp, false);
             return;
         }
 
@@ -62,8 +64,15 @@ public class AcmScoringStrategy implements ContestScoringStrategy {
             cppRepository.save(cpp);
 
             participationRepository.addScoreAndPenalty(participation.getId(), 1.0, penaltyForThisProblem);
+            publishToLiveLeaderboard(submission, participation, cp, cpp, true);
 
             log.info("ACM Score updated for User {}: +1 point, Penalty +{}", submission.getUser().getUsername(), penaltyForThisProblem);
         }
     }
-}
\ No newline at end of file
+
+    private void publishToLiveLeaderboard(Submission submission, ContestParticipation participation,
+                                          ContestProblem cp, ContestParticipationProblem cpp, boolean totalsChanged) {
+        liveLeaderboard.recordResult(participation.getId(), submission.getContest().getId(),
+                submission.getUser().getId(), submission.getUser().getUsername(), cp, cpp, totalsChanged);
+    }
+}
@@ -0,0 +1,554 @@
+package com.kma.ojcore.service.scoring;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kma.ojcore.dto.response.contests.ContestLeaderboardPageSdo;
+import com.kma.ojcore.dto.response.contests.ContestLeaderboardSdo;
+import com.kma.ojcore.dto.response.contests.ContestProblemResultSdo;
+import com.kma.ojcore.dto.response.contests.ContestProblemSdo;
+import com.kma.ojcore.entity.ContestParticipationProblem;
+import com.kma.ojcore.entity.ContestProblem;
+import com.kma.ojcore.repository.ContestParticipationProblemRepository;
+import com.kma.ojcore.repository.ContestParticipationRepository;
+import com.kma.ojcore.repository.ContestProblemRepository;
+import com.kma.ojcore.utils.UuidHelper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bảng xếp hạng contest "sống" trên Redis, được cập nhật trực tiếp bởi các ScoringStrategy.
+ * <p>
+ * Mỗi contest gồm các key:
+ * <ul>
+ *     <li>{@code RANK}  - ZSET member = userId, score = (điểm, penalty) đã encode thành 1 số sắp xếp được</li>
+ *     <li>{@code ROWS}  - HASH userId -> dòng tổng (username, score, penalty)</li>
+ *     <li>{@code CELLS} - HASH "userId:displayId" -> ô kết quả của từng bài</li>
+ *     <li>{@code PROBLEMS} - danh sách bài của contest</li>
+ *     <li>{@code READY} - marker báo board đã được nạp đầy đủ từ DB</li>
+ *     <li>{@code GEN}   - generation, tăng mỗi lần invalidate</li>
+ * </ul>
+ * Mọi ghi từ strategy đều là giá trị tuyệt đối và đi qua {@link #APPLY_SCRIPT}: script so score mới với ZSCORE hiện có
+ * rồi mới ZADD + HSET dòng tổng (thấp hơn thì bỏ), ô kết quả thì HSET ghi đè, nên thứ tự áp dụng không quan trọng.
+ * Các thao tác làm điểm GIẢM (rejudge, void, đổi đề, ban) sẽ invalidate toàn bộ board để rebuild lại.
+ * <p>
+ * Generation chặn dữ liệu cũ quay lại sau invalidate:
+ * <ul>
+ *     <li>rebuild đọc GEN trước khi đọc DB, dựng board vào key tạm rồi RENAME sang key thật chỉ khi GEN chưa đổi;</li>
+ *     <li>ghi từ strategy mang GEN đọc trong transaction, GEN đã đổi thì không ghi mà invalidate lại
+ *         để lần rebuild sau đọc DB sau khi transaction đó commit.</li>
+ * </ul>
+ * Mọi lần ghi đều gia hạn TTL của cả board.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContestLiveLeaderboard {
+
+    // Penalty (phút) chiếm 6 chữ số thấp, điểm (làm tròn 2 chữ số thập phân) ở phần cao.
+    // 2^53 / 10^6 ~ 9e9 đơn vị điểm -> vẫn biểu diễn chính xác bằng double.
+    private static final long PENALTY_SPAN = 1_000_000L;
+    private static final long SCORE_SCALE = 100L;
+    // TTL của key tạm trong lúc rebuild (rebuild chết giữa chừng thì tự dọn)
+    private static final long BUILD_TTL_SECONDS = 300L;
+
+    // KEYS: GEN, READY, RANK, ROWS, CELLS, PROBLEMS
+    // ARGV: generation, ttl giây, member, score ('' = không đổi dòng tổng), row json, cell field ('' = không có ô), cell json
+    // Dòng tổng chỉ ghi khi score không thấp hơn score đang có (so trong script rồi ZADD thường) để ROWS luôn khớp RANK
+    private static final DefaultRedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[1]) or '') ~= ARGV[1] then
+                return 0
+            end
+            if ARGV[4] ~= '' then
+                local current = redis.call('ZSCORE', KEYS[3], ARGV[3])
+                if not current or tonumber(ARGV[4]) >= tonumber(current) then
+                    redis.call('ZADD', KEYS[3], ARGV[4], ARGV[3])
+                    redis.call('HSET', KEYS[4], ARGV[3], ARGV[5])
+                end
+            end
+            if ARGV[6] ~= '' then
+                redis.call('HSET', KEYS[5], ARGV[6], ARGV[7])
+            end
+            for i = 1, #KEYS do
+                redis.call('EXPIRE', KEYS[i], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    // Chỉ xoá lock rebuild nếu vẫn là của mình (rebuild chạy quá TTL thì lock có thể đã thuộc node khác)
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: GEN, READY, RANK, ROWS, CELLS, PROBLEMS | ARGV: ttl giây
+    private static final DefaultRedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            for i = 2, #KEYS do
+                redis.call('DEL', KEYS[i])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: LOCK, GEN, READY, RANK, ROWS, CELLS, PROBLEMS | ARGV: ttl giây, member...
+    // Đang có rebuild (snapshot có thể còn chứa các user này) -> invalidate cả board thay vì gỡ từng user
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('INCR', KEYS[2])
+                redis.call('EXPIRE', KEYS[2], ARGV[1])
+                for i = 3, #KEYS do
+                    redis.call('DEL', KEYS[i])
+                end
+                return 0
+            end
+            for i = 2, #ARGV do
+                redis.call('ZREM', KEYS[4], ARGV[i])
+                redis.call('HDEL', KEYS[5], ARGV[i])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: GEN, READY, RANK, ROWS, CELLS, PROBLEMS, rồi 4 key tạm tương ứng RANK, ROWS, CELLS, PROBLEMS
+    // ARGV: generation đọc trước khi đọc DB, ttl giây
+    // Gộp các ghi của strategy đến trong lúc rebuild (cùng generation) vào board tạm rồi RENAME
+    private static final DefaultRedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[1]) or '') ~= ARGV[1] then
+                redis.call('DEL', KEYS[7], KEYS[8], KEYS[9], KEYS[10])
+                return 0
+            end
+            if redis.call('EXISTS', KEYS[3]) == 1 then
+                redis.call('ZUNIONSTORE', KEYS[7], 2, KEYS[7], KEYS[3], 'AGGREGATE', 'MAX')
+            end
+            for h = 4, 5 do
+                local live = redis.call('HGETALL', KEYS[h])
+                for i = 1, #live, 2 do
+                    redis.call('HSET', KEYS[h + 4], live[i], live[i + 1])
+                end
+            end
+            for i = 3, 6 do
+                if redis.call('EXISTS', KEYS[i + 4]) == 1 then
+                    redis.call('RENAME', KEYS[i + 4], KEYS[i])
+                    redis.call('EXPIRE', KEYS[i], ARGV[2])
+                else
+                    redis.call('DEL', KEYS[i])
+                end
+            end
+            redis.call('SET', KEYS[2], '1', 'EX', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ContestParticipationRepository participationRepository;
+    private final ContestParticipationProblemRepository cppRepository;
+    private final ContestProblemRepository contestProblemRepository;
+
+    @Value("${oj.redis.prefix.leaderboard:CONTEST_LEADERBOARD:}")
+    private String leaderboardPrefix;
+
+    @Value("${oj.leaderboard.live.enabled:true}")
+    private boolean enabled;
+
+    @Value("${oj.leaderboard.live.ttl-hours:6}")
+    private long ttlHours;
+
+    // ============================================================
+    // WRITE PATH (gọi từ ScoringStrategy, trong transaction chấm bài)
+    // ============================================================
+
+    /**
+     * Ghi nhận trạng thái mới của 1 ô (user, problem). Nếu tổng điểm thay đổi thì đọc lại
+     * score/penalty tuyệt đối của participation (row đang bị khóa bởi UPDATE nên nhất quán).
+     * Redis chỉ được cập nhật sau khi transaction commit.
+     */
+    public void recordResult(UUID participationId, UUID contestId, UUID userId, String username,
+                             ContestProblem contestProblem, ContestParticipationProblem cpp, boolean totalsChanged) {
+        if (!enabled) return;
+
+        ContestLeaderboardSdo row = null;
+        if (totalsChanged) {
+            ContestParticipationRepository.ScoreAndPenaltyProjection totals =
+                    participationRepository.findScoreAndPenaltyById(participationId);
+            if (totals != null) {
+                row = new ContestLeaderboardSdo(userId, username, totals.getScore(), totals.getPenalty());
+            }
+        }
+
+        ContestProblemResultSdo cell = toCell(contestProblem.getProblem().getId(), contestProblem.getDisplayId(),
+                cpp.getFailedAttempts(), cpp.getIsAc(), cpp.getMaxScore(), cpp.getPenalty());
+
+        final ContestLeaderboardSdo finalRow = row;
+        String generation = currentGeneration(contestId);
+        runAfterCommit(() -> applyResult(contestId, generation, userId, finalRow, cell));
+    }
+
+    /**
+     * Thí sinh mới đăng ký: thêm dòng 0 điểm để board không phải rebuild.
+     */
+    public void addParticipant(UUID contestId, UUID userId, String username) {
+        if (!enabled) return;
+        ContestLeaderboardSdo row = new ContestLeaderboardSdo(userId, username, 0.0, 0L);
+        String generation = currentGeneration(contestId);
+        runAfterCommit(() -> applyResult(contestId, generation, userId, row, null));
+    }
+
+    /**
+     * Bị loại: gỡ khỏi bảng xếp hạng ngay.
+     */
+    public void removeParticipants(UUID contestId, Collection<UUID> userIds) {
+        if (!enabled || userIds == null || userIds.isEmpty()) return;
+        List<String> args = new ArrayList<>(userIds.size() + 1);
+        args.add(String.valueOf(ttlSeconds()));
+        userIds.forEach(userId -> args.add(userId.toString()));
+        runAfterCommit(() -> {
+            try {
+                List<String> keys = new ArrayList<>();
+                keys.add(key(contestId, "LOCK"));
+                keys.addAll(boardKeys(contestId));
+                redisTemplate.execute(REMOVE_SCRIPT, keys, args.toArray());
+            } catch (DataAccessException e) {
+                log.error("[Live Leaderboard] Không gỡ được thí sinh khỏi contest {}: {}", contestId, e.getMessage());
+                invalidateNow(contestId);
+            }
+        });
+    }
+
+    /**
+     * Xóa toàn bộ board, lần đọc tiếp theo sẽ rebuild từ DB.
+     */
+    public void invalidate(UUID contestId) {
+        if (!enabled) return;
+        runAfterCommit(() -> invalidateNow(contestId));
+    }
+
+    /**
+     * @param generation GEN đọc trong transaction đã tạo ra kết quả này (null = Redis lỗi lúc đọc)
+     */
+    private void applyResult(UUID contestId, String generation, UUID userId,
+                             ContestLeaderboardSdo row, ContestProblemResultSdo cell) {
+        try {
+            if (generation == null) {
+                invalidateNow(contestId);
+                return;
+            }
+            String member = userId.toString();
+            Long applied = redisTemplate.execute(APPLY_SCRIPT, boardKeys(contestId),
+                    generation,
+                    String.valueOf(ttlSeconds()),
+                    member,
+                    row != null ? String.valueOf(encode(row.getScore(), row.getPenalty())) : "",
+                    row != null ? objectMapper.writeValueAsString(row) : "",
+                    cell != null ? member + ":" + cell.getDisplayId() : "",
+                    cell != null ? objectMapper.writeValueAsString(cell) : "");
+            if (!Long.valueOf(1L).equals(applied)) {
+                // Board đã bị invalidate sau khi transaction này đọc điểm: lần rebuild đang chạy (nếu có)
+                // có thể đã đọc DB trước khi transaction này commit -> invalidate lại cho chắc
+                invalidateNow(contestId);
+            }
+        } catch (Exception e) {
+            // Không chắc board còn đúng -> bỏ đi để rebuild
+            log.error("[Live Leaderboard] Cập nhật thất bại cho contest {}: {}", contestId, e.getMessage());
+            invalidateNow(contestId);
+        }
+    }
+
+    private void invalidateNow(UUID contestId) {
+        try {
+            redisTemplate.execute(INVALIDATE_SCRIPT, boardKeys(contestId), String.valueOf(ttlSeconds()));
+        } catch (DataAccessException e) {
+            log.error("[Live Leaderboard] Không invalidate được contest {}: {}", contestId, e.getMessage());
+        }
+    }
+
+    private String currentGeneration(UUID contestId) {
+        try {
+            String generation = redisTemplate.opsForValue().get(key(contestId, "GEN"));
+            return generation != null ? generation : "";
+        } catch (DataAccessException e) {
+            log.warn("[Live Leaderboard] Không đọc được generation của contest {}: {}", contestId, e.getMessage());
+            return null;
+        }
+    }
+
+    // ============================================================
+    // READ PATH
+    // ============================================================
+
+    /**
+     * Đọc 1 trang bảng xếp hạng hoàn toàn từ Redis.
+     * Trả về empty nếu board chưa sẵn sàng (đang có node khác rebuild) hoặc Redis lỗi -> caller fallback về SQL.
+     */
+    public Optional<ContestLeaderboardPageSdo> readPage(UUID contestId, Pageable pageable) {
+        if (!enabled) return Optional.empty();
+
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(key(contestId, "READY"))) && !rebuild(contestId)) {
+                return Optional.empty();
+            }
+
+            long start = pageable.getOffset();
+            long end = start + pageable.getPageSize() - 1;
+            Set<ZSetOperations.TypedTuple<String>> tuples =
+                    redisTemplate.opsForZSet().reverseRangeWithScores(key(contestId, "RANK"), start, end);
+            List<ZSetOperations.TypedTuple<String>> ranked = tuples != null ? new ArrayList<>(tuples) : List.of();
+
+            String problemsJson = redisTemplate.opsForValue().get(key(contestId, "PROBLEMS"));
+            List<ContestProblemSdo> problems = problemsJson != null
+                    ? objectMapper.readValue(problemsJson, new TypeReference<List<ContestProblemSdo>>() {})
+                    : List.of();
+
+            List<String> members = ranked.stream().map(ZSetOperations.TypedTuple::getValue).toList();
+            List<Object> cellFields = new ArrayList<>();
+            for (String member : members) {
+                for (ContestProblemSdo p : problems) {
+                    cellFields.add(member + ":" + p.getDisplayId());
+                }
+            }
+
+            int size = pageable.getPageSize();
+            if (ranked.isEmpty()) {
+                Long total = redisTemplate.opsForZSet().zCard(key(contestId, "RANK"));
+                return Optional.of(buildPage(List.of(), total != null ? total : 0, pageable, problems));
+            }
+
+            // Gom các lệnh còn lại vào 1 round-trip
+            double firstScore = Objects.requireNonNull(ranked.get(0).getScore());
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public Object execute(RedisOperations operations) {
+                    operations.opsForZSet().zCard(key(contestId, "RANK"));
+                    operations.opsForZSet().count(key(contestId, "RANK"), firstScore + 1, Double.POSITIVE_INFINITY);
+                    operations.opsForHash().multiGet(key(contestId, "ROWS"), new ArrayList<>(members));
+                    if (!cellFields.isEmpty()) {
+                        operations.opsForHash().multiGet(key(contestId, "CELLS"), cellFields);
+                    }
+                    return null;
+                }
+            });
+
+            long total = ((Number) results.get(0)).longValue();
+            long betterThanFirst = ((Number) results.get(1)).longValue();
+            List<?> rowValues = (List<?>) results.get(2);
+            List<?> cellValues = cellFields.isEmpty() ? List.of() : (List<?>) results.get(3);
+
+            List<ContestLeaderboardSdo> content = new ArrayList<>(ranked.size());
+            int cellIdx = 0;
+            int currentRank = (int) betterThanFirst + 1;
+            Double previousScore = null;
+            for (int i = 0; i < ranked.size(); i++) {
+                UUID userId = UUID.fromString(members.get(i));
+                double score = Objects.requireNonNull(ranked.get(i).getScore());
+
+                // RANK() semantics: bằng điểm bằng penalty -> cùng hạng, hạng kế tiếp nhảy cóc
+                if (previousScore != null && score != previousScore) {
+                    currentRank = (int) (start + i + 1);
+                }
+                previousScore = score;
+
+                Object rowJson = rowValues.get(i);
+                ContestLeaderboardSdo row = rowJson != null
+                        ? objectMapper.readValue(rowJson.toString(), ContestLeaderboardSdo.class)
+                        : new ContestLeaderboardSdo(userId, null, 0.0, 0L);
+                row.setRank(currentRank);
+                row.setProblemResults(new HashMap<>());
+
+                for (ContestProblemSdo p : problems) {
+                    Object cellJson = cellValues.get(cellIdx++);
+                    ContestProblemResultSdo cell = cellJson != null
+                            ? objectMapper.readValue(cellJson.toString(), ContestProblemResultSdo.class)
+                            : toCell(p.getProblemId(), p.getDisplayId(), 0, false, 0.0, 0L);
+                    row.getProblemResults().put(p.getDisplayId(), cell);
+                }
+                content.add(row);
+            }
+
+            return Optional.of(buildPage(content, total, pageable, problems));
+        } catch (Exception e) {
+            log.error("[Live Leaderboard] Đọc board contest {} thất bại, fallback SQL: {}", contestId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Nạp toàn bộ board từ DB. Chỉ 1 node được rebuild tại 1 thời điểm (khóa Redis).
+     * Dựng vào key tạm rồi {@link #PUBLISH_SCRIPT} RENAME sang key thật; có invalidate trong lúc đọc DB
+     * (GEN đã đổi) thì bỏ kết quả, lần đọc sau rebuild lại.
+     */
+    private boolean rebuild(UUID contestId) throws Exception {
+        String lockKey = key(contestId, "LOCK");
+        String lockToken = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(lockKey, lockToken, 30, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            return false;
+        }
+
+        try {
+            // Đọc trước khi đọc DB: invalidate nào đến sau thời điểm này đều làm lần rebuild bị bỏ
+            String generation = currentGeneration(contestId);
+            if (generation == null) return false;
+
+            List<ContestProblem> contestProblems = contestProblemRepository.findByContestId(contestId);
+            List<ContestProblemSdo> problems = contestProblems.stream()
+                    .map(cp -> ContestProblemSdo.builder()
+                            .id(cp.getId())
+                            .problemId(cp.getProblem().getId())
+                            .problemSlug(cp.getProblem().getSlug())
+                            .originalTitle(cp.getProblem().getTitle())
+                            .displayId(cp.getDisplayId())
+                            .points(cp.getPoints())
+                            .sortOrder(cp.getSortOrder())
+                            .build())
+                    .sorted(Comparator.comparing(ContestProblemSdo::getSortOrder))
+                    .toList();
+
+            List<ContestParticipationRepository.LiveLeaderboardRowProjection> rows =
+                    participationRepository.findLiveLeaderboardRows(contestId);
+            List<ContestParticipationProblemRepository.LiveLeaderboardCellProjection> cells =
+                    cppRepository.findLiveLeaderboardCells(contestId);
+
+            Set<Tuple> tuples = new HashSet<>(rows.size());
+            Map<byte[], byte[]> rowEntries = new LinkedHashMap<>(rows.size());
+            for (ContestParticipationRepository.LiveLeaderboardRowProjection r : rows) {
+                UUID userId = UuidHelper.getUuidFromBytes(r.getUserId());
+                ContestLeaderboardSdo row = new ContestLeaderboardSdo(userId, r.getUsername(), r.getScore(), r.getPenalty());
+                tuples.add(new DefaultTuple(bytes(userId.toString()), encode(r.getScore(), r.getPenalty())));
+                rowEntries.put(bytes(userId.toString()), bytes(objectMapper.writeValueAsString(row)));
+            }
+
+            Map<byte[], byte[]> cellEntries = new LinkedHashMap<>(cells.size());
+            for (ContestParticipationProblemRepository.LiveLeaderboardCellProjection c : cells) {
+                ContestProblemResultSdo cell = toCell(c.getProblemId(), c.getDisplayId(),
+                        c.getFailedAttempts(), c.getIsAc(), c.getMaxScore(), c.getPenalty());
+                cellEntries.put(bytes(c.getUserId() + ":" + c.getDisplayId()), bytes(objectMapper.writeValueAsString(cell)));
+            }
+
+            String buildSuffix = ":BUILD:" + UUID.randomUUID();
+            byte[] rankKey = bytes(key(contestId, "RANK") + buildSuffix);
+            byte[] rowsKey = bytes(key(contestId, "ROWS") + buildSuffix);
+            byte[] cellsKey = bytes(key(contestId, "CELLS") + buildSuffix);
+            byte[] problemsKey = bytes(key(contestId, "PROBLEMS") + buildSuffix);
+            String problemsJson = objectMapper.writeValueAsString(problems);
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                if (!tuples.isEmpty()) {
+                    connection.zSetCommands().zAdd(rankKey, tuples);
+                }
+                if (!rowEntries.isEmpty()) {
+                    connection.hashCommands().hMSet(rowsKey, rowEntries);
+                }
+                if (!cellEntries.isEmpty()) {
+                    connection.hashCommands().hMSet(cellsKey, cellEntries);
+                }
+                connection.stringCommands().set(problemsKey, bytes(problemsJson));
+                for (byte[] k : List.of(rankKey, rowsKey, cellsKey, problemsKey)) {
+                    connection.keyCommands().expire(k, BUILD_TTL_SECONDS);
+                }
+                return null;
+            });
+
+            List<String> keys = new ArrayList<>(boardKeys(contestId));
+            for (byte[] k : List.of(rankKey, rowsKey, cellsKey, problemsKey)) {
+                keys.add(new String(k, StandardCharsets.UTF_8));
+            }
+            Long published = redisTemplate.execute(PUBLISH_SCRIPT, keys, generation, String.valueOf(ttlSeconds()));
+            if (!Long.valueOf(1L).equals(published)) {
+                log.info("[Live Leaderboard] Contest {} was invalidated during rebuild, discarding", contestId);
+                return false;
+            }
+
+            log.info("[Live Leaderboard] Rebuilt contest {} with {} participants", contestId, rows.size());
+            return true;
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), lockToken);
+        }
+    }
+
+    // ============================================================
+    // HELPERS
+    // ============================================================
+
+    static double encode(Double score, Long penalty) {
+        long scoreUnits = Math.round((score != null ? score : 0.0) * SCORE_SCALE);
+        long p = penalty != null ? Math.max(0, Math.min(penalty, PENALTY_SPAN - 1)) : 0;
+        // Điểm cao hơn -> lớn hơn; cùng điểm thì penalty thấp hơn -> lớn hơn
+        return (double) (scoreUnits * PENALTY_SPAN + (PENALTY_SPAN - 1 - p));
+    }
+
+    private ContestLeaderboardPageSdo buildPage(List<ContestLeaderboardSdo> content, long total,
+                                                Pageable pageable, List<ContestProblemSdo> problems) {
+        int size = pageable.getPageSize();
+        return ContestLeaderboardPageSdo.builder()
+                .content(content)
+                .totalElements(total)
+                .totalPages(size == 0 ? 1 : (int) Math.ceil((double) total / size))
+                .size(size)
+                .number(pageable.getPageNumber())
+                .problems(problems)
+                .build();
+    }
+
+    private ContestProblemResultSdo toCell(UUID problemId, String displayId, Integer tries, Boolean isAc,
+                                           Double score, Long penalty) {
+        return ContestProblemResultSdo.builder()
+                .problemId(problemId)
+                .displayId(displayId)
+                .tries(tries != null ? tries : 0)
+                .isAc(Boolean.TRUE.equals(isAc))
+                .score(score != null ? score : 0.0)
+                .penalty(penalty == null || penalty == Long.MAX_VALUE ? 0L : penalty)
+                .build();
+    }
+
+    // Thứ tự khớp KEYS của APPLY_SCRIPT / INVALIDATE_SCRIPT / PUBLISH_SCRIPT
+    private List<String> boardKeys(UUID contestId) {
+        return List.of(key(contestId, "GEN"), key(contestId, "READY"), key(contestId, "RANK"),
+                key(contestId, "ROWS"), key(contestId, "CELLS"), key(contestId, "PROBLEMS"));
+    }
+
+    private long ttlSeconds() {
+        return TimeUnit.HOURS.toSeconds(ttlHours);
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private String key(UUID contestId, String part) {
+        return leaderboardPrefix + "LIVE:" + contestId + ":" + part;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
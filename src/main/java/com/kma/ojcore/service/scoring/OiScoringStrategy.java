@@ -22,6 +22,7 @@ public class OiScoringStrategy implements ContestScoringStrategy {
     private final ContestParticipationProblemRepository cppRepository;
     private final ContestParticipationRepository participationRepository;
     private final ContestProblemRepository contestProblemRepository;
+    private final ContestLiveLeaderboard liveLeaderboard;
 
     @Override
     @Transactional
@@ -72,6 +73,8 @@ public class OiScoringStrategy implements ContestScoringStrategy {
             cppRepository.save(cpp);
 
             participationRepository.addScoreAndPenalty(participation.getId(), scoreDiff, penaltyDiff);
+            liveLeaderboard.recordResult(participation.getId(), submission.getContest().getId(),
+                    submission.getUser().getId(), submission.getUser().getUsername(), cp, cpp, true);
 
             log.info("OI Score updated for User {}: +{} points, Penalty diff: {}", submission.getUser().getUsername(), scoreDiff, penaltyDiff);
         }
@@ -0,0 +1,102 @@
+package com.kma.ojcore.service.stats;
+
+import com.kma.ojcore.repository.BulkRecalculationJdbcRepository;
+import com.kma.ojcore.service.scoring.ContestLiveLeaderboard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Tính lại user_problem_status / users / problems / contest_participations sau khi soft-delete, void, restore
+ * hàng loạt submission. Key bị ảnh hưởng được chia thành các chunk, mỗi chunk 1 transaction ngắn
+ * với vài câu UPDATE ... JOIN temp table (xem {@link BulkRecalculationJdbcRepository}).
+ * <p>
+ * Thứ tự: user_problem_status -> users (đọc từ user_problem_status) -> problems -> contest_participations.
+ */
+@Service
+@Slf4j
+public class BulkRecalculationEngine {
+
+    private final BulkRecalculationJdbcRepository bulkRecalculationJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatsCounterBuffer statsCounterBuffer;
+    private final ContestLiveLeaderboard contestLiveLeaderboard;
+    private final int chunkSize;
+
+    public BulkRecalculationEngine(BulkRecalculationJdbcRepository bulkRecalculationJdbcRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   StatsCounterBuffer statsCounterBuffer,
+                                   ContestLiveLeaderboard contestLiveLeaderboard,
+                                   @Value("${oj.stats.recalculation.chunk-size:500}") int chunkSize) {
+        this.bulkRecalculationJdbcRepository = bulkRecalculationJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.statsCounterBuffer = statsCounterBuffer;
+        this.contestLiveLeaderboard = contestLiveLeaderboard;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * @param impacts các dòng {userId, problemId, contestId} như SubmissionRepository.findImpactedRelations trả về
+     */
+    public void recalculate(List<Object[]> impacts) {
+        Map<String, UUID[]> pairs = new LinkedHashMap<>();
+        Set<UUID> userIds = new LinkedHashSet<>();
+        Set<UUID> problemIds = new LinkedHashSet<>();
+        Map<String, UUID[]> participants = new LinkedHashMap<>();
+        Set<UUID> contestIds = new LinkedHashSet<>();
+
+        for (Object[] row : impacts) {
+            UUID userId = (UUID) row[0];
+            UUID problemId = (UUID) row[1];
+            UUID contestId = (UUID) row[2];
+
+            if (userId != null) userIds.add(userId);
+            if (problemId != null) problemIds.add(problemId);
+            if (userId != null && problemId != null) {
+                pairs.putIfAbsent(userId + "_" + problemId, new UUID[]{userId, problemId});
+            }
+            if (contestId != null && userId != null) {
+                contestIds.add(contestId);
+                participants.putIfAbsent(contestId + "_" + userId, new UUID[]{contestId, userId});
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        int statuses = inChunks(new ArrayList<>(pairs.values()),
+                bulkRecalculationJdbcRepository::recalculateUserProblemStatuses);
+        int users = inChunks(new ArrayList<>(userIds), chunk -> {
+            int updated = bulkRecalculationJdbcRepository.recalculateUserStats(chunk);
+            statsCounterBuffer.onRecalculated(chunk, List.of());
+            return updated;
+        });
+        int problems = inChunks(new ArrayList<>(problemIds), chunk -> {
+            int updated = bulkRecalculationJdbcRepository.recalculateProblemStats(chunk);
+            statsCounterBuffer.onRecalculated(List.of(), chunk);
+            return updated;
+        });
+        int scores = inChunks(new ArrayList<>(participants.values()),
+                bulkRecalculationJdbcRepository::recalculateParticipantScores);
+        contestIds.forEach(contestLiveLeaderboard::invalidate);
+
+        log.info("[Bulk Recalculation] Updated {} statuses, {} users, {} problems, {} participations in {} ms",
+                statuses, users, problems, scores, System.currentTimeMillis() - start);
+    }
+
+    private <T> int inChunks(List<T> keys, ChunkAction<T> action) {
+        int total = 0;
+        for (int i = 0; i < keys.size(); i += chunkSize) {
+            List<T> chunk = keys.subList(i, Math.min(i + chunkSize, keys.size()));
+            Integer updated = transactionTemplate.execute(status -> action.apply(chunk));
+            total += updated != null ? updated : 0;
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction<T> {
+        int apply(List<T> chunk);
+    }
+}
@@ -0,0 +1,56 @@
+package com.kma.ojcore.service.stats;
+
+import com.kma.ojcore.repository.StatsCounterJdbcRepository;
+import com.kma.ojcore.service.ranking.UserStatsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * mode = off: ghi thẳng counter xuống MySQL trong transaction của người gọi (hành vi cũ, không có độ trễ).
+ */
+@Component
+@ConditionalOnProperty(name = "oj.stats.write-behind.mode", havingValue = "off")
+@RequiredArgsConstructor
+public class DirectStatsCounterBuffer implements StatsCounterBuffer {
+
+    private final StatsCounterJdbcRepository statsCounterJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void record(Map<UUID, UserStatsDelta> userDeltas, Map<UUID, ProblemStatsDelta> problemDeltas) {
+        statsCounterJdbcRepository.applyUserDeltas(userDeltas);
+        statsCounterJdbcRepository.applyProblemDeltas(problemDeltas);
+        if (!userDeltas.isEmpty()) {
+            eventPublisher.publishEvent(new UserStatsChangedEvent(userDeltas.keySet()));
+        }
+    }
+
+    @Override
+    public UserStatsDelta pendingUserDelta(UUID userId) {
+        return new UserStatsDelta();
+    }
+
+    @Override
+    public Map<UUID, ProblemStatsDelta> pendingProblemDeltas(Collection<UUID> problemIds) {
+        return Map.of();
+    }
+
+    @Override
+    public void onRecalculated(Collection<UUID> userIds, Collection<UUID> problemIds) {
+        // Không có gì đang chờ, chỉ báo counter đã được tính lại
+        if (!userIds.isEmpty()) {
+            eventPublisher.publishEvent(new UserStatsChangedEvent(userIds));
+        }
+    }
+
+    @Override
+    public int flush() {
+        return 0;
+    }
+}
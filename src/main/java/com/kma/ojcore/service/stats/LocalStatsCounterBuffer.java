@@ -0,0 +1,164 @@
+package com.kma.ojcore.service.stats;
+
+import com.kma.ojcore.service.ranking.UserStatsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * mode = local: gom delta trong RAM, chia thành nhiều stripe (mỗi stripe 1 lock) để các thread
+ * nhận kết quả chấm không tranh nhau 1 lock chung. Flush thì tráo map của từng stripe rồi ghi 1 lần.
+ * <p>
+ * Đánh đổi so với mode redis (mặc định): không cần round trip Redis sau mỗi commit, nhưng delta chỉ nằm trong RAM
+ * của node này. Tắt êm thì {@link #flushOnShutdown()} ghi nốt, còn crash / kill giữa 2 lần flush sẽ mất tối đa
+ * 1 chu kỳ counter (recalculation dựng lại được trừ submission_count của user). Chỉ nên bật khi chấp nhận điều đó.
+ */
+@Component
+@ConditionalOnProperty(name = "oj.stats.write-behind.mode", havingValue = "local")
+@Slf4j
+public class LocalStatsCounterBuffer implements StatsCounterBuffer {
+
+    private final StatsFlushWriter statsFlushWriter;
+    private final StatsStampSource statsStampSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Stripe[] stripes;
+
+    public LocalStatsCounterBuffer(StatsFlushWriter statsFlushWriter,
+                                   StatsStampSource statsStampSource,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${oj.stats.write-behind.stripes:64}") int stripeCount) {
+        this.statsFlushWriter = statsFlushWriter;
+        this.statsStampSource = statsStampSource;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void record(Map<UUID, UserStatsDelta> userDeltas, Map<UUID, ProblemStatsDelta> problemDeltas) {
+        if (userDeltas.isEmpty() && problemDeltas.isEmpty()) return;
+        // Copy ngay để người gọi có sửa map sau đó cũng không ảnh hưởng tới phần áp dụng sau commit
+        long stamp = statsStampSource.next();
+        Map<UUID, UserStatsDelta> users = new HashMap<>();
+        userDeltas.forEach((id, d) -> users.put(id, d.copy().stamped(stamp, stamp)));
+        Map<UUID, ProblemStatsDelta> problems = new HashMap<>();
+        problemDeltas.forEach((id, d) -> problems.put(id, d.copy().stamped(stamp, stamp)));
+
+        StatsTransactionSupport.runAfterCommit(() -> addAll(users, problems));
+    }
+
+    @Override
+    public UserStatsDelta pendingUserDelta(UUID userId) {
+        Stripe stripe = stripeOf(userId);
+        synchronized (stripe) {
+            UserStatsDelta pending = stripe.users.get(userId);
+            return pending != null ? pending.copy() : new UserStatsDelta();
+        }
+    }
+
+    @Override
+    public Map<UUID, ProblemStatsDelta> pendingProblemDeltas(Collection<UUID> problemIds) {
+        Map<UUID, ProblemStatsDelta> result = new HashMap<>();
+        for (UUID problemId : problemIds) {
+            Stripe stripe = stripeOf(problemId);
+            synchronized (stripe) {
+                ProblemStatsDelta pending = stripe.problems.get(problemId);
+                if (pending != null) {
+                    result.put(problemId, pending.copy());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void onRecalculated(Collection<UUID> userIds, Collection<UUID> problemIds) {
+        // Phần delta đã nằm trong số tính lại được nhận ra theo stamp lúc flush (StatsFlushWriter)
+        if (!userIds.isEmpty()) {
+            eventPublisher.publishEvent(new UserStatsChangedEvent(List.copyOf(userIds)));
+        }
+    }
+
+    @Override
+    public int flush() {
+        // 1. Tráo map của từng stripe (giữ lock rất ngắn), gộp lại thành 1 snapshot
+        Map<UUID, UserStatsDelta> users = new HashMap<>();
+        Map<UUID, ProblemStatsDelta> problems = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<UUID, UserStatsDelta> stripeUsers;
+            Map<UUID, ProblemStatsDelta> stripeProblems;
+            synchronized (stripe) {
+                if (stripe.users.isEmpty() && stripe.problems.isEmpty()) continue;
+                stripeUsers = stripe.users;
+                stripeProblems = stripe.problems;
+                stripe.users = new HashMap<>();
+                stripe.problems = new HashMap<>();
+            }
+            users.putAll(stripeUsers);
+            problems.putAll(stripeProblems);
+        }
+        if (users.isEmpty() && problems.isEmpty()) return 0;
+
+        // 2. Ghi 1 transaction; lỗi thì trả delta về buffer để lần sau flush lại
+        try {
+            transactionTemplate.executeWithoutResult(status -> statsFlushWriter.write(users, problems));
+        } catch (RuntimeException e) {
+            log.error("[Stats Buffer] Flush thất bại ({} users, {} problems), giữ lại để thử lại: {}",
+                    users.size(), problems.size(), e.getMessage());
+            addAll(users, problems);
+            throw e;
+        }
+        if (!users.isEmpty()) {
+            eventPublisher.publishEvent(new UserStatsChangedEvent(users.keySet()));
+        }
+        return users.size() + problems.size();
+    }
+
+    // Tắt ứng dụng: cố gắng flush lần cuối để không mất delta trong RAM
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            int flushed = flush();
+            if (flushed > 0) {
+                log.info("[Stats Buffer] Flushed {} rows on shutdown", flushed);
+            }
+        } catch (Exception e) {
+            log.error("[Stats Buffer] Flush on shutdown failed: {}", e.getMessage());
+        }
+    }
+
+    private void addAll(Map<UUID, UserStatsDelta> users, Map<UUID, ProblemStatsDelta> problems) {
+        users.forEach((userId, delta) -> {
+            Stripe stripe = stripeOf(userId);
+            synchronized (stripe) {
+                stripe.users.computeIfAbsent(userId, k -> new UserStatsDelta()).merge(delta);
+            }
+        });
+        problems.forEach((problemId, delta) -> {
+            Stripe stripe = stripeOf(problemId);
+            synchronized (stripe) {
+                stripe.problems.computeIfAbsent(problemId, k -> new ProblemStatsDelta()).merge(delta);
+            }
+        });
+    }
+
+    private Stripe stripeOf(UUID id) {
+        return stripes[Math.floorMod(id.hashCode(), stripes.length)];
+    }
+
+    private static final class Stripe {
+        Map<UUID, UserStatsDelta> users = new HashMap<>();
+        Map<UUID, ProblemStatsDelta> problems = new HashMap<>();
+    }
+}
@@ -0,0 +1,58 @@
+package com.kma.ojcore.service.stats;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lượng thay đổi cộng dồn cho các counter của 1 problem (submission_count, accepted_count).
+ * <p>
+ * {@code minStamp}/{@code maxStamp}: khoảng stamp ({@link com.kma.ojcore.repository.StatsCounterJdbcRepository#nextStamp})
+ * của các kết quả chấm đã gộp vào delta (null = không rõ, luôn áp dụng). Lúc flush đem so với problems.stats_epoch
+ * để biết phần nào đã nằm trong lần recalculation gần nhất.
+ */
+@Getter
+@NoArgsConstructor
+public class ProblemStatsDelta {
+
+    private long submissionCount;
+    private long acceptedCount;
+    private Long minStamp;
+    private Long maxStamp;
+
+    public ProblemStatsDelta(long submissionCount, long acceptedCount) {
+        this.submissionCount = submissionCount;
+        this.acceptedCount = acceptedCount;
+    }
+
+    public ProblemStatsDelta addSubmission() {
+        submissionCount++;
+        return this;
+    }
+
+    public ProblemStatsDelta addAccepted() {
+        acceptedCount++;
+        return this;
+    }
+
+    public ProblemStatsDelta stamped(Long minStamp, Long maxStamp) {
+        this.minStamp = minStamp;
+        this.maxStamp = maxStamp;
+        return this;
+    }
+
+    public ProblemStatsDelta merge(ProblemStatsDelta other) {
+        submissionCount += other.submissionCount;
+        acceptedCount += other.acceptedCount;
+        minStamp = StampRange.min(minStamp, other.minStamp);
+        maxStamp = StampRange.max(maxStamp, other.maxStamp);
+        return this;
+    }
+
+    public ProblemStatsDelta copy() {
+        return new ProblemStatsDelta(submissionCount, acceptedCount).stamped(minStamp, maxStamp);
+    }
+
+    public boolean isEmpty() {
+        return submissionCount == 0 && acceptedCount == 0;
+    }
+}
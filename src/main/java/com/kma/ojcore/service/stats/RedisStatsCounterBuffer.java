@@ -0,0 +1,271 @@
+package com.kma.ojcore.service.stats;
+
+import com.kma.ojcore.repository.StatsCounterJdbcRepository;
+import com.kma.ojcore.service.ranking.UserStatsChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * mode = redis: delta được HINCRBY vào 1 hash chung trên Redis, dùng được khi chạy nhiều node.
+ * <p>
+ * Flush an toàn khi crash:
+ * <ol>
+ *     <li>RENAME hash PENDING -> BATCH:{batchId} và ghi batchId vào set FLUSHING (1 Lua script, nguyên tử).</li>
+ *     <li>1 transaction MySQL: INSERT IGNORE stats_flush_log(batchId) + UPDATE counter. Lô đã có trong log thì bỏ qua.</li>
+ *     <li>Commit xong mới xóa BATCH key và gỡ khỏi set FLUSHING.</li>
+ * </ol>
+ * Chết ở bất kỳ bước nào thì lô vẫn nằm trong set FLUSHING, lần flush sau (node nào cũng được) sẽ replay lại
+ * và stats_flush_log đảm bảo không cộng 2 lần.
+ * <p>
+ * Mỗi user/problem giữ thêm 2 field {@code :lo}/{@code :hi} = khoảng stamp của các kết quả đã gộp, lúc flush
+ * {@link StatsFlushWriter} đối chiếu với stats_epoch.
+ */
+@Component
+@ConditionalOnProperty(name = "oj.stats.write-behind.mode", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class RedisStatsCounterBuffer implements StatsCounterBuffer {
+
+    private static final String USER_PREFIX = "u:";
+    private static final String PROBLEM_PREFIX = "p:";
+    private static final String SUBMISSION = ":s";
+    private static final String AC = ":a";
+    private static final String SOLVED = ":v";
+    private static final String SCORE = ":t";
+    private static final String MIN_STAMP = ":lo";
+    private static final String MAX_STAMP = ":hi";
+
+    // ARGV theo nhóm 6: base, stamp, submission, ac, solved, score. Stamp lớn hơn 2^53 nên so sánh dạng chuỗi số
+    // (dài hơn thì lớn hơn) thay vì tonumber của Lua.
+    private static final DefaultRedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "local function less(a, b) if #a ~= #b then return #a < #b end return a < b end " +
+                    "for i = 1, #ARGV, 6 do " +
+                    "local base = ARGV[i] " +
+                    "local stamp = ARGV[i + 1] " +
+                    "local lo = redis.call('HGET', KEYS[1], base .. ':lo') " +
+                    "if not lo or less(stamp, lo) then redis.call('HSET', KEYS[1], base .. ':lo', stamp) end " +
+                    "local hi = redis.call('HGET', KEYS[1], base .. ':hi') " +
+                    "if not hi or less(hi, stamp) then redis.call('HSET', KEYS[1], base .. ':hi', stamp) end " +
+                    "if ARGV[i + 2] ~= '0' then redis.call('HINCRBY', KEYS[1], base .. ':s', ARGV[i + 2]) end " +
+                    "if ARGV[i + 3] ~= '0' then redis.call('HINCRBY', KEYS[1], base .. ':a', ARGV[i + 3]) end " +
+                    "if ARGV[i + 4] ~= '0' then redis.call('HINCRBY', KEYS[1], base .. ':v', ARGV[i + 4]) end " +
+                    "if tonumber(ARGV[i + 5]) ~= 0 then redis.call('HINCRBYFLOAT', KEYS[1], base .. ':t', ARGV[i + 5]) end " +
+                    "end " +
+                    "return 1", Long.class);
+
+    private static final DefaultRedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+                    "redis.call('RENAME', KEYS[1], KEYS[2]) " +
+                    "redis.call('SADD', KEYS[3], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final StatsCounterJdbcRepository statsCounterJdbcRepository;
+    private final StatsFlushWriter statsFlushWriter;
+    private final StatsStampSource statsStampSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String keyPrefix;
+
+    public RedisStatsCounterBuffer(RedisTemplate<String, String> redisTemplate,
+                                   StatsCounterJdbcRepository statsCounterJdbcRepository,
+                                   StatsFlushWriter statsFlushWriter,
+                                   StatsStampSource statsStampSource,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${oj.redis.prefix.stats:STATS_COUNTER:}") String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.statsCounterJdbcRepository = statsCounterJdbcRepository;
+        this.statsFlushWriter = statsFlushWriter;
+        this.statsStampSource = statsStampSource;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public void record(Map<UUID, UserStatsDelta> userDeltas, Map<UUID, ProblemStatsDelta> problemDeltas) {
+        Map<UUID, UserStatsDelta> users = new HashMap<>();
+        userDeltas.forEach((id, d) -> { if (!d.isEmpty()) users.put(id, d.copy()); });
+        Map<UUID, ProblemStatsDelta> problems = new HashMap<>();
+        problemDeltas.forEach((id, d) -> { if (!d.isEmpty()) problems.put(id, d.copy()); });
+        if (users.isEmpty() && problems.isEmpty()) return;
+
+        long stamp = statsStampSource.next();
+        users.values().forEach(d -> d.stamped(stamp, stamp));
+        problems.values().forEach(d -> d.stamped(stamp, stamp));
+
+        StatsTransactionSupport.runAfterCommit(() -> {
+            try {
+                increment(users, problems);
+            } catch (DataAccessException e) {
+                // Redis lỗi: ghi thẳng xuống MySQL để không mất counter
+                log.error("[Stats Buffer] Redis unavailable, applying {} user / {} problem deltas directly: {}",
+                        users.size(), problems.size(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> statsFlushWriter.write(users, problems));
+                if (!users.isEmpty()) {
+                    eventPublisher.publishEvent(new UserStatsChangedEvent(users.keySet()));
+                }
+            }
+        });
+    }
+
+    @Override
+    public UserStatsDelta pendingUserDelta(UUID userId) {
+        String base = USER_PREFIX + userId;
+        try {
+            List<Object> values = redisTemplate.opsForHash().multiGet(pendingKey(),
+                    List.<Object>of(base + SUBMISSION, base + AC, base + SOLVED, base + SCORE));
+            return new UserStatsDelta(toLong(values.get(0)), toLong(values.get(1)), toLong(values.get(2)), toDouble(values.get(3)));
+        } catch (DataAccessException e) {
+            log.warn("[Stats Buffer] Cannot read pending delta of user {}: {}", userId, e.getMessage());
+            return new UserStatsDelta();
+        }
+    }
+
+    @Override
+    public Map<UUID, ProblemStatsDelta> pendingProblemDeltas(Collection<UUID> problemIds) {
+        if (problemIds.isEmpty()) return Map.of();
+        List<UUID> ids = List.copyOf(problemIds);
+        List<Object> fields = new ArrayList<>(ids.size() * 2);
+        for (UUID id : ids) {
+            fields.add(PROBLEM_PREFIX + id + SUBMISSION);
+            fields.add(PROBLEM_PREFIX + id + AC);
+        }
+        Map<UUID, ProblemStatsDelta> result = new HashMap<>();
+        try {
+            List<Object> values = redisTemplate.opsForHash().multiGet(pendingKey(), fields);
+            for (int i = 0; i < ids.size(); i++) {
+                ProblemStatsDelta delta = new ProblemStatsDelta(toLong(values.get(2 * i)), toLong(values.get(2 * i + 1)));
+                if (!delta.isEmpty()) {
+                    result.put(ids.get(i), delta);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("[Stats Buffer] Cannot read pending problem deltas: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public void onRecalculated(Collection<UUID> userIds, Collection<UUID> problemIds) {
+        // Phần delta (đang chờ hay đang nằm trong lô BATCH) đã nằm trong số tính lại được nhận ra theo stamp lúc flush
+        if (!userIds.isEmpty()) {
+            eventPublisher.publishEvent(new UserStatsChangedEvent(List.copyOf(userIds)));
+        }
+    }
+
+    @Override
+    public int flush() {
+        int applied = 0;
+
+        // 1. Replay các lô còn sót lại (node khác chết giữa chừng, hoặc lần trước lỗi MySQL)
+        Set<String> leftovers = redisTemplate.opsForSet().members(flushingKey());
+        if (leftovers != null) {
+            for (String batchId : leftovers) {
+                applied += applyBatch(batchId);
+            }
+        }
+
+        // 2. Chốt hash PENDING hiện tại thành 1 lô mới rồi áp dụng
+        String batchId = UUID.randomUUID().toString();
+        Long rotated = redisTemplate.execute(ROTATE_SCRIPT,
+                List.of(pendingKey(), batchKey(batchId), flushingKey()), batchId);
+        if (rotated != null && rotated == 1L) {
+            applied += applyBatch(batchId);
+        }
+        return applied;
+    }
+
+    private int applyBatch(String batchId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(batchKey(batchId));
+
+        Map<UUID, UserStatsDelta> users = new HashMap<>();
+        Map<UUID, ProblemStatsDelta> problems = new HashMap<>();
+        entries.forEach((field, value) -> parseField((String) field, (String) value, users, problems));
+
+        Boolean applied = transactionTemplate.execute(status -> {
+            if (!statsCounterJdbcRepository.markFlushBatchApplied(batchId)) {
+                log.info("[Stats Buffer] Batch {} already applied, skipping replay", batchId);
+                return false;
+            }
+            statsFlushWriter.write(users, problems);
+            return true;
+        });
+
+        // MySQL đã commit (hoặc lô đã áp dụng từ trước) -> dọn lô trên Redis
+        redisTemplate.delete(batchKey(batchId));
+        redisTemplate.opsForSet().remove(flushingKey(), batchId);
+        if (Boolean.TRUE.equals(applied) && !users.isEmpty()) {
+            eventPublisher.publishEvent(new UserStatsChangedEvent(users.keySet()));
+        }
+        return Boolean.TRUE.equals(applied) ? users.size() + problems.size() : 0;
+    }
+
+    private void increment(Map<UUID, UserStatsDelta> users, Map<UUID, ProblemStatsDelta> problems) {
+        List<String> args = new ArrayList<>((users.size() + problems.size()) * 6);
+        users.forEach((userId, d) -> Collections.addAll(args, USER_PREFIX + userId, d.getMinStamp().toString(),
+                Long.toString(d.getSubmissionCount()), Long.toString(d.getAcCount()),
+                Long.toString(d.getSolvedCount()), Double.toString(d.getTotalScore())));
+        problems.forEach((problemId, d) -> Collections.addAll(args, PROBLEM_PREFIX + problemId, d.getMinStamp().toString(),
+                Long.toString(d.getSubmissionCount()), Long.toString(d.getAcceptedCount()), "0", "0"));
+        redisTemplate.execute(RECORD_SCRIPT, List.of(pendingKey()), args.toArray());
+    }
+
+    // Field dạng "u:<uuid>:s" / "p:<uuid>:a" / "u:<uuid>:lo"
+    private static void parseField(String field, String value,
+                                   Map<UUID, UserStatsDelta> users, Map<UUID, ProblemStatsDelta> problems) {
+        int sep = field.lastIndexOf(':');
+        UUID id = UUID.fromString(field.substring(2, sep));
+        String counter = field.substring(sep);
+        if (field.startsWith(USER_PREFIX)) {
+            UserStatsDelta delta = users.computeIfAbsent(id, k -> new UserStatsDelta());
+            switch (counter) {
+                case SUBMISSION -> delta.merge(new UserStatsDelta(toLong(value), 0, 0, 0.0));
+                case AC -> delta.merge(new UserStatsDelta(0, toLong(value), 0, 0.0));
+                case SOLVED -> delta.merge(new UserStatsDelta(0, 0, toLong(value), 0.0));
+                case SCORE -> delta.addScore(toDouble(value));
+                case MIN_STAMP -> delta.merge(new UserStatsDelta().stamped(toLong(value), null));
+                case MAX_STAMP -> delta.merge(new UserStatsDelta().stamped(null, toLong(value)));
+                default -> log.warn("[Stats Buffer] Unknown counter field {}", field);
+            }
+        } else {
+            ProblemStatsDelta delta = problems.computeIfAbsent(id, k -> new ProblemStatsDelta());
+            switch (counter) {
+                case SUBMISSION -> delta.merge(new ProblemStatsDelta(toLong(value), 0));
+                case AC -> delta.merge(new ProblemStatsDelta(0, toLong(value)));
+                case MIN_STAMP -> delta.merge(new ProblemStatsDelta().stamped(toLong(value), null));
+                case MAX_STAMP -> delta.merge(new ProblemStatsDelta().stamped(null, toLong(value)));
+                default -> log.warn("[Stats Buffer] Unknown counter field {}", field);
+            }
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? Double.parseDouble(value.toString()) : 0.0;
+    }
+
+    private String pendingKey() {
+        return keyPrefix + "PENDING";
+    }
+
+    private String flushingKey() {
+        return keyPrefix + "FLUSHING";
+    }
+
+    private String batchKey(String batchId) {
+        return keyPrefix + "BATCH:" + batchId;
+    }
+}
@@ -0,0 +1,64 @@
+package com.kma.ojcore.service.stats;
+
+import com.kma.ojcore.entity.User;
+import com.kma.ojcore.enums.RoleName;
+import com.kma.ojcore.repository.StaffFlagJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Giữ users.is_staff / submissions.is_staff khớp với role: ranking, thống kê verdict, danh sách submission
+ * và listener kết quả chấm lọc staff theo cột này thay vì JOIN user_roles -> roles.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaffFlagSynchronizer {
+
+    private final StaffFlagJdbcRepository staffFlagJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Gọi trong transaction đổi role, sau khi đã gán roles mới cho entity.
+     */
+    public void applyRoles(User user) {
+        boolean staff = RoleName.containsStaff(user.getRoles().stream().map(r -> r.getName()).toList());
+        if (Boolean.valueOf(staff).equals(user.getStaff())) return;
+
+        user.setStaff(staff);
+        int updated = staffFlagJdbcRepository.updateSubmissionFlags(user.getId(), staff);
+        log.info("User {} is_staff -> {} ({} submissions updated)", user.getId(), staff, updated);
+    }
+
+    /**
+     * Backfill lúc khởi động: lần đầu sau khi thêm cột thì sửa toàn bộ staff hiện có, các lần sau gần như không có việc.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                List<UUID> stale = staffFlagJdbcRepository.findUsersWithStaleFlag();
+                for (UUID userId : stale) {
+                    // Mỗi user 1 transaction ngắn, không khóa cả bảng submissions
+                    transactionTemplate.executeWithoutResult(status -> {
+                        boolean staff = staffFlagJdbcRepository.refreshUserFlag(userId);
+                        staffFlagJdbcRepository.updateSubmissionFlags(userId, staff);
+                    });
+                }
+                if (!stale.isEmpty()) {
+                    log.info("[Staff Flag] Backfilled is_staff for {} users", stale.size());
+                }
+            } catch (Exception e) {
+                log.error("[Staff Flag] Backfill failed: {}", e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.kma.ojcore.service.stats;
+
+/**
+ * Vị trí của khoảng stamp [min, max] của 1 delta so với stats_epoch (stamp của lần recalculation gần nhất) của row.
+ */
+enum StampRange {
+
+    // Mọi kết quả chấm trong delta commit sau recalculation -> cộng hết
+    AFTER_RECALCULATION,
+    // Đã nằm trọn trong số recalculation tính lại -> chỉ còn submission_count của user
+    BEFORE_RECALCULATION,
+    // Có recalculation xen giữa các kết quả đã gộp -> không tách được, tính lại row đó
+    SPANS_RECALCULATION;
+
+    static StampRange of(Long minStamp, Long maxStamp, Long statsEpoch) {
+        if (minStamp == null || maxStamp == null || statsEpoch == null || minStamp > statsEpoch) {
+            return AFTER_RECALCULATION;
+        }
+        return maxStamp < statsEpoch ? BEFORE_RECALCULATION : SPANS_RECALCULATION;
+    }
+
+    static Long min(Long a, Long b) {
+        if (a == null) return b;
+        return b == null ? a : Math.min(a, b);
+    }
+
+    static Long max(Long a, Long b) {
+        if (a == null) return b;
+        return b == null ? a : Math.max(a, b);
+    }
+}
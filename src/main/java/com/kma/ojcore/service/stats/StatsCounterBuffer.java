@@ -0,0 +1,50 @@
+package com.kma.ojcore.service.stats;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bộ đệm write-behind cho các counter thống kê của users/problems.
+ * <p>
+ * Thay vì mỗi kết quả chấm UPDATE thẳng row users/problems (tranh chấp row lock khi bài hot),
+ * delta được gom lại và flush xuống MySQL định kỳ, mỗi row 1 câu UPDATE.
+ * Chế độ chọn bằng {@code oj.stats.write-behind.mode}: redis (mặc định) | local | off.
+ * <p>
+ * Mọi lần counter user thực sự đổi trong MySQL (flush, ghi thẳng, recalculation) đều phát
+ * {@link com.kma.ojcore.service.ranking.UserStatsChangedEvent} để bảng xếp hạng trong RAM cập nhật theo.
+ */
+public interface StatsCounterBuffer {
+
+    /**
+     * Ghi nhận delta. Trong transaction thì chỉ áp dụng sau khi commit (rollback không để lại delta ảo).
+     * Chế độ write-behind gắn stamp vào delta (xem {@link StatsFlushWriter}), không đọc / khóa row users, problems.
+     * Gọi sau khi đã ghi xong submission / user_problem_status của kết quả trong transaction.
+     */
+    void record(Map<UUID, UserStatsDelta> userDeltas, Map<UUID, ProblemStatsDelta> problemDeltas);
+
+    /**
+     * Delta chưa flush của 1 user, dùng để cộng vào giá trị đọc từ DB. Không có thì trả về delta rỗng.
+     */
+    UserStatsDelta pendingUserDelta(UUID userId);
+
+    /**
+     * Delta chưa flush của nhiều problem (chỉ chứa problem có delta).
+     */
+    Map<UUID, ProblemStatsDelta> pendingProblemDeltas(Collection<UUID> problemIds);
+
+    /**
+     * Báo counter của các user/problem vừa được recalculateUserStats/recalculateProblemStats tính lại tuyệt đối.
+     * <p>
+     * Không cần xoá delta đang chờ: recalculation ghi stamp mới vào stats_epoch trong cùng câu UPDATE, lúc flush
+     * phần delta có stamp nhỏ hơn (kể cả đang nằm trong lô flush dở hay trên node khác) bị bỏ, phần lớn hơn vẫn được cộng.
+     */
+    void onRecalculated(Collection<UUID> userIds, Collection<UUID> problemIds);
+
+    /**
+     * Flush delta đang chờ xuống MySQL.
+     *
+     * @return số row users + problems đã được cập nhật
+     */
+    int flush();
+}
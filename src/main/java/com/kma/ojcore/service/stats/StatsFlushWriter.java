@@ -0,0 +1,66 @@
+package com.kma.ojcore.service.stats;
+
+import com.kma.ojcore.repository.ProblemRepository;
+import com.kma.ojcore.repository.StatsCounterJdbcRepository;
+import com.kma.ojcore.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Ghi 1 lô delta write-behind xuống MySQL, đối chiếu khoảng stamp của từng delta với stats_epoch của row.
+ * <p>
+ * Recalculation đọc dữ liệu nguồn (user_problem_status, submissions) bằng locking read rồi mới ghi stamp vào
+ * stats_epoch, còn kết quả chấm lấy stamp sau khi đã ghi xong các row nguồn đó. Vì vậy stamp nhỏ hơn stats_epoch
+ * nghĩa là kết quả đã nằm trong số được tính lại, lớn hơn nghĩa là chưa.
+ * <p>
+ * Phải gọi trong transaction: các row được khóa X từ lúc đọc stats_epoch tới lúc UPDATE.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsFlushWriter {
+
+    private final StatsCounterJdbcRepository statsCounterJdbcRepository;
+    private final UserRepository userRepository;
+    private final ProblemRepository problemRepository;
+
+    public void write(Map<UUID, UserStatsDelta> users, Map<UUID, ProblemStatsDelta> problems) {
+        Map<UUID, Long> userEpochs = statsCounterJdbcRepository.lockUserEpochs(users.keySet());
+        Map<UUID, Long> problemEpochs = statsCounterJdbcRepository.lockProblemEpochs(problems.keySet());
+
+        Map<UUID, UserStatsDelta> userWrites = new HashMap<>();
+        List<UUID> userRecalculations = new ArrayList<>();
+        users.forEach((userId, delta) -> {
+            StampRange range = StampRange.of(delta.getMinStamp(), delta.getMaxStamp(), userEpochs.get(userId));
+            // submission_count không được recalculation tính lại nên luôn cộng
+            userWrites.put(userId, range == StampRange.AFTER_RECALCULATION ? delta : delta.copy().clearRecalculatedCounters());
+            if (range == StampRange.SPANS_RECALCULATION) {
+                userRecalculations.add(userId);
+            }
+        });
+
+        Map<UUID, ProblemStatsDelta> problemWrites = new HashMap<>();
+        List<UUID> problemRecalculations = new ArrayList<>();
+        problems.forEach((problemId, delta) -> {
+            switch (StampRange.of(delta.getMinStamp(), delta.getMaxStamp(), problemEpochs.get(problemId))) {
+                case AFTER_RECALCULATION -> problemWrites.put(problemId, delta);
+                case SPANS_RECALCULATION -> problemRecalculations.add(problemId);
+                case BEFORE_RECALCULATION -> { }
+            }
+        });
+
+        statsCounterJdbcRepository.applyUserDeltas(userWrites);
+        statsCounterJdbcRepository.applyProblemDeltas(problemWrites);
+
+        // Hiếm: có recalculation commit xen giữa các kết quả đã gộp trong lô -> tính lại tuyệt đối ngay trong lô
+        if (!userRecalculations.isEmpty() || !problemRecalculations.isEmpty()) {
+            log.info("[Stats Buffer] Recalculating {} users / {} problems whose deltas span a recalculation",
+                    userRecalculations.size(), problemRecalculations.size());
+            userRecalculations.forEach(userRepository::recalculateUserStats);
+            problemRecalculations.forEach(problemRepository::recalculateProblemStats);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.kma.ojcore.service.stats;
+
+import com.kma.ojcore.repository.StatsCounterJdbcRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cấp stamp cho delta của 1 transaction chấm bài (xem {@link StatsFlushWriter}). Không đọc / khóa row counter nào.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsStampSource {
+
+    private final StatsCounterJdbcRepository statsCounterJdbcRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Stamp phải lấy SAU khi submission / user_problem_status của kết quả đã thực sự ghi xuống MySQL,
+     * nên đẩy các thay đổi Hibernate đang giữ trong session xuống trước.
+     */
+    public long next() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+        return statsCounterJdbcRepository.nextStamp();
+    }
+}
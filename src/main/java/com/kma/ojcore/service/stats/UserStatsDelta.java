@@ -0,0 +1,83 @@
+package com.kma.ojcore.service.stats;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lượng thay đổi cộng dồn cho các counter của 1 user (submission_count, ac_count, solved_count, total-score).
+ * <p>
+ * {@code minStamp}/{@code maxStamp}: khoảng stamp của các kết quả chấm đã gộp vào, xem {@link ProblemStatsDelta}.
+ */
+@Getter
+@NoArgsConstructor
+public class UserStatsDelta {
+
+    private long submissionCount;
+    private long acCount;
+    private long solvedCount;
+    private double totalScore;
+    private Long minStamp;
+    private Long maxStamp;
+
+    public UserStatsDelta(long submissionCount, long acCount, long solvedCount, double totalScore) {
+        this.submissionCount = submissionCount;
+        this.acCount = acCount;
+        this.solvedCount = solvedCount;
+        this.totalScore = totalScore;
+    }
+
+    public UserStatsDelta addSubmission() {
+        submissionCount++;
+        return this;
+    }
+
+    public UserStatsDelta addAc() {
+        acCount++;
+        return this;
+    }
+
+    public UserStatsDelta addSolved() {
+        solvedCount++;
+        return this;
+    }
+
+    public UserStatsDelta addScore(double scoreDiff) {
+        totalScore += scoreDiff;
+        return this;
+    }
+
+    public UserStatsDelta stamped(Long minStamp, Long maxStamp) {
+        this.minStamp = minStamp;
+        this.maxStamp = maxStamp;
+        return this;
+    }
+
+    public UserStatsDelta merge(UserStatsDelta other) {
+        submissionCount += other.submissionCount;
+        acCount += other.acCount;
+        solvedCount += other.solvedCount;
+        totalScore += other.totalScore;
+        minStamp = StampRange.min(minStamp, other.minStamp);
+        maxStamp = StampRange.max(maxStamp, other.maxStamp);
+        return this;
+    }
+
+    /**
+     * recalculateUserStats tính lại ac_count, solved_count, total-score nhưng KHÔNG tính lại submission_count
+     * -> chỉ bỏ 3 counter đó, giữ nguyên số submission đang chờ.
+     */
+    public UserStatsDelta clearRecalculatedCounters() {
+        acCount = 0;
+        solvedCount = 0;
+        totalScore = 0.0;
+        return this;
+    }
+
+    public UserStatsDelta copy() {
+        return new UserStatsDelta(submissionCount, acCount, solvedCount, totalScore).stamped(minStamp, maxStamp);
+    }
+
+    public boolean isEmpty() {
+        return submissionCount == 0 && acCount == 0 && solvedCount == 0 && totalScore == 0.0;
+    }
+}
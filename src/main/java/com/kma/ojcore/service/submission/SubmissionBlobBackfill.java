@@ -0,0 +1,96 @@
+package com.kma.ojcore.service.submission;
+
+import com.kma.ojcore.repository.SubmissionBlobJdbcRepository;
+import com.kma.ojcore.repository.SubmissionBlobJdbcRepository.HashAssignment;
+import com.kma.ojcore.repository.SubmissionBlobJdbcRepository.LegacyContentRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Chuyển source code / log lỗi từ 2 cột TEXT cũ của submissions sang submission_blobs.
+ * <ol>
+ *   <li>Khi khởi động (trước khi nhận request): nếu source_code còn NOT NULL thì đổi thành NULL,
+ *       vì entity không còn ghi cột này. Bảng lớn nên chạy trước bằng migrations/submission-blobs.sql.</li>
+ *   <li>Sau khi app sẵn sàng: chạy nền theo lô (keyset theo id), mỗi lô 1 transaction; dừng giữa chừng thì
+ *       lần khởi động sau chạy tiếp từ các dòng chưa có source_hash.</li>
+ * </ol>
+ * Khi cột cũ đã bị xoá thì không làm gì.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubmissionBlobBackfill implements SmartInitializingSingleton {
+
+    private final SubmissionBlobJdbcRepository blobRepository;
+    private final SubmissionBlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${oj.submission.blob.backfill-batch-size}")
+    private int batchSize;
+
+    private volatile boolean legacyColumnsPresent;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String nullable = blobRepository.legacySourceColumnNullable();
+        legacyColumnsPresent = nullable != null;
+        if ("NO".equals(nullable)) {
+            log.warn("[Submission Blob] submissions.source_code is NOT NULL, relaxing it before accepting requests");
+            blobRepository.relaxLegacySourceColumn();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!legacyColumnsPresent) return;
+        CompletableFuture.runAsync(() -> {
+            try {
+                long moved = 0;
+                UUID cursor = new UUID(0L, 0L);
+                while (true) {
+                    List<LegacyContentRow> batch = blobRepository.findLegacyBatch(cursor, batchSize);
+                    if (batch.isEmpty()) break;
+                    transactionTemplate.executeWithoutResult(status -> moveBatch(batch));
+                    moved += batch.size();
+                    cursor = batch.get(batch.size() - 1).id();
+                }
+                if (moved > 0) {
+                    log.info("[Submission Blob] Moved content of {} submissions to submission_blobs", moved);
+                }
+                log.info("[Submission Blob] Legacy columns are empty, drop them with migrations/submission-blobs.sql");
+            } catch (Exception e) {
+                log.error("[Submission Blob] Backfill failed, will resume on next startup: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void moveBatch(List<LegacyContentRow> batch) {
+        List<String> texts = new ArrayList<>(batch.size() * 2);
+        for (LegacyContentRow row : batch) {
+            // Dòng hỏng không có source vẫn phải có hash, nếu không sẽ bị quét lại mãi
+            texts.add(row.sourceCode() != null ? row.sourceCode() : "");
+            texts.add(row.errorMessage());
+        }
+        Map<String, String> hashByText = blobStore.storeAll(texts);
+
+        List<HashAssignment> updates = new ArrayList<>(batch.size());
+        for (LegacyContentRow row : batch) {
+            String sourceHash = hashByText.get(row.sourceCode() != null ? row.sourceCode() : "");
+            String errorHash = row.errorMessage() != null ? hashByText.get(row.errorMessage()) : null;
+            updates.add(new HashAssignment(row.id(), sourceHash, errorHash));
+        }
+        blobRepository.attachHashes(updates);
+    }
+}
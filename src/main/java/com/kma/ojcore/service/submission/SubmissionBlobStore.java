@@ -0,0 +1,224 @@
+package com.kma.ojcore.service.submission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kma.ojcore.entity.Submission;
+import com.kma.ojcore.repository.SubmissionBlobJdbcRepository;
+import com.kma.ojcore.repository.SubmissionBlobJdbcRepository.BlobRow;
+import com.kma.ojcore.repository.SubmissionBlobJdbcRepository.LegacyContentRow;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Lưu / đọc source code và log lỗi của submission theo hash nội dung (xem {@link com.kma.ojcore.entity.SubmissionBlob}).
+ * <ul>
+ *   <li>Ghi: SHA-256 nội dung gốc làm khoá, nén deflate nếu có lợi, INSERT IGNORE (trùng = đã có sẵn).</li>
+ *   <li>Đọc: chỉ nơi thật sự cần nội dung (chi tiết submission, dựng payload chấm lại...). Blob bất biến nên
+ *       cache Caffeine trong RAM không bao giờ cần invalidate.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubmissionBlobStore {
+
+    private static final byte CODEC_RAW = 0;
+    private static final byte CODEC_DEFLATE = 1;
+    // Nội dung quá ngắn nén không lợi, lưu nguyên
+    private static final int MIN_COMPRESS_BYTES = 128;
+
+    private final SubmissionBlobJdbcRepository blobRepository;
+
+    @Value("${oj.submission.blob.cache-max-bytes}")
+    private long cacheMaxBytes;
+
+    // hash -> nội dung đã giải nén
+    private Cache<String, String> cache;
+
+    @PostConstruct
+    void init() {
+        // Giới hạn theo dung lượng: log lỗi không giới hạn độ dài, đếm theo số entry thì không chặn được heap
+        cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .<String, String>weigher((hash, text) -> hash.length() + 2 * text.length())
+                .build();
+    }
+
+    /**
+     * @return hash của nội dung, null nếu {@code text} null
+     */
+    public String store(String text) {
+        if (text == null) return null;
+        return storeAll(List.of(text)).get(text);
+    }
+
+    /**
+     * Ghi nhiều nội dung trong 1 lần batch (chạy trong transaction hiện tại nếu có).
+     *
+     * @return nội dung -> hash, bỏ qua phần tử null
+     */
+    public Map<String, String> storeAll(Collection<String> texts) {
+        Map<String, String> hashByText = new HashMap<>();
+        Map<String, BlobRow> rows = new LinkedHashMap<>();
+        for (String text : texts) {
+            if (text == null || hashByText.containsKey(text)) continue;
+            byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+            String hash = sha256Hex(raw);
+            hashByText.put(text, hash);
+            rows.putIfAbsent(hash, encode(hash, raw));
+        }
+        // Luôn INSERT, không dựa vào cache: transaction ghi trước đó có thể đã rollback
+        blobRepository.insertIgnore(rows.values());
+        hashByText.forEach((text, hash) -> cache.put(hash, text));
+        return hashByText;
+    }
+
+    public String load(String hash) {
+        if (hash == null) return null;
+        return loadAll(List.of(hash)).get(hash);
+    }
+
+    /**
+     * @return hash -> nội dung; hash không tồn tại sẽ không có trong kết quả
+     */
+    public Map<String, String> loadAll(Collection<String> hashes) {
+        Map<String, String> result = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String hash : hashes) {
+            if (hash == null) continue;
+            String cached = cache.getIfPresent(hash);
+            if (cached != null) {
+                result.put(hash, cached);
+            } else {
+                missing.add(hash);
+            }
+        }
+        if (missing.isEmpty()) return result;
+
+        for (BlobRow row : blobRepository.findByHashes(missing)) {
+            String text = decode(row);
+            cache.put(row.hash(), text);
+            result.put(row.hash(), text);
+        }
+        missing.removeIf(result::containsKey);
+        if (!missing.isEmpty()) {
+            log.error("Submission blobs not found: {}", missing);
+        }
+        return result;
+    }
+
+    /**
+     * Source code của các submission (id -> source) để dựng lại payload chấm. Dòng chưa được backfill
+     * (source_hash NULL) đọc từ cột source_code cũ; submission không tìm được source sẽ không có trong kết quả.
+     */
+    public Map<UUID, String> loadSources(Collection<Submission> submissions) {
+        Map<String, String> byHash = loadAll(submissions.stream().map(Submission::getSourceHash).toList());
+        Map<UUID, String> result = new HashMap<>();
+        List<UUID> legacyIds = new ArrayList<>();
+        for (Submission submission : submissions) {
+            if (submission.getSourceHash() == null) {
+                legacyIds.add(submission.getId());
+            } else if (byHash.containsKey(submission.getSourceHash())) {
+                result.put(submission.getId(), byHash.get(submission.getSourceHash()));
+            }
+        }
+        if (!legacyIds.isEmpty()) {
+            try {
+                result.putAll(blobRepository.findLegacySources(legacyIds));
+            } catch (DataAccessException e) {
+                // Cột cũ đã bị xoá mà vẫn còn dòng chưa có hash: không còn nguồn nào để đọc
+                log.error("Legacy source column unavailable for {} submissions: {}", legacyIds.size(), e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Source / log lỗi ở 2 cột cũ của 1 submission chưa được backfill (source_hash NULL). Dòng đã backfill thì
+     * 2 cột này đã bị xoá, nội dung đọc theo hash.
+     */
+    public Optional<LegacyContentRow> loadLegacyContent(UUID submissionId) {
+        try {
+            return blobRepository.findLegacyContent(submissionId);
+        } catch (DataAccessException e) {
+            log.error("Legacy content columns unavailable for submission {}: {}", submissionId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // ===== Nén / giải nén =====
+    private static BlobRow encode(String hash, byte[] raw) {
+        if (raw.length >= MIN_COMPRESS_BYTES) {
+            byte[] compressed = deflate(raw);
+            if (compressed.length < raw.length) {
+                return new BlobRow(hash, CODEC_DEFLATE, raw.length, compressed);
+            }
+        }
+        return new BlobRow(hash, CODEC_RAW, raw.length, raw);
+    }
+
+    private static String decode(BlobRow row) {
+        byte[] raw = row.codec() == CODEC_DEFLATE ? inflate(row.content(), row.rawSize()) : row.content();
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawSize];
+            int offset = 0;
+            while (offset < rawSize && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawSize - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                offset += n;
+            }
+            if (offset != rawSize) {
+                throw new IllegalStateException("Corrupted submission blob: expected " + rawSize + " bytes, got " + offset);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted submission blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String sha256Hex(byte[] raw) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
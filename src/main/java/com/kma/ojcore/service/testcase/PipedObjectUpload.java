@@ -0,0 +1,124 @@
+package com.kma.ojcore.service.testcase;
+
+import com.kma.ojcore.exception.BusinessException;
+import com.kma.ojcore.exception.ErrorCode;
+import com.kma.ojcore.service.FileStorageService;
+
+import java.io.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Upload 1 object lên storage song song với việc đọc dữ liệu: ghi vào {@link #sink()}, một thread khác đọc đầu
+ * kia của pipe và đẩy lên theo multipart.
+ * <ul>
+ *   <li>{@link #complete()}: đóng pipe bình thường -> upload hoàn tất, chờ xong.</li>
+ *   <li>{@link #close()} khi chưa complete (vd. archive không hợp lệ): đầu đọc nhận IOException thay vì EOF,
+ *       multipart bị huỷ nên object đang có trên storage không bị ghi đè bởi bản dở dang.</li>
+ * </ul>
+ */
+public class PipedObjectUpload implements Closeable {
+
+    private final PipedOutputStream pipeOut;
+    private final CompletableFuture<Void> upload;
+    private final OutputStream sink;
+    private volatile boolean aborted;
+    private boolean done;
+
+    public PipedObjectUpload(FileStorageService storage, Executor executor, int pipeBufferSize,
+                             String bucketName, String objectName, String contentType) throws IOException {
+        PipedInputStream pipeIn = new PipedInputStream(pipeBufferSize);
+        this.pipeOut = new PipedOutputStream(pipeIn);
+        InputStream source = new FilterInputStream(pipeIn) {
+            @Override
+            public int read() throws IOException {
+                return checkEof(super.read());
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return checkEof(super.read(b, off, len));
+            }
+
+            private int checkEof(int n) throws IOException {
+                if (n == -1 && aborted) {
+                    throw new IOException("Upload of " + objectName + " aborted");
+                }
+                return n;
+            }
+        };
+        this.upload = CompletableFuture.runAsync(() -> {
+            // Đóng đầu đọc khi upload dừng (kể cả lỗi) để bên ghi không bị treo vì pipe đầy
+            try (source) {
+                storage.uploadStream(bucketName, objectName, source, contentType);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+        this.sink = new FilterOutputStream(pipeOut) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    pipeOut.write(b, off, len);
+                } catch (IOException e) {
+                    throw uploadFailure(e);
+                }
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void close() {
+                // Đóng pipe chỉ qua complete() / PipedObjectUpload.close()
+            }
+        };
+    }
+
+    public OutputStream sink() {
+        return sink;
+    }
+
+    public void complete() throws IOException {
+        done = true;
+        pipeOut.close();
+        await();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (done) return;
+        done = true;
+        aborted = true;
+        pipeOut.close();
+        try {
+            upload.join();
+        } catch (CompletionException ignored) {
+            // Upload bị huỷ là điều mong muốn ở đây
+        }
+    }
+
+    private void await() {
+        try {
+            upload.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BusinessException be) throw be;
+            throw new BusinessException(ErrorCode.FILE_UPLOAD_FAILED, "Failed to upload file to storage.");
+        }
+    }
+
+    // Pipe bị đóng từ phía đọc = upload đã lỗi; báo lỗi của upload thay cho "Pipe closed"
+    private RuntimeException uploadFailure(IOException pipeError) {
+        done = true;
+        try {
+            pipeOut.close();
+            await();
+        } catch (IOException ignored) {
+            // pipe đã hỏng, lỗi thật nằm ở upload
+        }
+        return new BusinessException(ErrorCode.FILE_UPLOAD_FAILED, "Failed to upload file to storage: " + pipeError.getMessage());
+    }
+}
@@ -0,0 +1,373 @@
+package com.kma.ojcore.service.testcase;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Tính strippedOutputMd5 của file output theo kiểu streaming: ghi byte vào dần, gọi {@link #hex()} ở cuối.
+ * Cho kết quả giống hệt cách cũ
+ * {@code md5(new String(out).replaceAll("(?m)[ \\t]+$", "").replace("\r\n", "\n").trim())}
+ * nhưng làm thẳng trên byte, 1 lượt, buffer cố định:
+ * <ul>
+ *   <li>Đoạn ASCII có nghĩa liên tiếp được đẩy thẳng vào MD5 từ mảng đầu vào, không copy.</li>
+ *   <li>Khoảng trắng ở giữa (xuống dòng, space chưa biết có phải cuối dòng không) giữ dạng run-length,
+ *       nên 1 đoạn rất dài toàn dòng trống cũng chỉ tốn vài phần tử.</li>
+ *   <li>Ký tự nhiều byte được kiểm tra đúng chuẩn UTF-8. Gặp byte sai chuẩn (bản cũ sẽ thay bằng U+FFFD khi
+ *       decode) thì phần còn lại chuyển sang decode bằng CharsetDecoder để vẫn ra đúng checksum cũ.</li>
+ * </ul>
+ */
+public class StrippedOutputMd5 extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final MessageDigest md5 = DigestUtils.getMd5Digest();
+    private final byte[] outBuffer = new byte[BUFFER_SIZE];
+    private int outLength;
+
+    // Đã gặp ký tự có nghĩa đầu tiên chưa (trim đầu)
+    private boolean started;
+    // Khoảng trắng kể từ ký tự có nghĩa gần nhất, chỉ ghi ra nếu phía sau còn ký tự có nghĩa (trim cuối)
+    private final Runs pending = new Runs();
+    // Space/tab cuối cùng, bị bỏ nếu ngay sau là xuống dòng ("(?m)[ \t]+$")
+    private final Runs spaceTail = new Runs();
+
+    // Ký tự nhiều byte đang đọc dở
+    private final byte[] sequence = new byte[4];
+    private int sequenceLength;
+    private int sequenceExpected;
+
+    // != null: đã gặp UTF-8 sai chuẩn, phần còn lại đi qua decoder
+    private CharsetDecoder decoder;
+    private ByteBuffer decoderIn;
+    private CharBuffer decoderOut;
+    private char highSurrogate;
+
+    private String result;
+
+    /**
+     * Tiện ích: đọc hết stream (không đóng) và trả về MD5.
+     */
+    public static String of(InputStream in) throws IOException {
+        StrippedOutputMd5 digest = new StrippedOutputMd5();
+        in.transferTo(digest);
+        return digest.hex();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (result != null) {
+            throw new IOException("Digest already computed");
+        }
+        if (decoder != null) {
+            decodeFallback(b, off, len, false);
+            return;
+        }
+
+        int end = off + len;
+        int runStart = -1; // Đầu đoạn ASCII có nghĩa đang đọc, ghi cả đoạn 1 lần
+        for (int i = off; i < end; i++) {
+            int v = b[i] & 0xFF;
+            if (v > 0x20 && v < 0x80 && sequenceLength == 0) {
+                if (runStart < 0) {
+                    beginSignificant(false);
+                    runStart = i;
+                }
+                continue;
+            }
+            if (runStart >= 0) {
+                output(b, runStart, i - runStart);
+                runStart = -1;
+            }
+            if (sequenceLength > 0 || v >= 0x80) {
+                if (!acceptSequenceByte(v)) {
+                    // Byte sai chuẩn: chuyển sang decoder từ đầu ký tự đang dở
+                    startFallback();
+                    decodeFallback(sequence, 0, sequenceLength, false);
+                    sequenceLength = 0;
+                    decodeFallback(b, i, end - i, false);
+                    return;
+                }
+            } else {
+                acceptWhitespace(v);
+            }
+        }
+        if (runStart >= 0) {
+            output(b, runStart, end - runStart);
+        }
+    }
+
+    /**
+     * Kết thúc input và trả về MD5 (hex). Gọi lại nhiều lần trả cùng kết quả.
+     */
+    public String hex() throws IOException {
+        if (result == null) {
+            if (decoder == null && sequenceLength > 0) {
+                // Ký tự nhiều byte bị cụt ở cuối file
+                startFallback();
+                decodeFallback(sequence, 0, sequenceLength, false);
+            }
+            if (decoder != null) {
+                decodeFallback(new byte[0], 0, 0, true);
+                decoderOut.clear();
+                decoder.flush(decoderOut);
+                drainDecoded();
+                if (highSurrogate != 0) {
+                    output('?');
+                }
+            }
+            flushOut();
+            result = Hex.encodeHexString(md5.digest());
+        }
+        return result;
+    }
+
+    // ===== Xử lý khoảng trắng / ký tự có nghĩa (dùng chung cho byte và char) =====
+
+    private void acceptWhitespace(int c) {
+        if (c == ' ' || c == '\t') {
+            spaceTail.add(c, 1);
+            return;
+        }
+        if (c == '\r' || c == '\n') {
+            spaceTail.clear();
+            if (c == '\n' && pending.lastIs('\r')) {
+                pending.removeOne(); // "\r\n" -> "\n"
+            }
+            pending.add(c, 1);
+            return;
+        }
+        // Ký tự điều khiển khác (\f, \0...): không phải cuối dòng nên space trước nó được giữ
+        pending.addAll(spaceTail);
+        spaceTail.clear();
+        pending.add(c, 1);
+    }
+
+    /**
+     * Sắp ghi 1 ký tự có nghĩa: khoảng trắng trước nó không còn là phần cuối file nữa.
+     *
+     * @param lineTerminator NEL / LS / PS: vẫn là line terminator với "$" nên space ngay trước bị bỏ
+     */
+    private void beginSignificant(boolean lineTerminator) {
+        if (!lineTerminator) {
+            pending.addAll(spaceTail);
+        }
+        spaceTail.clear();
+        if (started) {
+            pending.writeTo(this);
+        }
+        pending.clear();
+        started = true;
+    }
+
+    // ===== UTF-8 nhiều byte (bảng well-formed của Unicode, giống điều kiện decoder Java coi là hợp lệ) =====
+
+    private boolean acceptSequenceByte(int v) {
+        if (sequenceLength == 0) {
+            if (v >= 0xC2 && v <= 0xDF) sequenceExpected = 2;
+            else if (v >= 0xE0 && v <= 0xEF) sequenceExpected = 3;
+            else if (v >= 0xF0 && v <= 0xF4) sequenceExpected = 4;
+            else return false;
+            sequence[sequenceLength++] = (byte) v;
+            return true;
+        }
+
+        int lead = sequence[0] & 0xFF;
+        int min = 0x80;
+        int max = 0xBF;
+        if (sequenceLength == 1) {
+            if (lead == 0xE0) min = 0xA0;
+            else if (lead == 0xED) max = 0x9F;
+            else if (lead == 0xF0) min = 0x90;
+            else if (lead == 0xF4) max = 0x8F;
+        }
+        if (v < min || v > max) {
+            return false;
+        }
+        sequence[sequenceLength++] = (byte) v;
+        if (sequenceLength == sequenceExpected) {
+            beginSignificant(isUnicodeLineTerminator());
+            output(sequence, 0, sequenceLength);
+            sequenceLength = 0;
+        }
+        return true;
+    }
+
+    // U+0085 = C2 85, U+2028 = E2 80 A8, U+2029 = E2 80 A9
+    private boolean isUnicodeLineTerminator() {
+        int b0 = sequence[0] & 0xFF;
+        if (sequenceLength == 2) {
+            return b0 == 0xC2 && (sequence[1] & 0xFF) == 0x85;
+        }
+        if (sequenceLength == 3 && b0 == 0xE2 && (sequence[1] & 0xFF) == 0x80) {
+            int b2 = sequence[2] & 0xFF;
+            return b2 == 0xA8 || b2 == 0xA9;
+        }
+        return false;
+    }
+
+    // ===== Nhánh dự phòng cho UTF-8 sai chuẩn =====
+
+    private void startFallback() {
+        // new String(bytes, UTF_8) thay byte lỗi bằng U+FFFD, decoder phải làm giống vậy
+        decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        decoderIn = ByteBuffer.allocate(BUFFER_SIZE);
+        decoderOut = CharBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private void decodeFallback(byte[] b, int off, int len, boolean endOfInput) {
+        do {
+            int n = Math.min(len, decoderIn.remaining());
+            decoderIn.put(b, off, n);
+            off += n;
+            len -= n;
+            decoderIn.flip();
+            while (true) {
+                decoderOut.clear();
+                boolean overflow = decoder.decode(decoderIn, decoderOut, endOfInput && len == 0).isOverflow();
+                drainDecoded();
+                if (!overflow) break;
+            }
+            decoderIn.compact();
+        } while (len > 0);
+    }
+
+    private void drainDecoded() {
+        decoderOut.flip();
+        while (decoderOut.hasRemaining()) {
+            acceptChar(decoderOut.get());
+        }
+    }
+
+    private void acceptChar(char c) {
+        if (highSurrogate != 0 && !Character.isLowSurrogate(c)) {
+            output('?'); // Surrogate lẻ, String.getBytes cũng ghi '?'
+            highSurrogate = 0;
+        }
+        if (c <= 0x20) {
+            acceptWhitespace(c);
+            return;
+        }
+        if (Character.isLowSurrogate(c) && highSurrogate != 0) {
+            outputCodePoint(Character.toCodePoint(highSurrogate, c));
+            highSurrogate = 0;
+            return;
+        }
+        beginSignificant(c == '\u0085' || c == '\u2028' || c == '\u2029');
+        if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            output('?');
+        } else {
+            outputCodePoint(c);
+        }
+    }
+
+    private void outputCodePoint(int cp) {
+        if (cp < 0x80) {
+            output(cp);
+        } else if (cp < 0x800) {
+            output(0xC0 | (cp >> 6));
+            output(0x80 | (cp & 0x3F));
+        } else if (cp < 0x10000) {
+            output(0xE0 | (cp >> 12));
+            output(0x80 | ((cp >> 6) & 0x3F));
+            output(0x80 | (cp & 0x3F));
+        } else {
+            output(0xF0 | (cp >> 18));
+            output(0x80 | ((cp >> 12) & 0x3F));
+            output(0x80 | ((cp >> 6) & 0x3F));
+            output(0x80 | (cp & 0x3F));
+        }
+    }
+
+    // ===== Ghi vào MD5 =====
+
+    private void output(int b) {
+        if (outLength == outBuffer.length) {
+            flushOut();
+        }
+        outBuffer[outLength++] = (byte) b;
+    }
+
+    private void output(byte[] b, int off, int len) {
+        if (len > outBuffer.length - outLength) {
+            flushOut();
+            md5.update(b, off, len);
+            return;
+        }
+        System.arraycopy(b, off, outBuffer, outLength, len);
+        outLength += len;
+    }
+
+    private void flushOut() {
+        md5.update(outBuffer, 0, outLength);
+        outLength = 0;
+    }
+
+    // Dãy ký tự điều khiển / khoảng trắng dạng run-length: (ký tự, số lần lặp)
+    private static final class Runs {
+        private byte[] chars = new byte[8];
+        private long[] counts = new long[8];
+        private int size;
+
+        void add(int c, long count) {
+            if (size > 0 && chars[size - 1] == (byte) c) {
+                counts[size - 1] += count;
+                return;
+            }
+            if (size == chars.length) {
+                chars = Arrays.copyOf(chars, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            chars[size] = (byte) c;
+            counts[size] = count;
+            size++;
+        }
+
+        void addAll(Runs other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.chars[i], other.counts[i]);
+            }
+        }
+
+        boolean lastIs(int c) {
+            return size > 0 && chars[size - 1] == (byte) c;
+        }
+
+        void removeOne() {
+            if (--counts[size - 1] == 0) {
+                size--;
+            }
+        }
+
+        void writeTo(StrippedOutputMd5 target) {
+            for (int i = 0; i < size; i++) {
+                for (long k = 0; k < counts[i]; k++) {
+                    target.output(chars[i]);
+                }
+            }
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.kma.ojcore.service.testcase;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kma.ojcore.exception.BusinessException;
+import com.kma.ojcore.exception.ErrorCode;
+import com.kma.ojcore.service.FileStorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kho file .in / .out dùng chung cho mọi bài, khoá theo SHA-256 nội dung:
+ * {@code <bucket-testcase>/<prefix-testcase-blob>/<2 ký tự đầu>/<sha256>}.
+ * <ul>
+ *   <li>info.json của từng bài là manifest trỏ tới các hash này, máy chấm cache file theo hash.</li>
+ *   <li>Upload lại bộ test chỉ đẩy những file chưa có (của bài này hay bài khác đều được).</li>
+ *   <li>Object bất biến nên hash đã thấy trên storage được nhớ trong RAM, lần sau khỏi stat lại.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TestcaseBlobStore {
+
+    private final FileStorageService storage;
+
+    @Value("${oj.storage.minio.bucket-testcase}")
+    private String bucket;
+
+    @Value("${oj.storage.minio.prefix-testcase-blob}")
+    private String blobPrefix;
+
+    @Value("${oj.testcase.upload-parallelism}")
+    private int uploadParallelism;
+
+    // Hash đã chắc chắn có trên storage
+    private final Cache<String, Boolean> knownBlobs = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        uploadExecutor = Executors.newFixedThreadPool(uploadParallelism, r -> {
+            Thread t = new Thread(r, "testcase-blob-upload-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    public String getBlobPrefix() {
+        return blobPrefix;
+    }
+
+    public String objectKey(String sha256) {
+        return blobPrefix + "/" + sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    /**
+     * Upload song song các file chưa có trên storage.
+     *
+     * @param fileByHash sha256 -> file tạm chứa nội dung
+     * @return số file thật sự được upload
+     */
+    public int uploadMissing(Map<String, Path> fileByHash) {
+        AtomicInteger uploaded = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(fileByHash.size());
+        fileByHash.forEach((hash, file) -> tasks.add(CompletableFuture.runAsync(() -> {
+            if (knownBlobs.getIfPresent(hash) != null) return;
+            String key = objectKey(hash);
+            if (!storage.exists(bucket, key)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    storage.upload(bucket, key, in, Files.size(file), "application/octet-stream");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                uploaded.incrementAndGet();
+            }
+            knownBlobs.put(hash, Boolean.TRUE);
+        }, uploadExecutor)));
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BusinessException be) throw be;
+            log.error("Failed to upload testcase blobs", e.getCause());
+            throw new BusinessException(ErrorCode.FILE_UPLOAD_FAILED, "Failed to upload testcases to storage.");
+        }
+        return uploaded.get();
+    }
+}
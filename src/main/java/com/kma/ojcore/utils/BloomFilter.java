@@ -0,0 +1,78 @@
+package com.kma.ojcore.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter tối giản, thread-safe cho chuỗi (jti, hash token...).
+ * Chỉ hỗ trợ thêm và kiểm tra: muốn "xoá" thì dựng filter mới và thay thế cả cụm.
+ * {@link #mightContain} = false nghĩa là chắc chắn chưa từng được thêm; true thì có thể là dương tính giả (~fpp).
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions số phần tử dự kiến
+     * @param fpp                tỉ lệ dương tính giả mong muốn (0 < fpp < 1)
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(fpp, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, ((m + 63) / 64) * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    public void put(String value) {
+        long hash64 = hash(value);
+        int h1 = (int) hash64;
+        int h2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = indexOf(h1 + i * h2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) break;
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash64 = hash(value);
+        int h1 = (int) hash64;
+        int h2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = indexOf(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long indexOf(int combinedHash) {
+        // Double hashing (Kirsch-Mitzenmacher); bỏ bit dấu để index luôn dương
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    // FNV-1a 64 bit + bước trộn của SplitMix64 để 2 nửa 32 bit đủ độc lập
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85e53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,80 @@
+package com.kma.ojcore.utils;
+
+import com.kma.ojcore.exception.BusinessException;
+import com.kma.ojcore.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Mã hoá cursor cho phân trang keyset: client chỉ nhận 1 chuỗi mờ (opaque) và gửi lại nguyên vẹn.
+ * <p>
+ * Dạng: {@code <kind>.<part1>.<part2>...}, mỗi phần là Base64 URL-safe của giá trị dạng chuỗi.
+ * {@code kind} chặn việc dùng cursor của danh sách này cho danh sách khác.
+ */
+public class CursorCodec {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    public static int validateSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return size;
+    }
+
+    public static String encode(String kind, Object... parts) {
+        StringBuilder sb = new StringBuilder(kind);
+        for (Object part : parts) {
+            sb.append('.').append(ENCODER.encodeToString(String.valueOf(part).getBytes(StandardCharsets.UTF_8)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return các phần đã giải mã, hoặc null nếu cursor rỗng (trang đầu)
+     * @throws BusinessException cursor sai định dạng hoặc không thuộc loại {@code kind}
+     */
+    public static String[] decode(String cursor, String kind, int partCount) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] tokens = cursor.split("\\.", -1);
+        if (tokens.length != partCount + 1 || !tokens[0].equals(kind)) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Invalid cursor.");
+        }
+        try {
+            String[] parts = new String[partCount];
+            for (int i = 0; i < partCount; i++) {
+                parts[i] = new String(DECODER.decode(tokens[i + 1]), StandardCharsets.UTF_8);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Invalid cursor.");
+        }
+    }
+
+    // ===== Khoá (created_date, id): submission, thí sinh contest =====
+    public record TimeIdKey(LocalDateTime createdDate, UUID id) {
+    }
+
+    public static String encodeTimeId(String kind, LocalDateTime createdDate, UUID id) {
+        return encode(kind, createdDate, id);
+    }
+
+    public static TimeIdKey decodeTimeId(String cursor, String kind) {
+        String[] parts = decode(cursor, kind, 2);
+        if (parts == null) return null;
+        try {
+            return new TimeIdKey(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.kma.ojcore.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Cây tìm kiếm cân bằng (treap) có lưu kích thước cây con: thêm / xoá / đếm số phần tử đứng trước /
+ * lấy đoạn [offset, offset + limit) đều O(log n) (đoạn thì cộng thêm limit).
+ * <p>
+ * Comparator phải phân biệt được mọi phần tử (không có 2 phần tử bằng nhau). Không thread-safe.
+ */
+public class OrderStatisticTree<T> {
+
+    private static final class Node<T> {
+        final T value;
+        final int priority;
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<T> root;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public void add(T value) {
+        Node<T>[] parts = split(root, value, false);
+        root = merge(merge(parts[0], new Node<>(value, random.nextInt())), parts[1]);
+    }
+
+    public boolean remove(T value) {
+        Node<T>[] lower = split(root, value, false);
+        Node<T>[] upper = split(lower[1], value, true);
+        root = merge(lower[0], upper[1]);
+        return upper[0] != null;
+    }
+
+    /**
+     * Số phần tử đứng trước {@code probe} theo {@code order}, với {@code order} là thứ tự thô hơn (tiền tố)
+     * của comparator của cây. VD đếm số người có khoá xếp hạng tốt hơn hẳn -> hạng = kết quả + 1.
+     */
+    public int countBefore(T probe, Comparator<? super T> order) {
+        int count = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (order.compare(node.value, probe) < 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    public List<T> range(int offset, int limit) {
+        List<T> out = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        collect(root, offset, limit, out);
+        return out;
+    }
+
+    private void collect(Node<T> node, int offset, int limit, List<T> out) {
+        if (node == null || out.size() >= limit) return;
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, out);
+        }
+        if (out.size() >= limit) return;
+        if (offset <= leftSize) {
+            out.add(node.value);
+        }
+        collect(node.right, Math.max(0, offset - leftSize - 1), limit, out);
+    }
+
+    // Tách thành [< value, >= value] (inclusive = false) hoặc [<= value, > value] (inclusive = true)
+    @SuppressWarnings("unchecked")
+    private Node<T>[] split(Node<T> node, T value, boolean inclusive) {
+        if (node == null) return new Node[]{null, null};
+        int cmp = comparator.compare(node.value, value);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Node<T>[] parts = split(node.right, value, inclusive);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node<T>[] parts = split(node.left, value, inclusive);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    private Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static void update(Node<?> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
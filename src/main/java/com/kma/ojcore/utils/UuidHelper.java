@@ -2,9 +2,17 @@ package com.kma.ojcore.utils;
 
 import java.nio.ByteBuffer;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class UuidHelper {
 
+    private static final long SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // 48 bit unix millis << 12 | 12 bit sequence của UUID cuối cùng được sinh ra
+    private static final AtomicLong LAST_TIMESTAMP_AND_SEQUENCE = new AtomicLong();
+
     /**
      * Converts a 16-byte array into a standard UUID object.
      * Prevents the issue with UUID.nameUUIDFromBytes which generates a VERSION 3 UUID instead of restoring the original bits.
@@ -21,4 +29,60 @@ public class UuidHelper {
         long low = bb.getLong();
         return new UUID(high, low);
     }
+
+    /**
+     * Converts a UUID into the 16-byte BINARY(16) representation used by Hibernate for MySQL.
+     * Needed when binding UUID parameters in plain JDBC statements.
+     *
+     * @param uuid UUID value
+     * @return 16-byte array, or null if uuid is null
+     */
+    public static byte[] toBytes(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Generates a time-ordered UUIDv7 (RFC 9562).
+     * Layout: 48 bit unix_ts_ms | ver(7) | 12 bit rand_a | var(10) | 62 bit rand_b.
+     * rand_a is used as a monotonic sequence (RFC 9562 method 1), so UUIDs generated by this JVM are strictly
+     * increasing even within the same millisecond or when the clock steps backwards.
+     *
+     * @return new UUIDv7
+     */
+    public static UUID generateV7() {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        long next;
+        long last;
+        do {
+            last = LAST_TIMESTAMP_AND_SEQUENCE.get();
+            // Cùng ms (hoặc đồng hồ lùi) -> tăng sequence, tràn sequence thì mượn sang ms kế tiếp
+            next = Math.max(now, last + 1);
+        } while (!LAST_TIMESTAMP_AND_SEQUENCE.compareAndSet(last, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+
+        long msb = (timestamp << 16) | (0x7L << 12) | sequence;
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Extracts the creation time (unix millis) embedded in a UUIDv7.
+     *
+     * @param uuid UUIDv7 value
+     * @return unix timestamp in milliseconds, or null if the UUID is not version 7
+     */
+    public static Long getTimestampMillis(UUID uuid) {
+        if (uuid == null || uuid.version() != 7) {
+            return null;
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
 }